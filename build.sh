@@ -5,6 +5,7 @@ set -euo pipefail
 BUILD_DIR=build_tmp
 BUILD_LIB_DIR=${BUILD_DIR}/lib
 BUILD_MAIN_CLASSES=${BUILD_DIR}/main/classes
+BUILD_JAVA9_CLASSES=${BUILD_DIR}/java9/classes
 BUILD_TEST_CLASSES=${BUILD_DIR}/test/classes
 BUILD_PERF_CLASSES=${BUILD_DIR}/perf/classes
 
@@ -26,6 +27,7 @@ function create_build()
 {
     create_dir ${BUILD_LIB_DIR}
     create_dir ${BUILD_MAIN_CLASSES}
+    create_dir ${BUILD_JAVA9_CLASSES}
     create_dir ${BUILD_TEST_CLASSES}
     create_dir ${BUILD_PERF_CLASSES}
 }
@@ -33,6 +35,7 @@ function create_build()
 function clean_classes()
 {
     rm -rf ${BUILD_MAIN_CLASSES}/*
+    rm -rf ${BUILD_JAVA9_CLASSES}/*
     rm -rf ${BUILD_TEST_CLASSES}/*
     rm -rf ${BUILD_PERF_CLASSES}/*
 }
@@ -78,6 +81,19 @@ function main_compile()
     compile 'src/main/java' ${compile_file} ${BUILD_MAIN_CLASSES}
 }
 
+function java9_compile()
+{
+    # the Java 9 versions of classes are only compiled when a JDK 9 or later is given in JAVA9_HOME
+    if [ -z ${JAVA9_HOME+x} ]; then
+        return 0
+    fi
+    local compile_file=${BUILD_DIR}/src.java9.java.txt
+    rm -f ${compile_file}
+    echo "-cp ${BUILD_MAIN_CLASSES}" >> ${compile_file}
+    find 'src/main/java9' -name '*.java' >> ${compile_file}
+    ${JAVA9_HOME}/bin/javac --release 9 -g -d ${BUILD_JAVA9_CLASSES} @${compile_file}
+}
+
 function test_compile()
 {
     local compile_file=${BUILD_DIR}/src.test.java.txt
@@ -107,6 +123,7 @@ create_build &&
 download_dependencies &&
 clean_classes &&
 main_compile &&
+java9_compile &&
 test_compile &&
 perf_compile &&
 run_tests
\ No newline at end of file
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.MultiProducerSequencer;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.jmh.support.LongEvent;
+
+/**
+ * Cost of the slot availability checks of a {@link MultiProducerSequencer} and of reading entries from a
+ * {@link RingBuffer}, the accesses moved from <code>sun.misc.Unsafe</code> to VarHandles and plain array reads
+ * in the Java 9 build.  Every slot is published once, so the checks always succeed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class AvailabilityBenchmark
+{
+    private static final int BUFFER_SIZE = 1024;
+
+    @Param({"PER_SLOT", "PACKED"})
+    public MultiProducerSequencer.AvailabilityMode availabilityMode;
+
+    @Param({"1", "64"})
+    public int range;
+
+    private MultiProducerSequencer sequencer;
+    private RingBuffer<LongEvent> ringBuffer;
+    private long sequence;
+
+    @Setup
+    public void setup()
+    {
+        sequencer = new MultiProducerSequencer(BUFFER_SIZE, new BusySpinWaitStrategy(), availabilityMode);
+        final long hi = sequencer.next(BUFFER_SIZE);
+        sequencer.publish(hi - (BUFFER_SIZE - 1), hi);
+
+        ringBuffer = RingBuffer.createMultiProducer(LongEvent.FACTORY, BUFFER_SIZE, new BusySpinWaitStrategy());
+        for (int i = 0; i < BUFFER_SIZE; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).set(i);
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    @Benchmark
+    public boolean isAvailable()
+    {
+        return sequencer.isAvailable(nextSequence());
+    }
+
+    @Benchmark
+    public long getHighestPublishedSequence()
+    {
+        final long lo = nextSequence() & ~(range - 1L);
+        return sequencer.getHighestPublishedSequence(lo, lo + range - 1L);
+    }
+
+    @Benchmark
+    public long readEntry()
+    {
+        return ringBuffer.get(nextSequence()).get();
+    }
+
+    private long nextSequence()
+    {
+        sequence = (sequence + 1L) & (BUFFER_SIZE - 1);
+        return sequence;
+    }
+}
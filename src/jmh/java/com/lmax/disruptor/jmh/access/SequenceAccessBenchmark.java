@@ -0,0 +1,101 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.access;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.Sequence;
+
+/**
+ * Cost of each access to a {@link Sequence}, on its own and with one thread writing while another reads, to compare
+ * the <code>sun.misc.Unsafe</code> and VarHandle builds.  Run on Java 8 and on Java 9 or later against the
+ * multi-release jar, e.g. <code>gradle jmh -PjmhJar -PjmhInclude=SequenceAccessBenchmark</code>.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SequenceAccessBenchmark
+{
+    private final Sequence sequence = new Sequence();
+    private long value;
+
+    @Benchmark
+    @Group("get")
+    public long get()
+    {
+        return sequence.get();
+    }
+
+    @Benchmark
+    @Group("set")
+    public void set()
+    {
+        sequence.set(++value);
+    }
+
+    @Benchmark
+    @Group("setVolatile")
+    public void setVolatile()
+    {
+        sequence.setVolatile(++value);
+    }
+
+    @Benchmark
+    @Group("incrementAndGet")
+    public long incrementAndGet()
+    {
+        return sequence.incrementAndGet();
+    }
+
+    @Benchmark
+    @Group("compareAndSet")
+    public boolean compareAndSet()
+    {
+        final long current = sequence.get();
+        return sequence.compareAndSet(current, current + 1L);
+    }
+
+    @Benchmark
+    @Group("publishAndFollow")
+    @GroupThreads(1)
+    public void publish()
+    {
+        sequence.set(++value);
+    }
+
+    @Benchmark
+    @Group("publishAndFollow")
+    @GroupThreads(1)
+    public long follow()
+    {
+        return sequence.get();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.queue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.jmh.support.QueueConsumer;
+import com.lmax.disruptor.jmh.support.QueueType;
+
+/**
+ * Baseline of one producer handing values to one consumer thread through a JDK {@link BlockingQueue}, for
+ * comparison with {@link com.lmax.disruptor.jmh.sequenced.OneToOneSequencedBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class OneToOneQueueBenchmark
+{
+    @Param({"ARRAY", "LINKED", "RING_BUFFER"})
+    public QueueType queueType;
+
+    @Param({"1024", "65536"})
+    public int capacity;
+
+    private BlockingQueue<Long> queue;
+    private QueueConsumer consumer;
+    private long value;
+
+    @Setup
+    public void setup()
+    {
+        queue = queueType.create(capacity);
+        consumer = new QueueConsumer(queue, null);
+        consumer.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        consumer.halt();
+    }
+
+    @Benchmark
+    public long put() throws InterruptedException
+    {
+        queue.put(Long.valueOf(++value));
+
+        return value;
+    }
+}
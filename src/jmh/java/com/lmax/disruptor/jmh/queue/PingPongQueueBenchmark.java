@@ -0,0 +1,83 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.queue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.jmh.support.QueueConsumer;
+import com.lmax.disruptor.jmh.support.QueueType;
+
+/**
+ * Round trip latency of a value put on a ping queue, passed on to a pong queue by a consumer thread and taken
+ * back by the publishing thread, for comparison with {@link com.lmax.disruptor.jmh.sequenced.PingPongSequencedBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class PingPongQueueBenchmark
+{
+    private static final int CAPACITY = 1024;
+
+    @Param({"ARRAY", "LINKED", "RING_BUFFER"})
+    public QueueType queueType;
+
+    private BlockingQueue<Long> ping;
+    private BlockingQueue<Long> pong;
+    private QueueConsumer echo;
+    private long value;
+
+    @Setup
+    public void setup()
+    {
+        ping = queueType.create(CAPACITY);
+        pong = queueType.create(CAPACITY);
+        echo = new QueueConsumer(ping, pong);
+        echo.start();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        echo.halt();
+    }
+
+    @Benchmark
+    public long roundTrip() throws InterruptedException
+    {
+        ping.put(Long.valueOf(++value));
+
+        return pong.take().longValue();
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.raw;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.MultiProducerSequencer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleProducerSequencer;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.jmh.support.ProcessorThreads;
+import com.lmax.disruptor.jmh.support.WaitStrategyType;
+
+/**
+ * One producer claiming and publishing sequences directly on a {@link Sequencer}, with a consumer that only
+ * follows the cursor, measuring the cost of the sequencing alone.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class OneToOneRawBenchmark
+{
+    @Param({"SINGLE", "MULTI"})
+    public ProducerType producerType;
+
+    @Param({"1024", "65536"})
+    public int bufferSize;
+
+    @Param({"BUSY_SPIN", "YIELDING", "BLOCKING"})
+    public WaitStrategyType waitStrategy;
+
+    @Param({"1", "10"})
+    public int batchSize;
+
+    private final ProcessorThreads processors = new ProcessorThreads();
+    private Sequencer sequencer;
+
+    @Setup
+    public void setup()
+    {
+        sequencer = ProducerType.SINGLE == producerType ?
+            new SingleProducerSequencer(bufferSize, waitStrategy.create()) :
+            new MultiProducerSequencer(bufferSize, waitStrategy.create());
+
+        final SequenceFollower follower = new SequenceFollower(sequencer.newBarrier());
+        sequencer.addGatingSequences(follower.getSequence());
+        processors.start(follower);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        processors.halt();
+    }
+
+    @Benchmark
+    public long publish()
+    {
+        final long hi = sequencer.next(batchSize);
+        sequencer.publish(hi - (batchSize - 1), hi);
+
+        return hi;
+    }
+
+    private static final class SequenceFollower implements EventProcessor
+    {
+        private final AtomicBoolean running = new AtomicBoolean(false);
+        private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+        private final SequenceBarrier barrier;
+
+        SequenceFollower(final SequenceBarrier barrier)
+        {
+            this.barrier = barrier;
+        }
+
+        @Override
+        public Sequence getSequence()
+        {
+            return sequence;
+        }
+
+        @Override
+        public void halt()
+        {
+            running.set(false);
+            barrier.alert();
+        }
+
+        @Override
+        public boolean isRunning()
+        {
+            return running.get();
+        }
+
+        @Override
+        public void run()
+        {
+            running.set(true);
+            barrier.clearAlert();
+            long next = sequence.get() + 1L;
+            while (running.get())
+            {
+                try
+                {
+                    final long available = barrier.waitFor(next);
+                    sequence.set(available);
+                    next = available + 1L;
+                }
+                catch (final AlertException ex)
+                {
+                    // halted
+                }
+                catch (final Exception ex)
+                {
+                    throw new IllegalStateException(ex);
+                }
+            }
+        }
+    }
+}
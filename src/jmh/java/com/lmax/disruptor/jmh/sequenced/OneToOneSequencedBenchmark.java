@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.sequenced;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.jmh.support.LongEvent;
+import com.lmax.disruptor.jmh.support.ProcessorThreads;
+import com.lmax.disruptor.jmh.support.SummingEventHandler;
+import com.lmax.disruptor.jmh.support.WaitStrategyType;
+
+/**
+ * One producer publishing to one {@link BatchEventProcessor} through a single producer ring buffer.
+ * <p>
+ * Each operation claims and publishes a batch of <code>batchSize</code> events, so the score in events is the
+ * score in operations times the batch size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class OneToOneSequencedBenchmark
+{
+    @Param({"1024", "65536"})
+    public int bufferSize;
+
+    @Param({"BUSY_SPIN", "YIELDING", "SLEEPING", "BLOCKING"})
+    public WaitStrategyType waitStrategy;
+
+    @Param({"1", "10"})
+    public int batchSize;
+
+    private final ProcessorThreads processors = new ProcessorThreads();
+    private RingBuffer<LongEvent> ringBuffer;
+
+    @Setup
+    public void setup()
+    {
+        ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, bufferSize, waitStrategy.create());
+        final BatchEventProcessor<LongEvent> processor =
+            new BatchEventProcessor<LongEvent>(ringBuffer, ringBuffer.newBarrier(), new SummingEventHandler());
+        ringBuffer.addGatingSequences(processor.getSequence());
+        processors.start(processor);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        processors.halt();
+    }
+
+    @Benchmark
+    public long publish()
+    {
+        final long hi = ringBuffer.next(batchSize);
+        final long lo = hi - (batchSize - 1);
+        for (long sequence = lo; sequence <= hi; sequence++)
+        {
+            ringBuffer.get(sequence).set(sequence);
+        }
+        ringBuffer.publish(lo, hi);
+
+        return hi;
+    }
+}
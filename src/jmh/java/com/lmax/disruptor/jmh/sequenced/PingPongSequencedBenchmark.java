@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.sequenced;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.jmh.support.LongEvent;
+import com.lmax.disruptor.jmh.support.ProcessorThreads;
+import com.lmax.disruptor.jmh.support.WaitStrategyType;
+
+/**
+ * Round trip latency of an event published to a ping ring buffer, echoed by a {@link BatchEventProcessor}
+ * onto a pong ring buffer and waited for by the publishing thread, both sides using the same wait strategy.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class PingPongSequencedBenchmark
+{
+    private static final int BUFFER_SIZE = 1024;
+
+    @Param({"BUSY_SPIN", "YIELDING", "BLOCKING"})
+    public WaitStrategyType waitStrategy;
+
+    private final ProcessorThreads processors = new ProcessorThreads();
+    private final Sequence pongSequence = new Sequence();
+    private RingBuffer<LongEvent> ping;
+    private RingBuffer<LongEvent> pong;
+    private SequenceBarrier pongBarrier;
+
+    @Setup
+    public void setup()
+    {
+        ping = RingBuffer.createSingleProducer(LongEvent.FACTORY, BUFFER_SIZE, waitStrategy.create());
+        pong = RingBuffer.createSingleProducer(LongEvent.FACTORY, BUFFER_SIZE, waitStrategy.create());
+        pongBarrier = pong.newBarrier();
+        pongSequence.set(pong.getCursor());
+        pong.addGatingSequences(pongSequence);
+
+        final BatchEventProcessor<LongEvent> echo =
+            new BatchEventProcessor<LongEvent>(ping, ping.newBarrier(), new EchoEventHandler(pong));
+        ping.addGatingSequences(echo.getSequence());
+        processors.start(echo);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        processors.halt();
+    }
+
+    @Benchmark
+    public long roundTrip() throws Exception
+    {
+        final long sequence = ping.next();
+        ping.get(sequence).set(sequence);
+        ping.publish(sequence);
+
+        final long echoed = pongBarrier.waitFor(sequence);
+        pongSequence.set(echoed);
+
+        return echoed;
+    }
+
+    private static final class EchoEventHandler implements EventHandler<LongEvent>
+    {
+        private final RingBuffer<LongEvent> pong;
+
+        EchoEventHandler(final RingBuffer<LongEvent> pong)
+        {
+            this.pong = pong;
+        }
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            final long next = pong.next();
+            pong.get(next).set(event.get());
+            pong.publish(next);
+        }
+    }
+}
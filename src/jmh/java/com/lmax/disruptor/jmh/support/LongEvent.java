@@ -0,0 +1,58 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventTranslatorOneArg;
+
+/**
+ * Event carrying a single <code>long</code>, shared by the benchmarks.
+ */
+public final class LongEvent
+{
+    public static final EventFactory<LongEvent> FACTORY = new EventFactory<LongEvent>()
+    {
+        @Override
+        public LongEvent newInstance()
+        {
+            return new LongEvent();
+        }
+    };
+
+    /**
+     * Copies the value of the argument event into the claimed event.
+     */
+    public static final EventTranslatorOneArg<LongEvent, LongEvent> COPY = new EventTranslatorOneArg<LongEvent, LongEvent>()
+    {
+        @Override
+        public void translateTo(final LongEvent event, final long sequence, final LongEvent source)
+        {
+            event.value = source.value;
+        }
+    };
+
+    private long value;
+
+    public long get()
+    {
+        return value;
+    }
+
+    public void set(final long value)
+    {
+        this.value = value;
+    }
+}
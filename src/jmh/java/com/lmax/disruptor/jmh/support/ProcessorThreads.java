@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+/**
+ * Runs the consumers of a benchmark on their own daemon threads for the length of a trial.
+ */
+public final class ProcessorThreads
+{
+    private final List<EventProcessor> processors = new ArrayList<EventProcessor>();
+    private final List<Thread> threads = new ArrayList<Thread>();
+
+    /**
+     * Start each processor on a new thread.
+     *
+     * @param eventProcessors to start.
+     */
+    public void start(final EventProcessor... eventProcessors)
+    {
+        for (EventProcessor processor : eventProcessors)
+        {
+            final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+            processors.add(processor);
+            threads.add(thread);
+            thread.start();
+        }
+    }
+
+    /**
+     * Halt the processors and wait for their threads to exit.
+     *
+     * @throws InterruptedException if interrupted while waiting.
+     */
+    public void halt() throws InterruptedException
+    {
+        for (EventProcessor processor : processors)
+        {
+            processor.halt();
+        }
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+
+        processors.clear();
+        threads.clear();
+    }
+}
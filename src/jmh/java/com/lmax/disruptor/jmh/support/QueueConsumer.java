@@ -0,0 +1,82 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import java.util.concurrent.BlockingQueue;
+
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+/**
+ * Takes elements from one queue on its own daemon thread, optionally passing each one on to a second queue.
+ */
+public final class QueueConsumer implements Runnable
+{
+    private final BlockingQueue<Long> source;
+    private final BlockingQueue<Long> echo;
+    private Thread thread;
+    private long sum;
+
+    /**
+     * @param source to take from.
+     * @param echo   to pass each element on to, or null to consume it.
+     */
+    public QueueConsumer(final BlockingQueue<Long> source, final BlockingQueue<Long> echo)
+    {
+        this.source = source;
+        this.echo = echo;
+    }
+
+    public void start()
+    {
+        thread = DaemonThreadFactory.INSTANCE.newThread(this);
+        thread.start();
+    }
+
+    public void halt() throws InterruptedException
+    {
+        thread.interrupt();
+        thread.join();
+    }
+
+    @Override
+    public void run()
+    {
+        try
+        {
+            while (true)
+            {
+                final Long value = source.take();
+                if (null == echo)
+                {
+                    sum += value.longValue();
+                }
+                else
+                {
+                    echo.put(value);
+                }
+            }
+        }
+        catch (final InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public long getSum()
+    {
+        return sum;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.lmax.disruptor.collections.RingBufferBlockingQueue;
+
+/**
+ * The queues the queue benchmarks compare the ring buffer against: the JDK queues and the ring buffer itself
+ * behind the {@link BlockingQueue} interface.
+ */
+public enum QueueType
+{
+    ARRAY
+    {
+        @Override
+        public <E> BlockingQueue<E> create(final int capacity)
+        {
+            return new ArrayBlockingQueue<E>(capacity);
+        }
+    },
+    LINKED
+    {
+        @Override
+        public <E> BlockingQueue<E> create(final int capacity)
+        {
+            return new LinkedBlockingQueue<E>(capacity);
+        }
+    },
+    RING_BUFFER
+    {
+        @Override
+        public <E> BlockingQueue<E> create(final int capacity)
+        {
+            return new RingBufferBlockingQueue<E>(capacity);
+        }
+    };
+
+    /**
+     * @param capacity of the queue.
+     * @param <E>      element type.
+     * @return a new bounded queue.
+     */
+    public abstract <E> BlockingQueue<E> create(int capacity);
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * Consumes events by summing their values, so the work of the consumer cannot be optimised away.
+ */
+public final class SummingEventHandler implements EventHandler<LongEvent>
+{
+    private long sum;
+
+    @Override
+    public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+    {
+        sum += event.get();
+    }
+
+    public long getSum()
+    {
+        return sum;
+    }
+}
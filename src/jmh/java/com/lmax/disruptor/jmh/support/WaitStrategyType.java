@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.support;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.LiteBlockingWaitStrategy;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+
+/**
+ * The consumer wait strategies a benchmark can be parameterised with.
+ */
+public enum WaitStrategyType
+{
+    BUSY_SPIN
+    {
+        @Override
+        public WaitStrategy create()
+        {
+            return new BusySpinWaitStrategy();
+        }
+    },
+    YIELDING
+    {
+        @Override
+        public WaitStrategy create()
+        {
+            return new YieldingWaitStrategy();
+        }
+    },
+    SLEEPING
+    {
+        @Override
+        public WaitStrategy create()
+        {
+            return new SleepingWaitStrategy();
+        }
+    },
+    BLOCKING
+    {
+        @Override
+        public WaitStrategy create()
+        {
+            return new BlockingWaitStrategy();
+        }
+    },
+    LITE_BLOCKING
+    {
+        @Override
+        public WaitStrategy create()
+        {
+            return new LiteBlockingWaitStrategy();
+        }
+    };
+
+    /**
+     * @return a new instance of the wait strategy.
+     */
+    public abstract WaitStrategy create();
+}
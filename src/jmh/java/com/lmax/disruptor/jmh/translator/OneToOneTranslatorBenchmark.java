@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.translator;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.jmh.support.LongEvent;
+import com.lmax.disruptor.jmh.support.SummingEventHandler;
+import com.lmax.disruptor.jmh.support.WaitStrategyType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+/**
+ * One producer publishing through an {@link com.lmax.disruptor.EventTranslatorOneArg} to a {@link Disruptor},
+ * one event per call and a batch of <code>batchSize</code> events per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class OneToOneTranslatorBenchmark
+{
+    private static final int BUFFER_SIZE = 1024 * 64;
+
+    @Param({"BUSY_SPIN", "YIELDING", "BLOCKING"})
+    public WaitStrategyType waitStrategy;
+
+    @Param({"10", "100"})
+    public int batchSize;
+
+    private Disruptor<LongEvent> disruptor;
+    private RingBuffer<LongEvent> ringBuffer;
+    private LongEvent value;
+    private LongEvent[] values;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup()
+    {
+        disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, BUFFER_SIZE, DaemonThreadFactory.INSTANCE, ProducerType.SINGLE, waitStrategy.create());
+        disruptor.handleEventsWith(new SummingEventHandler());
+        ringBuffer = disruptor.start();
+
+        value = new LongEvent();
+        values = new LongEvent[batchSize];
+        for (int i = 0; i < batchSize; i++)
+        {
+            values[i] = new LongEvent();
+            values[i].set(i);
+        }
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        disruptor.halt();
+    }
+
+    @Benchmark
+    public long publishEvent()
+    {
+        value.set(value.get() + 1);
+        ringBuffer.publishEvent(LongEvent.COPY, value);
+
+        return value.get();
+    }
+
+    @Benchmark
+    public long publishEvents()
+    {
+        ringBuffer.publishEvents(LongEvent.COPY, values);
+
+        return ringBuffer.getCursor();
+    }
+}
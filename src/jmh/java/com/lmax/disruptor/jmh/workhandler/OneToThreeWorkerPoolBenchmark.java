@@ -0,0 +1,118 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.jmh.workhandler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.lmax.disruptor.FatalExceptionHandler;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.WorkHandler;
+import com.lmax.disruptor.WorkerPool;
+import com.lmax.disruptor.jmh.support.LongEvent;
+import com.lmax.disruptor.jmh.support.WaitStrategyType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+/**
+ * One producer farming events out to a {@link WorkerPool} of three workers, with and without batch claiming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(1)
+public class OneToThreeWorkerPoolBenchmark
+{
+    private static final int NUM_WORKERS = 3;
+
+    @Param({"1024", "8192"})
+    public int bufferSize;
+
+    @Param({"BUSY_SPIN", "YIELDING", "BLOCKING"})
+    public WaitStrategyType waitStrategy;
+
+    @Param({"1", "64"})
+    public int maxBatchClaim;
+
+    private ExecutorService executor;
+    private WorkerPool<LongEvent> workerPool;
+    private RingBuffer<LongEvent> ringBuffer;
+
+    @SuppressWarnings("unchecked")
+    @Setup
+    public void setup()
+    {
+        final WorkHandler<LongEvent>[] handlers = new WorkHandler[NUM_WORKERS];
+        for (int i = 0; i < NUM_WORKERS; i++)
+        {
+            handlers[i] = new SummingWorkHandler();
+        }
+
+        ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, bufferSize, waitStrategy.create());
+        workerPool = new WorkerPool<LongEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), maxBatchClaim, handlers);
+        ringBuffer.addGatingSequences(workerPool.getWorkerSequences());
+
+        executor = Executors.newFixedThreadPool(NUM_WORKERS, DaemonThreadFactory.INSTANCE);
+        workerPool.start(executor);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException
+    {
+        workerPool.halt();
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Benchmark
+    public long publish()
+    {
+        final long sequence = ringBuffer.next();
+        ringBuffer.get(sequence).set(sequence);
+        ringBuffer.publish(sequence);
+
+        return sequence;
+    }
+
+    private static final class SummingWorkHandler implements WorkHandler<LongEvent>
+    {
+        private long sum;
+
+        @Override
+        public void onEvent(final LongEvent event)
+        {
+            sum += event.get();
+        }
+    }
+}
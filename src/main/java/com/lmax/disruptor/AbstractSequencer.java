@@ -34,8 +34,17 @@ public abstract class AbstractSequencer implements Sequencer
 
     protected final int bufferSize;//记录生产目标RingBuffer的大小
     protected final WaitStrategy waitStrategy;//表示这个生产者的等待策略
+    protected final ProducerWaitStrategy producerWaitStrategy;
     protected final Sequence cursor = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);// 生产者的当前的游标位置，初始为-1
     protected volatile Sequence[] gatingSequences = new Sequence[0];// 消费者当前处理的序号集合
+    private final Sequence minimumGatingSequence = new Sequence()
+    {
+        @Override
+        public long get()
+        {
+            return Util.getMinimumSequence(gatingSequences, Long.MAX_VALUE);
+        }
+    };
 
     /**
      * Create with the specified buffer size and wait strategy.
@@ -44,6 +53,18 @@ public abstract class AbstractSequencer implements Sequencer
      * @param waitStrategy
      */
     public AbstractSequencer(int bufferSize, WaitStrategy waitStrategy)
+    {
+        this(bufferSize, waitStrategy, new SleepingProducerWaitStrategy());
+    }
+
+    /**
+     * Create with the specified buffer size, wait strategy and producer wait strategy.
+     *
+     * @param bufferSize           The total number of entries, must be a positive power of 2.
+     * @param waitStrategy         for those waiting on sequences.
+     * @param producerWaitStrategy for producers waiting on a full buffer.
+     */
+    public AbstractSequencer(int bufferSize, WaitStrategy waitStrategy, ProducerWaitStrategy producerWaitStrategy)
     {
         if (bufferSize < 1)
         {
@@ -56,6 +77,7 @@ public abstract class AbstractSequencer implements Sequencer
 
         this.bufferSize = bufferSize;
         this.waitStrategy = waitStrategy;
+        this.producerWaitStrategy = producerWaitStrategy;
     }
 
     /**
@@ -91,7 +113,9 @@ public abstract class AbstractSequencer implements Sequencer
     @Override
     public boolean removeGatingSequence(Sequence sequence)
     {
-        return SequenceGroups.removeSequence(this, SEQUENCE_UPDATER, sequence);
+        final boolean removed = SequenceGroups.removeSequence(this, SEQUENCE_UPDATER, sequence);
+        producerWaitStrategy.signalAllWhenBlocking(); // 移除后最小序列可能前进, 唤醒等待的生产者
+        return removed;
     }
 
     /**
@@ -109,7 +133,28 @@ public abstract class AbstractSequencer implements Sequencer
     @Override
     public SequenceBarrier newBarrier(Sequence... sequencesToTrack)
     {
-        return new ProcessingSequenceBarrier(this, waitStrategy, cursor, sequencesToTrack);
+        return new ProcessingSequenceBarrier(this, waitStrategy, producerWaitStrategy, cursor, sequencesToTrack);
+    }
+
+    /**
+     * @return the producer wait strategy when producers block until consumers signal them, otherwise null.
+     * @see ProducerWaitStrategy#waitsForSignal()
+     */
+    ProducerWaitStrategy getSignallingProducerWaitStrategy()
+    {
+        return producerWaitStrategy.waitsForSignal() ? producerWaitStrategy : null;
+    }
+
+    /**
+     * Wait, using the producer wait strategy, for the slowest gating sequence to reach the wrap point.
+     * Waiting consumers are signalled first, so that they can make progress.
+     *
+     * @param wrapPoint sequence the slowest gating sequence must reach.
+     */
+    protected final void waitForCapacity(final long wrapPoint)
+    {
+        waitStrategy.signalAllWhenBlocking();
+        producerWaitStrategy.waitFor(wrapPoint, minimumGatingSequence);
     }
 
     /**
@@ -131,6 +176,7 @@ public abstract class AbstractSequencer implements Sequencer
     {
         return "AbstractSequencer{" +
             "waitStrategy=" + waitStrategy +
+            ", producerWaitStrategy=" + producerWaitStrategy +
             ", cursor=" + cursor +
             ", gatingSequences=" + Arrays.toString(gatingSequences) +
             '}';
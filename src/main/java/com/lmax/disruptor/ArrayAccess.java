@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.Util;
+import sun.misc.Unsafe;
+
+/**
+ * Ordered and volatile access to the elements of primitive arrays, used by the sequencers to track the availability
+ * of slots.  This version uses {@link Unsafe}, on Java 9 and later it is replaced by one using VarHandles.
+ */
+final class ArrayAccess
+{
+    private static final Unsafe UNSAFE = Util.getUnsafe();
+    private static final boolean HAS_FENCES = hasFences();
+    private static volatile int fence = 0;
+    private static final long INT_BASE = UNSAFE.arrayBaseOffset(int[].class);
+    private static final long INT_SCALE = UNSAFE.arrayIndexScale(int[].class);
+    private static final long LONG_BASE = UNSAFE.arrayBaseOffset(long[].class);
+    private static final long LONG_SCALE = UNSAFE.arrayIndexScale(long[].class);
+
+    private ArrayAccess()
+    {
+    }
+
+    /**
+     * Store an element with release semantics, no earlier store is reordered after it.
+     */
+    static void putOrderedInt(final int[] array, final int index, final int value)
+    {
+        UNSAFE.putOrderedInt(array, INT_BASE + index * INT_SCALE, value);
+    }
+
+    /**
+     * Load an element with at least acquire semantics, no later load is reordered before it.
+     */
+    static int getIntAcquire(final int[] array, final int index)
+    {
+        return UNSAFE.getIntVolatile(array, INT_BASE + index * INT_SCALE);
+    }
+
+    /**
+     * Store an element with release semantics, no earlier store is reordered after it.
+     */
+    static void putOrderedLong(final long[] array, final int index, final long value)
+    {
+        UNSAFE.putOrderedLong(array, LONG_BASE + index * LONG_SCALE, value);
+    }
+
+    /**
+     * Keep loads before this point from being reordered with loads after it.  Uses <code>Unsafe.loadFence()</code>
+     * on Java 8, and a full fence on earlier JVMs that do not have it.
+     */
+    static void loadLoadFence()
+    {
+        if (HAS_FENCES)
+        {
+            UNSAFE.loadFence();
+        }
+        else
+        {
+            fullFence();
+        }
+    }
+
+    /**
+     * Keep stores before this point from being reordered with stores after it.  Uses
+     * <code>Unsafe.storeFence()</code> on Java 8, and a full fence on earlier JVMs that do not have it.
+     */
+    static void storeStoreFence()
+    {
+        if (HAS_FENCES)
+        {
+            UNSAFE.storeFence();
+        }
+        else
+        {
+            fullFence();
+        }
+    }
+
+    /**
+     * Load an element with at least acquire semantics, no later load is reordered before it.
+     */
+    static long getLongAcquire(final long[] array, final int index)
+    {
+        return UNSAFE.getLongVolatile(array, LONG_BASE + index * LONG_SCALE);
+    }
+
+    /**
+     * Atomically set an element to value if it holds expected, with volatile semantics.
+     */
+    static boolean compareAndSetLong(final long[] array, final int index, final long expected, final long value)
+    {
+        return UNSAFE.compareAndSwapLong(array, LONG_BASE + index * LONG_SCALE, expected, value);
+    }
+
+    /**
+     * No access before the volatile write is reordered after it, none after the volatile read is reordered before
+     * it, and the two are not reordered with each other.
+     */
+    private static int fullFence()
+    {
+        fence = 0;
+        return fence;
+    }
+
+    /**
+     * The fences were added to <code>Unsafe</code> in Java 8, check for them before calling them so that earlier
+     * JVMs never link the calls.
+     */
+    private static boolean hasFences()
+    {
+        try
+        {
+            Unsafe.class.getMethod("loadFence");
+            Unsafe.class.getMethod("storeFence");
+            return true;
+        }
+        catch (final NoSuchMethodException e)
+        {
+            return false;
+        }
+    }
+}
@@ -17,6 +17,8 @@ package com.lmax.disruptor;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import com.lmax.disruptor.util.Util;
+
 
 /**
  * Convenience class for handling the batching semantics of consuming entries from a {@link RingBuffer}
@@ -24,6 +26,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  * <p>
  * If the {@link EventHandler} also implements {@link LifecycleAware} it will be notified just after the thread
  * is started and just before the thread is shutdown.
+ * <p>
+ * By default all available events are processed before the sequence of the processor is advanced.  The batch can be
+ * bounded with {@link #setMaxBatchSize(int)}, or with {@link #setAdaptiveBatchSize(int, int, Sequence...)} to follow
+ * the lag of the downstream processors, so that progress is published in chunks after a burst.
  *
  * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
  */
@@ -38,6 +44,11 @@ public final class BatchEventProcessor<T>
     private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE); //事件处理器使用的序列。
     private final TimeoutHandler timeoutHandler;   //超时处理器
     private final BatchStartAware batchStartAware;
+    private final ProducerWaitStrategy producerWaitStrategy; //生产者等待策略, 推进序列后唤醒等待的生产者
+    private EventProcessorListener listener;
+    private int minBatchSize = Integer.MAX_VALUE;
+    private int maxBatchSize = Integer.MAX_VALUE;
+    private Sequence[] downstreamSequences = new Sequence[0];
 
     /**
      * Construct a {@link EventProcessor} that will automatically track the progress by updating its sequence when
@@ -65,6 +76,8 @@ public final class BatchEventProcessor<T>
                 (eventHandler instanceof BatchStartAware) ? (BatchStartAware) eventHandler : null;
         timeoutHandler =
                 (eventHandler instanceof TimeoutHandler) ? (TimeoutHandler) eventHandler : null;
+        producerWaitStrategy = (sequenceBarrier instanceof ProcessingSequenceBarrier) ?
+                ((ProcessingSequenceBarrier) sequenceBarrier).getProducerWaitStrategy() : null;
     }
 
     @Override
@@ -101,6 +114,58 @@ public final class BatchEventProcessor<T>
         this.exceptionHandler = exceptionHandler;
     }
 
+    /**
+     * Set an {@link EventProcessorListener} to be called back from the run loop, such as {@link EventProcessorMetrics}.
+     * Must be called before the processor is started.
+     *
+     * @param listener to be called back by this processor.
+     */
+    public void setEventProcessorListener(final EventProcessorListener listener)
+    {
+        if (null == listener)
+        {
+            throw new NullPointerException();
+        }
+
+        this.listener = listener;
+    }
+
+    /**
+     * Bound the number of events processed, and passed to the handler as one batch, before the sequence of this
+     * processor is advanced.  Must be called before the processor is started.
+     *
+     * @param maxBatchSize the most events to process before publishing progress.
+     * @throws IllegalArgumentException if maxBatchSize is less than 1.
+     */
+    public void setMaxBatchSize(final int maxBatchSize)
+    {
+        setAdaptiveBatchSize(maxBatchSize, maxBatchSize);
+    }
+
+    /**
+     * Bound the batch by the lag of the downstream processors, clamped between minBatchSize and maxBatchSize.
+     * While the downstream processors are caught up the batch is kept small so they are handed work early, and
+     * as they fall behind it grows towards maxBatchSize, since publishing progress sooner would not be picked up
+     * any earlier.  Must be called before the processor is started.
+     *
+     * @param minBatchSize        the fewest events to process before publishing progress.
+     * @param maxBatchSize        the most events to process before publishing progress.
+     * @param downstreamSequences of the processors gating on this one.
+     * @throws IllegalArgumentException if minBatchSize is less than 1 or greater than maxBatchSize.
+     */
+    public void setAdaptiveBatchSize(final int minBatchSize, final int maxBatchSize, final Sequence... downstreamSequences)
+    {
+        if (minBatchSize < 1 || maxBatchSize < minBatchSize)
+        {
+            throw new IllegalArgumentException(
+                "Batch size must satisfy 1 <= minBatchSize <= maxBatchSize but got: " + minBatchSize + ", " + maxBatchSize);
+        }
+
+        this.minBatchSize = minBatchSize;
+        this.maxBatchSize = maxBatchSize;
+        this.downstreamSequences = downstreamSequences.clone();
+    }
+
     /**
      * It is ok to have another thread rerun this method after a halt().
      *
@@ -117,6 +182,7 @@ public final class BatchEventProcessor<T>
 
         notifyStart(); //如果实现了LifecycleAware，触发onStart事件
 
+        final EventProcessorListener listener = this.listener;
         T event = null;
         long nextSequence = sequence.get() + 1L;
         try
@@ -129,7 +195,15 @@ public final class BatchEventProcessor<T>
                     // 如果这个事件处理器不依赖于其他的事件处理器，则前置关卡就是生产者序号；
                     // 如果这个事件处理器依赖于1个或多个事件处理器，那么这个前置关卡就是这些前置事件处理器中最慢的一个。
                     // 通过这样，可以确保事件处理器不会超前处理地事件。
-                    final long availableSequence = sequenceBarrier.waitFor(nextSequence);
+                    if (listener != null)
+                    {
+                        listener.onWaitStart(nextSequence);
+                    }
+                    final long availableSequence = endOfBatch(nextSequence, sequenceBarrier.waitFor(nextSequence));
+                    if (listener != null)
+                    {
+                        listener.onBatchStart(availableSequence - nextSequence + 1);
+                    }
                     if (batchStartAware != null)
                     {
                         batchStartAware.onBatchStart(availableSequence - nextSequence + 1);
@@ -142,14 +216,26 @@ public final class BatchEventProcessor<T>
                         nextSequence++;
                     }
 
-                    sequence.set(availableSequence); // 设置它自己最后处理的事件序号,这样依赖于它的处理器可以它处理刚处理过的事件
+                    if (listener != null)
+                    {
+                        listener.onBatchEnd(availableSequence);
+                    }
+                    advance(availableSequence); // 设置它自己最后处理的事件序号,这样依赖于它的处理器可以它处理刚处理过的事件
                 }
                 catch (final TimeoutException e)
                 {
+                    if (listener != null)
+                    {
+                        listener.onTimeout(sequence.get());
+                    }
                     notifyTimeout(sequence.get()); // 获取事件序号超时处理
                 }
                 catch (final AlertException ex)
                 {
+                    if (listener != null)
+                    {
+                        listener.onAlert();
+                    }
                     if (!running.get()) // 处理通知事件；检测是否要停止，如果非则继续处理事件
                     {
                         break;
@@ -158,7 +244,7 @@ public final class BatchEventProcessor<T>
                 catch (final Throwable ex) //如果发生异常，会调用exceptionHandler进行处理，流程并不会中断
                 {
                     exceptionHandler.handleEventException(ex, nextSequence, event);
-                    sequence.set(nextSequence);
+                    advance(nextSequence);
                     nextSequence++;
                 }
             }
@@ -170,6 +256,41 @@ public final class BatchEventProcessor<T>
         }
     }
 
+    private long endOfBatch(final long nextSequence, final long availableSequence)
+    {
+        if (maxBatchSize == Integer.MAX_VALUE)
+        {
+            return availableSequence;
+        }
+
+        long batchSize = maxBatchSize;
+        if (downstreamSequences.length != 0)
+        {
+            final long current = nextSequence - 1L;
+            final long downstreamLag = current - Util.getMinimumSequence(downstreamSequences, current);
+            batchSize = Math.max(minBatchSize, Math.min(maxBatchSize, downstreamLag));
+        }
+
+        return Math.min(availableSequence, nextSequence + batchSize - 1L);
+    }
+
+    /**
+     * Move the sequence past a batch, with a volatile write when producers wait to be signalled, so that the
+     * check for waiting producers can not be reordered before it.
+     */
+    private void advance(final long processedSequence)
+    {
+        if (producerWaitStrategy != null)
+        {
+            sequence.setVolatile(processedSequence);
+            producerWaitStrategy.signalAllWhenBlocking();
+        }
+        else
+        {
+            sequence.set(processedSequence);
+        }
+    }
+
     private void notifyTimeout(final long availableSequence)
     {
         try
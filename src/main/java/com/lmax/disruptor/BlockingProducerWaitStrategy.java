@@ -0,0 +1,94 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Producer wait strategy that blocks producers on a lock and condition until a consumer signals that it
+ * has advanced its sequence.
+ * <p>
+ * Consumers only take the lock when a producer has said it is waiting, so while the ring has capacity the
+ * cost to consumers is a volatile read per batch.  This strategy uses no CPU while the ring is full and
+ * suits hosts with more threads than cores.
+ */
+public final class BlockingProducerWaitStrategy implements ProducerWaitStrategy
+{
+    private final Lock lock = new ReentrantLock();
+    private final Condition capacityAvailable = lock.newCondition();
+    private volatile boolean producerWaiting = false;
+
+    @Override
+    public long waitFor(final long wrapPoint, final Sequence gatingSequence)
+    {
+        long minimumSequence;
+        if ((minimumSequence = gatingSequence.get()) < wrapPoint)
+        {
+            lock.lock();
+            try
+            {
+                // the flag is set before the sequence is read again, and consumers set their sequence with a
+                // volatile write before reading the flag, so one side always sees the other
+                producerWaiting = true;
+                while ((minimumSequence = gatingSequence.get()) < wrapPoint)
+                {
+                    capacityAvailable.awaitUninterruptibly();
+                    producerWaiting = true;
+                }
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+
+        return minimumSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        if (producerWaiting)
+        {
+            lock.lock();
+            try
+            {
+                producerWaiting = false;
+                capacityAvailable.signalAll();
+            }
+            finally
+            {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Override
+    public boolean waitsForSignal()
+    {
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "BlockingProducerWaitStrategy{" +
+            "producerWaiting=" + producerWaiting +
+            '}';
+    }
+}
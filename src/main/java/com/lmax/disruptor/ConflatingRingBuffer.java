@@ -0,0 +1,305 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.collections.LongLongHashMap;
+import com.lmax.disruptor.util.ThreadHints;
+
+/**
+ * Ring buffer for last-value-wins data, such as prices, where publishing an event for a key that already has an
+ * event in the ring that no consumer has started to read overwrites that event in place rather than claiming a new
+ * sequence.  Consumers that fall behind see only the latest value for each key, at the position of the first
+ * unread event for that key, and the ring holds at most one unread event per key.
+ * <p>
+ * Consumers must wait on barriers created by {@link #newBarrier(Sequence...)}, which record the highest sequence
+ * any consumer has been handed.  Events at or below that sequence are never overwritten, so a consumer never sees
+ * an event change while it is handling it.  A {@link BatchEventProcessor} built over this ring and one of its
+ * barriers consumes it as it would a {@link RingBuffer}.
+ * <p>
+ * There is a single producer: publishing is not thread safe.  The key of each event is held in a
+ * {@link LongLongHashMap} owned by the producer, which has an entry for every key published.
+ *
+ * @param <E> implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class ConflatingRingBuffer<E> implements Cursored, DataProvider<E>
+{
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int SPIN_TRIES = 100;
+
+    private final RingBuffer<E> ringBuffer;
+    private final LongLongHashMap sequenceByKey;
+    private final Sequence readHorizon = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final Sequence overwriting = new Sequence(NONE);
+
+    private ConflatingRingBuffer(final RingBuffer<E> ringBuffer, final int expectedKeys)
+    {
+        this.ringBuffer = ringBuffer;
+        this.sequenceByKey = new LongLongHashMap(expectedKeys, NONE);
+    }
+
+    /**
+     * Create a new conflating ring buffer.
+     *
+     * @param factory      used to create the events within the ring buffer.
+     * @param bufferSize   number of elements to create within the ring buffer, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new elements to become available.
+     * @param expectedKeys number of distinct keys to size the key map for.
+     * @param <E>          class of the event stored in the ring buffer.
+     * @return a new conflating ring buffer.
+     * @see SingleProducerSequencer
+     */
+    public static <E> ConflatingRingBuffer<E> create(
+        final EventFactory<E> factory,
+        final int bufferSize,
+        final WaitStrategy waitStrategy,
+        final int expectedKeys)
+    {
+        return new ConflatingRingBuffer<E>(RingBuffer.createSingleProducer(factory, bufferSize, waitStrategy), expectedKeys);
+    }
+
+    /**
+     * Publish an event for a key, overwriting the unread event for the same key if there is one, otherwise
+     * claiming the next sequence and waiting for capacity if the ring is full.
+     *
+     * @param key        identifying the value the event carries.
+     * @param translator to write the event, the sequence it is given is that of the event overwritten.
+     * @param arg        passed to the translator.
+     * @param <A>        class of the translator argument.
+     * @return true if an unread event was overwritten, false if the event was published at a new sequence.
+     */
+    public <A> boolean publishEvent(final long key, final EventTranslatorOneArg<E, A> translator, final A arg)
+    {
+        if (tryOverwrite(key, translator, arg))
+        {
+            return true;
+        }
+
+        final long sequence = ringBuffer.next();
+        publish(key, sequence, translator, arg);
+        return false;
+    }
+
+    /**
+     * Publish an event for a key, overwriting the unread event for the same key if there is one, otherwise
+     * claiming the next sequence if the ring has capacity.
+     *
+     * @param key        identifying the value the event carries.
+     * @param translator to write the event, the sequence it is given is that of the event overwritten.
+     * @param arg        passed to the translator.
+     * @param <A>        class of the translator argument.
+     * @return true if the event was overwritten or published, false if the ring was full.
+     */
+    public <A> boolean tryPublishEvent(final long key, final EventTranslatorOneArg<E, A> translator, final A arg)
+    {
+        if (tryOverwrite(key, translator, arg))
+        {
+            return true;
+        }
+
+        try
+        {
+            final long sequence = ringBuffer.tryNext();
+            publish(key, sequence, translator, arg);
+            return true;
+        }
+        catch (final InsufficientCapacityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Create a barrier that records the sequences it hands to its consumer, so that they are not overwritten.
+     *
+     * @param sequencesToTrack the sequences of upstream consumers, none to follow the cursor.
+     * @return a barrier to consume this ring through.
+     */
+    public SequenceBarrier newBarrier(final Sequence... sequencesToTrack)
+    {
+        return new ConflatingSequenceBarrier(ringBuffer.newBarrier(sequencesToTrack));
+    }
+
+    /**
+     * Get the event for a given sequence.  Only valid for sequences handed out by a barrier of this ring.
+     *
+     * @param sequence for the event.
+     * @return the event for the given sequence.
+     */
+    @Override
+    public E get(final long sequence)
+    {
+        return ringBuffer.get(sequence);
+    }
+
+    @Override
+    public long getCursor()
+    {
+        return ringBuffer.getCursor();
+    }
+
+    /**
+     * @return the size of the ring.
+     */
+    public int getBufferSize()
+    {
+        return ringBuffer.getBufferSize();
+    }
+
+    /**
+     * @return the number of slots that can be claimed before the slowest gating sequence is reached.
+     */
+    public long remainingCapacity()
+    {
+        return ringBuffer.remainingCapacity();
+    }
+
+    /**
+     * @param gatingSequences the sequences of the consumers of this ring.
+     * @see RingBuffer#addGatingSequences(Sequence...)
+     */
+    public void addGatingSequences(final Sequence... gatingSequences)
+    {
+        ringBuffer.addGatingSequences(gatingSequences);
+    }
+
+    /**
+     * @param sequence to be removed.
+     * @return <tt>true</tt> if this sequence was found, <tt>false</tt> otherwise.
+     * @see RingBuffer#removeGatingSequence(Sequence)
+     */
+    public boolean removeGatingSequence(final Sequence sequence)
+    {
+        return ringBuffer.removeGatingSequence(sequence);
+    }
+
+    private <A> void publish(final long key, final long sequence, final EventTranslatorOneArg<E, A> translator, final A arg)
+    {
+        try
+        {
+            translator.translateTo(ringBuffer.get(sequence), sequence, arg);
+        }
+        finally
+        {
+            sequenceByKey.put(key, sequence);
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    /**
+     * Overwrite the event last published for the key if no consumer has been handed it.  The producer announces the
+     * sequence it is about to overwrite before checking the read horizon and barriers raise the read horizon before
+     * checking the announced sequence, so either the producer backs off or the barrier waits for the write to end.
+     */
+    private <A> boolean tryOverwrite(final long key, final EventTranslatorOneArg<E, A> translator, final A arg)
+    {
+        final long sequence = sequenceByKey.get(key);
+        if (sequence == NONE || sequence <= readHorizon.get())
+        {
+            return false;
+        }
+
+        overwriting.setVolatile(sequence);
+        final boolean unread = sequence > readHorizon.get();
+        try
+        {
+            if (unread)
+            {
+                translator.translateTo(ringBuffer.get(sequence), sequence, arg);
+            }
+        }
+        finally
+        {
+            overwriting.set(NONE);
+        }
+
+        return unread;
+    }
+
+    /**
+     * Raises the read horizon to each sequence it returns, then waits out any overwrite of an event in the range.
+     */
+    private final class ConflatingSequenceBarrier implements SequenceBarrier
+    {
+        private final SequenceBarrier delegate;
+
+        ConflatingSequenceBarrier(final SequenceBarrier delegate)
+        {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public long waitFor(final long sequence) throws AlertException, InterruptedException, TimeoutException
+        {
+            final long availableSequence = delegate.waitFor(sequence);
+            if (availableSequence < sequence)
+            {
+                return availableSequence;
+            }
+
+            long horizon;
+            while ((horizon = readHorizon.get()) < availableSequence && !readHorizon.compareAndSet(horizon, availableSequence))
+            {
+                ThreadHints.onSpinWait();
+            }
+
+            long overwritten;
+            for (int tries = 0; (overwritten = overwriting.get()) >= sequence && overwritten <= availableSequence; tries++)
+            {
+                // the producer may have been descheduled part way through the write
+                if (tries < SPIN_TRIES)
+                {
+                    ThreadHints.onSpinWait();
+                }
+                else
+                {
+                    Thread.yield();
+                }
+            }
+
+            return availableSequence;
+        }
+
+        @Override
+        public long getCursor()
+        {
+            return delegate.getCursor();
+        }
+
+        @Override
+        public boolean isAlerted()
+        {
+            return delegate.isAlerted();
+        }
+
+        @Override
+        public void alert()
+        {
+            delegate.alert();
+        }
+
+        @Override
+        public void clearAlert()
+        {
+            delegate.clearAlert();
+        }
+
+        @Override
+        public void checkAlert() throws AlertException
+        {
+            delegate.checkAlert();
+        }
+    }
+}
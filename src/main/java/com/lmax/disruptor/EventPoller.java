@@ -9,12 +9,27 @@ public class EventPoller<T> //数据循环处理器
     private final Sequencer sequencer; //序列号生成器
     private final Sequence sequence; //当前序列号
     private final Sequence gatingSequence; //关口序列号
+    private final ProducerWaitStrategy producerWaitStrategy; //推进序列后唤醒等待的生产者
 
     public interface Handler<T>
     {
         boolean onEvent(T event, long sequence, boolean endOfBatch) throws Exception;
     }
 
+    /**
+     * Callback for {@link #drainTo(BatchHandler, int)}, passed a contiguous range of available events.
+     */
+    public interface BatchHandler<T>
+    {
+        /**
+         * @param events to read the events of the range from, only valid until this method returns.
+         * @param lo     first sequence of the range.
+         * @param hi     last sequence of the range, inclusive.
+         * @throws Exception if the handler would like the range to be left unconsumed.
+         */
+        void onBatch(DataProvider<T> events, long lo, long hi) throws Exception;
+    }
+
     public enum PollState
     {
         PROCESSING, GATING, IDLE //处理中,阻塞中,空闲中
@@ -30,13 +45,28 @@ public class EventPoller<T> //数据循环处理器
         this.sequencer = sequencer;
         this.sequence = sequence;
         this.gatingSequence = gatingSequence;
+        this.producerWaitStrategy = (sequencer instanceof AbstractSequencer) ?
+            ((AbstractSequencer) sequencer).getSignallingProducerWaitStrategy() : null;
     }
 
     public PollState poll(final Handler<T> eventHandler) throws Exception //处理数据
+    {
+        return poll(eventHandler, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Pass at most maxEvents available events to the handler, stopping early if it returns false.
+     *
+     * @param eventHandler to pass the events to, endOfBatch is set on the last event available within the limit.
+     * @param maxEvents    the most events to process in this call.
+     * @return {@link PollState#PROCESSING} if any events were processed.
+     * @throws Exception if the handler throws, the sequence is left after the last event it returned from.
+     */
+    public PollState poll(final Handler<T> eventHandler, final int maxEvents) throws Exception
     {
         final long currentSequence = sequence.get();
         long nextSequence = currentSequence + 1;
-        final long availableSequence = sequencer.getHighestPublishedSequence(nextSequence, gatingSequence.get());
+        final long availableSequence = getHighestAvailableSequence(nextSequence, maxEvents);
 
         if (nextSequence <= availableSequence) //如果有可用的序列号
         {
@@ -57,7 +87,7 @@ public class EventPoller<T> //数据循环处理器
             }
             finally
             {
-                sequence.set(processedSequence);
+                advanceTo(processedSequence);
             }
 
             return PollState.PROCESSING;
@@ -72,6 +102,110 @@ public class EventPoller<T> //数据循环处理器
         }
     }
 
+    /**
+     * Hand at most maxEvents available events to the handler as one contiguous range of sequences, then advance
+     * the sequence of this poller past them with a single write.
+     *
+     * @param batchHandler to pass the range to.
+     * @param maxEvents    the most events to take in this call.
+     * @return the number of events taken, 0 if none were available.
+     * @throws Exception if the handler throws, in which case the sequence is not advanced.
+     */
+    public int drainTo(final BatchHandler<T> batchHandler, final int maxEvents) throws Exception
+    {
+        final long nextSequence = sequence.get() + 1;
+        final long availableSequence = getHighestAvailableSequence(nextSequence, maxEvents);
+        if (nextSequence > availableSequence)
+        {
+            return 0;
+        }
+
+        batchHandler.onBatch(dataProvider, nextSequence, availableSequence);
+        advanceTo(availableSequence);
+
+        return (int) (availableSequence - nextSequence + 1);
+    }
+
+    /**
+     * Find the last of at most maxEvents sequences this poller can take, without blocking, for callers that copy
+     * the range out themselves and then call {@link #advanceTo(long)}.
+     *
+     * @param maxEvents the most events to take past the sequence of this poller.
+     * @return the highest available sequence, below the next sequence of this poller if none are available.
+     */
+    public long getAvailableSequence(final int maxEvents)
+    {
+        return getHighestAvailableSequence(sequence.get() + 1, maxEvents);
+    }
+
+    /**
+     * Move the sequence of this poller past events the caller has copied out of the range given by
+     * {@link #getAvailableSequence(int)}, waking producers blocked on a full ring.
+     *
+     * @param processedSequence last sequence the caller is done with.
+     */
+    public void advanceTo(final long processedSequence)
+    {
+        if (producerWaitStrategy != null)
+        {
+            // a volatile write, so that the check for waiting producers can not be reordered before it
+            sequence.setVolatile(processedSequence);
+            producerWaitStrategy.signalAllWhenBlocking();
+        }
+        else
+        {
+            sequence.set(processedSequence);
+        }
+    }
+
+    /**
+     * Copy at most maxEvents available events into the elements of the sink starting at offset, then advance the
+     * sequence of this poller past them with a single write.  The events in the ring are reused once the sequence
+     * is advanced, so their contents are copied into the sink's own instances by the copier.
+     *
+     * @param sink      preallocated instances to copy the events into.
+     * @param offset    index in the sink of the first instance to copy into.
+     * @param maxEvents the most events to take, also limited by the space left in the sink.
+     * @param copier    called with a sink instance and the event in the ring to copy from it.
+     * @param <S>       type of the sink instances.
+     * @return the number of events copied, 0 if none were available.
+     * @throws Exception if the copier throws, in which case the sequence is not advanced.
+     */
+    public <S> int drainTo(
+        final S[] sink,
+        final int offset,
+        final int maxEvents,
+        final EventTranslatorOneArg<? super S, ? super T> copier) throws Exception
+    {
+        final long nextSequence = sequence.get() + 1;
+        final long availableSequence = getHighestAvailableSequence(nextSequence, Math.min(maxEvents, sink.length - offset));
+        if (nextSequence > availableSequence)
+        {
+            return 0;
+        }
+
+        int index = offset;
+        for (long s = nextSequence; s <= availableSequence; s++)
+        {
+            copier.translateTo(sink[index++], s, dataProvider.get(s));
+        }
+        advanceTo(availableSequence);
+
+        return (int) (availableSequence - nextSequence + 1);
+    }
+
+    private long getHighestAvailableSequence(final long nextSequence, final int maxEvents)
+    {
+        if (maxEvents < 1)
+        {
+            throw new IllegalArgumentException("maxEvents must be positive but got: " + maxEvents);
+        }
+
+        // only the slots within the limit are checked, so the work done is bounded by maxEvents
+        final long limit = Math.min(gatingSequence.get(), nextSequence + maxEvents - 1);
+        return sequencer.getHighestPublishedSequence(nextSequence, limit);
+    }
+
     public static <T> EventPoller<T> newInstance(
         final DataProvider<T> dataProvider,
         final Sequencer sequencer,
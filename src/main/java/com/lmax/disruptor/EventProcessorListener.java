@@ -0,0 +1,60 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Receives callbacks from the run loop of a {@link BatchEventProcessor} or {@link WorkProcessor}, so the time a
+ * processor spends waiting on its {@link SequenceBarrier} and in its handler can be observed without wrapping the
+ * handler.  All callbacks are made on the processor's thread and must not block or throw.
+ *
+ * @see EventProcessorMetrics
+ */
+public interface EventProcessorListener
+{
+    /**
+     * Called before the processor waits on its barrier.
+     *
+     * @param sequence the processor is waiting for.
+     */
+    void onWaitStart(long sequence);
+
+    /**
+     * Called when the processor has events available, before the first is passed to the handler.
+     *
+     * @param batchSize number of events in the batch, always 1 for a {@link WorkProcessor}.
+     */
+    void onBatchStart(long batchSize);
+
+    /**
+     * Called when the handler has processed every event of a batch, before the sequence of the processor moves past
+     * it, so anything recorded here is visible to processors downstream by the time they see the batch.
+     *
+     * @param sequence of the last event of the batch.
+     */
+    void onBatchEnd(long sequence);
+
+    /**
+     * Called when the wait on the barrier timed out.
+     *
+     * @param sequence last processed by the processor.
+     */
+    void onTimeout(long sequence);
+
+    /**
+     * Called when the wait on the barrier was interrupted by an alert.
+     */
+    void onAlert();
+}
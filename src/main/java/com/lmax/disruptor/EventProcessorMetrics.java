@@ -0,0 +1,186 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * <p>{@link EventProcessorListener} that counts batches, events, timeouts and alerts, the nanoseconds spent waiting
+ * on the barrier and in the handler, and the distribution of batch sizes in power of two buckets.</p>
+ *
+ * <p>Each counter is a padded {@link Sequence} written only by the processor thread, so any other thread can read
+ * it without locks.  An instance must only be set on one processor.</p>
+ */
+public final class EventProcessorMetrics implements EventProcessorListener
+{
+    /**
+     * Number of batch size buckets, bucket <code>i</code> counting batches of <code>2^i</code> to
+     * <code>2^(i+1) - 1</code> events.
+     */
+    public static final int BATCH_SIZE_BUCKETS = 32;
+
+    private final Sequence batches = new Sequence(0L);
+    private final Sequence events = new Sequence(0L);
+    private final Sequence waitNanos = new Sequence(0L);
+    private final Sequence handlerNanos = new Sequence(0L);
+    private final Sequence timeouts = new Sequence(0L);
+    private final Sequence alerts = new Sequence(0L);
+    private final Sequence[] batchSizes = new Sequence[BATCH_SIZE_BUCKETS];
+
+    private long waitStartNanos;
+    private long batchStartNanos;
+    private boolean waiting;
+    private boolean handling;
+
+    public EventProcessorMetrics()
+    {
+        for (int i = 0; i < BATCH_SIZE_BUCKETS; i++)
+        {
+            batchSizes[i] = new Sequence(0L);
+        }
+    }
+
+    @Override
+    public void onWaitStart(final long sequence)
+    {
+        waitStartNanos = System.nanoTime();
+        waiting = true;
+        handling = false;
+    }
+
+    @Override
+    public void onBatchStart(final long batchSize)
+    {
+        final long now = System.nanoTime();
+        endWait(now);
+
+        if (batchSize > 0L)
+        {
+            increment(batches, 1L);
+            increment(events, batchSize);
+            increment(batchSizes[Math.min(BATCH_SIZE_BUCKETS - 1, 63 - Long.numberOfLeadingZeros(batchSize))], 1L);
+        }
+
+        batchStartNanos = now;
+        handling = true;
+    }
+
+    @Override
+    public void onBatchEnd(final long sequence)
+    {
+        if (handling)
+        {
+            increment(handlerNanos, System.nanoTime() - batchStartNanos);
+            handling = false;
+        }
+    }
+
+    @Override
+    public void onTimeout(final long sequence)
+    {
+        endWait(System.nanoTime());
+        increment(timeouts, 1L);
+    }
+
+    @Override
+    public void onAlert()
+    {
+        endWait(System.nanoTime());
+        increment(alerts, 1L);
+    }
+
+    private void endWait(final long now)
+    {
+        if (waiting)
+        {
+            increment(waitNanos, now - waitStartNanos);
+            waiting = false;
+        }
+    }
+
+    private static void increment(final Sequence counter, final long delta)
+    {
+        counter.set(counter.get() + delta);
+    }
+
+    /**
+     * @return the number of batches passed to the handler.
+     */
+    public long getBatchCount()
+    {
+        return batches.get();
+    }
+
+    /**
+     * @return the number of events passed to the handler.
+     */
+    public long getEventCount()
+    {
+        return events.get();
+    }
+
+    /**
+     * @return the total nanoseconds spent waiting on the barrier.
+     */
+    public long getWaitNanos()
+    {
+        return waitNanos.get();
+    }
+
+    /**
+     * @return the total nanoseconds spent in the handler.
+     */
+    public long getHandlerNanos()
+    {
+        return handlerNanos.get();
+    }
+
+    /**
+     * @return the number of waits on the barrier that timed out.
+     */
+    public long getTimeoutCount()
+    {
+        return timeouts.get();
+    }
+
+    /**
+     * @return the number of waits on the barrier interrupted by an alert.
+     */
+    public long getAlertCount()
+    {
+        return alerts.get();
+    }
+
+    /**
+     * @param bucket index of the bucket, from 0 to {@link #BATCH_SIZE_BUCKETS} - 1.
+     * @return the number of batches of <code>2^bucket</code> to <code>2^(bucket+1) - 1</code> events.
+     */
+    public long getBatchCountForSizeBucket(final int bucket)
+    {
+        return batchSizes[bucket].get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "EventProcessorMetrics{" +
+            "batches=" + getBatchCount() +
+            ", events=" + getEventCount() +
+            ", waitNanos=" + getWaitNanos() +
+            ", handlerNanos=" + getHandlerNanos() +
+            ", timeouts=" + getTimeoutCount() +
+            ", alerts=" + getAlertCount() +
+            '}';
+    }
+}
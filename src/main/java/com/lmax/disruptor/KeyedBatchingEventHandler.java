@@ -0,0 +1,318 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.disruptor.collections.LongLongHashMap;
+
+/**
+ * Groups events by a <code>long</code> key into batches, handing each batch to a {@link BatchHandler} when it
+ * reaches the maximum batch size, when its first event is older than the maximum age, or at the end of each batch
+ * from the ring.
+ * <p>
+ * Events for a key need not be adjacent in the ring.  The batch for each key is found through a
+ * {@link LongLongHashMap} and is taken from a pool of batches created up front, each holding values created by an
+ * {@link EventFactory} into which events are copied, so that once constructed the handler allocates nothing.  When
+ * every pooled batch is in use the oldest is flushed to make room for a new key.
+ * <p>
+ * When created to flush only on size and age, the age of the pending batches is checked at the end of each batch
+ * from the ring and on {@link #onTimeout(long)}, so a processor with a timeout wait strategy flushes them while the
+ * ring is idle.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ * @param <V> the type of the values held in the batches.
+ */
+public final class KeyedBatchingEventHandler<T, V>
+    implements EventHandler<T>, TimeoutHandler
+{
+    private static final long NO_BATCH = -1L;
+
+    private final EventTranslatorOneArg<V, T> copier;
+    private final BatchHandler<T, V> batchHandler;
+    private final long maxAgeNanos;
+    private final boolean flushOnEndOfBatch;
+    private final LongLongHashMap batchesByKey;
+    private final Batch<V>[] batches;
+    private final int[] pending;
+    private final int[] free;
+    private int pendingCount = 0;
+    private int freeCount;
+
+    /**
+     * @param factory           to create the values the batches hold.
+     * @param copier            to copy each event, passed as the argument, into a value of its batch.
+     * @param batchHandler      to find the key of each event and to handle the batches.
+     * @param maxKeys           the number of batches pooled, so the most keys batched at once.
+     * @param maxBatchSize      the number of values in a batch that flushes it.
+     * @param maxAge            the age of its first value that flushes a batch.
+     * @param unit              of maxAge.
+     * @param flushOnEndOfBatch true to flush every batch at the end of each batch from the ring, false to flush only
+     *                          on size and age.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public KeyedBatchingEventHandler(
+        final EventFactory<V> factory,
+        final EventTranslatorOneArg<V, T> copier,
+        final BatchHandler<T, V> batchHandler,
+        final int maxKeys,
+        final int maxBatchSize,
+        final long maxAge,
+        final TimeUnit unit,
+        final boolean flushOnEndOfBatch)
+    {
+        if (maxKeys < 1 || maxBatchSize < 1 || maxAge < 1)
+        {
+            throw new IllegalArgumentException(
+                "maxKeys, maxBatchSize and maxAge must be positive but got: maxKeys " + maxKeys +
+                    ", maxBatchSize " + maxBatchSize + " and maxAge " + maxAge);
+        }
+
+        this.copier = copier;
+        this.batchHandler = batchHandler;
+        this.maxAgeNanos = unit.toNanos(maxAge);
+        this.flushOnEndOfBatch = flushOnEndOfBatch;
+        this.batchesByKey = new LongLongHashMap(maxKeys, NO_BATCH);
+        this.batches = new Batch[maxKeys];
+        this.pending = new int[maxKeys];
+        this.free = new int[maxKeys];
+
+        for (int i = 0; i < maxKeys; i++)
+        {
+            batches[i] = new Batch<V>(factory, maxBatchSize);
+            free[i] = maxKeys - 1 - i;
+        }
+        freeCount = maxKeys;
+    }
+
+    @Override
+    public void onEvent(final T event, final long sequence, final boolean endOfBatch) throws Exception
+    {
+        final long key = batchHandler.keyOf(event);
+        int index = (int) batchesByKey.get(key);
+        if (NO_BATCH == index)
+        {
+            index = open(key, System.nanoTime());
+        }
+
+        final Batch<V> batch = batches[index];
+        copier.translateTo(batch.values[batch.size], sequence, event);
+        if (++batch.size == batch.values.length)
+        {
+            flush(index);
+        }
+
+        if (endOfBatch)
+        {
+            if (flushOnEndOfBatch)
+            {
+                flush();
+            }
+            else
+            {
+                flushExpired(System.nanoTime());
+            }
+        }
+    }
+
+    /**
+     * Flush the batches whose first value is older than the maximum age.
+     *
+     * @param sequence unused.
+     * @throws Exception if thrown by the {@link BatchHandler}.
+     */
+    @Override
+    public void onTimeout(final long sequence) throws Exception
+    {
+        flushExpired(System.nanoTime());
+    }
+
+    /**
+     * Flush the batches whose first value is older than the maximum age.
+     *
+     * @param nowNanos the current time, as given by {@link System#nanoTime()}.
+     * @return the number of batches flushed.
+     * @throws Exception if thrown by the {@link BatchHandler}.
+     */
+    public int flushExpired(final long nowNanos) throws Exception
+    {
+        int flushed = 0;
+        for (int i = pendingCount - 1; i >= 0; i--)
+        {
+            // flushing moves the last pending batch, already checked, into position i
+            if (nowNanos - batches[pending[i]].startNanos >= maxAgeNanos)
+            {
+                flush(pending[i]);
+                flushed++;
+            }
+        }
+
+        return flushed;
+    }
+
+    /**
+     * Flush every pending batch.
+     *
+     * @throws Exception if thrown by the {@link BatchHandler}.
+     */
+    public void flush() throws Exception
+    {
+        while (pendingCount > 0)
+        {
+            flush(pending[pendingCount - 1]);
+        }
+    }
+
+    /**
+     * @return the number of keys with a pending batch.
+     */
+    public int getPendingCount()
+    {
+        return pendingCount;
+    }
+
+    private int open(final long key, final long nowNanos) throws Exception
+    {
+        if (0 == freeCount)
+        {
+            flush(oldest());
+        }
+
+        final int index = free[--freeCount];
+        final Batch<V> batch = batches[index];
+        batch.key = key;
+        batch.startNanos = nowNanos;
+        batch.position = pendingCount;
+        pending[pendingCount++] = index;
+        batchesByKey.put(key, index);
+
+        return index;
+    }
+
+    private int oldest()
+    {
+        int oldest = pending[0];
+        for (int i = 1; i < pendingCount; i++)
+        {
+            if (batches[pending[i]].startNanos - batches[oldest].startNanos < 0)
+            {
+                oldest = pending[i];
+            }
+        }
+
+        return oldest;
+    }
+
+    /**
+     * Hand a batch to the handler and return it to the pool, even if the handler throws.
+     */
+    private void flush(final int index) throws Exception
+    {
+        final Batch<V> batch = batches[index];
+        try
+        {
+            batchHandler.onBatch(batch.key, batch);
+        }
+        finally
+        {
+            batchesByKey.remove(batch.key);
+            final int last = pending[--pendingCount];
+            pending[batch.position] = last;
+            batches[last].position = batch.position;
+            batch.size = 0;
+            free[freeCount++] = index;
+        }
+    }
+
+    /**
+     * Callback interface to be implemented for finding the key of each event and handling the batches.
+     *
+     * @param <T> the type of the events.
+     * @param <V> the type of the values held in the batches.
+     */
+    public interface BatchHandler<T, V>
+    {
+        /**
+         * @param event to be batched.
+         * @return the key of the batch the event belongs to.
+         */
+        long keyOf(T event);
+
+        /**
+         * Called when a batch is flushed.  The batch and its values are reused once this returns, so neither should
+         * be kept.
+         *
+         * @param key   shared by the events in the batch.
+         * @param batch of the values copied from the events, in sequence order.
+         * @throws Exception if the handler would like the exception handled further up the chain.
+         */
+        void onBatch(long key, Batch<V> batch) throws Exception;
+    }
+
+    /**
+     * Pooled batch of the values copied from the events with a key.
+     *
+     * @param <V> the type of the values.
+     */
+    public static final class Batch<V>
+    {
+        private final V[] values;
+        private long key;
+        private long startNanos;
+        private int position;
+        private int size = 0;
+
+        @SuppressWarnings("unchecked")
+        private Batch(final EventFactory<V> factory, final int maxBatchSize)
+        {
+            values = (V[]) new Object[maxBatchSize];
+            for (int i = 0; i < maxBatchSize; i++)
+            {
+                values[i] = factory.newInstance();
+            }
+        }
+
+        /**
+         * @return the key shared by the events in the batch.
+         */
+        public long getKey()
+        {
+            return key;
+        }
+
+        /**
+         * @return the number of values in the batch.
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * @param index of the value, from 0 to one less than the size.
+         * @return the value.
+         */
+        public V get(final int index)
+        {
+            if (index >= size)
+            {
+                throw new IndexOutOfBoundsException("index " + index + " is not less than size " + size);
+            }
+
+            return values[index];
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Consumes a ring buffer created by {@link RingBuffer#createOverwriting(EventFactory, int, WaitStrategy)}, where the
+ * producer never waits and may lap the consumer.
+ * <p>
+ * Each event is copied out of the ring before it is handed to the {@link EventHandler}, and the stamp of its slot
+ * is checked before and after the copy.  When the producer has overwritten the slot the copy is discarded, the
+ * processor skips ahead to the oldest event still in the ring and counts the events skipped, see
+ * {@link #getLostCount()}.  The handler therefore only ever sees whole events, in sequence order, with gaps where
+ * events were lost.
+ * <p>
+ * If the {@link EventHandler} also implements {@link LifecycleAware} or {@link TimeoutHandler} it is notified as it
+ * would be by a {@link BatchEventProcessor}.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class LapDetectingEventProcessor<T>
+    implements EventProcessor
+{
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExceptionHandler<? super T> exceptionHandler = new FatalExceptionHandler();
+    private final RingBuffer<T> ringBuffer;
+    private final SequenceBarrier sequenceBarrier;
+    private final EventHandler<? super T> eventHandler;
+    private final EventTranslatorOneArg<T, T> copier;
+    private final T copy;
+    private final Sequence sequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final TimeoutHandler timeoutHandler;
+    private volatile long lostCount = 0;
+
+    /**
+     * @param ringBuffer      created with an {@link OverwritingSequencer}.
+     * @param sequenceBarrier on which it is waiting.
+     * @param eventHandler    is the delegate to which the copies of the events are dispatched.
+     * @param factory         to create the event that each event is copied into.
+     * @param copier          to copy the event passed as the argument into the event it is translating.
+     */
+    public LapDetectingEventProcessor(
+        final RingBuffer<T> ringBuffer,
+        final SequenceBarrier sequenceBarrier,
+        final EventHandler<? super T> eventHandler,
+        final EventFactory<T> factory,
+        final EventTranslatorOneArg<T, T> copier)
+    {
+        this.ringBuffer = ringBuffer;
+        this.sequenceBarrier = sequenceBarrier;
+        this.eventHandler = eventHandler;
+        this.copier = copier;
+        this.copy = factory.newInstance();
+
+        timeoutHandler =
+            (eventHandler instanceof TimeoutHandler) ? (TimeoutHandler) eventHandler : null;
+    }
+
+    @Override
+    public Sequence getSequence()
+    {
+        return sequence;
+    }
+
+    /**
+     * @return the number of events the producer overwrote before this processor could read them.
+     */
+    public long getLostCount()
+    {
+        return lostCount;
+    }
+
+    @Override
+    public void halt()
+    {
+        running.set(false);
+        sequenceBarrier.alert();
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return running.get();
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the {@link LapDetectingEventProcessor}
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler<? super T> exceptionHandler)
+    {
+        if (null == exceptionHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * It is ok to have another thread rerun this method after a halt().
+     *
+     * @throws IllegalStateException if this object instance is already running in a thread
+     */
+    @Override
+    public void run()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("Thread is already running");
+        }
+        sequenceBarrier.clearAlert();
+
+        notifyStart();
+
+        long nextSequence = sequence.get() + 1L;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    long availableSequence = sequenceBarrier.waitFor(nextSequence);
+                    if (availableSequence < nextSequence && ringBuffer.getCursor() >= nextSequence)
+                    {
+                        // published, but no longer available, so overwritten
+                        nextSequence = skipLapped(nextSequence);
+                    }
+
+                    while (nextSequence <= availableSequence)
+                    {
+                        if (copy(nextSequence))
+                        {
+                            eventHandler.onEvent(copy, nextSequence, nextSequence == availableSequence);
+                            nextSequence++;
+                        }
+                        else
+                        {
+                            nextSequence = skipLapped(nextSequence);
+                            if (nextSequence > availableSequence)
+                            {
+                                // the tail of the batch was lapped, carry the batch on to the events that lapped it
+                                // so that it still ends on a delivered event
+                                availableSequence = sequenceBarrier.waitFor(nextSequence);
+                            }
+                        }
+                    }
+
+                    sequence.set(nextSequence - 1L);
+                }
+                catch (final TimeoutException e)
+                {
+                    notifyTimeout(sequence.get());
+                }
+                catch (final AlertException ex)
+                {
+                    if (!running.get())
+                    {
+                        break;
+                    }
+                }
+                catch (final Throwable ex)
+                {
+                    exceptionHandler.handleEventException(ex, nextSequence, copy);
+                    sequence.set(nextSequence);
+                    nextSequence++;
+                }
+            }
+        }
+        finally
+        {
+            notifyShutdown();
+            running.set(false);
+        }
+    }
+
+    /**
+     * Copy the event out of the ring, checking its slot still holds it both before and after the copy.
+     *
+     * @return true if the copy is of the whole event, false if the slot was overwritten.
+     */
+    private boolean copy(final long sequence)
+    {
+        if (!ringBuffer.isPublished(sequence))
+        {
+            return false;
+        }
+
+        copier.translateTo(copy, sequence, ringBuffer.get(sequence));
+        ArrayAccess.loadLoadFence();
+        return ringBuffer.isPublished(sequence);
+    }
+
+    /**
+     * Move past a lapped sequence to the oldest one the producer can not yet have started to overwrite, as far as
+     * the cursor shows, counting the events passed over as lost.
+     */
+    private long skipLapped(final long lappedSequence)
+    {
+        final long oldest = ringBuffer.getCursor() - ringBuffer.getBufferSize() + 1L;
+        final long nextSequence = Math.max(lappedSequence + 1L, oldest);
+        lostCount += nextSequence - lappedSequence;
+        return nextSequence;
+    }
+
+    private void notifyTimeout(final long availableSequence)
+    {
+        try
+        {
+            if (timeoutHandler != null)
+            {
+                timeoutHandler.onTimeout(availableSequence);
+            }
+        }
+        catch (Throwable e)
+        {
+            exceptionHandler.handleEventException(e, availableSequence, null);
+        }
+    }
+
+    /**
+     * Notifies the EventHandler when this processor is starting up
+     */
+    private void notifyStart()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware) eventHandler).onStart();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnStartException(ex);
+            }
+        }
+    }
+
+    /**
+     * Notifies the EventHandler immediately prior to this processor shutting down
+     */
+    private void notifyShutdown()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware) eventHandler).onShutdown();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnShutdownException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.lmax.disruptor.collections.ConcurrentHistogram;
+
+/**
+ * <p>Samples one in every <code>sampleRate</code> sequences and records how long each sampled event took to get
+ * from being published to being passed by each stage of a pipeline, without changing the event class.</p>
+ *
+ * <p>The publisher calls {@link #recordPublish(long)} after claiming a sequence and before publishing it, which
+ * stores {@link System#nanoTime()} for sampled sequences in a side array indexed by sequence.  Each stage is a
+ * {@link Stage}, an {@link EventProcessorListener} set on the processor of that stage, which at the end of each
+ * batch records the latency since publish and since its upstream stage passed the sequence.  Stages no other stage
+ * depends on also record into the end to end histogram.</p>
+ *
+ * <p>The side arrays cover twice the ring, so a slot cannot be reused while any stage may still read it.  The
+ * cost to a stage is a mask test per batch and a couple of array accesses and histogram updates per sample.</p>
+ */
+public final class LatencyTracer
+{
+    private final int sampleShift;
+    private final long sampleMask;
+    private final int slotMask;
+    private final long highestTrackableNanos;
+    private final int significantDigits;
+    private final TimeTable publishTimes;
+    private final ConcurrentHistogram endToEnd;
+
+    /**
+     * @param bufferSize            of the ring buffer being traced.
+     * @param sampleRate            one in how many sequences to sample, must be a power of 2.
+     * @param highestTrackableNanos highest latency to record at full precision.
+     * @param significantDigits     decimal digits of precision for the histograms.
+     * @throws IllegalArgumentException if sampleRate is not a positive power of 2.
+     */
+    public LatencyTracer(
+        final int bufferSize,
+        final int sampleRate,
+        final long highestTrackableNanos,
+        final int significantDigits)
+    {
+        if (sampleRate < 1 || Integer.bitCount(sampleRate) != 1)
+        {
+            throw new IllegalArgumentException("sampleRate must be a power of 2");
+        }
+
+        this.sampleShift = Integer.numberOfTrailingZeros(sampleRate);
+        this.sampleMask = sampleRate - 1L;
+        this.slotMask = Math.max(1, (int) ((2L * bufferSize) >> sampleShift)) - 1;
+        this.highestTrackableNanos = highestTrackableNanos;
+        this.significantDigits = significantDigits;
+        this.publishTimes = new TimeTable(slotMask + 1);
+        this.endToEnd = new ConcurrentHistogram(highestTrackableNanos, significantDigits);
+    }
+
+    /**
+     * Record the publish time of a sequence if it is sampled.  Must be called after the sequence is claimed and
+     * before it is published.
+     *
+     * @param sequence being published.
+     */
+    public void recordPublish(final long sequence)
+    {
+        if (0L == (sequence & sampleMask))
+        {
+            publishTimes.put(slot(sequence), sequence, System.nanoTime());
+        }
+    }
+
+    /**
+     * Record the publish time of the sampled sequences of a batch.
+     *
+     * @param lo first sequence of the batch.
+     * @param hi last sequence of the batch.
+     */
+    public void recordPublish(final long lo, final long hi)
+    {
+        final long now = System.nanoTime();
+        for (long sequence = firstSampled(lo); sequence <= hi; sequence += sampleMask + 1L)
+        {
+            publishTimes.put(slot(sequence), sequence, now);
+        }
+    }
+
+    /**
+     * Add a stage that follows the publisher directly.
+     *
+     * @param name of the stage.
+     * @return the stage, to be set as the {@link EventProcessorListener} of its processor.
+     */
+    public Stage addStage(final String name)
+    {
+        return addStage(name, null);
+    }
+
+    /**
+     * Add a stage that follows another stage.
+     *
+     * @param name     of the stage.
+     * @param upstream stage this one waits on, or null if it follows the publisher.
+     * @return the stage, to be set as the {@link EventProcessorListener} of its processor.
+     */
+    public Stage addStage(final String name, final Stage upstream)
+    {
+        if (null != upstream)
+        {
+            upstream.terminal = false;
+        }
+
+        return new Stage(name, upstream);
+    }
+
+    /**
+     * @return latencies from publish to each terminal stage passing a sampled sequence.
+     */
+    public ConcurrentHistogram getEndToEndHistogram()
+    {
+        return endToEnd;
+    }
+
+    private int slot(final long sequence)
+    {
+        return (int) (sequence >>> sampleShift) & slotMask;
+    }
+
+    private long firstSampled(final long sequence)
+    {
+        return (sequence + sampleMask) & ~sampleMask;
+    }
+
+    /**
+     * One stage of the traced pipeline.  Must only be set on one processor.
+     */
+    public final class Stage implements EventProcessorListener
+    {
+        private final String name;
+        private final Stage upstream;
+        private final TimeTable passTimes = new TimeTable(slotMask + 1);
+        private final ConcurrentHistogram sincePublish = new ConcurrentHistogram(highestTrackableNanos, significantDigits);
+        private final ConcurrentHistogram sinceUpstream = new ConcurrentHistogram(highestTrackableNanos, significantDigits);
+        private volatile boolean terminal = true;
+        private long batchSize;
+
+        private Stage(final String name, final Stage upstream)
+        {
+            this.name = name;
+            this.upstream = upstream;
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return latencies from publish to this stage passing a sampled sequence.
+         */
+        public ConcurrentHistogram getLatencySincePublish()
+        {
+            return sincePublish;
+        }
+
+        /**
+         * @return latencies from the upstream stage, or the publisher, to this stage passing a sampled sequence.
+         */
+        public ConcurrentHistogram getLatencySinceUpstream()
+        {
+            return sinceUpstream;
+        }
+
+        @Override
+        public void onWaitStart(final long sequence)
+        {
+        }
+
+        @Override
+        public void onBatchStart(final long batchSize)
+        {
+            this.batchSize = batchSize;
+        }
+
+        @Override
+        public void onBatchEnd(final long sequence)
+        {
+            final long first = firstSampled(sequence - batchSize + 1L);
+            if (first > sequence)
+            {
+                return;
+            }
+
+            final long now = System.nanoTime();
+            for (long sampled = first; sampled <= sequence; sampled += sampleMask + 1L)
+            {
+                record(sampled, now);
+            }
+        }
+
+        private void record(final long sequence, final long now)
+        {
+            final int slot = slot(sequence);
+            passTimes.put(slot, sequence, now);
+
+            final long published = publishTimes.get(slot, sequence);
+            if (TimeTable.MISSING != published)
+            {
+                final long latency = Math.max(0L, now - published);
+                sincePublish.recordValue(latency);
+                if (terminal)
+                {
+                    endToEnd.recordValue(latency);
+                }
+            }
+
+            final long previous = null == upstream ? published : upstream.passTimes.get(slot, sequence);
+            if (TimeTable.MISSING != previous)
+            {
+                sinceUpstream.recordValue(Math.max(0L, now - previous));
+            }
+        }
+
+        @Override
+        public void onTimeout(final long sequence)
+        {
+        }
+
+        @Override
+        public void onAlert()
+        {
+        }
+    }
+
+    /**
+     * Times of sampled sequences, each slot tagged with its sequence so a reader never takes the time of another
+     * lap or of a sequence not yet recorded.
+     */
+    private static final class TimeTable
+    {
+        private static final long MISSING = Long.MIN_VALUE;
+
+        private final AtomicLongArray entries;
+
+        TimeTable(final int slots)
+        {
+            entries = new AtomicLongArray(slots * 2);
+            for (int i = 0; i < slots; i++)
+            {
+                entries.set(i * 2, -1L);
+            }
+        }
+
+        void put(final int slot, final long sequence, final long nanos)
+        {
+            entries.lazySet(slot * 2 + 1, nanos);
+            entries.lazySet(slot * 2, sequence);
+        }
+
+        long get(final int slot, final long sequence)
+        {
+            return entries.get(slot * 2) == sequence ? entries.get(slot * 2 + 1) : MISSING;
+        }
+    }
+}
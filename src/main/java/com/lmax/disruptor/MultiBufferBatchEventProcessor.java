@@ -0,0 +1,492 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.util.ThreadHints;
+
+/**
+ * Consumes the events of several rings from one thread, handing them all to one {@link EventHandler}, so that a
+ * single core can serve many low-rate feeds.
+ * <p>
+ * Each pass over the rings checks the barrier of every ring without blocking and takes at most the batch cap
+ * of that ring from those with events available.  Barriers other than those created by a ring buffer are waited
+ * on once their cursor shows the next event, which may block in their wait strategy.  Which rings a pass serves and how often is set by the
+ * {@link Fairness}.  When a whole pass finds nothing the processor backs off, spinning, then yielding, then
+ * parking, and if the handler implements {@link TimeoutHandler} it is notified of each ring when no ring has had
+ * events for the timeout set with {@link #setTimeout(long, TimeUnit)}.
+ * <p>
+ * There is one sequence per ring, returned by {@link #getSequences()} in the order of the rings, each of which
+ * must gate its ring.  If the {@link EventHandler} also implements {@link LifecycleAware} or
+ * {@link BatchStartAware} it is notified as it would be by a {@link BatchEventProcessor}.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class MultiBufferBatchEventProcessor<T>
+    implements EventProcessor
+{
+    /**
+     * How the rings share the processor.
+     */
+    public enum Fairness
+    {
+        /**
+         * Each pass takes one batch from each ring.
+         */
+        ROUND_ROBIN,
+
+        /**
+         * Each pass takes up to the weight of each ring in batches from it, see {@link #setWeight(int, int)}.
+         */
+        WEIGHTED,
+
+        /**
+         * Rings are served in the order they were given, a ring is only served when all rings before it are empty.
+         */
+        PRIORITY
+    }
+
+    private static final int DEFAULT_SPIN_TRIES = 100;
+    private static final int DEFAULT_YIELD_TRIES = 100;
+    private static final long DEFAULT_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private ExceptionHandler<? super T> exceptionHandler = new FatalExceptionHandler();
+    private final DataProvider<T>[] providers;
+    private final SequenceBarrier[] barriers;
+    private final EventHandler<? super T> eventHandler;
+    private final Sequence[] sequences;
+    private final ProducerWaitStrategy[] producerWaitStrategies;
+    private final int[] maxBatchSizes;
+    private final int[] weights;
+    private final TimeoutHandler timeoutHandler;
+    private final BatchStartAware batchStartAware;
+    private Fairness fairness = Fairness.ROUND_ROBIN;
+    private long timeoutNanos = Long.MAX_VALUE;
+    private int spinTries = DEFAULT_SPIN_TRIES;
+    private int yieldTries = DEFAULT_YIELD_TRIES;
+    private long parkNanos = DEFAULT_PARK_NANOS;
+
+    /**
+     * @param providers    to which events are published, one per ring.
+     * @param barriers     on which to check for events, in the same order as the providers.
+     * @param eventHandler is the delegate to which the events of all rings are dispatched.
+     */
+    public MultiBufferBatchEventProcessor(
+        final DataProvider<T>[] providers,
+        final SequenceBarrier[] barriers,
+        final EventHandler<? super T> eventHandler)
+    {
+        if (providers.length != barriers.length || providers.length == 0)
+        {
+            throw new IllegalArgumentException(
+                "Need one barrier for each provider, and at least one of each, but got " +
+                    providers.length + " providers and " + barriers.length + " barriers");
+        }
+
+        this.providers = providers.clone();
+        this.barriers = barriers.clone();
+        this.eventHandler = eventHandler;
+
+        final int rings = providers.length;
+        this.sequences = new Sequence[rings];
+        this.producerWaitStrategies = new ProducerWaitStrategy[rings];
+        for (int i = 0; i < rings; i++)
+        {
+            sequences[i] = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+            producerWaitStrategies[i] = (barriers[i] instanceof ProcessingSequenceBarrier) ?
+                ((ProcessingSequenceBarrier) barriers[i]).getProducerWaitStrategy() : null;
+        }
+        this.maxBatchSizes = new int[rings];
+        Arrays.fill(maxBatchSizes, Integer.MAX_VALUE);
+        this.weights = new int[rings];
+        Arrays.fill(weights, 1);
+
+        batchStartAware =
+            (eventHandler instanceof BatchStartAware) ? (BatchStartAware) eventHandler : null;
+        timeoutHandler =
+            (eventHandler instanceof TimeoutHandler) ? (TimeoutHandler) eventHandler : null;
+    }
+
+    /**
+     * Not supported, there is one sequence per ring.
+     *
+     * @throws UnsupportedOperationException always, use {@link #getSequences()}.
+     */
+    @Override
+    public Sequence getSequence()
+    {
+        throw new UnsupportedOperationException("There is one sequence per ring, use getSequences()");
+    }
+
+    /**
+     * @return the sequence of each ring, in the order the rings were given.
+     */
+    public Sequence[] getSequences()
+    {
+        return sequences.clone();
+    }
+
+    @Override
+    public void halt()
+    {
+        running.set(false);
+        for (final SequenceBarrier barrier : barriers)
+        {
+            barrier.alert();
+        }
+    }
+
+    @Override
+    public boolean isRunning()
+    {
+        return running.get();
+    }
+
+    /**
+     * Set a new {@link ExceptionHandler} for handling exceptions propagated out of the event handler.
+     *
+     * @param exceptionHandler to replace the existing exceptionHandler.
+     */
+    public void setExceptionHandler(final ExceptionHandler<? super T> exceptionHandler)
+    {
+        if (null == exceptionHandler)
+        {
+            throw new NullPointerException();
+        }
+
+        this.exceptionHandler = exceptionHandler;
+    }
+
+    /**
+     * Set how the rings share the processor, {@link Fairness#ROUND_ROBIN} by default.  Must be called before the
+     * processor is started.
+     *
+     * @param fairness to apply to each pass over the rings.
+     */
+    public void setFairness(final Fairness fairness)
+    {
+        if (null == fairness)
+        {
+            throw new NullPointerException();
+        }
+
+        this.fairness = fairness;
+    }
+
+    /**
+     * Set the number of batches a pass may take from a ring with {@link Fairness#WEIGHTED}, 1 by default.  Must be
+     * called before the processor is started.
+     *
+     * @param ring   index of the ring, in the order the rings were given.
+     * @param weight the most batches to take from the ring in each pass.
+     */
+    public void setWeight(final int ring, final int weight)
+    {
+        if (weight < 1)
+        {
+            throw new IllegalArgumentException("weight must be positive but was " + weight);
+        }
+
+        weights[ring] = weight;
+    }
+
+    /**
+     * Limit the number of events handled from a ring before the next ring is checked and the sequence of the ring
+     * is advanced, unbounded by default.  Must be called before the processor is started.
+     *
+     * @param ring         index of the ring, in the order the rings were given.
+     * @param maxBatchSize the most events to handle from the ring in one batch.
+     */
+    public void setMaxBatchSize(final int ring, final int maxBatchSize)
+    {
+        if (maxBatchSize < 1)
+        {
+            throw new IllegalArgumentException("maxBatchSize must be positive but was " + maxBatchSize);
+        }
+
+        maxBatchSizes[ring] = maxBatchSize;
+    }
+
+    /**
+     * Notify a handler implementing {@link TimeoutHandler} with the sequence of each ring once no ring has had
+     * events for the timeout, and again after each further timeout.  Never by default.  Must be called before the
+     * processor is started.
+     *
+     * @param timeout  without events from any ring.
+     * @param timeUnit of the timeout.
+     */
+    public void setTimeout(final long timeout, final TimeUnit timeUnit)
+    {
+        if (timeout < 1)
+        {
+            throw new IllegalArgumentException("timeout must be positive but was " + timeout);
+        }
+
+        this.timeoutNanos = timeUnit.toNanos(timeout);
+    }
+
+    /**
+     * Set how the processor backs off after a pass that found no events: it spins for spinTries passes, then yields
+     * for yieldTries passes, then parks for parkNanos between passes until events arrive.  Must be called before
+     * the processor is started.
+     *
+     * @param spinTries  passes to spin for.
+     * @param yieldTries passes to yield for after spinning.
+     * @param parkNanos  to park for between passes after yielding.
+     */
+    public void setIdleBackoff(final int spinTries, final int yieldTries, final long parkNanos)
+    {
+        if (spinTries < 0 || yieldTries < 0 || parkNanos < 1)
+        {
+            throw new IllegalArgumentException(
+                "spinTries and yieldTries must not be negative and parkNanos must be positive but got: spinTries " +
+                    spinTries + ", yieldTries " + yieldTries + " and parkNanos " + parkNanos);
+        }
+
+        this.spinTries = spinTries;
+        this.yieldTries = yieldTries;
+        this.parkNanos = parkNanos;
+    }
+
+    /**
+     * It is ok to have another thread rerun this method after a halt().
+     *
+     * @throws IllegalStateException if this object instance is already running in a thread
+     */
+    @Override
+    public void run()
+    {
+        if (!running.compareAndSet(false, true))
+        {
+            throw new IllegalStateException("Thread is already running");
+        }
+        for (final SequenceBarrier barrier : barriers)
+        {
+            barrier.clearAlert();
+        }
+
+        notifyStart();
+
+        try
+        {
+            int idlePasses = 0;
+            long idleSince = 0L;
+            while (running.get())
+            {
+                try
+                {
+                    if (processPass())
+                    {
+                        idlePasses = 0;
+                        continue;
+                    }
+
+                    if (idlePasses == 0)
+                    {
+                        idleSince = System.nanoTime();
+                    }
+                    else if (timeoutNanos != Long.MAX_VALUE && System.nanoTime() - idleSince >= timeoutNanos)
+                    {
+                        notifyTimeout();
+                        idleSince = System.nanoTime();
+                    }
+                    backOff(idlePasses++);
+                }
+                catch (final AlertException ex)
+                {
+                    // Checked by the loop
+                }
+                catch (final InterruptedException ex)
+                {
+                    // Checked by the loop
+                }
+                catch (final TimeoutException ex)
+                {
+                    // Barriers are only asked for sequences that have been reached
+                }
+            }
+        }
+        finally
+        {
+            notifyShutdown();
+            running.set(false);
+        }
+    }
+
+    /**
+     * @return true if any ring had events.
+     */
+    private boolean processPass() throws AlertException, InterruptedException, TimeoutException
+    {
+        boolean processed = false;
+        for (int i = 0; i < barriers.length; i++)
+        {
+            int batches = fairness == Fairness.WEIGHTED ? weights[i] : 1;
+            while (batches-- > 0 && processRing(i))
+            {
+                if (fairness == Fairness.PRIORITY)
+                {
+                    return true;
+                }
+                processed = true;
+            }
+        }
+
+        return processed;
+    }
+
+    /**
+     * Handle the next batch of a ring if its barrier shows events without waiting.
+     *
+     * @return true if the ring had events.
+     */
+    private boolean processRing(final int ring) throws AlertException, InterruptedException, TimeoutException
+    {
+        final Sequence sequence = sequences[ring];
+        final long nextSequence = sequence.get() + 1L;
+        final long availableSequence = Math.min(availableSequence(ring, nextSequence), nextSequence + maxBatchSizes[ring] - 1L);
+        if (availableSequence < nextSequence)
+        {
+            return false;
+        }
+
+        if (batchStartAware != null)
+        {
+            batchStartAware.onBatchStart(availableSequence - nextSequence + 1);
+        }
+
+        final DataProvider<T> provider = providers[ring];
+        long current = nextSequence;
+        T event = null;
+        try
+        {
+            while (current <= availableSequence)
+            {
+                event = provider.get(current);
+                eventHandler.onEvent(event, current, current == availableSequence);
+                current++;
+            }
+            current = availableSequence;
+        }
+        catch (final Throwable ex)
+        {
+            exceptionHandler.handleEventException(ex, current, event);
+        }
+
+        if (producerWaitStrategies[ring] != null)
+        {
+            // a volatile write, so that the check for waiting producers can not be reordered before it
+            sequence.setVolatile(current);
+            producerWaitStrategies[ring].signalAllWhenBlocking();
+        }
+        else
+        {
+            sequence.set(current);
+        }
+
+        return true;
+    }
+
+    private long availableSequence(final int ring, final long nextSequence)
+        throws AlertException, InterruptedException, TimeoutException
+    {
+        final SequenceBarrier barrier = barriers[ring];
+        if (barrier instanceof ProcessingSequenceBarrier)
+        {
+            return ((ProcessingSequenceBarrier) barrier).getAvailableSequence(nextSequence);
+        }
+
+        return barrier.getCursor() < nextSequence ? nextSequence - 1L : barrier.waitFor(nextSequence);
+    }
+
+    private void backOff(final int idlePasses)
+    {
+        if (idlePasses < spinTries)
+        {
+            ThreadHints.onSpinWait();
+        }
+        else if (idlePasses < spinTries + yieldTries)
+        {
+            Thread.yield();
+        }
+        else
+        {
+            LockSupport.parkNanos(this, parkNanos);
+        }
+    }
+
+    private void notifyTimeout()
+    {
+        if (timeoutHandler == null)
+        {
+            return;
+        }
+
+        for (final Sequence sequence : sequences)
+        {
+            final long current = sequence.get();
+            try
+            {
+                timeoutHandler.onTimeout(current);
+            }
+            catch (final Throwable e)
+            {
+                exceptionHandler.handleEventException(e, current, null);
+            }
+        }
+    }
+
+    /**
+     * Notifies the EventHandler when this processor is starting up
+     */
+    private void notifyStart()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware) eventHandler).onStart();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnStartException(ex);
+            }
+        }
+    }
+
+    /**
+     * Notifies the EventHandler immediately prior to this processor shutting down
+     */
+    private void notifyShutdown()
+    {
+        if (eventHandler instanceof LifecycleAware)
+        {
+            try
+            {
+                ((LifecycleAware) eventHandler).onShutdown();
+            }
+            catch (final Throwable ex)
+            {
+                exceptionHandler.handleOnShutdownException(ex);
+            }
+        }
+    }
+}
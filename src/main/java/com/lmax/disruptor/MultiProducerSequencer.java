@@ -16,9 +16,6 @@
 package com.lmax.disruptor;
 
 import com.lmax.disruptor.util.Util;
-import sun.misc.Unsafe;
-
-import java.util.concurrent.locks.LockSupport;
 
 
 /**
@@ -36,15 +33,36 @@ import java.util.concurrent.locks.LockSupport;
  */
 public final class MultiProducerSequencer extends AbstractSequencer
 {
-    private static final Unsafe UNSAFE = Util.getUnsafe();
-    private static final long BASE = UNSAFE.arrayBaseOffset(int[].class); // 返回当前数组第一个元素地址相对于数组起始地址的偏移值
-    private static final long SCALE = UNSAFE.arrayIndexScale(int[].class); //返回当前数组一个元素占用的字节数,在本例中返回4。
+    private static final int BITS_PER_WORD = 64;
+    private static final int BIT_INDEX_SHIFT = 6;
+
+    /**
+     * How the availability of each slot is tracked.
+     */
+    public enum AvailabilityMode
+    {
+        /**
+         * One int per slot holding the lap of the last sequence published to it.  Publishing a batch of
+         * n events costs n ordered stores and checking a range costs a volatile read per slot.
+         */
+        PER_SLOT,
+
+        /**
+         * One bit per slot holding the parity of the lap of the last sequence published to it, packed
+         * 64 slots to a word.  Publishing a batch costs one CAS per 64 slots and checking a range costs
+         * a volatile read per 64 slots, in return producers publishing to neighbouring slots contend
+         * on the same words.
+         */
+        PACKED
+    }
 
     private final Sequence gatingSequenceCache = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
 
     // availableBuffer tracks the state of each ringbuffer slot
     // see below for more details on the approach
     private final int[] availableBuffer;  // availableBuffer是用来记录每一个ringbuffer槽的状态。
+    private final long[] availableWords;
+    private final boolean packed;
     private final int indexMask; //循环掩码
     private final int indexShift; //二进制位数
 
@@ -56,11 +74,64 @@ public final class MultiProducerSequencer extends AbstractSequencer
      */
     public MultiProducerSequencer(int bufferSize, final WaitStrategy waitStrategy)
     {
-        super(bufferSize, waitStrategy);
-        availableBuffer = new int[bufferSize];
+        this(bufferSize, waitStrategy, AvailabilityMode.PER_SLOT);
+    }
+
+    /**
+     * Construct a Sequencer with the selected wait strategy, buffer size and availability tracking.
+     *
+     * @param bufferSize       the size of the buffer that this will sequence over.
+     * @param waitStrategy     for those waiting on sequences.
+     * @param availabilityMode how the availability of each slot is tracked.
+     */
+    public MultiProducerSequencer(int bufferSize, final WaitStrategy waitStrategy, final AvailabilityMode availabilityMode)
+    {
+        this(bufferSize, waitStrategy, availabilityMode, new SleepingProducerWaitStrategy());
+    }
+
+    /**
+     * Construct a Sequencer with the selected wait strategies and buffer size.
+     *
+     * @param bufferSize           the size of the buffer that this will sequence over.
+     * @param waitStrategy         for those waiting on sequences.
+     * @param producerWaitStrategy for producers waiting on a full buffer.
+     */
+    public MultiProducerSequencer(
+        int bufferSize, final WaitStrategy waitStrategy, final ProducerWaitStrategy producerWaitStrategy)
+    {
+        this(bufferSize, waitStrategy, AvailabilityMode.PER_SLOT, producerWaitStrategy);
+    }
+
+    /**
+     * Construct a Sequencer with the selected wait strategies, buffer size and availability tracking.
+     *
+     * @param bufferSize           the size of the buffer that this will sequence over.
+     * @param waitStrategy         for those waiting on sequences.
+     * @param availabilityMode     how the availability of each slot is tracked.
+     * @param producerWaitStrategy for producers waiting on a full buffer.
+     */
+    public MultiProducerSequencer(
+        int bufferSize,
+        final WaitStrategy waitStrategy,
+        final AvailabilityMode availabilityMode,
+        final ProducerWaitStrategy producerWaitStrategy)
+    {
+        super(bufferSize, waitStrategy, producerWaitStrategy);
         indexMask = bufferSize - 1;
         indexShift = Util.log2(bufferSize);
-        initialiseAvailableBuffer(); //初始化availableBuffer 都为-1
+        packed = availabilityMode == AvailabilityMode.PACKED;
+        if (packed)
+        {
+            availableBuffer = null;
+            availableWords = new long[(bufferSize + BITS_PER_WORD - 1) >>> BIT_INDEX_SHIFT];
+            initialiseAvailableWords();
+        }
+        else
+        {
+            availableBuffer = new int[bufferSize];
+            availableWords = null;
+            initialiseAvailableBuffer(); //初始化availableBuffer 都为-1
+        }
     }
 
     /**
@@ -141,8 +212,7 @@ public final class MultiProducerSequencer extends AbstractSequencer
 
                 if (wrapPoint > gatingSequence) //缓存满时，继续再次尝试
                 {
-                    waitStrategy.signalAllWhenBlocking();
-                    LockSupport.parkNanos(1); // TODO, should we spin based on the wait strategy?
+                    waitForCapacity(wrapPoint);
                     continue;
                 }
 
@@ -217,13 +287,29 @@ public final class MultiProducerSequencer extends AbstractSequencer
         setAvailableBufferValue(0, -1); //todo 为什么不在循环里写完?
     }
 
+    private void initialiseAvailableWords()
+    {
+        // all ones is the parity of lap -1, i.e. nothing published yet
+        for (int i = 0; i < availableWords.length; i++)
+        {
+            ArrayAccess.putOrderedLong(availableWords, i, -1L);
+        }
+    }
+
     /**
      * @see Sequencer#publish(long)
      */
     @Override
     public void publish(final long sequence)
     {
-        setAvailable(sequence);
+        if (packed)
+        {
+            setAvailablePacked(sequence, sequence);
+        }
+        else
+        {
+            setAvailable(sequence);
+        }
         waitStrategy.signalAllWhenBlocking();
     }
 
@@ -233,9 +319,16 @@ public final class MultiProducerSequencer extends AbstractSequencer
     @Override
     public void publish(long lo, long hi)
     {
-        for (long l = lo; l <= hi; l++)
+        if (packed)
         {
-            setAvailable(l);
+            setAvailablePacked(lo, hi);
+        }
+        else
+        {
+            for (long l = lo; l <= hi; l++)
+            {
+                setAvailable(l);
+            }
         }
         waitStrategy.signalAllWhenBlocking();
     }
@@ -270,8 +363,7 @@ public final class MultiProducerSequencer extends AbstractSequencer
 
     private void setAvailableBufferValue(int index, int flag) //位置和值
     {
-        long bufferAddress = (index * SCALE) + BASE;
-        UNSAFE.putOrderedInt(availableBuffer, bufferAddress, flag);  //设置值 并且马上写入主存,偏移量bufferAddress
+        ArrayAccess.putOrderedInt(availableBuffer, index, flag);  //设置值 并且马上写入主存
     }
 
     /**
@@ -280,15 +372,24 @@ public final class MultiProducerSequencer extends AbstractSequencer
     @Override
     public boolean isAvailable(long sequence)
     {
+        if (packed)
+        {
+            return isAvailablePacked(sequence);
+        }
+
         int index = calculateIndex(sequence);
         int flag = calculateAvailabilityFlag(sequence);
-        long bufferAddress = (index * SCALE) + BASE;
-        return UNSAFE.getIntVolatile(availableBuffer, bufferAddress) == flag;
+        return ArrayAccess.getIntAcquire(availableBuffer, index) == flag;
     }
 
     @Override
     public long getHighestPublishedSequence(long lowerBound, long availableSequence)
     {
+        if (packed)
+        {
+            return getHighestPublishedSequencePacked(lowerBound, availableSequence);
+        }
+
         for (long sequence = lowerBound; sequence <= availableSequence; sequence++)
         {
             if (!isAvailable(sequence))
@@ -300,6 +401,75 @@ public final class MultiProducerSequencer extends AbstractSequencer
         return availableSequence;
     }
 
+    /**
+     * In {@link AvailabilityMode#PACKED} mode a slot holds only the parity of the lap of the last sequence
+     * published to it.  That is enough because a slot can only be claimed for lap n once every gating
+     * sequence has moved past lap n - 1 of it, so a reader of a claimed sequence only ever sees the slot at
+     * lap n - 1 or lap n.  A range of sequences that stays within one word and one lap shares a parity, so
+     * it is published with one CAS and checked with one read.
+     */
+    private void setAvailablePacked(final long lo, final long hi)
+    {
+        long sequence = lo;
+        while (sequence <= hi)
+        {
+            final int index = calculateIndex(sequence);
+            final int length = runLength(index, hi - sequence + 1);
+            final long mask = (-1L >>> (BITS_PER_WORD - length)) << index;
+            final long bits = (calculateAvailabilityFlag(sequence) & 1) == 0 ? 0L : mask;
+            final int wordIndex = index >>> BIT_INDEX_SHIFT;
+
+            long word;
+            do
+            {
+                word = ArrayAccess.getLongAcquire(availableWords, wordIndex);
+            }
+            while (!ArrayAccess.compareAndSetLong(availableWords, wordIndex, word, (word & ~mask) | bits));
+
+            sequence += length;
+        }
+    }
+
+    private boolean isAvailablePacked(final long sequence)
+    {
+        final int index = calculateIndex(sequence);
+        final long word = ArrayAccess.getLongAcquire(availableWords, index >>> BIT_INDEX_SHIFT);
+        return ((word >>> index) & 1L) == (calculateAvailabilityFlag(sequence) & 1);
+    }
+
+    private long getHighestPublishedSequencePacked(final long lowerBound, final long availableSequence)
+    {
+        long sequence = lowerBound;
+        while (sequence <= availableSequence)
+        {
+            final int index = calculateIndex(sequence);
+            final int length = runLength(index, availableSequence - sequence + 1);
+            final long mask = (-1L >>> (BITS_PER_WORD - length)) << index;
+            final long expected = (calculateAvailabilityFlag(sequence) & 1) == 0 ? 0L : -1L;
+            final long word = ArrayAccess.getLongAcquire(availableWords, index >>> BIT_INDEX_SHIFT);
+
+            final long unavailable = (word ^ expected) & mask;
+            if (unavailable != 0)
+            {
+                return sequence + (Long.numberOfTrailingZeros(unavailable) - (index & (BITS_PER_WORD - 1))) - 1;
+            }
+
+            sequence += length;
+        }
+
+        return availableSequence;
+    }
+
+    /**
+     * Number of slots from index that share a word and a lap, limited to remaining.
+     */
+    private int runLength(final int index, final long remaining)
+    {
+        final int toEndOfWord = BITS_PER_WORD - (index & (BITS_PER_WORD - 1));
+        final int toEndOfRing = bufferSize - index;
+        return (int) Math.min(remaining, Math.min(toEndOfWord, toEndOfRing));
+    }
+
     private int calculateAvailabilityFlag(final long sequence) //环形队列中的圈数
     {
         return (int) (sequence >>> indexShift);
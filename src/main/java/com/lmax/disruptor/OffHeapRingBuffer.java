@@ -0,0 +1,479 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.dsl.ProducerType;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * <p>Ring based store of fixed size slots held in a single contiguous region of memory, typically a direct
+ * or memory mapped {@link ByteBuffer}.  There are no per-slot objects, so large rings of small records do not
+ * add to the live heap or to GC card marking.</p>
+ *
+ * <p>Slots are read and written through {@link Slot} flyweights.  A flyweight is bound to the calling thread
+ * that owns it, so each producer and each {@link EventProcessor} should create its own with {@link #newSlot()}.
+ * A {@link Slot} is also a {@link DataProvider}, so it can be handed straight to a {@link BatchEventProcessor}:</p>
+ * <pre>
+ * OffHeapRingBuffer ringBuffer = OffHeapRingBuffer.createSingleProducer(1 &lt;&lt; 20, 64, new YieldingWaitStrategy());
+ * BatchEventProcessor&lt;OffHeapRingBuffer.Slot&gt; processor =
+ *     new BatchEventProcessor&lt;OffHeapRingBuffer.Slot&gt;(ringBuffer.newSlot(), ringBuffer.newBarrier(), handler);
+ * ringBuffer.addGatingSequences(processor.getSequence());
+ *
+ * OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+ * long sequence = ringBuffer.next();
+ * try
+ * {
+ *     slot.get(sequence).putLong(0, price).putInt(8, quantity);
+ * }
+ * finally
+ * {
+ *     ringBuffer.publish(sequence);
+ * }
+ * </pre>
+ */
+public final class OffHeapRingBuffer implements Cursored, Sequenced
+{
+    private final Sequencer sequencer;
+    private final ByteBuffer buffer;
+    private final int entrySize;
+    private final int bufferSize;
+    private final long indexMask;
+
+    /**
+     * Construct an OffHeapRingBuffer over a newly allocated direct buffer.
+     *
+     * @param sequencer sequencer to handle the ordering of slots moving through the ring.
+     * @param entrySize size in bytes of each slot.
+     * @throws IllegalArgumentException if entrySize is less than 1 or the ring would exceed 2GB.
+     */
+    public OffHeapRingBuffer(final Sequencer sequencer, final int entrySize)
+    {
+        this(sequencer, entrySize, ByteBuffer.allocateDirect(requiredCapacity(sequencer.getBufferSize(), entrySize)));
+    }
+
+    /**
+     * Construct an OffHeapRingBuffer over a supplied region of memory, e.g. a {@link java.nio.MappedByteBuffer}.
+     * Slots are laid out from index 0 of the region regardless of its current position.
+     *
+     * @param sequencer sequencer to handle the ordering of slots moving through the ring.
+     * @param entrySize size in bytes of each slot.
+     * @param region    memory backing the ring, must hold at least <code>bufferSize * entrySize</code> bytes.
+     * @throws IllegalArgumentException if entrySize is less than 1 or the region is too small.
+     */
+    public OffHeapRingBuffer(final Sequencer sequencer, final int entrySize, final ByteBuffer region)
+    {
+        final int required = requiredCapacity(sequencer.getBufferSize(), entrySize);
+        if (region.capacity() < required)
+        {
+            throw new IllegalArgumentException(
+                "region capacity " + region.capacity() + " is less than required " + required);
+        }
+
+        this.sequencer = sequencer;
+        this.entrySize = entrySize;
+        this.bufferSize = sequencer.getBufferSize();
+        this.indexMask = bufferSize - 1;
+        this.buffer = region.duplicate().order(ByteOrder.nativeOrder());
+        // calls through Buffer, as the covariant overrides of ByteBuffer from Java 9 do not exist on Java 8
+        ((Buffer) this.buffer).clear();
+    }
+
+    /**
+     * Create a new multiple producer OffHeapRingBuffer with the specified wait strategy.
+     *
+     * @param bufferSize   number of slots in the ring, must be a power of 2.
+     * @param entrySize    size in bytes of each slot.
+     * @param waitStrategy used to determine how to wait for new slots to become available.
+     * @return a new ring backed by a direct buffer.
+     * @see MultiProducerSequencer
+     */
+    public static OffHeapRingBuffer createMultiProducer(
+        final int bufferSize,
+        final int entrySize,
+        final WaitStrategy waitStrategy)
+    {
+        return new OffHeapRingBuffer(new MultiProducerSequencer(bufferSize, waitStrategy), entrySize);
+    }
+
+    /**
+     * Create a new single producer OffHeapRingBuffer with the specified wait strategy.
+     *
+     * @param bufferSize   number of slots in the ring, must be a power of 2.
+     * @param entrySize    size in bytes of each slot.
+     * @param waitStrategy used to determine how to wait for new slots to become available.
+     * @return a new ring backed by a direct buffer.
+     * @see SingleProducerSequencer
+     */
+    public static OffHeapRingBuffer createSingleProducer(
+        final int bufferSize,
+        final int entrySize,
+        final WaitStrategy waitStrategy)
+    {
+        return new OffHeapRingBuffer(new SingleProducerSequencer(bufferSize, waitStrategy), entrySize);
+    }
+
+    /**
+     * Create a new OffHeapRingBuffer with the specified producer type (SINGLE or MULTI)
+     *
+     * @param producerType producer type to use {@link ProducerType}.
+     * @param bufferSize   number of slots in the ring, must be a power of 2.
+     * @param entrySize    size in bytes of each slot.
+     * @param waitStrategy used to determine how to wait for new slots to become available.
+     * @return a new ring backed by a direct buffer.
+     */
+    public static OffHeapRingBuffer create(
+        final ProducerType producerType,
+        final int bufferSize,
+        final int entrySize,
+        final WaitStrategy waitStrategy)
+    {
+        switch (producerType)
+        {
+            case SINGLE:
+                return createSingleProducer(bufferSize, entrySize, waitStrategy);
+            case MULTI:
+                return createMultiProducer(bufferSize, entrySize, waitStrategy);
+            default:
+                throw new IllegalStateException(producerType.toString());
+        }
+    }
+
+    private static int requiredCapacity(final int bufferSize, final int entrySize)
+    {
+        if (entrySize < 1)
+        {
+            throw new IllegalArgumentException("entrySize must not be less than 1");
+        }
+
+        final long capacity = (long) bufferSize * entrySize;
+        if (capacity > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException("bufferSize * entrySize must not exceed " + Integer.MAX_VALUE);
+        }
+
+        return (int) capacity;
+    }
+
+    /**
+     * Create a new flyweight for accessing slots.  Flyweights are not thread safe, each thread
+     * accessing the ring should use its own.
+     *
+     * @return a new flyweight, not bound to any sequence.
+     */
+    public Slot newSlot()
+    {
+        return new Slot();
+    }
+
+    /**
+     * Size in bytes of each slot in the ring.
+     *
+     * @return the slot size.
+     */
+    public int getEntrySize()
+    {
+        return entrySize;
+    }
+
+    @Override
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    @Override
+    public long getCursor()
+    {
+        return sequencer.getCursor();
+    }
+
+    @Override
+    public boolean hasAvailableCapacity(final int requiredCapacity)
+    {
+        return sequencer.hasAvailableCapacity(requiredCapacity);
+    }
+
+    @Override
+    public long remainingCapacity()
+    {
+        return sequencer.remainingCapacity();
+    }
+
+    @Override
+    public long next()
+    {
+        return sequencer.next();
+    }
+
+    @Override
+    public long next(final int n)
+    {
+        return sequencer.next(n);
+    }
+
+    @Override
+    public long tryNext() throws InsufficientCapacityException
+    {
+        return sequencer.tryNext();
+    }
+
+    @Override
+    public long tryNext(final int n) throws InsufficientCapacityException
+    {
+        return sequencer.tryNext(n);
+    }
+
+    @Override
+    public void publish(final long sequence)
+    {
+        sequencer.publish(sequence);
+    }
+
+    @Override
+    public void publish(final long lo, final long hi)
+    {
+        sequencer.publish(lo, hi);
+    }
+
+    /**
+     * Determine if a given sequence has been published and its slot is ready to be read.
+     *
+     * @param sequence The sequence to check.
+     * @return true if the sequence has been published.
+     */
+    public boolean isPublished(final long sequence)
+    {
+        return sequencer.isAvailable(sequence);
+    }
+
+    /**
+     * @param gatingSequences the sequences to add.
+     * @see Sequencer#addGatingSequences(Sequence...)
+     */
+    public void addGatingSequences(final Sequence... gatingSequences)
+    {
+        sequencer.addGatingSequences(gatingSequences);
+    }
+
+    /**
+     * @param sequence to be removed.
+     * @return <tt>true</tt> if this sequence was found, <tt>false</tt> otherwise.
+     * @see Sequencer#removeGatingSequence(Sequence)
+     */
+    public boolean removeGatingSequence(final Sequence sequence)
+    {
+        return sequencer.removeGatingSequence(sequence);
+    }
+
+    /**
+     * @return The minimum gating sequence or the cursor sequence if no sequences have been added.
+     * @see Sequencer#getMinimumSequence()
+     */
+    public long getMinimumGatingSequence()
+    {
+        return sequencer.getMinimumSequence();
+    }
+
+    /**
+     * @param sequencesToTrack the additional sequences to track
+     * @return A sequence barrier that will track the specified sequences.
+     * @see Sequencer#newBarrier(Sequence...)
+     */
+    public SequenceBarrier newBarrier(final Sequence... sequencesToTrack)
+    {
+        return sequencer.newBarrier(sequencesToTrack);
+    }
+
+    /**
+     * Creates an event poller that reads slots through a newly created flyweight.
+     *
+     * @param gatingSequences to be gated on.
+     * @return A poller that will gate on this ring buffer and the supplied sequences.
+     */
+    public EventPoller<Slot> newPoller(final Sequence... gatingSequences)
+    {
+        return sequencer.newPoller(new Slot(), gatingSequences);
+    }
+
+    private int offsetOf(final long sequence)
+    {
+        return (int) (sequence & indexMask) * entrySize;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "OffHeapRingBuffer{" +
+            "bufferSize=" + bufferSize +
+            ", entrySize=" + entrySize +
+            ", sequencer=" + sequencer +
+            "}";
+    }
+
+    /**
+     * Flyweight over a single slot of an {@link OffHeapRingBuffer}.  Calling {@link #get(long)} moves the
+     * flyweight to the slot for that sequence; offsets passed to the accessors are relative to the start
+     * of the slot and must lie within {@link OffHeapRingBuffer#getEntrySize()}.
+     */
+    public final class Slot implements DataProvider<Slot>
+    {
+        private final ByteBuffer view = buffer.duplicate().order(ByteOrder.nativeOrder());
+        // bounded to one slot by the bulk accessors, so the absolute accessors keep the full limit of view
+        private final ByteBuffer slotView = buffer.duplicate().order(ByteOrder.nativeOrder());
+        private long sequence = Sequencer.INITIAL_CURSOR_VALUE;
+        private int base;
+
+        private Slot()
+        {
+        }
+
+        /**
+         * Move this flyweight to the slot for the given sequence.
+         *
+         * @param sequence of the slot.
+         * @return this flyweight.
+         */
+        @Override
+        public Slot get(final long sequence)
+        {
+            this.sequence = sequence;
+            this.base = offsetOf(sequence);
+            return this;
+        }
+
+        /**
+         * @return the sequence of the slot this flyweight currently points to.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        public long getLong(final int offset)
+        {
+            return view.getLong(index(offset, 8));
+        }
+
+        public Slot putLong(final int offset, final long value)
+        {
+            view.putLong(index(offset, 8), value);
+            return this;
+        }
+
+        public int getInt(final int offset)
+        {
+            return view.getInt(index(offset, 4));
+        }
+
+        public Slot putInt(final int offset, final int value)
+        {
+            view.putInt(index(offset, 4), value);
+            return this;
+        }
+
+        public double getDouble(final int offset)
+        {
+            return view.getDouble(index(offset, 8));
+        }
+
+        public Slot putDouble(final int offset, final double value)
+        {
+            view.putDouble(index(offset, 8), value);
+            return this;
+        }
+
+        public short getShort(final int offset)
+        {
+            return view.getShort(index(offset, 2));
+        }
+
+        public Slot putShort(final int offset, final short value)
+        {
+            view.putShort(index(offset, 2), value);
+            return this;
+        }
+
+        public byte getByte(final int offset)
+        {
+            return view.get(index(offset, 1));
+        }
+
+        public Slot putByte(final int offset, final byte value)
+        {
+            view.put(index(offset, 1), value);
+            return this;
+        }
+
+        /**
+         * Copy bytes out of the slot.
+         *
+         * @param offset    within the slot to start reading from.
+         * @param dst       array to copy into.
+         * @param dstOffset within dst to start writing to.
+         * @param length    number of bytes to copy.
+         * @return this flyweight.
+         */
+        public Slot getBytes(final int offset, final byte[] dst, final int dstOffset, final int length)
+        {
+            ((Buffer) slotView).limit(index(offset, length) + length).position(base + offset);
+            slotView.get(dst, dstOffset, length);
+            return this;
+        }
+
+        /**
+         * Copy bytes into the slot.
+         *
+         * @param offset    within the slot to start writing to.
+         * @param src       array to copy from.
+         * @param srcOffset within src to start reading from.
+         * @param length    number of bytes to copy.
+         * @return this flyweight.
+         */
+        public Slot putBytes(final int offset, final byte[] src, final int srcOffset, final int length)
+        {
+            ((Buffer) slotView).limit(index(offset, length) + length).position(base + offset);
+            slotView.put(src, srcOffset, length);
+            return this;
+        }
+
+        /**
+         * Expose the current slot as a {@link ByteBuffer} whose position and limit bound the slot.  The
+         * returned buffer is shared by this flyweight and is repositioned by the next call to this method or to
+         * the bulk accessors.
+         *
+         * @return a view over the current slot.
+         */
+        public ByteBuffer asByteBuffer()
+        {
+            ((Buffer) slotView).limit(base + entrySize).position(base);
+            return slotView;
+        }
+
+        private int index(final int offset, final int length)
+        {
+            if (offset < 0 || length < 0 || offset + length > entrySize)
+            {
+                throw new IndexOutOfBoundsException(
+                    "offset=" + offset + ", length=" + length + ", entrySize=" + entrySize);
+            }
+
+            return base + offset;
+        }
+    }
+}
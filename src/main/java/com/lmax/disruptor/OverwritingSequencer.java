@@ -0,0 +1,215 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+
+abstract class OverwritingSequencerPad extends AbstractSequencer
+{
+    protected long p1, p2, p3, p4, p5, p6, p7;
+
+    OverwritingSequencerPad(int bufferSize, WaitStrategy waitStrategy)
+    {
+        super(bufferSize, waitStrategy);
+    }
+}
+
+abstract class OverwritingSequencerFields extends OverwritingSequencerPad
+{
+    OverwritingSequencerFields(int bufferSize, WaitStrategy waitStrategy)
+    {
+        super(bufferSize, waitStrategy);
+    }
+
+    /**
+     * Set to -1 as sequence starting point
+     */
+    protected long nextValue = Sequence.INITIAL_VALUE;
+}
+
+/**
+ * <p>Coordinator for claiming sequences for a single producer that never waits for consumers: once the ring is full
+ * each claim overwrites the oldest slot, whatever the gating sequences say.  Gating sequences may still be added and
+ * are reported by {@link #getMinimumSequence()}, but they never hold the producer back.</p>
+ *
+ * <p>Each slot is stamped with the sequence last published to it, and the stamp is cleared when the slot is claimed
+ * again, so {@link #isAvailable(long)} is only true while the event for that sequence is intact.  Consumers that
+ * can be lapped check it before and after reading an event, as {@link LapDetectingEventProcessor} does, rather than
+ * trusting the cursor alone.  A {@link BatchEventProcessor} or {@link EventPoller} over this sequencer stalls once
+ * it has been lapped.</p>
+ *
+ * <p>Not safe for use from multiple threads as it does not implement any barriers between producers.</p>
+ */
+public final class OverwritingSequencer extends OverwritingSequencerFields
+{
+    private static final long CLAIMED = Long.MIN_VALUE;
+
+    protected long p1, p2, p3, p4, p5, p6, p7;
+
+    private final long[] stamps;
+    private final int indexMask;
+
+    /**
+     * Construct a Sequencer with the selected wait strategy and buffer size.
+     *
+     * @param bufferSize   the size of the buffer that this will sequence over.
+     * @param waitStrategy for those waiting on sequences.
+     */
+    public OverwritingSequencer(int bufferSize, final WaitStrategy waitStrategy)
+    {
+        super(bufferSize, waitStrategy);
+        stamps = new long[bufferSize];
+        indexMask = bufferSize - 1;
+        Arrays.fill(stamps, CLAIMED);
+    }
+
+    /**
+     * There is always capacity, claims overwrite the oldest slots.
+     *
+     * @see Sequencer#hasAvailableCapacity(int)
+     */
+    @Override
+    public boolean hasAvailableCapacity(final int requiredCapacity)
+    {
+        return true;
+    }
+
+    /**
+     * @see Sequencer#next()
+     */
+    @Override
+    public long next()
+    {
+        return next(1);
+    }
+
+    /**
+     * Claim the next n sequences without waiting, clearing the stamps of the slots they overwrite before the
+     * producer writes to them.
+     *
+     * @see Sequencer#next(int)
+     */
+    @Override
+    public long next(int n)
+    {
+        if (n < 1 || n > bufferSize)
+        {
+            throw new IllegalArgumentException("n must be > 0 and <= bufferSize");
+        }
+
+        final long nextSequence = this.nextValue += n;
+        for (long sequence = nextSequence - n + 1; sequence <= nextSequence; sequence++)
+        {
+            ArrayAccess.putOrderedLong(stamps, index(sequence), CLAIMED);
+        }
+        // no event write is reordered before the clears
+        ArrayAccess.storeStoreFence();
+
+        return nextSequence;
+    }
+
+    /**
+     * @see Sequencer#tryNext()
+     */
+    @Override
+    public long tryNext() throws InsufficientCapacityException
+    {
+        return next(1);
+    }
+
+    /**
+     * @see Sequencer#tryNext(int)
+     */
+    @Override
+    public long tryNext(int n) throws InsufficientCapacityException
+    {
+        return next(n);
+    }
+
+    /**
+     * There is always the whole ring to claim.
+     *
+     * @see Sequencer#remainingCapacity()
+     */
+    @Override
+    public long remainingCapacity()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @see Sequencer#claim(long)
+     */
+    @Override
+    public void claim(long sequence)
+    {
+        this.nextValue = sequence;
+    }
+
+    /**
+     * @see Sequencer#publish(long)
+     */
+    @Override
+    public void publish(long sequence)
+    {
+        ArrayAccess.putOrderedLong(stamps, index(sequence), sequence);
+        cursor.set(sequence);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    /**
+     * @see Sequencer#publish(long, long)
+     */
+    @Override
+    public void publish(long lo, long hi)
+    {
+        for (long sequence = lo; sequence <= hi; sequence++)
+        {
+            ArrayAccess.putOrderedLong(stamps, index(sequence), sequence);
+        }
+        cursor.set(hi);
+        waitStrategy.signalAllWhenBlocking();
+    }
+
+    /**
+     * @return true if sequence has been published and its slot has not been claimed again since.
+     * @see Sequencer#isAvailable(long)
+     */
+    @Override
+    public boolean isAvailable(long sequence)
+    {
+        return ArrayAccess.getLongAcquire(stamps, index(sequence)) == sequence;
+    }
+
+    @Override
+    public long getHighestPublishedSequence(long lowerBound, long availableSequence)
+    {
+        for (long sequence = lowerBound; sequence <= availableSequence; sequence++)
+        {
+            if (!isAvailable(sequence))
+            {
+                return sequence - 1;
+            }
+        }
+
+        return availableSequence;
+    }
+
+    private int index(final long sequence)
+    {
+        return (int) sequence & indexMask;
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock free stack of parked threads, used by the parking wait strategies in place of a lock and condition so that
+ * waiting never holds a monitor or lock and virtual threads release their carrier.
+ * <p>
+ * A waiter pushes itself, checks its condition again and only then parks.  Every signal takes the whole stack
+ * with an atomic swap, which is also the full fence ordering the signaller's earlier store of the condition before
+ * its read of the stack, so either the signaller sees the waiter or the waiter sees the condition.  A waiter may be
+ * left on the stack after it stops waiting, in which case it is unparked once more than needed, which is harmless as
+ * each waiter checks its condition again whenever it returns from parking.
+ */
+final class ParkedThreads
+{
+    private final AtomicReference<Node> head = new AtomicReference<Node>();
+
+    /**
+     * Register the current thread to be unparked by the next call to {@link #unparkAll()}.
+     */
+    void push()
+    {
+        final Node node = new Node(Thread.currentThread());
+        Node current;
+        do
+        {
+            current = head.get();
+            node.next = current;
+        }
+        while (!head.compareAndSet(current, node));
+    }
+
+    /**
+     * Unpark all the registered threads.
+     */
+    void unparkAll()
+    {
+        Node node = head.getAndSet(null);
+        while (node != null)
+        {
+            LockSupport.unpark(node.thread);
+            node = node.next;
+        }
+    }
+
+    /**
+     * @return true if any thread is registered.
+     */
+    boolean hasWaiters()
+    {
+        return head.get() != null;
+    }
+
+    private static final class Node
+    {
+        private final Thread thread;
+        private Node next;
+
+        Node(final Thread thread)
+        {
+            this.thread = thread;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Producer wait strategy that parks producers with {@link LockSupport}, without taking a lock, until a consumer
+ * signals that it has advanced its sequence.
+ * <p>
+ * A producer waiting on a virtual thread gives up its carrier thread while parked.  Consumers pay an atomic swap
+ * per batch to check for waiting producers, and only unpark when there are some.  Like
+ * {@link BlockingProducerWaitStrategy} it waits uninterruptibly, restoring the interrupt status on return.
+ */
+public final class ParkingProducerWaitStrategy implements ProducerWaitStrategy
+{
+    private final ParkedThreads parkedThreads = new ParkedThreads();
+
+    @Override
+    public long waitFor(final long wrapPoint, final Sequence gatingSequence)
+    {
+        boolean interrupted = false;
+        long minimumSequence;
+        while ((minimumSequence = gatingSequence.get()) < wrapPoint)
+        {
+            parkedThreads.push();
+            if ((minimumSequence = gatingSequence.get()) >= wrapPoint)
+            {
+                break;
+            }
+            LockSupport.park(this);
+            interrupted |= Thread.interrupted();
+        }
+
+        if (interrupted)
+        {
+            Thread.currentThread().interrupt();
+        }
+
+        return minimumSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        parkedThreads.unparkAll();
+    }
+
+    @Override
+    public boolean waitsForSignal()
+    {
+        return true;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ParkingProducerWaitStrategy{" +
+            "waiters=" + parkedThreads.hasWaiters() +
+            '}';
+    }
+}
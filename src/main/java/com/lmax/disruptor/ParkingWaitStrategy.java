@@ -0,0 +1,74 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Blocking strategy that parks {@link EventProcessor}s waiting on a barrier with {@link LockSupport}, without
+ * taking a lock.
+ * <p>
+ * A processor waiting on a virtual thread gives up its carrier thread while parked and, while waiting for the
+ * processors it follows, yields instead of spinning, so many low volume disruptors can share a few carrier
+ * threads.  Publishers pay an atomic swap per publish to check for waiters, and only unpark when there are some.
+ * Like {@link BlockingWaitStrategy} this suits throughput and latency being less important than CPU resource.
+ */
+public final class ParkingWaitStrategy implements WaitStrategy
+{
+    private final ParkedThreads parkedThreads = new ParkedThreads();
+
+    @Override
+    public long waitFor(long sequence, Sequence cursorSequence, Sequence dependentSequence, SequenceBarrier barrier)
+        throws AlertException, InterruptedException
+    {
+        while (cursorSequence.get() < sequence)
+        {
+            barrier.checkAlert();
+            parkedThreads.push();
+            if (cursorSequence.get() < sequence)
+            {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                {
+                    throw new InterruptedException();
+                }
+            }
+        }
+
+        long availableSequence;
+        while ((availableSequence = dependentSequence.get()) < sequence)
+        {
+            barrier.checkAlert();
+            Thread.yield();
+        }
+
+        return availableSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        parkedThreads.unparkAll();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ParkingWaitStrategy{" +
+            "waiters=" + parkedThreads.hasWaiters() +
+            '}';
+    }
+}
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Phased producer wait strategy that spins, then yields, then waits using the configured fallback
+ * {@link ProducerWaitStrategy}.
+ * <p>
+ * This strategy can be used when a full ring is expected to drain quickly most of the time, but producers
+ * should not burn a core when consumers stall.
+ */
+public final class PhasedBackoffProducerWaitStrategy implements ProducerWaitStrategy
+{
+    private static final int SPIN_TRIES = 10000;
+    private final long spinTimeoutNanos;
+    private final long yieldTimeoutNanos;
+    private final ProducerWaitStrategy fallbackStrategy;
+
+    public PhasedBackoffProducerWaitStrategy(
+        final long spinTimeout,
+        final long yieldTimeout,
+        final TimeUnit units,
+        final ProducerWaitStrategy fallbackStrategy)
+    {
+        this.spinTimeoutNanos = units.toNanos(spinTimeout);
+        this.yieldTimeoutNanos = spinTimeoutNanos + units.toNanos(yieldTimeout);
+        this.fallbackStrategy = fallbackStrategy;
+    }
+
+    /**
+     * Block with a lock and condition, woken by the consumers.
+     */
+    public static PhasedBackoffProducerWaitStrategy withLock(
+        final long spinTimeout,
+        final long yieldTimeout,
+        final TimeUnit units)
+    {
+        return new PhasedBackoffProducerWaitStrategy(
+            spinTimeout, yieldTimeout,
+            units, new BlockingProducerWaitStrategy());
+    }
+
+    /**
+     * Block by sleeping in a loop.
+     */
+    public static PhasedBackoffProducerWaitStrategy withSleep(
+        final long spinTimeout,
+        final long yieldTimeout,
+        final TimeUnit units)
+    {
+        return new PhasedBackoffProducerWaitStrategy(
+            spinTimeout, yieldTimeout,
+            units, new SleepingProducerWaitStrategy());
+    }
+
+    @Override
+    public long waitFor(final long wrapPoint, final Sequence gatingSequence)
+    {
+        long minimumSequence;
+        long startTime = 0;
+        int counter = SPIN_TRIES;
+
+        while ((minimumSequence = gatingSequence.get()) < wrapPoint)
+        {
+            if (0 == --counter)
+            {
+                if (0 == startTime)
+                {
+                    startTime = System.nanoTime();
+                }
+                else
+                {
+                    long timeDelta = System.nanoTime() - startTime;
+                    if (timeDelta > yieldTimeoutNanos)
+                    {
+                        return fallbackStrategy.waitFor(wrapPoint, gatingSequence);
+                    }
+                    else if (timeDelta > spinTimeoutNanos)
+                    {
+                        Thread.yield();
+                    }
+                }
+                counter = SPIN_TRIES;
+            }
+        }
+
+        return minimumSequence;
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+        fallbackStrategy.signalAllWhenBlocking();
+    }
+
+    @Override
+    public boolean waitsForSignal()
+    {
+        return fallbackStrategy.waitsForSignal();
+    }
+}
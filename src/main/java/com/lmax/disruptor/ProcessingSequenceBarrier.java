@@ -23,6 +23,7 @@ package com.lmax.disruptor;
 final class ProcessingSequenceBarrier implements SequenceBarrier
 {
     private final WaitStrategy waitStrategy;//等待策略。
+    private final ProducerWaitStrategy producerWaitStrategy;
     private final Sequence dependentSequence;//依赖的其他消费者的Sequence序列组。这个域可能指向一个序列组。
     private volatile boolean alerted = false;
     private final Sequence cursorSequence;
@@ -33,9 +34,20 @@ final class ProcessingSequenceBarrier implements SequenceBarrier
         final WaitStrategy waitStrategy,
         final Sequence cursorSequence,
         final Sequence[] dependentSequences)
+    {
+        this(sequencer, waitStrategy, null, cursorSequence, dependentSequences);
+    }
+
+    public ProcessingSequenceBarrier(
+        final Sequencer sequencer,
+        final WaitStrategy waitStrategy,
+        final ProducerWaitStrategy producerWaitStrategy,
+        final Sequence cursorSequence,
+        final Sequence[] dependentSequences)
     {
         this.sequencer = sequencer; //生产者序号控制器
         this.waitStrategy = waitStrategy; //等待策略
+        this.producerWaitStrategy = producerWaitStrategy;
         this.cursorSequence = cursorSequence; //生产者序号
         if (0 == dependentSequences.length)
         {
@@ -64,6 +76,35 @@ final class ProcessingSequenceBarrier implements SequenceBarrier
         return sequencer.getHighestPublishedSequence(sequence, availableSequence);   // 再通过生产者序号控制器返回最大的可处理序号
     }
 
+    /**
+     * @return the strategy used by producers waiting on the sequencer of this barrier, to be signalled when
+     * an {@link EventProcessor} advances its sequence with a volatile write, or null if there is none or its
+     * producers need no signal.
+     * @see ProducerWaitStrategy#waitsForSignal()
+     */
+    ProducerWaitStrategy getProducerWaitStrategy()
+    {
+        return null != producerWaitStrategy && producerWaitStrategy.waitsForSignal() ? producerWaitStrategy : null;
+    }
+
+    /**
+     * Find the highest sequence available to the processors of this barrier without waiting: the lowest of the
+     * dependent sequences, or the cursor if there are none, limited to what has been published from sequence on.
+     *
+     * @param sequence the next sequence the processor wants.
+     * @return the highest available sequence, less than sequence if none is available yet.
+     */
+    long getAvailableSequence(final long sequence)
+    {
+        final long availableSequence = dependentSequence.get();
+        if (availableSequence < sequence)
+        {
+            return availableSequence;
+        }
+
+        return sequencer.getHighestPublishedSequence(sequence, availableSequence);
+    }
+
     @Override
     public long getCursor()
     {
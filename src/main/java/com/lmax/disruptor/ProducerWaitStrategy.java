@@ -0,0 +1,53 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Strategy employed by a producer to wait for consumers when the ring buffer is full.
+ * <p>
+ * {@link Sequencer#next()} calls {@link #waitFor(long, Sequence)} each time it finds that the slowest gating
+ * sequence has not yet passed the wrap point of the sequences it is claiming, and checks again when it
+ * returns.  {@link EventProcessor}s call {@link #signalAllWhenBlocking()} after advancing their sequence so
+ * that strategies which block can wake waiting producers.
+ * <p>
+ * A producer that blocks says so before reading the gating sequence again, and a consumer advances its sequence
+ * before looking for waiting producers.  For one side to be sure to see the other both must be volatile accesses,
+ * so when {@link #waitsForSignal()} is true consumers advance their sequence with
+ * {@link Sequence#setVolatile(long)} rather than {@link Sequence#set(long)}.
+ */
+public interface ProducerWaitStrategy
+{
+    /**
+     * Wait for the slowest gating sequence to reach the wrap point.
+     *
+     * @param wrapPoint      sequence the slowest gating sequence must reach before the producer can continue.
+     * @param gatingSequence view of the minimum of the gating sequences of the ring buffer.
+     * @return the gating sequence last observed, it may be less than the wrap point in which case the
+     * producer checks the ring again and calls back if it is still full.
+     */
+    long waitFor(long wrapPoint, Sequence gatingSequence);
+
+    /**
+     * Implementations should signal the waiting producers that consumers have made progress.
+     */
+    void signalAllWhenBlocking();
+
+    /**
+     * @return true if producers may wait until {@link #signalAllWhenBlocking()} is called, false if they only
+     * poll the gating sequence and need no signal.
+     */
+    boolean waitsForSignal();
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import com.lmax.disruptor.util.Util;
+import sun.misc.Unsafe;
+
+abstract class RingBufferPad {
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ *注释中提到对于entries数组的缓存行填充，申请的数组大小为实际需要大小加上2 * BUFFER_PAD，所占空间就是2*128字节。
+ *由于数组中的元素经常访问，所以将数组中的实际元素两边各加上128字节的padding防止false sharing。
+ *所以，初始化RingBuffer内所有对象时，从下标BUFFER_PAD开始，到BUFFER_PAD+bufferSize-1为止。
+ * 取出某一sequence的对象，也是BUFFER_PAD开始算0,
+ * 这里的：return (E) UNSAFE.getObject(entries, REF_ARRAY_BASE + ((sequence & indexMask) << REF_ELEMENT_SHIFT));
+ *代表取出entries对象，地址为REF_ARRAY_BASE + ((sequence & indexMask) << REF_ELEMENT_SHIFT)的对象。
+ * 这里是个对象引用，地址是以REF_ARRAY_BASE 为基址（数组基址+数组头+引用偏移），每个引用占用2^REF_ELEMENT_SHIFT个字节，sequence 对bufferSize取模乘以2^REF_ELEMENT_SHIFT。
+*/
+abstract class RingBufferFields<E> extends RingBufferPad
+{
+    private static final int BUFFER_PAD; //数组中一共需要填充的个数
+    private static final long REF_ARRAY_BASE;//数组的开始地址，这里其实是数组中真正有效数据的开始地址，是整个数组开始地址+BUFFER_PAD个引用的偏移量
+    private static final int REF_ELEMENT_SHIFT;//一个引用占用的字节数的幂次方.2^n=每个数组对象引用所占空间，这个n就是REF_ELEMENT_SHIFT.
+    private static final Unsafe UNSAFE = Util.getUnsafe();
+
+    static {
+        final int scale = UNSAFE.arrayIndexScale(Object[].class); //数组中一个引用的字节数,Object数组引用长度,32位=4字节,64位=8字节
+        if (4 == scale) {
+            REF_ELEMENT_SHIFT = 2;
+        } else if (8 == scale) {
+            REF_ELEMENT_SHIFT = 3;
+        } else {
+            throw new IllegalStateException("Unknown pointer size");
+        }
+        BUFFER_PAD = 128 / scale;  //需要填充128字节，缓存行长度一般是128字节
+        // Including the buffer pad in the array base offset  0x1000<<3 = 0x1000000
+        REF_ARRAY_BASE = UNSAFE.arrayBaseOffset(Object[].class) + (BUFFER_PAD << REF_ELEMENT_SHIFT); //元素偏移量
+    }
+
+    private final long indexMask; //数组的下表掩码
+    private final Object[] entries; //存放对象数组
+    protected final int bufferSize; //数组的大小
+    protected final Sequencer sequencer; //生产者序列管理者
+
+    RingBufferFields(
+            EventFactory<E> eventFactory,
+            Sequencer sequencer) {
+        this.sequencer = sequencer;
+        this.bufferSize = sequencer.getBufferSize();
+
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("bufferSize must not be less than 1");
+        }
+        if (Integer.bitCount(bufferSize) != 1) {    //判断bufferSize是否是2的整数次方,二进制1的个数
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+
+        this.indexMask = bufferSize - 1;
+        /**
+         * 结构：缓存行填充，避免频繁访问的任一entry与另一被修改的无关变量写入同一缓存行
+         * -----------------------
+         * *   数组头   * BASE
+         * *   Padding  * 128字节
+         * * reference1 * SCALE
+         * * reference2 * SCALE
+         * * reference3 * SCALE
+         * ..........
+         * *   Padding  * 128字节
+         * -----------------------
+         */
+        this.entries = new Object[sequencer.getBufferSize() + 2 * BUFFER_PAD];
+        fill(eventFactory); //利用eventFactory初始化RingBuffer的每个槽
+    }
+
+    private void fill(EventFactory<E> eventFactory) {
+        for (int i = 0; i < bufferSize; i++) { //在数组的前后都各有BUFFER_PAD个空位，是用来做缓存行填充用的
+            entries[BUFFER_PAD + i] = eventFactory.newInstance(); //队列内事件的预填充
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final E elementAt(long sequence) {   // 这个按位与操作说明了为什么ringBuffer的大小必须是2的n次方：用高效的 按位与  代替  低效的求模操作。
+        return (E) UNSAFE.getObject(entries, REF_ARRAY_BASE + ((sequence & indexMask) << REF_ELEMENT_SHIFT)); //通过偏移量找到元素
+    }
+}
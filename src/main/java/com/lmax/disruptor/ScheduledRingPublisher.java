@@ -0,0 +1,339 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes delayed and periodic events into a {@link RingBuffer} from a hashed timing wheel.
+ * <p>
+ * Timers are held in arrays sized at construction, each bucket of the wheel being a list linked through them, so
+ * scheduling, cancelling and expiring a timer allocate nothing.  A timer falls due at the first tick of the wheel at
+ * or after its deadline, so it never fires early and fires at most one tick late, plus however late
+ * {@link #tick(long)} is called.  Timers due in the same call to {@link #tick(long)} are published together with
+ * {@link RingBuffer#publishEvents(EventTranslatorOneArg, int, int, Object[])}, in batches of at most the batch size,
+ * in no particular order.
+ * <p>
+ * The wheel is driven by the thread calling {@link #tick(long)}, typically an existing processor thread: as a
+ * {@link TimeoutHandler} it ticks on {@link #onTimeout(long)}, so an {@link EventHandler} that also implements
+ * {@link TimeoutHandler} can delegate to it when its processor waits with a timeout, and may also tick it at the end
+ * of each batch.  Publishing waits for capacity, so the ring published to should not be one gated on the processor
+ * that ticks the wheel.
+ * <p>
+ * Not thread safe, timers must be scheduled and cancelled on the thread that ticks the wheel, and not from the
+ * translator.
+ *
+ * @param <T> the type of event in the ring.
+ * @param <A> the type of the argument passed to the translator when a timer falls due.
+ */
+public final class ScheduledRingPublisher<T, A> implements TimeoutHandler
+{
+    private static final int NONE = -1;
+
+    private final RingBuffer<T> ringBuffer;
+    private final EventTranslatorOneArg<T, A> translator;
+    private final long startNanos;
+    private final long tickNanos;
+    private final int wheelMask;
+    private final int dueList;
+
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] lists;
+    private final int[] generations;
+    private final long[] deadlines;
+    private final long[] deadlineTicks;
+    private final long[] periods;
+    private final Object[] args;
+    private final A[] batch;
+
+    private int freeList;
+    private int size = 0;
+    private long currentTick = 0;
+
+    /**
+     * @param ringBuffer   to publish to.
+     * @param translator   to write the argument of each timer that falls due into its event.
+     * @param capacity     maximum number of timers scheduled at once.
+     * @param wheelSize    number of buckets in the wheel, must be a power of 2.
+     * @param tickDuration time covered by each bucket.
+     * @param unit         of tickDuration.
+     * @param batchSize    maximum number of events published together, must not exceed the size of the ring.
+     * @throws IllegalArgumentException if a size or the tick duration is not positive, if wheelSize is not a power
+     *                                  of 2 or if batchSize exceeds the size of the ring.
+     */
+    @SuppressWarnings("unchecked")
+    public ScheduledRingPublisher(
+        final RingBuffer<T> ringBuffer,
+        final EventTranslatorOneArg<T, A> translator,
+        final int capacity,
+        final int wheelSize,
+        final long tickDuration,
+        final TimeUnit unit,
+        final int batchSize)
+    {
+        if (capacity < 1 || batchSize < 1 || batchSize > ringBuffer.getBufferSize())
+        {
+            throw new IllegalArgumentException(
+                "capacity must be positive and batchSize between 1 and the size of the ring, got capacity " +
+                    capacity + " and batchSize " + batchSize);
+        }
+        if (wheelSize < 1 || Integer.bitCount(wheelSize) != 1)
+        {
+            throw new IllegalArgumentException("wheelSize must be a power of 2");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.translator = translator;
+        this.tickNanos = unit.toNanos(tickDuration);
+        if (tickNanos < 1)
+        {
+            throw new IllegalArgumentException("tickDuration must be at least a nanosecond");
+        }
+        this.startNanos = System.nanoTime();
+        this.wheelMask = wheelSize - 1;
+        this.dueList = wheelSize;
+
+        this.heads = new int[wheelSize + 1];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.lists = new int[capacity];
+        this.generations = new int[capacity];
+        this.deadlines = new long[capacity];
+        this.deadlineTicks = new long[capacity];
+        this.periods = new long[capacity];
+        this.args = new Object[capacity];
+        this.batch = (A[]) new Object[batchSize];
+
+        Arrays.fill(heads, NONE);
+        Arrays.fill(lists, NONE);
+        for (int timer = 0; timer < capacity; timer++)
+        {
+            next[timer] = timer + 1;
+        }
+        next[capacity - 1] = NONE;
+        freeList = 0;
+    }
+
+    /**
+     * Schedule an event to be published once.
+     *
+     * @param deadlineNanos time, as given by {@link System#nanoTime()}, at or after which to publish the event.
+     * @param arg           passed to the translator when the timer falls due.
+     * @return the id of the timer, to cancel it with.
+     * @throws InsufficientCapacityException if as many timers as the capacity are already scheduled.
+     */
+    public long schedule(final long deadlineNanos, final A arg) throws InsufficientCapacityException
+    {
+        return schedule(deadlineNanos, 0L, arg);
+    }
+
+    /**
+     * Schedule an event to be published repeatedly, until the timer is cancelled.  Each deadline is a period after
+     * the one before, whenever the event was actually published, though a deadline the wheel has already passed
+     * falls due on the next tick.
+     *
+     * @param firstDeadlineNanos time, as given by {@link System#nanoTime()}, at or after which to first publish.
+     * @param periodNanos        between deadlines, must be positive.
+     * @param arg                passed to the translator each time the timer falls due.
+     * @return the id of the timer, to cancel it with.
+     * @throws InsufficientCapacityException if as many timers as the capacity are already scheduled.
+     */
+    public long scheduleAtFixedRate(final long firstDeadlineNanos, final long periodNanos, final A arg)
+        throws InsufficientCapacityException
+    {
+        if (periodNanos < 1)
+        {
+            throw new IllegalArgumentException("periodNanos must be positive");
+        }
+
+        return schedule(firstDeadlineNanos, periodNanos, arg);
+    }
+
+    /**
+     * Cancel a timer.
+     *
+     * @param timerId returned when the timer was scheduled.
+     * @return true if the timer was cancelled, false if it had already fired once only or been cancelled.
+     */
+    public boolean cancel(final long timerId)
+    {
+        final int timer = (int) timerId;
+        if (timer < 0 || timer >= lists.length || NONE == lists[timer] ||
+            generations[timer] != (int) (timerId >>> 32))
+        {
+            return false;
+        }
+
+        unlink(timer);
+        free(timer);
+        return true;
+    }
+
+    /**
+     * Advance the wheel to the given time, publishing the events of the timers that have fallen due.
+     *
+     * @param nowNanos the current time, as given by {@link System#nanoTime()}.
+     * @return the number of events published.
+     */
+    public int tick(final long nowNanos)
+    {
+        final long nowTick = nowNanos > startNanos ? (nowNanos - startNanos) / tickNanos : 0L;
+        if (nowTick > currentTick)
+        {
+            // once round the wheel visits every bucket however far behind it is
+            final long ticks = Math.min(nowTick - currentTick, wheelMask + 1L);
+            for (long tick = currentTick + 1; tick <= currentTick + ticks; tick++)
+            {
+                int timer = heads[(int) tick & wheelMask];
+                while (NONE != timer)
+                {
+                    final int nextTimer = next[timer];
+                    if (deadlineTicks[timer] <= nowTick)
+                    {
+                        unlink(timer);
+                        link(timer, dueList);
+                    }
+                    timer = nextTimer;
+                }
+            }
+            currentTick = nowTick;
+        }
+
+        return publishDue();
+    }
+
+    /**
+     * Tick the wheel to the current time.
+     *
+     * @param sequence unused.
+     */
+    @Override
+    public void onTimeout(final long sequence)
+    {
+        tick(System.nanoTime());
+    }
+
+    /**
+     * @return the number of timers scheduled.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    private long schedule(final long deadlineNanos, final long periodNanos, final A arg)
+        throws InsufficientCapacityException
+    {
+        final int timer = freeList;
+        if (NONE == timer)
+        {
+            throw InsufficientCapacityException.INSTANCE;
+        }
+        freeList = next[timer];
+        size++;
+
+        deadlines[timer] = deadlineNanos;
+        periods[timer] = periodNanos;
+        args[timer] = arg;
+        insert(timer);
+
+        return ((long) generations[timer] << 32) | timer;
+    }
+
+    @SuppressWarnings("unchecked")
+    private int publishDue()
+    {
+        int published = 0;
+        while (NONE != heads[dueList])
+        {
+            int batchSize = 0;
+            while (batchSize < batch.length && NONE != heads[dueList])
+            {
+                final int timer = heads[dueList];
+                unlink(timer);
+                batch[batchSize++] = (A) args[timer];
+
+                if (0L != periods[timer])
+                {
+                    deadlines[timer] += periods[timer];
+                    insert(timer);
+                }
+                else
+                {
+                    free(timer);
+                }
+            }
+
+            ringBuffer.publishEvents(translator, 0, batchSize, batch);
+            Arrays.fill(batch, 0, batchSize, null);
+            published += batchSize;
+        }
+
+        return published;
+    }
+
+    private void insert(final int timer)
+    {
+        final long offset = deadlines[timer] - startNanos;
+        final long deadlineTick = offset > 0 ? (offset + tickNanos - 1) / tickNanos : 0L;
+        deadlineTicks[timer] = Math.max(deadlineTick, currentTick + 1);
+        link(timer, (int) deadlineTicks[timer] & wheelMask);
+    }
+
+    private void link(final int timer, final int list)
+    {
+        final int head = heads[list];
+        previous[timer] = NONE;
+        next[timer] = head;
+        if (NONE != head)
+        {
+            previous[head] = timer;
+        }
+        heads[list] = timer;
+        lists[timer] = list;
+    }
+
+    private void unlink(final int timer)
+    {
+        final int previousTimer = previous[timer];
+        final int nextTimer = next[timer];
+        if (NONE == previousTimer)
+        {
+            heads[lists[timer]] = nextTimer;
+        }
+        else
+        {
+            next[previousTimer] = nextTimer;
+        }
+        if (NONE != nextTimer)
+        {
+            previous[nextTimer] = previousTimer;
+        }
+        lists[timer] = NONE;
+    }
+
+    private void free(final int timer)
+    {
+        args[timer] = null;
+        generations[timer] = (generations[timer] + 1) & Integer.MAX_VALUE;
+        next[timer] = freeList;
+        freeList = timer;
+        size--;
+    }
+}
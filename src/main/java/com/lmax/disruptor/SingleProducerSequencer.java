@@ -17,23 +17,21 @@ package com.lmax.disruptor;
 
 import com.lmax.disruptor.util.Util;
 
-import java.util.concurrent.locks.LockSupport;
-
 abstract class SingleProducerSequencerPad extends AbstractSequencer //左边缓存行填充
 {
     protected long p1, p2, p3, p4, p5, p6, p7;
 
-    public SingleProducerSequencerPad(int bufferSize, WaitStrategy waitStrategy)
+    public SingleProducerSequencerPad(int bufferSize, WaitStrategy waitStrategy, ProducerWaitStrategy producerWaitStrategy)
     {
-        super(bufferSize, waitStrategy);
+        super(bufferSize, waitStrategy, producerWaitStrategy);
     }
 }
 
 abstract class SingleProducerSequencerFields extends SingleProducerSequencerPad
 {
-    public SingleProducerSequencerFields(int bufferSize, WaitStrategy waitStrategy)
+    public SingleProducerSequencerFields(int bufferSize, WaitStrategy waitStrategy, ProducerWaitStrategy producerWaitStrategy)
     {
-        super(bufferSize, waitStrategy);
+        super(bufferSize, waitStrategy, producerWaitStrategy);
     }
 
     /**
@@ -68,7 +66,20 @@ public final class SingleProducerSequencer extends SingleProducerSequencerFields
      */
     public SingleProducerSequencer(int bufferSize, final WaitStrategy waitStrategy)
     {
-        super(bufferSize, waitStrategy);
+        this(bufferSize, waitStrategy, new SleepingProducerWaitStrategy());
+    }
+
+    /**
+     * Construct a Sequencer with the selected wait strategies and buffer size.
+     *
+     * @param bufferSize           the size of the buffer that this will sequence over.
+     * @param waitStrategy         for those waiting on sequences.
+     * @param producerWaitStrategy for the producer waiting on a full buffer.
+     */
+    public SingleProducerSequencer(
+        int bufferSize, final WaitStrategy waitStrategy, final ProducerWaitStrategy producerWaitStrategy)
+    {
+        super(bufferSize, waitStrategy, producerWaitStrategy);
     }
 
     /**
@@ -148,11 +159,10 @@ public final class SingleProducerSequencer extends SingleProducerSequencerFields
 
             long minSequence;
             //如果一直没有可用空间, 当前线程挂起, 不断循环检测，直到有可用空间。
-            //循环判断生产者绕一圈之后如果还是追尾，则等待1纳秒，目前就是简单的等待，看注释是想在以后通过waitStrategy来等待
+            //循环判断生产者绕一圈之后如果还是追尾，则通过producerWaitStrategy等待消费者
             while (wrapPoint > (minSequence = Util.getMinimumSequence(gatingSequences, nextValue))) //等待直到有可用的缓存
             {
-                waitStrategy.signalAllWhenBlocking(); //触发一次等待策略
-                LockSupport.parkNanos(1L); // TODO: Use waitStrategy to spin?
+                waitForCapacity(wrapPoint);
             }
 
             this.cachedValue = minSequence; //循环退出后，将获取的消费者最小序列，赋值给cachedValue
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Producer wait strategy that parks the producer for a fixed period each time it finds the ring full.
+ * <p>
+ * With the default period of one nanosecond this is how sequencers have always waited for capacity.  The
+ * actual period is set by the timer slack of the operating system, which can be tens of microseconds.
+ */
+public final class SleepingProducerWaitStrategy implements ProducerWaitStrategy
+{
+    private static final long DEFAULT_SLEEP_NANOS = 1L;
+
+    private final long sleepNanos;
+
+    public SleepingProducerWaitStrategy()
+    {
+        this(DEFAULT_SLEEP_NANOS);
+    }
+
+    /**
+     * @param sleepNanos time to park the producer for each time it finds the ring full.
+     */
+    public SleepingProducerWaitStrategy(final long sleepNanos)
+    {
+        this.sleepNanos = sleepNanos;
+    }
+
+    @Override
+    public long waitFor(final long wrapPoint, final Sequence gatingSequence)
+    {
+        LockSupport.parkNanos(sleepNanos);
+        return gatingSequence.get();
+    }
+
+    @Override
+    public void signalAllWhenBlocking()
+    {
+    }
+
+    @Override
+    public boolean waitsForSignal()
+    {
+        return false;
+    }
+}
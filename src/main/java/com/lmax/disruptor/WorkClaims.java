@@ -0,0 +1,217 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+/**
+ * Batch claiming of sequences for the {@link WorkProcessor}s of a {@link WorkerPool}.
+ * <p>
+ * Each worker claims a run of sequences from the shared work sequence with a single CAS and then takes them one
+ * at a time from its own claim.  The run length follows the backlog visible to the worker, up to a configured
+ * maximum, so a lightly loaded pool still hands out single sequences.  A worker whose claim is exhausted first
+ * tries to steal the unprocessed tail of another worker's claim before claiming a new run, so a slow handler
+ * does not hold back the events it claimed ahead of itself.
+ * <p>
+ * A claim is a base sequence plus a packed range word holding a generation, the offset of the next sequence to
+ * take and the offset of the limit.  The owner advances the next offset and thieves lower the limit, both by CAS
+ * on the range word.  A worker always sets its own sequence below the first sequence it may still process before
+ * taking or stealing it, so the slots of a claim stay gated until they have been handled.
+ */
+final class WorkClaims
+{
+    private static final long NONE = Long.MIN_VALUE;
+    private static final int OFFSET_BITS = 24;
+    private static final int GENERATION_SHIFT = 2 * OFFSET_BITS;
+    private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1L;
+    private static final long NEXT_INCREMENT = 1L << OFFSET_BITS;
+
+    /**
+     * Largest run of sequences a worker may claim with one CAS.
+     */
+    static final int MAX_BATCH_CLAIM = (int) OFFSET_MASK;
+
+    private final Sequence workSequence;
+    private final int maxBatchClaim;
+    private final boolean volatileStores;
+    private final Claim[] claims;
+
+    WorkClaims(final Sequence workSequence, final int workers, final int maxBatchClaim)
+    {
+        this(workSequence, workers, maxBatchClaim, false);
+    }
+
+    /**
+     * @param volatileStores write the sequences of workers with a volatile write, for producers that wait to be
+     *                       signalled after the workers move on.
+     */
+    WorkClaims(final Sequence workSequence, final int workers, final int maxBatchClaim, final boolean volatileStores)
+    {
+        if (maxBatchClaim < 1 || maxBatchClaim > MAX_BATCH_CLAIM)
+        {
+            throw new IllegalArgumentException("maxBatchClaim must be between 1 and " + MAX_BATCH_CLAIM + " but got: " + maxBatchClaim);
+        }
+
+        this.workSequence = workSequence;
+        this.maxBatchClaim = maxBatchClaim;
+        this.volatileStores = volatileStores;
+        this.claims = new Claim[workers];
+        for (int i = 0; i < workers; i++)
+        {
+            claims[i] = new Claim();
+        }
+    }
+
+    /**
+     * Take the next sequence for a worker, from its own claim, from the tail of another worker's claim or from a
+     * new run of the work sequence.  The worker's sequence is left just below the returned sequence.
+     *
+     * @param worker            index of the worker.
+     * @param sequence          of the worker.
+     * @param availableSequence highest sequence the worker last saw published, used to size a new run.
+     * @return the next sequence for the worker to process.
+     */
+    long next(final int worker, final Sequence sequence, final long availableSequence)
+    {
+        final Claim own = claims[worker];
+        long next;
+        while ((next = take(own, sequence)) == NONE &&
+            (next = steal(worker, own, sequence)) == NONE &&
+            (next = claim(own, sequence, availableSequence)) == NONE)
+        {
+            // lost the race for the work sequence, try again
+        }
+
+        return next;
+    }
+
+    /**
+     * @param worker index of the worker.
+     * @return the value for the worker's sequence that releases the event being processed but keeps the rest of its
+     * claim gated.
+     */
+    long releaseSequence(final int worker)
+    {
+        final Claim own = claims[worker];
+        final long range = own.range.get();
+        return nextOf(range) < limitOf(range) ? own.base.get() + nextOf(range) - 1L : Long.MAX_VALUE;
+    }
+
+    /**
+     * Drop any outstanding claims, used when the pool is restarted from the cursor.
+     */
+    void reset()
+    {
+        for (Claim claim : claims)
+        {
+            install(claim, 0L, 0);
+        }
+    }
+
+    private long take(final Claim claim, final Sequence sequence)
+    {
+        long range;
+        int next;
+        do
+        {
+            range = claim.range.get();
+            next = nextOf(range);
+            if (next >= limitOf(range))
+            {
+                return NONE;
+            }
+            store(sequence, claim.base.get() + next - 1L);
+        }
+        while (!claim.range.compareAndSet(range, range + NEXT_INCREMENT));
+
+        return claim.base.get() + next;
+    }
+
+    private long steal(final int thief, final Claim own, final Sequence sequence)
+    {
+        for (int i = 1; i < claims.length; i++)
+        {
+            final Claim victim = claims[(thief + i) % claims.length];
+            final long range = victim.range.get();
+            final int next = nextOf(range);
+            final int limit = limitOf(range);
+            if (limit - next > 1)
+            {
+                // read after the range, a base installed later comes with a new generation and fails the CAS
+                final long base = victim.base.get();
+                final int split = next + (limit - next) / 2;
+
+                store(sequence, base + next - 1L);
+                if (victim.range.compareAndSet(range, (range & ~OFFSET_MASK) | split))
+                {
+                    install(own, base + split, limit - split);
+                    return take(own, sequence);
+                }
+            }
+        }
+
+        return NONE;
+    }
+
+    private long claim(final Claim own, final Sequence sequence, final long availableSequence)
+    {
+        final long current = workSequence.get();
+        final long backlog = availableSequence > current ? availableSequence - current : 0L;
+        final int length = backlog > 1L ? (int) Math.min(maxBatchClaim, (backlog + 1L) >> 1) : 1;
+
+        store(sequence, current);
+        if (workSequence.compareAndSet(current, current + length))
+        {
+            install(own, current + 1L, length);
+            return take(own, sequence);
+        }
+
+        return NONE;
+    }
+
+    private void store(final Sequence sequence, final long value)
+    {
+        if (volatileStores)
+        {
+            sequence.setVolatile(value);
+        }
+        else
+        {
+            sequence.set(value);
+        }
+    }
+
+    private static void install(final Claim claim, final long base, final int length)
+    {
+        final long generation = (claim.range.get() >>> GENERATION_SHIFT) + 1L;
+        claim.base.set(base);
+        claim.range.set((generation << GENERATION_SHIFT) | length);
+    }
+
+    private static int nextOf(final long range)
+    {
+        return (int) ((range >>> OFFSET_BITS) & OFFSET_MASK);
+    }
+
+    private static int limitOf(final long range)
+    {
+        return (int) (range & OFFSET_MASK);
+    }
+
+    private static final class Claim
+    {
+        private final Sequence base = new Sequence(0L);
+        private final Sequence range = new Sequence(0L);
+    }
+}
@@ -35,17 +35,21 @@ public final class WorkProcessor<T>
     private final WorkHandler<? super T> workHandler;
     private final ExceptionHandler<? super T> exceptionHandler;
     private final Sequence workSequence;
+    private final WorkClaims workClaims;
+    private final int claimIndex;
 
     private final EventReleaser eventReleaser = new EventReleaser()
     {
         @Override
         public void release()
         {
-            sequence.set(Long.MAX_VALUE);
+            sequence.set(null == workClaims ? Long.MAX_VALUE : workClaims.releaseSequence(claimIndex));
         }
     };
 
     private final TimeoutHandler timeoutHandler;
+    private final ProducerWaitStrategy producerWaitStrategy;
+    private EventProcessorListener listener;
 
     /**
      * Construct a {@link WorkProcessor}.
@@ -63,12 +67,38 @@ public final class WorkProcessor<T>
         final WorkHandler<? super T> workHandler,
         final ExceptionHandler<? super T> exceptionHandler,
         final Sequence workSequence)
+    {
+        this(ringBuffer, sequenceBarrier, workHandler, exceptionHandler, workSequence, null, 0);
+    }
+
+    /**
+     * Construct a {@link WorkProcessor} that takes its sequences from batch claims shared with the other
+     * workers of a {@link WorkerPool}.
+     *
+     * @param ringBuffer       to which events are published.
+     * @param sequenceBarrier  on which it is waiting.
+     * @param workHandler      is the delegate to which events are dispatched.
+     * @param exceptionHandler to be called back when an error occurs
+     * @param workSequence     from which to claim the next event to be worked on.
+     * @param workClaims       shared by the workers of the pool, null to claim one sequence at a time.
+     * @param claimIndex       of this worker in the work claims.
+     */
+    WorkProcessor(
+        final RingBuffer<T> ringBuffer,
+        final SequenceBarrier sequenceBarrier,
+        final WorkHandler<? super T> workHandler,
+        final ExceptionHandler<? super T> exceptionHandler,
+        final Sequence workSequence,
+        final WorkClaims workClaims,
+        final int claimIndex)
     {
         this.ringBuffer = ringBuffer;
         this.sequenceBarrier = sequenceBarrier;
         this.workHandler = workHandler;
         this.exceptionHandler = exceptionHandler;
         this.workSequence = workSequence;
+        this.workClaims = workClaims;
+        this.claimIndex = claimIndex;
 
         if (this.workHandler instanceof EventReleaseAware)
         {
@@ -76,6 +106,8 @@ public final class WorkProcessor<T>
         }
 
         timeoutHandler = (workHandler instanceof TimeoutHandler) ? (TimeoutHandler) workHandler : null;
+        producerWaitStrategy = (sequenceBarrier instanceof ProcessingSequenceBarrier) ?
+            ((ProcessingSequenceBarrier) sequenceBarrier).getProducerWaitStrategy() : null;
     }
 
     @Override
@@ -97,6 +129,22 @@ public final class WorkProcessor<T>
         return running.get();
     }
 
+    /**
+     * Set an {@link EventProcessorListener} to be called back from the run loop, such as {@link EventProcessorMetrics}.
+     * Must be called before the processor is started.
+     *
+     * @param listener to be called back by this processor.
+     */
+    public void setEventProcessorListener(final EventProcessorListener listener)
+    {
+        if (null == listener)
+        {
+            throw new NullPointerException();
+        }
+
+        this.listener = listener;
+    }
+
     /**
      * It is ok to have another thread re-run this method after a halt().
      *
@@ -113,6 +161,7 @@ public final class WorkProcessor<T>
 
         notifyStart();  //如果workHandler实现了LifecycleAware，这里会对其进行一个启动通知。
 
+        final EventProcessorListener listener = this.listener;
         boolean processedSequence = true;
         long cachedAvailableSequence = Long.MIN_VALUE; //标识当前RingBuffer中可以操作的有效序列
         long nextSequence = sequence.get();
@@ -129,33 +178,73 @@ public final class WorkProcessor<T>
                 if (processedSequence) //用来标识当前申请到的序列是否正常处理完成，如果正常处理完成，则开始申请下一个序列
                 {
                     processedSequence = false; //如果处理完毕，重置标识。
-                    do
+                    if (null == workClaims)
+                    {
+                        do
+                        {
+                            nextSequence = workSequence.get() + 1L; //原子的获取下一要处理事件的序列值。
+                            if (producerWaitStrategy != null)
+                            {
+                                // a volatile write, so that the check for waiting producers can not be reordered before it
+                                sequence.setVolatile(nextSequence - 1L);
+                            }
+                            else
+                            {
+                                sequence.set(nextSequence - 1L);
+                            }
+                        }
+                        while (!workSequence.compareAndSet(nextSequence - 1L, nextSequence)); //进行下一个序列的申请，所以通过CAS的方式实现并发处理
+                    }
+                    else
                     {
-                        nextSequence = workSequence.get() + 1L; //原子的获取下一要处理事件的序列值。
-                        sequence.set(nextSequence - 1L);
+                        nextSequence = workClaims.next(claimIndex, sequence, cachedAvailableSequence);
+                    }
+
+                    if (producerWaitStrategy != null)
+                    {
+                        producerWaitStrategy.signalAllWhenBlocking();
                     }
-                    while (!workSequence.compareAndSet(nextSequence - 1L, nextSequence)); //进行下一个序列的申请，所以通过CAS的方式实现并发处理
                 }
                 //检查序列值是否需要申请。这一步是为了防止和事件生产者冲突。
                 //当成功申请到下一个序列之后，此时cachedAvailableSequence大于等于申请到的序列，则进行数据处理
                 //如果小于申请到的序列nextSequence，则通过sequenceBarrier去获取ringBuffer上的有效序列
                 if (cachedAvailableSequence >= nextSequence)
                 {
+                    if (listener != null)
+                    {
+                        listener.onBatchStart(1L);
+                    }
                     event = ringBuffer.get(nextSequence); //从RingBuffer上获取事件。
                     workHandler.onEvent(event);   //委托给workHandler处理事件。
                     processedSequence = true;  //设置事件处理完成标识。
+                    if (listener != null)
+                    {
+                        listener.onBatchEnd(nextSequence);
+                    }
                 }
                 else
                 {
+                    if (listener != null)
+                    {
+                        listener.onWaitStart(nextSequence);
+                    }
                     cachedAvailableSequence = sequenceBarrier.waitFor(nextSequence); //如果需要申请，通过序列栅栏来申请可用的序列。
                 }
             }
             catch (final TimeoutException e)
             {
+                if (listener != null)
+                {
+                    listener.onTimeout(sequence.get());
+                }
                 notifyTimeout(sequence.get());
             }
             catch (final AlertException ex)
             {
+                if (listener != null)
+                {
+                    listener.onAlert();
+                }
                 if (!running.get()) //处理通知
                 {
                     break; //如果当前处理器被停止，那么退出主循环
@@ -33,6 +33,7 @@ public final class WorkerPool<T>
     private final RingBuffer<T> ringBuffer; //事件队列
     // WorkProcessors are created to wrap each of the provided WorkHandlers
     private final WorkProcessor<?>[] workProcessors;  //事件处理器数组
+    private final WorkClaims workClaims;
 
     /**
      * Create a worker pool to enable an array of {@link WorkHandler}s to consume published sequences.
@@ -50,10 +51,40 @@ public final class WorkerPool<T>
         final SequenceBarrier sequenceBarrier,
         final ExceptionHandler<? super T> exceptionHandler,
         final WorkHandler<? super T>... workHandlers)
+    {
+        this(ringBuffer, sequenceBarrier, exceptionHandler, 1, workHandlers);
+    }
+
+    /**
+     * Create a worker pool whose workers claim runs of sequences rather than one sequence at a time.
+     * <p>
+     * Each worker claims up to <code>maxBatchClaim</code> sequences from the shared work sequence with a single CAS,
+     * taking about half of the published backlog it has seen, and an idle worker steals the unprocessed tail of
+     * another worker's claim before claiming a new run.  Events are still processed exactly once but no longer in
+     * claim order across workers.  A <code>maxBatchClaim</code> of 1 behaves as the constructor without it.
+     * <p>
+     * This option requires a pre-configured {@link RingBuffer} which must have {@link RingBuffer#addGatingSequences(Sequence...)}
+     * called before the work pool is started.
+     *
+     * @param ringBuffer       of events to be consumed.
+     * @param sequenceBarrier  on which the workers will depend.
+     * @param exceptionHandler to callback when an error occurs which is not handled by the {@link WorkHandler}s.
+     * @param maxBatchClaim    largest run of sequences a worker claims at once.
+     * @param workHandlers     to distribute the work load across.
+     */
+    public WorkerPool(
+        final RingBuffer<T> ringBuffer,
+        final SequenceBarrier sequenceBarrier,
+        final ExceptionHandler<? super T> exceptionHandler,
+        final int maxBatchClaim,
+        final WorkHandler<? super T>... workHandlers)
     {
         this.ringBuffer = ringBuffer;
         final int numWorkers = workHandlers.length;
         workProcessors = new WorkProcessor[numWorkers];
+        final boolean producersBlock = sequenceBarrier instanceof ProcessingSequenceBarrier &&
+            ((ProcessingSequenceBarrier) sequenceBarrier).getProducerWaitStrategy() != null;
+        workClaims = 1 == maxBatchClaim ? null : new WorkClaims(workSequence, numWorkers, maxBatchClaim, producersBlock);
 
         for (int i = 0; i < numWorkers; i++)
         {
@@ -62,7 +93,9 @@ public final class WorkerPool<T>
                 sequenceBarrier,
                 workHandlers[i],
                 exceptionHandler,
-                workSequence);
+                workSequence,
+                workClaims,
+                i);
         }
     }
 
@@ -81,6 +114,7 @@ public final class WorkerPool<T>
         final WorkHandler<? super T>... workHandlers)
     {
         ringBuffer = RingBuffer.createMultiProducer(eventFactory, 1024, new BlockingWaitStrategy());
+        workClaims = null;
         final SequenceBarrier barrier = ringBuffer.newBarrier();
         final int numWorkers = workHandlers.length;
         workProcessors = new WorkProcessor[numWorkers];
@@ -115,6 +149,26 @@ public final class WorkerPool<T>
         return sequences;
     }
 
+    /**
+     * Set an {@link EventProcessorListener} on each worker, such as one {@link EventProcessorMetrics} per worker.
+     * Must be called before the pool is started.
+     *
+     * @param listeners one for each worker, in the order of the {@link WorkHandler}s.
+     * @throws IllegalArgumentException if there is not exactly one listener per worker.
+     */
+    public void setEventProcessorListeners(final EventProcessorListener... listeners)
+    {
+        if (listeners.length != workProcessors.length)
+        {
+            throw new IllegalArgumentException("Expected " + workProcessors.length + " listeners but got: " + listeners.length);
+        }
+
+        for (int i = 0; i < workProcessors.length; i++)
+        {
+            workProcessors[i].setEventProcessorListener(listeners[i]);
+        }
+    }
+
     /**
      * Start the worker pool processing events in sequence.
      *
@@ -131,6 +185,10 @@ public final class WorkerPool<T>
 
         final long cursor = ringBuffer.getCursor();
         workSequence.set(cursor);
+        if (null != workClaims)
+        {
+            workClaims.reset();
+        }
 
         for (WorkProcessor<?> processor : workProcessors)
         {
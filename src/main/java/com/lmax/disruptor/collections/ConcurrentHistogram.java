@@ -0,0 +1,409 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * <p>Log-linear histogram of non-negative <code>long</code> values that may be recorded from many threads at once.</p>
+ *
+ * <p>Values are counted in buckets whose width doubles with each power of two, each bucket split into enough
+ * linear sub-buckets to hold <code>significantDigits</code> decimal digits of precision, so that memory is fixed
+ * at construction and recording a value is a couple of shifts and an atomic increment with no allocation.  The
+ * minimum and maximum are tracked exactly with a CAS only when they change.</p>
+ *
+ * <p>Reads walk the live counts and so give an approximate view while values are being recorded, use an
+ * {@link IntervalHistogramRecorder} to read stable intervals.  Histograms with the same configuration can be
+ * added together and encoded to and decoded from a {@link ByteBuffer}.</p>
+ */
+public final class ConcurrentHistogram
+{
+    private static final int ENCODING_COOKIE = 0x1D15C0DE;
+    private static final int ENCODING_HEADER_LENGTH = 4 + 4 + 8 + 8 + 8 + 4;
+    private static final int ENCODING_ENTRY_LENGTH = 4 + 8;
+
+    private final long highestTrackableValue;
+    private final int significantDigits;
+    private final int subBucketCountMagnitude;
+    private final int subBucketHalfCountMagnitude;
+    private final int subBucketHalfCount;
+    private final long subBucketMask;
+    private final AtomicLongArray counts;
+    private final AtomicLong minValue = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong maxValue = new AtomicLong(0L);
+
+    /**
+     * Create a histogram covering values from 0 to <code>highestTrackableValue</code>.
+     *
+     * @param highestTrackableValue highest value to be counted at full precision, at least 2.
+     * @param significantDigits     decimal digits of precision to keep for each value, 0 to 5.
+     * @throws IllegalArgumentException if either argument is out of range.
+     */
+    public ConcurrentHistogram(final long highestTrackableValue, final int significantDigits)
+    {
+        if (highestTrackableValue < 2L)
+        {
+            throw new IllegalArgumentException("highestTrackableValue must be at least 2");
+        }
+        if (significantDigits < 0 || significantDigits > 5)
+        {
+            throw new IllegalArgumentException("significantDigits must be between 0 and 5");
+        }
+
+        this.highestTrackableValue = highestTrackableValue;
+        this.significantDigits = significantDigits;
+
+        long largestValueWithSingleUnitResolution = 2L;
+        for (int i = 0; i < significantDigits; i++)
+        {
+            largestValueWithSingleUnitResolution *= 10L;
+        }
+
+        this.subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1L);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        this.subBucketMask = (1L << subBucketCountMagnitude) - 1L;
+        this.counts = new AtomicLongArray(countsIndex(highestTrackableValue) + 1);
+    }
+
+    /**
+     * Record a single occurrence of a value.  Values above the highest trackable value are counted in the highest
+     * bucket but still tracked exactly by {@link #getMax()}.
+     *
+     * @param value to record.
+     * @throws IllegalArgumentException if value is negative.
+     */
+    public void recordValue(final long value)
+    {
+        recordValues(value, 1L);
+    }
+
+    /**
+     * Record several occurrences of a value.
+     *
+     * @param value to record.
+     * @param count of occurrences.
+     * @throws IllegalArgumentException if value is negative.
+     */
+    public void recordValues(final long value, final long count)
+    {
+        if (value < 0L)
+        {
+            throw new IllegalArgumentException("Values must not be negative: " + value);
+        }
+
+        counts.addAndGet(countsIndex(Math.min(value, highestTrackableValue)), count);
+        trackRange(value);
+    }
+
+    private void trackRange(final long value)
+    {
+        long min;
+        while (value < (min = minValue.get()) && !minValue.compareAndSet(min, value))
+        {
+            // raced with another writer, check again
+        }
+
+        long max;
+        while (value > (max = maxValue.get()) && !maxValue.compareAndSet(max, value))
+        {
+            // raced with another writer, check again
+        }
+    }
+
+    /**
+     * Add the counts of another histogram with the same configuration into this one.
+     *
+     * @param histogram from which to add the counts.
+     * @throws IllegalArgumentException if the histograms are configured differently.
+     */
+    public void add(final ConcurrentHistogram histogram)
+    {
+        checkSameConfiguration(histogram.highestTrackableValue, histogram.significantDigits);
+
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            final long count = histogram.counts.get(i);
+            if (0L != count)
+            {
+                counts.addAndGet(i, count);
+            }
+        }
+
+        if (0L != histogram.getTotalCount())
+        {
+            trackRange(histogram.getMin());
+            trackRange(histogram.getMax());
+        }
+    }
+
+    /**
+     * Clear the counts, minimum and maximum.  Not atomic with respect to concurrent recording.
+     */
+    public void reset()
+    {
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            counts.lazySet(i, 0L);
+        }
+        minValue.set(Long.MAX_VALUE);
+        maxValue.set(0L);
+    }
+
+    /**
+     * @return the highest value counted at full precision.
+     */
+    public long getHighestTrackableValue()
+    {
+        return highestTrackableValue;
+    }
+
+    /**
+     * @return the decimal digits of precision kept for each value.
+     */
+    public int getSignificantDigits()
+    {
+        return significantDigits;
+    }
+
+    /**
+     * @return the total number of recorded values.
+     */
+    public long getTotalCount()
+    {
+        long total = 0L;
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            total += counts.get(i);
+        }
+
+        return total;
+    }
+
+    /**
+     * @return the smallest recorded value, {@link Long#MAX_VALUE} if none have been recorded.
+     */
+    public long getMin()
+    {
+        return minValue.get();
+    }
+
+    /**
+     * @return the largest recorded value, 0 if none have been recorded.
+     */
+    public long getMax()
+    {
+        return maxValue.get();
+    }
+
+    /**
+     * @param value to look up.
+     * @return the number of recorded values that are equivalent to value at the precision of this histogram.
+     */
+    public long getCountAtValue(final long value)
+    {
+        return counts.get(countsIndex(Math.min(Math.max(value, 0L), highestTrackableValue)));
+    }
+
+    /**
+     * @return the mean of the recorded values, using the middle of each bucket, 0 if none have been recorded.
+     */
+    public double getMean()
+    {
+        long total = 0L;
+        double sum = 0.0d;
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            final long count = counts.get(i);
+            if (0L != count)
+            {
+                total += count;
+                sum += count * (double) (lowestEquivalentValue(i) + (bucketWidth(i) >> 1));
+            }
+        }
+
+        return 0L == total ? 0.0d : sum / total;
+    }
+
+    /**
+     * Get the value at or below which the given percentage of recorded values fall, reported as the highest value
+     * equivalent to it at the precision of this histogram and never above {@link #getMax()}.
+     *
+     * @param percentile between 0 and 100.
+     * @return the value at the percentile, 0 if none have been recorded.
+     * @throws IllegalArgumentException if percentile is out of range.
+     */
+    public long getValueAtPercentile(final double percentile)
+    {
+        if (percentile < 0.0d || percentile > 100.0d)
+        {
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        }
+
+        final long total = getTotalCount();
+        if (0L == total)
+        {
+            return 0L;
+        }
+
+        final long countAtPercentile = Math.max(1L, (long) Math.ceil(percentile / 100.0d * total));
+        long seen = 0L;
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            seen += counts.get(i);
+            if (seen >= countAtPercentile)
+            {
+                return Math.min(lowestEquivalentValue(i) + bucketWidth(i) - 1L, getMax());
+            }
+        }
+
+        return getMax();
+    }
+
+    /**
+     * @return the number of bytes {@link #encodeInto(ByteBuffer)} may need.
+     */
+    public int getMaxEncodedLength()
+    {
+        return ENCODING_HEADER_LENGTH + counts.length() * ENCODING_ENTRY_LENGTH;
+    }
+
+    /**
+     * Write the configuration, range and non-zero counts of this histogram at the position of the buffer, using
+     * the byte order of the buffer.
+     *
+     * @param buffer to write to, with at least {@link #getMaxEncodedLength()} bytes remaining.
+     * @return the number of bytes written.
+     */
+    public int encodeInto(final ByteBuffer buffer)
+    {
+        final int start = buffer.position();
+        buffer.putInt(ENCODING_COOKIE);
+        buffer.putInt(significantDigits);
+        buffer.putLong(highestTrackableValue);
+        buffer.putLong(getMin());
+        buffer.putLong(getMax());
+
+        final int entriesPosition = buffer.position();
+        buffer.putInt(0);
+
+        int entries = 0;
+        for (int i = 0, size = counts.length(); i < size; i++)
+        {
+            final long count = counts.get(i);
+            if (0L != count)
+            {
+                buffer.putInt(i);
+                buffer.putLong(count);
+                entries++;
+            }
+        }
+        buffer.putInt(entriesPosition, entries);
+
+        return buffer.position() - start;
+    }
+
+    /**
+     * Read a histogram written by {@link #encodeInto(ByteBuffer)} from the position of the buffer, which must have
+     * the byte order it was written with.
+     *
+     * @param buffer to read from.
+     * @return a new histogram holding the decoded counts.
+     * @throws IllegalArgumentException if the buffer does not hold an encoded histogram.
+     */
+    public static ConcurrentHistogram decodeFrom(final ByteBuffer buffer)
+    {
+        if (buffer.remaining() < ENCODING_HEADER_LENGTH || ENCODING_COOKIE != buffer.getInt())
+        {
+            throw new IllegalArgumentException("Buffer does not hold an encoded histogram");
+        }
+
+        final int significantDigits = buffer.getInt();
+        final ConcurrentHistogram histogram = new ConcurrentHistogram(buffer.getLong(), significantDigits);
+        final long min = buffer.getLong();
+        final long max = buffer.getLong();
+
+        final int entries = buffer.getInt();
+        if (entries < 0 || entries > histogram.counts.length() ||
+            buffer.remaining() < entries * ENCODING_ENTRY_LENGTH)
+        {
+            throw new IllegalArgumentException("Encoded histogram is truncated or has " + entries + " entries");
+        }
+
+        for (int i = 0; i < entries; i++)
+        {
+            final int index = buffer.getInt();
+            if (index < 0 || index >= histogram.counts.length())
+            {
+                throw new IllegalArgumentException("Encoded histogram has an entry out of range at index " + index);
+            }
+            histogram.counts.set(index, buffer.getLong());
+        }
+        histogram.minValue.set(min);
+        histogram.maxValue.set(max);
+
+        return histogram;
+    }
+
+    private void checkSameConfiguration(final long highestTrackableValue, final int significantDigits)
+    {
+        if (this.highestTrackableValue != highestTrackableValue || this.significantDigits != significantDigits)
+        {
+            throw new IllegalArgumentException("Histograms must have matching configuration");
+        }
+    }
+
+    private int countsIndex(final long value)
+    {
+        final int bucketIndex = 64 - Long.numberOfLeadingZeros(value | subBucketMask) - subBucketCountMagnitude;
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+    }
+
+    private long lowestEquivalentValue(final int index)
+    {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0)
+        {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+
+        return ((long) subBucketIndex) << bucketIndex;
+    }
+
+    private long bucketWidth(final int index)
+    {
+        return 1L << Math.max(0, (index >> subBucketHalfCountMagnitude) - 1);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentHistogram{" +
+            "count=" + getTotalCount() +
+            ", min=" + getMin() +
+            ", max=" + getMax() +
+            ", mean=" + getMean() +
+            ", 50%=" + getValueAtPercentile(50.0d) +
+            ", 99%=" + getValueAtPercentile(99.0d) +
+            ", 99.99%=" + getValueAtPercentile(99.99d) +
+            '}';
+    }
+}
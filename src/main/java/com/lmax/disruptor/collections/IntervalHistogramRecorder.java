@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+/**
+ * <p>Records values into a {@link ConcurrentHistogram} from any number of threads and hands out the values
+ * recorded since the last call as a stable interval histogram.</p>
+ *
+ * <p>Recording never blocks or allocates; reading swaps the live histogram for a spare and waits for writers
+ * still using the old one to finish.  This makes it suitable for recording latencies from inside an
+ * {@link com.lmax.disruptor.EventHandler} while a monitoring thread reports them.</p>
+ */
+public final class IntervalHistogramRecorder
+{
+    private final WriterReaderPhaser phaser = new WriterReaderPhaser();
+    private volatile ConcurrentHistogram active;
+    private ConcurrentHistogram inactive;
+
+    /**
+     * @param highestTrackableValue highest value to be counted at full precision.
+     * @param significantDigits     decimal digits of precision to keep for each value.
+     * @see ConcurrentHistogram#ConcurrentHistogram(long, int)
+     */
+    public IntervalHistogramRecorder(final long highestTrackableValue, final int significantDigits)
+    {
+        active = new ConcurrentHistogram(highestTrackableValue, significantDigits);
+        inactive = new ConcurrentHistogram(highestTrackableValue, significantDigits);
+    }
+
+    /**
+     * Record a value in the current interval.
+     *
+     * @param value to record.
+     * @throws IllegalArgumentException if value is negative.
+     */
+    public void recordValue(final long value)
+    {
+        final long criticalValue = phaser.writerCriticalSectionEnter();
+        try
+        {
+            active.recordValue(value);
+        }
+        finally
+        {
+            phaser.writerCriticalSectionExit(criticalValue);
+        }
+    }
+
+    /**
+     * End the current interval and start a new one.  The returned histogram holds the values recorded during the
+     * interval and is reused by the next call, so it should be read or copied before then.
+     *
+     * @return the histogram of the interval just ended.
+     */
+    public ConcurrentHistogram getIntervalHistogram()
+    {
+        phaser.readerLock().lock();
+        try
+        {
+            final ConcurrentHistogram interval = active;
+            inactive.reset();
+            active = inactive;
+            inactive = interval;
+            phaser.flipPhase();
+
+            return interval;
+        }
+        finally
+        {
+            phaser.readerLock().unlock();
+        }
+    }
+
+    /**
+     * End the current interval and add its values to a histogram with the same configuration.
+     *
+     * @param target to add the values of the interval to.
+     */
+    public void addIntervalHistogramTo(final ConcurrentHistogram target)
+    {
+        phaser.readerLock().lock();
+        try
+        {
+            target.add(getIntervalHistogram());
+        }
+        finally
+        {
+            phaser.readerLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import java.util.Arrays;
+
+import com.lmax.disruptor.util.Util;
+
+/**
+ * <p>Open addressing hash map from primitive <code>long</code> keys to primitive <code>long</code> values, with
+ * linear probing over parallel arrays so that neither lookups nor updates allocate once the map has grown to its
+ * working size.</p>
+ *
+ * <p>A missing value, chosen at construction and never stored, stands in for null.  The map doubles when it is more
+ * than half full and never shrinks.  This class is not thread safe.</p>
+ */
+public final class LongLongHashMap
+{
+    private final long missingValue;
+    private long[] keys;
+    private long[] values;
+    private boolean[] used;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+
+    /**
+     * @param initialCapacity number of entries to size the map for before it needs to grow.
+     * @param missingValue    returned for keys that are not in the map, it can not be stored as a value.
+     */
+    public LongLongHashMap(final int initialCapacity, final long missingValue)
+    {
+        if (initialCapacity < 1)
+        {
+            throw new IllegalArgumentException("initialCapacity must be positive but was " + initialCapacity);
+        }
+
+        this.missingValue = missingValue;
+        allocate(Util.ceilingNextPowerOfTwo(Math.max(2, initialCapacity * 2)));
+    }
+
+    /**
+     * @param key to look up.
+     * @return the value for the key, or the missing value if the key is not in the map.
+     */
+    public long get(final long key)
+    {
+        for (int index = index(key); used[index]; index = (index + 1) & mask)
+        {
+            if (keys[index] == key)
+            {
+                return values[index];
+            }
+        }
+
+        return missingValue;
+    }
+
+    /**
+     * @param key to look up.
+     * @return true if the key is in the map.
+     */
+    public boolean containsKey(final long key)
+    {
+        return get(key) != missingValue;
+    }
+
+    /**
+     * @param key   to store the value under.
+     * @param value to store, must not be the missing value.
+     * @return the value previously stored under the key, or the missing value if there was none.
+     */
+    public long put(final long key, final long value)
+    {
+        if (value == missingValue)
+        {
+            throw new IllegalArgumentException("Can not store the missing value " + missingValue);
+        }
+
+        int index = index(key);
+        while (used[index])
+        {
+            if (keys[index] == key)
+            {
+                final long previous = values[index];
+                values[index] = value;
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        used[index] = true;
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold)
+        {
+            allocate(keys.length * 2);
+        }
+
+        return missingValue;
+    }
+
+    /**
+     * @param key to remove.
+     * @return the value that was stored under the key, or the missing value if there was none.
+     */
+    public long remove(final long key)
+    {
+        int index = index(key);
+        while (used[index])
+        {
+            if (keys[index] == key)
+            {
+                final long previous = values[index];
+                used[index] = false;
+                size--;
+                closeGap(index);
+                return previous;
+            }
+            index = (index + 1) & mask;
+        }
+
+        return missingValue;
+    }
+
+    /**
+     * Remove every entry, keeping the capacity the map has grown to.
+     */
+    public void clear()
+    {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * @return the number of entries in the map.
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * @return true if the map has no entries.
+     */
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * @return the value returned for keys that are not in the map.
+     */
+    public long getMissingValue()
+    {
+        return missingValue;
+    }
+
+    /**
+     * Move entries after a removed one back into the gap when their probe sequence passes through it, so that
+     * lookups can stop at the first unused slot.
+     */
+    private void closeGap(final int removed)
+    {
+        int gap = removed;
+        for (int index = (removed + 1) & mask; used[index]; index = (index + 1) & mask)
+        {
+            final int home = index(keys[index]);
+            if (((index - home) & mask) >= ((index - gap) & mask))
+            {
+                keys[gap] = keys[index];
+                values[gap] = values[index];
+                used[gap] = true;
+                used[index] = false;
+                gap = index;
+            }
+        }
+    }
+
+    private void allocate(final int capacity)
+    {
+        final long[] oldKeys = keys;
+        final long[] oldValues = values;
+        final boolean[] oldUsed = used;
+
+        keys = new long[capacity];
+        values = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity / 2;
+        size = 0;
+
+        if (null != oldUsed)
+        {
+            for (int i = 0; i < oldUsed.length; i++)
+            {
+                if (oldUsed[i])
+                {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+    }
+
+    private int index(final long key)
+    {
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
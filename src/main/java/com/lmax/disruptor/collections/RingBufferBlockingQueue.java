@@ -0,0 +1,460 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import com.lmax.disruptor.AlertException;
+import com.lmax.disruptor.BlockingProducerWaitStrategy;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.MultiProducerSequencer;
+import com.lmax.disruptor.ProducerWaitStrategy;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleProducerSequencer;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.ThreadHints;
+
+/**
+ * <p>A bounded {@link BlockingQueue} over a ring of references, sequenced by a {@link Sequencer} so that it can
+ * be handed to executors and pools that expect a JDK queue.</p>
+ *
+ * <p>Producers claim and publish slots exactly as they would on a {@link com.lmax.disruptor.RingBuffer}:
+ * {@link #put(Object)} waits on the {@link ProducerWaitStrategy} when the queue is full and
+ * {@link #take()} waits on the {@link WaitStrategy} when it is empty.  With {@link ConsumerType#SINGLE} only
+ * one thread may take elements out and does so with plain reads and a single ordered write; with
+ * {@link ConsumerType#MULTI} consumers claim elements with a compare and set on a shared sequence, then release
+ * them in the order they were claimed.</p>
+ *
+ * <p>{@link #offer(Object)}, {@link #poll()} and {@link #drainTo(Collection, int)} do not allocate.  Timed
+ * operations check the ring and park briefly until the deadline, as neither strategy interface takes a
+ * timeout.  Waiting for capacity in {@link #put(Object)} follows the producer wait strategy and is not
+ * interrupted, the interrupt status is only checked before claiming.</p>
+ *
+ * <p>{@link #size()} is an estimate while producers are mid-publish and the iterator is a snapshot of the
+ * elements present when it was created, it does not support removal.  Neither does {@link #remove(Object)},
+ * elements can only leave the queue from the head.</p>
+ *
+ * @param <E> the type of elements held in this queue.
+ */
+public final class RingBufferBlockingQueue<E> extends AbstractQueue<E> implements BlockingQueue<E>
+{
+    /**
+     * Number of threads that may take elements out of the queue.
+     */
+    public enum ConsumerType
+    {
+        /**
+         * Only one thread at a time takes elements out of the queue.
+         */
+        SINGLE,
+
+        /**
+         * Any number of threads may take elements out of the queue.
+         */
+        MULTI
+    }
+
+    private static final long MAX_PARK_NANOS = 50000L;
+    private static final int SPIN_TRIES = 100;
+
+    private final Object[] elements;
+    private final int indexMask;
+    private final Sequencer sequencer;
+    private final SequenceBarrier barrier;
+    private final ProducerWaitStrategy producerWaitStrategy;
+    private final boolean multiConsumer;
+    private final Sequence claimSequence = new Sequence();
+    private final Sequence consumerSequence = new Sequence();
+
+    /**
+     * Create a queue for any number of producers and consumers that block when full or empty.
+     *
+     * @param capacity of the queue, must be a power of 2.
+     */
+    public RingBufferBlockingQueue(final int capacity)
+    {
+        this(ProducerType.MULTI, ConsumerType.MULTI, capacity, new BlockingWaitStrategy(), new BlockingProducerWaitStrategy());
+    }
+
+    /**
+     * @param producerType         {@link ProducerType#SINGLE} if only one thread at a time will add elements.
+     * @param consumerType         {@link ConsumerType#SINGLE} if only one thread at a time will take elements.
+     * @param capacity             of the queue, must be a power of 2.
+     * @param waitStrategy         for consumers waiting on an empty queue.
+     * @param producerWaitStrategy for producers waiting on a full queue.
+     */
+    public RingBufferBlockingQueue(
+        final ProducerType producerType,
+        final ConsumerType consumerType,
+        final int capacity,
+        final WaitStrategy waitStrategy,
+        final ProducerWaitStrategy producerWaitStrategy)
+    {
+        this.sequencer = producerType == ProducerType.SINGLE ?
+            new SingleProducerSequencer(capacity, waitStrategy, producerWaitStrategy) :
+            new MultiProducerSequencer(capacity, waitStrategy, producerWaitStrategy);
+        this.elements = new Object[capacity];
+        this.indexMask = capacity - 1;
+        this.producerWaitStrategy = producerWaitStrategy;
+        this.multiConsumer = consumerType == ConsumerType.MULTI;
+        this.barrier = sequencer.newBarrier();
+        sequencer.addGatingSequences(consumerSequence);
+    }
+
+    @Override
+    public boolean offer(final E e)
+    {
+        checkNotNull(e);
+        try
+        {
+            publish(sequencer.tryNext(), e);
+            return true;
+        }
+        catch (InsufficientCapacityException ex)
+        {
+            return false;
+        }
+    }
+
+    @Override
+    public void put(final E e) throws InterruptedException
+    {
+        checkNotNull(e);
+        checkInterrupted();
+        publish(sequencer.next(), e);
+    }
+
+    @Override
+    public boolean offer(final E e, final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        checkNotNull(e);
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true)
+        {
+            checkInterrupted();
+            try
+            {
+                publish(sequencer.tryNext(), e);
+                return true;
+            }
+            catch (InsufficientCapacityException ex)
+            {
+                if (!parkUntil(deadline))
+                {
+                    return false;
+                }
+            }
+        }
+    }
+
+    @Override
+    public E poll()
+    {
+        if (!multiConsumer)
+        {
+            final long next = consumerSequence.get() + 1L;
+            return sequencer.isAvailable(next) ? consume(next, next) : null;
+        }
+
+        while (true)
+        {
+            final long current = claimSequence.get();
+            final long next = current + 1L;
+            if (!sequencer.isAvailable(next))
+            {
+                return null;
+            }
+            if (claimSequence.compareAndSet(current, next))
+            {
+                return consume(next, next);
+            }
+        }
+    }
+
+    @Override
+    public E take() throws InterruptedException
+    {
+        while (true)
+        {
+            checkInterrupted();
+            final E e = poll();
+            if (null != e)
+            {
+                return e;
+            }
+
+            try
+            {
+                barrier.waitFor(headSequence().get() + 1L);
+            }
+            catch (final AlertException ex)
+            {
+                throw new IllegalStateException("The barrier of a queue is never alerted", ex);
+            }
+            catch (final TimeoutException ex)
+            {
+                // Check the ring again
+            }
+        }
+    }
+
+    @Override
+    public E poll(final long timeout, final TimeUnit unit) throws InterruptedException
+    {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (true)
+        {
+            checkInterrupted();
+            final E e = poll();
+            if (null != e || !parkUntil(deadline))
+            {
+                return e;
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E peek()
+    {
+        final long next = headSequence().get() + 1L;
+        return sequencer.isAvailable(next) ? (E) elements[index(next)] : null;
+    }
+
+    /**
+     * Move at most maxElements to the collection, claiming and releasing them with one update of the consumer
+     * sequence.  With {@link ConsumerType#MULTI} the elements are claimed before they are added, so if adding one
+     * fails those after it are dropped rather than left in the queue.
+     *
+     * @param c           to add the elements to.
+     * @param maxElements the most elements to move.
+     * @return the number of elements moved.
+     */
+    @Override
+    public int drainTo(final Collection<? super E> c, final int maxElements)
+    {
+        if (c == this)
+        {
+            throw new IllegalArgumentException("Cannot drain a queue to itself");
+        }
+        checkNotNull(c);
+        if (maxElements < 1)
+        {
+            return 0;
+        }
+
+        long next;
+        long hi;
+        do
+        {
+            next = headSequence().get() + 1L;
+            hi = highestAvailable(next, maxElements);
+            if (hi < next)
+            {
+                return 0;
+            }
+        }
+        while (multiConsumer && !claimSequence.compareAndSet(next - 1L, hi));
+
+        long sequence = next;
+        try
+        {
+            while (sequence <= hi)
+            {
+                c.add(this.<E>elementAt(sequence));
+                sequence++;
+            }
+        }
+        finally
+        {
+            if (multiConsumer)
+            {
+                for (long dropped = sequence; dropped <= hi; dropped++)
+                {
+                    elements[index(dropped)] = null;
+                }
+                sequence = hi + 1L;
+            }
+            release(next, sequence - 1L);
+        }
+
+        return (int) (hi - next + 1L);
+    }
+
+    @Override
+    public int drainTo(final Collection<? super E> c)
+    {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int remainingCapacity()
+    {
+        return (int) sequencer.remainingCapacity();
+    }
+
+    @Override
+    public int size()
+    {
+        final long size = sequencer.getCursor() - headSequence().get();
+        return (int) Math.max(0L, Math.min(size, elements.length));
+    }
+
+    /**
+     * @return a snapshot of the elements in the queue, in order, that does not support removal.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator()
+    {
+        final List<E> snapshot = new ArrayList<E>();
+        final long cursor = sequencer.getCursor();
+        for (long sequence = headSequence().get() + 1L; sequence <= cursor && sequencer.isAvailable(sequence); sequence++)
+        {
+            final Object e = elements[index(sequence)];
+            if (null != e)
+            {
+                snapshot.add((E) e);
+            }
+        }
+
+        final Iterator<E> delegate = snapshot.iterator();
+        return new Iterator<E>()
+        {
+            @Override
+            public boolean hasNext()
+            {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public E next()
+            {
+                return delegate.next();
+            }
+
+            @Override
+            public void remove()
+            {
+                throw new UnsupportedOperationException("Elements can only be removed from the head of the queue");
+            }
+        };
+    }
+
+    private void publish(final long sequence, final E e)
+    {
+        elements[index(sequence)] = e;
+        sequencer.publish(sequence);
+    }
+
+    private E consume(final long lo, final long hi)
+    {
+        final E e = elementAt(lo);
+        release(lo, hi);
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T elementAt(final long sequence)
+    {
+        final int index = index(sequence);
+        final Object e = elements[index];
+        elements[index] = null;
+        return (T) e;
+    }
+
+    /**
+     * Move the consumer sequence up to hi once the slots from lo have been read, after any consumer that claimed
+     * earlier sequences has released them.
+     */
+    private void release(final long lo, final long hi)
+    {
+        if (multiConsumer)
+        {
+            // the consumer being waited for may have been descheduled between its claim and release
+            for (int tries = 0; consumerSequence.get() != lo - 1L; tries++)
+            {
+                if (tries < SPIN_TRIES)
+                {
+                    ThreadHints.onSpinWait();
+                }
+                else
+                {
+                    Thread.yield();
+                }
+            }
+        }
+
+        consumerSequence.setVolatile(hi);
+        producerWaitStrategy.signalAllWhenBlocking();
+    }
+
+    private long highestAvailable(final long next, final int maxElements)
+    {
+        final long limit = next + maxElements - 1L;
+        final long cursor = sequencer.getCursor();
+        return sequencer.getHighestPublishedSequence(next, limit < next || limit > cursor ? cursor : limit);
+    }
+
+    private Sequence headSequence()
+    {
+        return multiConsumer ? claimSequence : consumerSequence;
+    }
+
+    private int index(final long sequence)
+    {
+        return (int) sequence & indexMask;
+    }
+
+    private static boolean parkUntil(final long deadline)
+    {
+        final long remaining = deadline - System.nanoTime();
+        if (remaining <= 0L)
+        {
+            return false;
+        }
+        LockSupport.parkNanos(Math.min(remaining, MAX_PARK_NANOS));
+        return true;
+    }
+
+    private static void checkInterrupted() throws InterruptedException
+    {
+        if (Thread.interrupted())
+        {
+            throw new InterruptedException();
+        }
+    }
+
+    private static void checkNotNull(final Object o)
+    {
+        if (null == o)
+        {
+            throw new NullPointerException();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Lets wait-free writers share a structure with a reader that periodically swaps it out, without the writers
+ * ever blocking.  Writers bracket each update with {@link #writerCriticalSectionEnter()} and
+ * {@link #writerCriticalSectionExit(long)}; the reader, holding {@link #readerLock()}, swaps the structure and
+ * calls {@link #flipPhase()}, which returns once every writer that might still see the old structure has left.
+ */
+final class WriterReaderPhaser
+{
+    private final AtomicLong startEpoch = new AtomicLong(0L);
+    private final AtomicLong evenEndEpoch = new AtomicLong(0L);
+    private final AtomicLong oddEndEpoch = new AtomicLong(Long.MIN_VALUE);
+    private final ReentrantLock readerLock = new ReentrantLock();
+
+    long writerCriticalSectionEnter()
+    {
+        return startEpoch.getAndIncrement();
+    }
+
+    void writerCriticalSectionExit(final long criticalValueAtEnter)
+    {
+        (criticalValueAtEnter < 0L ? oddEndEpoch : evenEndEpoch).getAndIncrement();
+    }
+
+    ReentrantLock readerLock()
+    {
+        return readerLock;
+    }
+
+    void flipPhase()
+    {
+        if (!readerLock.isHeldByCurrentThread())
+        {
+            throw new IllegalStateException("flipPhase() can only be called while holding the reader lock");
+        }
+
+        final boolean nextPhaseIsEven = startEpoch.get() < 0L;
+        final long initialStartValue = nextPhaseIsEven ? 0L : Long.MIN_VALUE;
+        (nextPhaseIsEven ? evenEndEpoch : oddEndEpoch).set(initialStartValue);
+
+        final long startValueAtFlip = startEpoch.getAndSet(initialStartValue);
+        final AtomicLong endEpoch = nextPhaseIsEven ? oddEndEpoch : evenEndEpoch;
+        while (endEpoch.get() != startValueAtFlip)
+        {
+            Thread.yield();
+        }
+    }
+}
@@ -48,12 +48,20 @@ public class BasicExecutor implements Executor //基本线程池
 
         for (Thread t : threads)
         {
+            // no info is returned for threads that have terminated or are virtual
             ThreadInfo threadInfo = threadMXBean.getThreadInfo(t.getId());
             sb.append("{");
             sb.append("name=").append(t.getName()).append(",");
             sb.append("id=").append(t.getId()).append(",");
-            sb.append("state=").append(threadInfo.getThreadState()).append(",");
-            sb.append("lockInfo=").append(threadInfo.getLockInfo());
+            if (null != threadInfo)
+            {
+                sb.append("state=").append(threadInfo.getThreadState()).append(",");
+                sb.append("lockInfo=").append(threadInfo.getLockInfo());
+            }
+            else
+            {
+                sb.append("state=").append(t.getState());
+            }
             sb.append("}");
         }
 
@@ -126,6 +126,29 @@ public class Disruptor<T>
             new BasicExecutor(threadFactory));
     }
 
+    /**
+     * Create a new Disruptor.
+     *
+     * @param eventFactory         the factory to create events in the ring buffer.
+     * @param ringBufferSize       the size of the ring buffer, must be power of 2.
+     * @param threadFactory        a {@link ThreadFactory} to create threads for processors.
+     * @param producerType         the claim strategy to use for the ring buffer.
+     * @param waitStrategy         the wait strategy to use for the ring buffer.
+     * @param producerWaitStrategy the strategy producers use to wait when the ring buffer is full.
+     */
+    public Disruptor(
+            final EventFactory<T> eventFactory,
+            final int ringBufferSize,
+            final ThreadFactory threadFactory,
+            final ProducerType producerType,
+            final WaitStrategy waitStrategy,
+            final ProducerWaitStrategy producerWaitStrategy)
+    {
+        this(
+            RingBuffer.create(producerType, eventFactory, ringBufferSize, waitStrategy, producerWaitStrategy),
+            new BasicExecutor(threadFactory));
+    }
+
     /**
      * Private constructor helper
      */
@@ -261,6 +284,57 @@ public class Disruptor<T>
         return new ExceptionHandlerSetting<T>(eventHandler, consumerRepository);
     }
 
+    /**
+     * Set an {@link EventProcessorListener}, such as {@link com.lmax.disruptor.EventProcessorMetrics} or a
+     * {@link com.lmax.disruptor.LatencyTracer.Stage}, on the processor of a specific handler.  Must be called
+     * before the disruptor is started.
+     *
+     * @param eventHandler the event handler whose processor is to be observed.
+     * @param listener     to be called back from the run loop of the processor.
+     */
+    public void setEventProcessorListenerFor(final EventHandler<T> eventHandler, final EventProcessorListener listener)
+    {
+        checkNotStarted();
+        batchEventProcessorFor(eventHandler).setEventProcessorListener(listener);
+    }
+
+    /**
+     * Bound the batches of the processor of a specific handler by the lag of the handlers that follow it.
+     * Must be called before the disruptor is started.
+     *
+     * @param eventHandler       the event handler whose batches are to be bounded.
+     * @param minBatchSize       the fewest events to process before publishing progress.
+     * @param maxBatchSize       the most events to process before publishing progress.
+     * @param downstreamHandlers the handlers set up to follow eventHandler, none for a fixed bound of maxBatchSize.
+     * @see BatchEventProcessor#setAdaptiveBatchSize(int, int, Sequence...)
+     */
+    public void setBatchSizeFor(
+        final EventHandler<T> eventHandler,
+        final int minBatchSize,
+        final int maxBatchSize,
+        final EventHandler<T>... downstreamHandlers)
+    {
+        checkNotStarted();
+        final Sequence[] downstreamSequences = new Sequence[downstreamHandlers.length];
+        for (int i = 0; i < downstreamHandlers.length; i++)
+        {
+            downstreamSequences[i] = consumerRepository.getSequenceFor(downstreamHandlers[i]);
+        }
+        batchEventProcessorFor(eventHandler).setAdaptiveBatchSize(minBatchSize, maxBatchSize, downstreamSequences);
+    }
+
+    private BatchEventProcessor<?> batchEventProcessorFor(final EventHandler<T> eventHandler)
+    {
+        final EventProcessor eventProcessor = consumerRepository.getEventProcessorFor(eventHandler);
+        if (!(eventProcessor instanceof BatchEventProcessor))
+        {
+            throw new IllegalArgumentException(
+                "The event handler " + eventHandler + " is not run by a BatchEventProcessor but by " + eventProcessor + ".");
+        }
+
+        return (BatchEventProcessor<?>) eventProcessor;
+    }
+
     /**
      * <p>Create a group of event handlers to be used as a dependency.
      * For example if the handler <code>A</code> must process events before handler <code>B</code>:</p>
@@ -476,6 +550,14 @@ public class Disruptor<T>
         return consumerRepository.getSequenceFor(b1).get();
     }
 
+    /**
+     * @return the consumers of this disruptor, for {@link DisruptorMonitor}.
+     */
+    ConsumerRepository<T> getConsumerRepository()
+    {
+        return consumerRepository;
+    }
+
     /**
      * Confirms if all messages have been consumed by all event processors
      */
@@ -0,0 +1,398 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+import com.lmax.disruptor.util.Util;
+
+/**
+ * <p>Samples the cursor of a {@link Disruptor} and the sequences of each of its consumer stages, giving per stage
+ * lag and backlog, ring occupancy and publish and consume rates as {@link DisruptorSnapshot}s and as JMX
+ * MXBeans.</p>
+ *
+ * <p>The lag of a stage is measured against the barrier it waits on, so in a diamond the stage with the largest
+ * lag is the one holding back its dependents, and the end of chain stage at the minimum gating sequence is the one
+ * the producers would wait on.  Sampling only reads sequences and never blocks the disruptor.</p>
+ */
+public final class DisruptorMonitor
+{
+    private static final String DOMAIN = "com.lmax.disruptor";
+
+    private final RingBuffer<?> ringBuffer;
+    private final ConsumerRepository<?> consumerRepository;
+    private final List<ObjectName> registeredNames = new ArrayList<ObjectName>();
+    private volatile DisruptorSnapshot lastSnapshot;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param disruptor to monitor, with all of its consumers already added.
+     */
+    public DisruptorMonitor(final Disruptor<?> disruptor)
+    {
+        this.ringBuffer = disruptor.getRingBuffer();
+        this.consumerRepository = disruptor.getConsumerRepository();
+    }
+
+    /**
+     * Take a new sample, measuring rates against the previous one.
+     *
+     * @return the new sample.
+     */
+    public synchronized DisruptorSnapshot sample()
+    {
+        final DisruptorSnapshot snapshot = measure();
+        lastSnapshot = snapshot;
+
+        return snapshot;
+    }
+
+    /**
+     * Read the disruptor without moving the baseline that rates are measured against, so rates are only ever
+     * measured between samples taken by {@link #sample()}, directly or by periodic sampling.
+     */
+    private synchronized DisruptorSnapshot measure()
+    {
+        final long now = System.nanoTime();
+        final long minimumGatingSequence = ringBuffer.getMinimumGatingSequence();
+
+        final List<ConsumerInfo> consumers = new ArrayList<ConsumerInfo>();
+        final List<long[]> positions = new ArrayList<long[]>();
+        for (ConsumerInfo consumerInfo : consumerRepository)
+        {
+            final SequenceBarrier barrier = consumerInfo.getBarrier();
+            final long sequence = Util.getMinimumSequence(consumerInfo.getSequences());
+            final long upstream = null != barrier ? barrier.getCursor() : Long.MIN_VALUE;
+            consumers.add(consumerInfo);
+            positions.add(new long[]{sequence, upstream});
+        }
+        final long cursor = ringBuffer.getCursor();
+
+        final DisruptorSnapshot previous = lastSnapshot;
+        final boolean comparable = null != previous && previous.getStages().size() == consumers.size();
+        final double seconds = null != previous ? (now - previous.getTimestampNanos()) / 1e9d : 0.0d;
+
+        final List<DisruptorSnapshot.Stage> stages = new ArrayList<DisruptorSnapshot.Stage>(consumers.size());
+        for (int i = 0; i < consumers.size(); i++)
+        {
+            final ConsumerInfo consumerInfo = consumers.get(i);
+            final long sequence = positions.get(i)[0];
+            final long upstream = Long.MIN_VALUE == positions.get(i)[1] ? cursor : positions.get(i)[1];
+            final double consumeRate = comparable ? rate(sequence - previous.getStages().get(i).getSequence(), seconds) : 0.0d;
+
+            stages.add(new DisruptorSnapshot.Stage(
+                nameOf(consumerInfo),
+                sequence,
+                upstream,
+                cursor,
+                consumeRate,
+                consumerInfo.isRunning(),
+                consumerInfo.isEndOfChain(),
+                consumerInfo.isEndOfChain() && sequence <= minimumGatingSequence));
+        }
+
+        final double publishRate = null != previous ? rate(cursor - previous.getCursor(), seconds) : 0.0d;
+        return new DisruptorSnapshot(now, ringBuffer.getBufferSize(), cursor, minimumGatingSequence, publishRate, stages);
+    }
+
+    /**
+     * @return the most recent sample, taking one if none has been taken yet.
+     */
+    public DisruptorSnapshot getLastSnapshot()
+    {
+        final DisruptorSnapshot snapshot = lastSnapshot;
+        return null != snapshot ? snapshot : sample();
+    }
+
+    /**
+     * Start sampling periodically on a daemon thread.
+     *
+     * @param period between samples.
+     * @param unit   of the period.
+     * @throws IllegalStateException if already sampling.
+     */
+    public synchronized void start(final long period, final TimeUnit unit)
+    {
+        if (null != scheduler)
+        {
+            throw new IllegalStateException("DisruptorMonitor is already sampling");
+        }
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(DaemonThreadFactory.INSTANCE);
+        scheduler.scheduleAtFixedRate(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    sample();
+                }
+            }, 0L, period, unit);
+    }
+
+    /**
+     * Stop periodic sampling.
+     */
+    public synchronized void stop()
+    {
+        if (null != scheduler)
+        {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    private synchronized boolean isSampling()
+    {
+        return null != scheduler;
+    }
+
+    /**
+     * Register a {@link RingMXBean} named <code>com.lmax.disruptor:type=Disruptor,name=&lt;name&gt;</code> and a
+     * {@link StageMXBean} for each stage named <code>com.lmax.disruptor:type=Stage,disruptor=&lt;name&gt;,...</code>
+     * with the platform MBean server.  While periodic sampling is running the beans report the latest sample,
+     * otherwise each read takes a new reading whose rates are averaged since the last {@link #sample()}, which
+     * is first taken at registration.
+     *
+     * @param name to register the beans under.
+     * @throws JMException if the beans cannot be registered.
+     */
+    public synchronized void registerMBeans(final String name) throws JMException
+    {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final String quotedName = ObjectName.quote(name);
+
+        register(server, new ObjectName(DOMAIN + ":type=Disruptor,name=" + quotedName), new RingView());
+
+        final List<DisruptorSnapshot.Stage> stages = getLastSnapshot().getStages();
+        for (int i = 0; i < stages.size(); i++)
+        {
+            final ObjectName stageName = new ObjectName(
+                DOMAIN + ":type=Stage,disruptor=" + quotedName + ",index=" + i + ",name=" + ObjectName.quote(stages.get(i).getName()));
+            register(server, stageName, new StageView(i));
+        }
+    }
+
+    private void register(final MBeanServer server, final ObjectName objectName, final Object mbean) throws JMException
+    {
+        server.registerMBean(mbean, objectName);
+        registeredNames.add(objectName);
+    }
+
+    /**
+     * Unregister the beans registered by {@link #registerMBeans(String)}.
+     *
+     * @throws JMException if a bean cannot be unregistered.
+     */
+    public synchronized void unregisterMBeans() throws JMException
+    {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (ObjectName objectName : registeredNames)
+        {
+            if (server.isRegistered(objectName))
+            {
+                server.unregisterMBean(objectName);
+            }
+        }
+        registeredNames.clear();
+    }
+
+    private DisruptorSnapshot current()
+    {
+        return isSampling() ? getLastSnapshot() : measure();
+    }
+
+    private static double rate(final long delta, final double seconds)
+    {
+        return seconds > 0.0d ? delta / seconds : 0.0d;
+    }
+
+    private static String nameOf(final ConsumerInfo consumerInfo)
+    {
+        if (consumerInfo instanceof EventProcessorInfo)
+        {
+            final EventProcessorInfo<?> eventProcessorInfo = (EventProcessorInfo<?>) consumerInfo;
+            final Object consumer = null != eventProcessorInfo.getHandler() ?
+                eventProcessorInfo.getHandler() : eventProcessorInfo.getEventProcessor();
+            final String simpleName = consumer.getClass().getSimpleName();
+            return simpleName.length() > 0 ? simpleName : consumer.getClass().getName();
+        }
+
+        return "WorkerPool";
+    }
+
+    /**
+     * Ring buffer level view of a monitored disruptor.
+     */
+    public interface RingMXBean
+    {
+        long getCursor();
+
+        int getBufferSize();
+
+        long getMinimumGatingSequence();
+
+        long getOccupancy();
+
+        double getOccupancyRatio();
+
+        double getPublishRate();
+    }
+
+    /**
+     * View of one consumer stage of a monitored disruptor.
+     */
+    public interface StageMXBean
+    {
+        String getName();
+
+        long getSequence();
+
+        long getUpstreamSequence();
+
+        long getLag();
+
+        long getBacklog();
+
+        double getConsumeRate();
+
+        boolean isRunning();
+
+        boolean isEndOfChain();
+
+        boolean isHoldingGate();
+    }
+
+    private final class RingView implements RingMXBean
+    {
+        @Override
+        public long getCursor()
+        {
+            return current().getCursor();
+        }
+
+        @Override
+        public int getBufferSize()
+        {
+            return ringBuffer.getBufferSize();
+        }
+
+        @Override
+        public long getMinimumGatingSequence()
+        {
+            return current().getMinimumGatingSequence();
+        }
+
+        @Override
+        public long getOccupancy()
+        {
+            return current().getOccupancy();
+        }
+
+        @Override
+        public double getOccupancyRatio()
+        {
+            return current().getOccupancyRatio();
+        }
+
+        @Override
+        public double getPublishRate()
+        {
+            return current().getPublishRate();
+        }
+    }
+
+    private final class StageView implements StageMXBean
+    {
+        private final int index;
+
+        StageView(final int index)
+        {
+            this.index = index;
+        }
+
+        private DisruptorSnapshot.Stage stage()
+        {
+            return current().getStages().get(index);
+        }
+
+        @Override
+        public String getName()
+        {
+            return stage().getName();
+        }
+
+        @Override
+        public long getSequence()
+        {
+            return stage().getSequence();
+        }
+
+        @Override
+        public long getUpstreamSequence()
+        {
+            return stage().getUpstreamSequence();
+        }
+
+        @Override
+        public long getLag()
+        {
+            return stage().getLag();
+        }
+
+        @Override
+        public long getBacklog()
+        {
+            return stage().getBacklog();
+        }
+
+        @Override
+        public double getConsumeRate()
+        {
+            return stage().getConsumeRate();
+        }
+
+        @Override
+        public boolean isRunning()
+        {
+            return stage().isRunning();
+        }
+
+        @Override
+        public boolean isEndOfChain()
+        {
+            return stage().isEndOfChain();
+        }
+
+        @Override
+        public boolean isHoldingGate()
+        {
+            return stage().isHoldingGate();
+        }
+    }
+}
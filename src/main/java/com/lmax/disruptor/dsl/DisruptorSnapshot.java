@@ -0,0 +1,240 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable sample of the positions of a {@link Disruptor}'s ring buffer and consumer stages, taken by a
+ * {@link DisruptorMonitor}.  Rates are measured against the previous sample and are 0 for the first.
+ */
+public final class DisruptorSnapshot
+{
+    private final long timestampNanos;
+    private final int bufferSize;
+    private final long cursor;
+    private final long minimumGatingSequence;
+    private final double publishRate;
+    private final List<Stage> stages;
+
+    DisruptorSnapshot(
+        final long timestampNanos,
+        final int bufferSize,
+        final long cursor,
+        final long minimumGatingSequence,
+        final double publishRate,
+        final List<Stage> stages)
+    {
+        this.timestampNanos = timestampNanos;
+        this.bufferSize = bufferSize;
+        this.cursor = cursor;
+        this.minimumGatingSequence = minimumGatingSequence;
+        this.publishRate = publishRate;
+        this.stages = Collections.unmodifiableList(stages);
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} at which the sample was taken.
+     */
+    public long getTimestampNanos()
+    {
+        return timestampNanos;
+    }
+
+    public int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    /**
+     * @return the highest sequence claimed by the producers.
+     */
+    public long getCursor()
+    {
+        return cursor;
+    }
+
+    /**
+     * @return the sequence of the slowest consumer gating the producers.
+     */
+    public long getMinimumGatingSequence()
+    {
+        return minimumGatingSequence;
+    }
+
+    /**
+     * @return the number of slots between the cursor and the slowest gating consumer.
+     */
+    public long getOccupancy()
+    {
+        return Math.max(0L, cursor - minimumGatingSequence);
+    }
+
+    /**
+     * @return the occupancy as a fraction of the buffer size, from 0 to 1.
+     */
+    public double getOccupancyRatio()
+    {
+        return (double) getOccupancy() / bufferSize;
+    }
+
+    /**
+     * @return events claimed per second since the previous sample.
+     */
+    public double getPublishRate()
+    {
+        return publishRate;
+    }
+
+    /**
+     * @return the consumer stages, in the order they were added to the disruptor.
+     */
+    public List<Stage> getStages()
+    {
+        return stages;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "DisruptorSnapshot{" +
+            "cursor=" + cursor +
+            ", minimumGatingSequence=" + minimumGatingSequence +
+            ", occupancy=" + getOccupancy() +
+            ", publishRate=" + publishRate +
+            ", stages=" + stages +
+            '}';
+    }
+
+    /**
+     * Sample of one consumer stage: an event processor or a worker pool.
+     */
+    public static final class Stage
+    {
+        private final String name;
+        private final long sequence;
+        private final long upstreamSequence;
+        private final long cursor;
+        private final double consumeRate;
+        private final boolean running;
+        private final boolean endOfChain;
+        private final boolean holdingGate;
+
+        Stage(
+            final String name,
+            final long sequence,
+            final long upstreamSequence,
+            final long cursor,
+            final double consumeRate,
+            final boolean running,
+            final boolean endOfChain,
+            final boolean holdingGate)
+        {
+            this.name = name;
+            this.sequence = sequence;
+            this.upstreamSequence = upstreamSequence;
+            this.cursor = cursor;
+            this.consumeRate = consumeRate;
+            this.running = running;
+            this.endOfChain = endOfChain;
+            this.holdingGate = holdingGate;
+        }
+
+        /**
+         * @return the simple class name of the handler or processor, or WorkerPool.
+         */
+        public String getName()
+        {
+            return name;
+        }
+
+        /**
+         * @return the lowest sequence processed by the stage.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        /**
+         * @return the sequence the stage's barrier lets it process up to: the slowest stage it depends on, or
+         * the cursor if it depends on none.
+         */
+        public long getUpstreamSequence()
+        {
+            return upstreamSequence;
+        }
+
+        /**
+         * @return the number of events the stage could process now, what it adds to the backlog of the disruptor.
+         */
+        public long getLag()
+        {
+            return Math.max(0L, upstreamSequence - sequence);
+        }
+
+        /**
+         * @return the number of published events the stage has still to process.
+         */
+        public long getBacklog()
+        {
+            return Math.max(0L, cursor - sequence);
+        }
+
+        /**
+         * @return events processed per second since the previous sample.
+         */
+        public double getConsumeRate()
+        {
+            return consumeRate;
+        }
+
+        public boolean isRunning()
+        {
+            return running;
+        }
+
+        /**
+         * @return true if no other stage waits on this one, so its sequence gates the producers.
+         */
+        public boolean isEndOfChain()
+        {
+            return endOfChain;
+        }
+
+        /**
+         * @return true if this stage is at the minimum gating sequence and so is what the producers would wait on.
+         */
+        public boolean isHoldingGate()
+        {
+            return holdingGate;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Stage{" +
+                "name=" + name +
+                ", sequence=" + sequence +
+                ", lag=" + getLag() +
+                ", backlog=" + getBacklog() +
+                ", consumeRate=" + consumeRate +
+                ", holdingGate=" + holdingGate +
+                '}';
+        }
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+/**
+ * Extracts the shard key from the argument of a publish call, used by {@link ShardedDisruptor} to choose the
+ * ring buffer for an event.  Events whose arguments have the same key are published to the same ring buffer
+ * and so are handled in order by the same event processors.
+ *
+ * @param <A> type of the argument being published.
+ */
+public interface ShardKeyFunction<A>
+{
+    /**
+     * @param arg being published.
+     * @return the shard key of the argument.
+     */
+    long keyFor(A arg);
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.lmax.disruptor.EventFactory;
+import com.lmax.disruptor.EventTranslator;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.EventTranslatorTwoArg;
+import com.lmax.disruptor.TimeoutException;
+import com.lmax.disruptor.WaitStrategy;
+
+/**
+ * A set of independent {@link Disruptor}s, each with its own ring buffer and event processors, with events
+ * routed to a shard by key.
+ * <p>
+ * All events published with the same key go to the same shard, so they are handled in publication order by
+ * the same threads, while events for different keys are spread across the shards.  Producers publishing to
+ * different shards do not contend on a shared cursor, so throughput can scale with the number of shards.
+ * <p>
+ * Each shard is set up with the usual DSL, and needs its own handler instances:
+ * <pre><code>ShardedDisruptor&lt;MyEvent&gt; sharded = new ShardedDisruptor&lt;MyEvent&gt;(
+ *     MyEvent.FACTORY, 1024, threadFactory, ProducerType.MULTI, new BlockingWaitStrategy(), 4);
+ * for (int i = 0; i &lt; sharded.getShardCount(); i++)
+ * {
+ *     sharded.shard(i).handleEventsWith(new JournalHandler()).then(new MatchingHandler());
+ * }
+ * sharded.start();
+ *
+ * sharded.publishEvent(ORDER_INSTRUMENT, ORDER_TRANSLATOR, order);
+ * </code></pre>
+ *
+ * @param <T> the type of event used.
+ */
+public class ShardedDisruptor<T>
+{
+    private final Disruptor<T>[] shards;
+
+    /**
+     * Create a new ShardedDisruptor.
+     *
+     * @param eventFactory   the factory to create events in the ring buffers.
+     * @param ringBufferSize the size of each ring buffer, must be power of 2.
+     * @param threadFactory  a {@link ThreadFactory} to create threads for processors.
+     * @param producerType   the claim strategy to use for each ring buffer, {@link ProducerType#SINGLE} is only
+     *                       safe if each shard is published to from a single thread.
+     * @param waitStrategy   the wait strategy to use for each ring buffer.
+     * @param shardCount     the number of ring buffers.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedDisruptor(
+            final EventFactory<T> eventFactory,
+            final int ringBufferSize,
+            final ThreadFactory threadFactory,
+            final ProducerType producerType,
+            final WaitStrategy waitStrategy,
+            final int shardCount)
+    {
+        if (shardCount < 1)
+        {
+            throw new IllegalArgumentException("shardCount must not be less than 1");
+        }
+
+        shards = new Disruptor[shardCount];
+        for (int i = 0; i < shardCount; i++)
+        {
+            shards[i] = new Disruptor<T>(eventFactory, ringBufferSize, threadFactory, producerType, waitStrategy);
+        }
+    }
+
+    /**
+     * Get a shard to set up its event handlers, or to publish to it directly.
+     *
+     * @param index of the shard, from 0 to {@link #getShardCount()} - 1.
+     * @return the disruptor of the shard.
+     */
+    public Disruptor<T> shard(final int index)
+    {
+        return shards[index];
+    }
+
+    /**
+     * @return the number of shards.
+     */
+    public int getShardCount()
+    {
+        return shards.length;
+    }
+
+    /**
+     * Get the index of the shard that events with the given key are published to.  Keys are mixed before
+     * being mapped to a shard so that sequential keys, e.g. instrument ids, are spread evenly.
+     *
+     * @param key of an event.
+     * @return the index of the shard for the key.
+     */
+    public int shardFor(final long key)
+    {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+
+        return (int) ((h & Long.MAX_VALUE) % shards.length);
+    }
+
+    /**
+     * Publish an event to the shard for the key.
+     *
+     * @param key             of the event.
+     * @param eventTranslator the translator that will load data into the event.
+     */
+    public void publishEvent(final long key, final EventTranslator<T> eventTranslator)
+    {
+        shards[shardFor(key)].publishEvent(eventTranslator);
+    }
+
+    /**
+     * Publish an event to the shard for the key.
+     *
+     * @param key             of the event.
+     * @param eventTranslator the translator that will load data into the event.
+     * @param arg             A single argument to load into the event
+     */
+    public <A> void publishEvent(final long key, final EventTranslatorOneArg<T, A> eventTranslator, final A arg)
+    {
+        shards[shardFor(key)].publishEvent(eventTranslator, arg);
+    }
+
+    /**
+     * Publish an event to the shard for the key.
+     *
+     * @param key             of the event.
+     * @param eventTranslator the translator that will load data into the event.
+     * @param arg0            The first argument to load into the event
+     * @param arg1            The second argument to load into the event
+     */
+    public <A, B> void publishEvent(
+            final long key, final EventTranslatorTwoArg<T, A, B> eventTranslator, final A arg0, final B arg1)
+    {
+        shards[shardFor(key)].getRingBuffer().publishEvent(eventTranslator, arg0, arg1);
+    }
+
+    /**
+     * Publish an event to the shard for the key of its argument.
+     *
+     * @param keyFunction     to extract the key from the argument.
+     * @param eventTranslator the translator that will load data into the event.
+     * @param arg             A single argument to load into the event
+     */
+    public <A> void publishEvent(
+            final ShardKeyFunction<? super A> keyFunction, final EventTranslatorOneArg<T, A> eventTranslator, final A arg)
+    {
+        shards[shardFor(keyFunction.keyFor(arg))].publishEvent(eventTranslator, arg);
+    }
+
+    /**
+     * Starts the event processors of every shard.  This method must only be called once after all event
+     * processors have been added.
+     */
+    public void start()
+    {
+        for (final Disruptor<T> shard : shards)
+        {
+            shard.start();
+        }
+    }
+
+    /**
+     * Calls {@link com.lmax.disruptor.EventProcessor#halt()} on all of the event processors of every shard.
+     */
+    public void halt()
+    {
+        for (final Disruptor<T> shard : shards)
+        {
+            shard.halt();
+        }
+    }
+
+    /**
+     * Waits until all events currently in every shard have been processed and then halts the processors.
+     * It is critical that publishing has stopped before calling this method, otherwise it may never return.
+     *
+     * @see Disruptor#shutdown()
+     */
+    public void shutdown()
+    {
+        for (final Disruptor<T> shard : shards)
+        {
+            shard.shutdown();
+        }
+    }
+
+    /**
+     * Waits until all events currently in every shard have been processed and then halts the processors.
+     *
+     * @param timeout  the amount of time to wait for all events to be processed. <code>-1</code> will give an infinite timeout
+     * @param timeUnit the unit the timeOut is specified in
+     * @throws TimeoutException if the shards were not drained within the timeout.
+     * @see Disruptor#shutdown(long, TimeUnit)
+     */
+    public void shutdown(final long timeout, final TimeUnit timeUnit) throws TimeoutException
+    {
+        final long timeOutAt = System.currentTimeMillis() + timeUnit.toMillis(timeout);
+        for (final Disruptor<T> shard : shards)
+        {
+            if (timeout < 0)
+            {
+                shard.shutdown(-1, TimeUnit.MILLISECONDS);
+            }
+            else
+            {
+                shard.shutdown(Math.max(0, timeOutAt - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
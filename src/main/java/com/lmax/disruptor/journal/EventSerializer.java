@@ -0,0 +1,36 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Implementations write the content of an event into a journal record.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ * @see JournalWriter
+ */
+public interface EventSerializer<T>
+{
+    /**
+     * Write the event into the supplied buffer using relative puts.  The buffer is positioned at the start
+     * of the record payload and its limit is set to the maximum record size of the journal.
+     *
+     * @param event  to be written.
+     * @param buffer into which the event should be written.
+     */
+    void serialize(T event, ByteBuffer buffer);
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the records of a journal written by a {@link JournalWriter} in the order they were written.
+ * <p>
+ * Segments are mapped read only and record payloads are exposed as views over the mapping, no bytes are
+ * copied.
+ * <p>
+ * Segments created after the reader are picked up once it reaches the end of the last segment it knows of, so
+ * a reader can follow a journal that the same thread is still writing.
+ * <p>
+ * This class is not thread safe.
+ */
+public final class JournalReader
+{
+    private final File directory;
+    private File[] segments;
+
+    private int segmentIndex = -1;
+    private ByteBuffer segment;
+    private ByteBuffer payload;
+    private int position;
+    private int recordPosition;
+    private int recordLength;
+
+    /**
+     * @param directory holding the journal segments.
+     */
+    public JournalReader(final File directory)
+    {
+        this.directory = directory;
+        this.segments = JournalSegments.listSegments(directory);
+    }
+
+    /**
+     * Move to the next record in the journal.
+     *
+     * @return true if there is a record, false if the end of the journal has been reached.
+     * @throws IOException if a segment can not be mapped.
+     */
+    public boolean next() throws IOException
+    {
+        int length = null == segment ? JournalSegments.END_OF_DATA : JournalSegments.recordLength(segment, position);
+        if (segmentIndex == segments.length - 1 && (null == segment || length == JournalSegments.END_OF_SEGMENT))
+        {
+            // the writer may have rolled on to segments created since they were listed
+            segments = JournalSegments.listSegments(directory);
+        }
+        while (length <= 0 && segmentIndex < segments.length - 1)
+        {
+            segmentIndex++;
+            segment = JournalSegments.mapReadOnly(segments[segmentIndex]);
+            payload = newSegmentView();
+            position = 0;
+            length = JournalSegments.recordLength(segment, position);
+        }
+
+        if (length <= 0)
+        {
+            return false;
+        }
+
+        recordPosition = position;
+        recordLength = length;
+        position += length;
+        return true;
+    }
+
+    /**
+     * @return the sequence of the current record.
+     */
+    public long getSequence()
+    {
+        return segment.getLong(recordPosition + JournalSegments.SEQUENCE_OFFSET);
+    }
+
+    /**
+     * Get the payload of the current record.  The returned buffer is shared and is repositioned by each
+     * call, use {@link #getPayload(ByteBuffer)} to hold on to several payloads at once.
+     *
+     * @return a view positioned at the start of the payload with its limit at the end of the payload.
+     */
+    public ByteBuffer getPayload()
+    {
+        return getPayload(payload);
+    }
+
+    /**
+     * Position a view created with {@link #newSegmentView()} over the payload of the current record.
+     *
+     * @param view over the current segment.
+     * @return the view positioned at the start of the payload with its limit at the end of the payload.
+     */
+    public ByteBuffer getPayload(final ByteBuffer view)
+    {
+        // calls through Buffer, as the covariant overrides of ByteBuffer from Java 9 do not exist on Java 8
+        ((Buffer) view).limit(recordPosition + recordLength).position(recordPosition + JournalSegments.HEADER_LENGTH);
+        return view;
+    }
+
+    /**
+     * @return a new read only view over the whole of the current segment.
+     */
+    public ByteBuffer newSegmentView()
+    {
+        return segment.asReadOnlyBuffer().order(JournalSegments.BYTE_ORDER);
+    }
+
+    /**
+     * @return the index of the current segment, it changes when the reader moves on to the next segment
+     * and views over the previous segment are no longer valid for {@link #getPayload(ByteBuffer)}.
+     */
+    public int getSegmentIndex()
+    {
+        return segmentIndex;
+    }
+}
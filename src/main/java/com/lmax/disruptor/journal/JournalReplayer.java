@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+
+/**
+ * Republishes the records of a journal into a {@link RingBuffer} so that the ring, and every stage behind it,
+ * is rebuilt with the sequences the events had when they were journaled.
+ * <p>
+ * Records are published in batches with
+ * {@link RingBuffer#publishEvents(EventTranslatorOneArg, int, int, Object[])}, the translator is handed a read
+ * only view over the record payload in the mapped journal segment so no bytes are copied before translation.
+ * <p>
+ * Startup is done in two steps:
+ * <ol>
+ * <li>{@link #restoreCursor(Sequence...)} during initialisation, before any event processors are set up or
+ * started, moves the cursor to just before the first journaled sequence.</li>
+ * <li>{@link #replay()} once the event processors are running publishes the journaled events.</li>
+ * </ol>
+ * A {@link JournalingEventHandler} writing to the same journal, created with <code>replaying</code> set, will not
+ * journal the replayed events again.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class JournalReplayer<T>
+{
+    private final File directory;
+    private final RingBuffer<T> ringBuffer;
+    private final EventTranslatorOneArg<T, ByteBuffer> translator;
+    private final ByteBuffer[] batch;
+
+    /**
+     * @param directory  holding the journal segments.
+     * @param ringBuffer into which the journal is replayed.
+     * @param translator to rebuild an event from the payload of a record.
+     * @param batchSize  maximum number of records to publish at once, must not exceed the size of the ring buffer.
+     */
+    public JournalReplayer(
+        final File directory,
+        final RingBuffer<T> ringBuffer,
+        final EventTranslatorOneArg<T, ByteBuffer> translator,
+        final int batchSize)
+    {
+        if (batchSize < 1 || batchSize > ringBuffer.getBufferSize())
+        {
+            throw new IllegalArgumentException("batchSize must be between 1 and the ring buffer size");
+        }
+
+        this.directory = directory;
+        this.ringBuffer = ringBuffer;
+        this.translator = translator;
+        this.batch = new ByteBuffer[batchSize];
+    }
+
+    /**
+     * Move the cursor of the ring buffer to just before the first sequence in the journal, if it is not
+     * already past that point.  This is only safe during initialisation, gating sequences added to the ring
+     * buffer afterwards, e.g. by the DSL, start from the restored cursor.
+     *
+     * @param sequences already created that should also be moved to the restored cursor.
+     * @return the cursor of the ring buffer.
+     * @throws IOException if the journal can not be read.
+     */
+    @SuppressWarnings("deprecation")
+    public long restoreCursor(final Sequence... sequences) throws IOException
+    {
+        final JournalReader reader = new JournalReader(directory);
+        if (reader.next() && reader.getSequence() - 1 > ringBuffer.getCursor())
+        {
+            final long cursor = reader.getSequence() - 1;
+            ringBuffer.resetTo(cursor);
+            for (final Sequence sequence : sequences)
+            {
+                sequence.set(cursor);
+            }
+        }
+
+        return ringBuffer.getCursor();
+    }
+
+    /**
+     * Publish every journaled event after the current cursor of the ring buffer.
+     *
+     * @return the sequence of the last event published, or the cursor if there was nothing to replay.
+     * @throws IOException           if the journal can not be read.
+     * @throws IllegalStateException if the journal does not follow on from the cursor without a gap.
+     */
+    public long replay() throws IOException
+    {
+        final JournalReader reader = new JournalReader(directory);
+        long nextSequence = ringBuffer.getCursor() + 1;
+        int segmentIndex = -1;
+        int batchSize = 0;
+
+        while (reader.next())
+        {
+            final long sequence = reader.getSequence();
+            if (sequence < nextSequence)
+            {
+                continue;
+            }
+            if (sequence != nextSequence)
+            {
+                throw new IllegalStateException("Journal has a gap, expected " + nextSequence + " but found " + sequence);
+            }
+
+            if (segmentIndex != reader.getSegmentIndex())
+            {
+                // views in a pending batch must stay over the segment they came from
+                publish(batchSize);
+                batchSize = 0;
+                segmentIndex = reader.getSegmentIndex();
+                for (int i = 0; i < batch.length; i++)
+                {
+                    batch[i] = reader.newSegmentView();
+                }
+            }
+
+            reader.getPayload(batch[batchSize++]);
+            nextSequence++;
+
+            if (batchSize == batch.length)
+            {
+                publish(batchSize);
+                batchSize = 0;
+            }
+        }
+        publish(batchSize);
+
+        return nextSequence - 1;
+    }
+
+    private void publish(final int batchSize)
+    {
+        if (batchSize > 0)
+        {
+            ringBuffer.publishEvents(translator, 0, batchSize, batch);
+        }
+    }
+}
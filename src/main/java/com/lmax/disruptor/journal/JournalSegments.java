@@ -0,0 +1,170 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * Layout of journal segment files, shared by the writer and the reader.
+ * <p>
+ * A journal is a directory of fixed size segment files named after the sequence of the first record
+ * they hold.  Each record is laid out as:
+ * <pre>
+ * +------------------+-----------------+-----------------+
+ * | int recordLength | long sequence   | payload         |
+ * +------------------+-----------------+-----------------+
+ * </pre>
+ * where recordLength includes the header.  The length is written last, so a record that was only partly
+ * written before a crash reads back as {@link #END_OF_DATA}, i.e. the end of the journal.  A length of
+ * {@link #END_OF_SEGMENT} marks that the writer moved on to the next segment.
+ */
+final class JournalSegments
+{
+    static final String SUFFIX = ".journal";
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+    static final int LENGTH_OFFSET = 0;
+    static final int SEQUENCE_OFFSET = 4;
+    static final int HEADER_LENGTH = 12;
+    static final int END_OF_SEGMENT = -1;
+    static final int END_OF_DATA = 0;
+
+    private static final FileFilter SEGMENT_FILTER = new FileFilter()
+    {
+        @Override
+        public boolean accept(final File file)
+        {
+            return file.isFile() && file.getName().endsWith(SUFFIX);
+        }
+    };
+
+    private JournalSegments()
+    {
+    }
+
+    static File segmentFile(final File directory, final long firstSequence)
+    {
+        return new File(directory, String.format("%020d%s", firstSequence, SUFFIX));
+    }
+
+    /**
+     * @param directory of the journal.
+     * @return the segment files of the journal in the order they were written.
+     */
+    static File[] listSegments(final File directory)
+    {
+        final File[] segments = directory.listFiles(SEGMENT_FILTER);
+        if (null == segments)
+        {
+            return new File[0];
+        }
+
+        // names are zero padded so lexical order is sequence order
+        Arrays.sort(segments);
+        return segments;
+    }
+
+    /**
+     * Read the length of the record starting at position.
+     *
+     * @param segment  to read from.
+     * @param position of the record.
+     * @return the length of the record including the header, {@link #END_OF_SEGMENT} if the writer moved
+     * on to the next segment or {@link #END_OF_DATA} if there is no complete record at position.
+     */
+    static int recordLength(final ByteBuffer segment, final int position)
+    {
+        int length = END_OF_DATA;
+        if (segment.limit() - position >= HEADER_LENGTH)
+        {
+            length = segment.getInt(position + LENGTH_OFFSET);
+            if (length != END_OF_SEGMENT && (length < HEADER_LENGTH || length > segment.limit() - position))
+            {
+                length = END_OF_DATA;
+            }
+        }
+        else if (segment.limit() - position >= 4 && segment.getInt(position + LENGTH_OFFSET) == END_OF_SEGMENT)
+        {
+            length = END_OF_SEGMENT;
+        }
+
+        return length;
+    }
+
+    /**
+     * Create a new, zeroed, segment file of segmentSize bytes, replacing any file of the same name.
+     */
+    static MappedByteBuffer create(final File file, final int segmentSize) throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            raf.setLength(0);
+            raf.setLength(segmentSize);
+
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            buffer.order(BYTE_ORDER);
+            return buffer;
+        }
+        finally
+        {
+            // the mapping stays valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    /**
+     * Map an existing segment file for writing at the length it was written with, which need not be the
+     * segment size the journal is now opened with, so that no record is ever cut off.
+     */
+    static MappedByteBuffer mapExisting(final File file) throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try
+        {
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+            buffer.order(BYTE_ORDER);
+            return buffer;
+        }
+        finally
+        {
+            // the mapping stays valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    static MappedByteBuffer mapReadOnly(final File file) throws IOException
+    {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            final MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            buffer.order(BYTE_ORDER);
+            return buffer;
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+import com.lmax.disruptor.Sequencer;
+
+/**
+ * Appends records to a directory of fixed size memory-mapped segment files.
+ * <p>
+ * Appending a record is a copy into the mapped region, no system call is made.  {@link #flush()} forces the
+ * dirty pages of the current segment to the storage device and is intended to be called once per batch.
+ * <p>
+ * A writer created over a directory that already holds a journal carries on from the last complete record,
+ * see {@link #getLastSequence()}.
+ * <p>
+ * This class is not thread safe, it is intended to be owned by a single journaling thread.
+ */
+public final class JournalWriter
+{
+    private final File directory;
+    private final int segmentSize;
+    private final int maxRecordSize;
+    private final boolean forceOnFlush;
+
+    private MappedByteBuffer segment;
+    private ByteBuffer payload;
+    private long lastSequence = Sequencer.INITIAL_CURSOR_VALUE;
+    private boolean dirty = false;
+
+    /**
+     * Create a writer that will create segments in the given directory.
+     *
+     * @param directory     in which to create the segment files, it is created if it does not exist.
+     * @param segmentSize   size in bytes of each new segment file, the segments of an existing journal keep the
+     *                      size they were written with.
+     * @param maxRecordSize largest payload in bytes that a serializer may write for a single event.
+     * @param forceOnFlush  true if {@link #flush()} should force the segment to the storage device, false
+     *                      to leave write back of the mapped pages to the operating system.
+     * @throws IOException if the directory can not be created or an existing journal can not be opened.
+     */
+    public JournalWriter(final File directory, final int segmentSize, final int maxRecordSize, final boolean forceOnFlush)
+        throws IOException
+    {
+        if (maxRecordSize < 1)
+        {
+            throw new IllegalArgumentException("maxRecordSize must not be less than 1");
+        }
+        if (segmentSize < JournalSegments.HEADER_LENGTH + maxRecordSize + 4)
+        {
+            throw new IllegalArgumentException("segmentSize must be large enough to hold a record of maxRecordSize");
+        }
+        if (!directory.isDirectory() && !directory.mkdirs())
+        {
+            throw new IOException("Unable to create journal directory " + directory);
+        }
+
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxRecordSize = maxRecordSize;
+        this.forceOnFlush = forceOnFlush;
+
+        recover();
+    }
+
+    /**
+     * Append an event to the journal.
+     *
+     * @param sequence   of the event, used as the key of the record.
+     * @param event      to be written.
+     * @param serializer used to write the event into the record.
+     * @param <T>        the type of the event.
+     * @throws IOException if a new segment can not be created.
+     */
+    public <T> void append(final long sequence, final T event, final EventSerializer<? super T> serializer)
+        throws IOException
+    {
+        if (null == segment || segment.remaining() < JournalSegments.HEADER_LENGTH + maxRecordSize)
+        {
+            roll(sequence);
+        }
+
+        final int start = segment.position();
+        final int payloadStart = start + JournalSegments.HEADER_LENGTH;
+        // calls through Buffer, as the covariant overrides of ByteBuffer from Java 9 do not exist on Java 8
+        ((Buffer) payload).limit(payloadStart + maxRecordSize).position(payloadStart);
+        serializer.serialize(event, payload);
+
+        final int recordLength = payload.position() - start;
+        segment.putLong(start + JournalSegments.SEQUENCE_OFFSET, sequence);
+        segment.putInt(start + JournalSegments.LENGTH_OFFSET, recordLength);
+        ((Buffer) segment).position(start + recordLength);
+
+        lastSequence = sequence;
+        dirty = true;
+    }
+
+    /**
+     * Force the records appended since the last flush to the storage device, if this writer was created
+     * with forceOnFlush.
+     */
+    public void flush()
+    {
+        if (dirty && forceOnFlush)
+        {
+            segment.force();
+        }
+        dirty = false;
+    }
+
+    /**
+     * @return the sequence of the last record appended, or recovered from an existing journal, or
+     * {@link Sequencer#INITIAL_CURSOR_VALUE} if none.
+     */
+    public long getLastSequence()
+    {
+        return lastSequence;
+    }
+
+    /**
+     * @return the directory holding the segment files.
+     */
+    public File getDirectory()
+    {
+        return directory;
+    }
+
+    /**
+     * Flush any outstanding records and release the current segment.
+     */
+    public void close()
+    {
+        if (null != segment)
+        {
+            flush();
+            segment = null;
+            payload = null;
+        }
+    }
+
+    private void roll(final long firstSequence) throws IOException
+    {
+        if (null != segment)
+        {
+            if (segment.remaining() >= 4)
+            {
+                segment.putInt(segment.position(), JournalSegments.END_OF_SEGMENT);
+            }
+            dirty = true;
+            flush();
+        }
+
+        segment = JournalSegments.create(JournalSegments.segmentFile(directory, firstSequence), segmentSize);
+        payload = segment.duplicate().order(JournalSegments.BYTE_ORDER);
+    }
+
+    private void recover() throws IOException
+    {
+        final File[] segments = JournalSegments.listSegments(directory);
+        for (int i = segments.length - 1; i >= 0 && lastSequence == Sequencer.INITIAL_CURSOR_VALUE; i--)
+        {
+            final MappedByteBuffer existing = JournalSegments.mapExisting(segments[i]);
+
+            int position = 0;
+            int length;
+            while ((length = JournalSegments.recordLength(existing, position)) > 0)
+            {
+                lastSequence = existing.getLong(position + JournalSegments.SEQUENCE_OFFSET);
+                position += length;
+            }
+
+            if (lastSequence == Sequencer.INITIAL_CURSOR_VALUE)
+            {
+                // a segment rolled to before a crash, but never written to
+                if (!segments[i].delete())
+                {
+                    throw new IOException("Unable to delete empty journal segment " + segments[i]);
+                }
+            }
+            else if (length == JournalSegments.END_OF_DATA)
+            {
+                // clear what is left of a torn record so it can not be mistaken for one later
+                for (int j = position; j < existing.limit(); j++)
+                {
+                    existing.put(j, (byte) 0);
+                }
+                ((Buffer) existing).position(position);
+                segment = existing;
+                payload = segment.duplicate().order(JournalSegments.BYTE_ORDER);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.Sequencer;
+
+/**
+ * {@link EventHandler} that appends each event to a {@link JournalWriter} and flushes the journal at the end
+ * of each batch.
+ * <p>
+ * When run by a {@link BatchEventProcessor} the sequence of the processor is only advanced once a batch has
+ * been handled, so handlers set up to run after this one, e.g. with
+ * <code>disruptor.after(journalingHandler).handleEventsWith(...)</code>, only see events once they have been
+ * written and flushed to the journal.  The flush happens once per batch rather than once per event, so under
+ * load the cost of forcing the journal is amortised over many events.
+ * <p>
+ * When resuming on an existing journal, create the handler with <code>replaying</code> set and republish the
+ * journal with a {@link JournalReplayer}: events up to the last journaled sequence are then known to be replayed
+ * and are not written again.  Any other event with a sequence at or below the last journaled sequence, e.g. one
+ * published to a ring whose cursor was not restored, fails with an {@link IllegalStateException} rather than
+ * being dropped.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ */
+public final class JournalingEventHandler<T> implements EventHandler<T>, LifecycleAware
+{
+    private final JournalWriter writer;
+    private final EventSerializer<? super T> serializer;
+    private final long lastReplayedSequence;
+
+    /**
+     * Create a handler for a journal whose events will not be replayed, every event must follow on from the
+     * last journaled sequence.
+     *
+     * @param writer     to which events are appended.
+     * @param serializer used to write each event into the journal.
+     */
+    public JournalingEventHandler(final JournalWriter writer, final EventSerializer<? super T> serializer)
+    {
+        this(writer, serializer, false);
+    }
+
+    /**
+     * @param writer     to which events are appended.
+     * @param serializer used to write each event into the journal.
+     * @param replaying  true if the events already in the journal are republished by a {@link JournalReplayer}
+     *                   ahead of any new event.
+     */
+    public JournalingEventHandler(
+        final JournalWriter writer, final EventSerializer<? super T> serializer, final boolean replaying)
+    {
+        this.writer = writer;
+        this.serializer = serializer;
+        this.lastReplayedSequence = replaying ? writer.getLastSequence() : Sequencer.INITIAL_CURSOR_VALUE;
+    }
+
+    @Override
+    public void onEvent(final T event, final long sequence, final boolean endOfBatch) throws Exception
+    {
+        if (sequence > writer.getLastSequence())
+        {
+            writer.append(sequence, event, serializer);
+        }
+        else if (sequence > lastReplayedSequence)
+        {
+            throw new IllegalStateException(
+                "Sequence " + sequence + " is at or below the last journaled sequence " + writer.getLastSequence() +
+                " but is not being replayed, restore the cursor and replay the journal before publishing");
+        }
+        if (endOfBatch)
+        {
+            writer.flush();
+        }
+    }
+
+    @Override
+    public void onStart()
+    {
+    }
+
+    @Override
+    public void onShutdown()
+    {
+        writer.close();
+    }
+
+    /**
+     * @return the writer to which events are appended.
+     */
+    public JournalWriter getWriter()
+    {
+        return writer;
+    }
+}
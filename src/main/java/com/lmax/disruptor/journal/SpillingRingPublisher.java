@@ -0,0 +1,311 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+
+/**
+ * Publishes into a {@link RingBuffer} without ever waiting for capacity: once the ring holds more than a high-water
+ * mark of unconsumed events, further events are written to an overflow log of memory-mapped segments instead, and
+ * fed back into the ring in the order they were published as the consumers catch up.
+ * <p>
+ * Each event is passed to {@link #publish(Object)} as an argument that is either translated straight into the ring
+ * or serialized into the overflow log.  Spilled events are fed back, in batches rebuilt from read only views over
+ * the log by a second translator, at the start of each publish and by {@link #refill()}, which the producer should
+ * call when it has nothing else to publish.  An event is never published ahead of one spilled before it.  Once all
+ * spilled events are back in the ring the log is deleted, so it only grows for as long as the ring is full.
+ * <p>
+ * Spilled events are not forced to the storage device.  A publisher created over a directory that still holds an
+ * overflow log feeds it back before anything newer.  After {@link #close()} it starts from the first event that had
+ * not been fed back, after a crash it feeds back the whole log, including any events from it that had already been
+ * fed back.
+ * <p>
+ * This class is not thread safe, it is intended to be owned by a single producer thread.  Other producers may
+ * publish to the ring directly, but their events are not ordered with the spilled ones.
+ *
+ * @param <T> event implementation storing the data for sharing during exchange or parallel coordination of an event.
+ * @param <A> the type of the argument each event is published from.
+ */
+public final class SpillingRingPublisher<T, A>
+{
+    private static final String REFILLED_FILE_NAME = "refilled";
+
+    private final RingBuffer<T> ringBuffer;
+    private final EventTranslatorOneArg<T, A> translator;
+    private final EventSerializer<? super A> serializer;
+    private final EventTranslatorOneArg<T, ByteBuffer> replayTranslator;
+    private final File directory;
+    private final int segmentSize;
+    private final int maxRecordSize;
+    private final int headroom;
+    private final ByteBuffer[] batch;
+    private final int[] batchSegments;
+
+    private JournalWriter writer;
+    private JournalReader reader;
+    private long spilled = 0;
+    private long refilled = 0;
+    private int loaded = 0;
+    private boolean closed = false;
+
+    /**
+     * @param ringBuffer       to publish into.
+     * @param translator       to publish an event straight into the ring from its argument.
+     * @param serializer       to write the argument of an event into the overflow log.
+     * @param replayTranslator to rebuild an event from the payload of an overflow log record.
+     * @param directory        for the overflow log segments, it is created if it does not exist.
+     * @param segmentSize      size in bytes of each overflow log segment.
+     * @param maxRecordSize    largest payload in bytes that the serializer may write for a single event.
+     * @param highWaterMark    number of unconsumed events in the ring above which events are spilled, at most the
+     *                         size of the ring.
+     * @param batchSize        maximum number of spilled events to feed back at once, at most the high-water mark.
+     * @throws IOException if an existing overflow log can not be opened.
+     */
+    public SpillingRingPublisher(
+        final RingBuffer<T> ringBuffer,
+        final EventTranslatorOneArg<T, A> translator,
+        final EventSerializer<? super A> serializer,
+        final EventTranslatorOneArg<T, ByteBuffer> replayTranslator,
+        final File directory,
+        final int segmentSize,
+        final int maxRecordSize,
+        final int highWaterMark,
+        final int batchSize)
+        throws IOException
+    {
+        if (highWaterMark < 1 || highWaterMark > ringBuffer.getBufferSize())
+        {
+            throw new IllegalArgumentException("highWaterMark must be between 1 and the ring buffer size");
+        }
+        if (batchSize < 1 || batchSize > highWaterMark)
+        {
+            throw new IllegalArgumentException("batchSize must be between 1 and the high-water mark");
+        }
+
+        this.ringBuffer = ringBuffer;
+        this.translator = translator;
+        this.serializer = serializer;
+        this.replayTranslator = replayTranslator;
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxRecordSize = maxRecordSize;
+        this.headroom = ringBuffer.getBufferSize() - highWaterMark;
+        this.batch = new ByteBuffer[batchSize];
+        this.batchSegments = new int[batchSize];
+
+        if (JournalSegments.listSegments(directory).length != 0)
+        {
+            open();
+            spilled = writer.getLastSequence() + 1;
+            skipRefilled();
+        }
+    }
+
+    /**
+     * Feed back what spilled events the ring has room for, then publish the event into the ring if nothing is left
+     * in the overflow log and the ring is below the high-water mark, otherwise append it to the overflow log.
+     *
+     * @param arg to publish the event from.
+     * @return true if the event was published into the ring, false if it was spilled.
+     * @throws IOException if the overflow log can not be written or read.
+     * @throws IllegalStateException if this publisher has been closed.
+     */
+    public boolean publish(final A arg) throws IOException
+    {
+        if (refill() == 0 && ringBuffer.hasAvailableCapacity(headroom + 1) && ringBuffer.tryPublishEvent(translator, arg))
+        {
+            return true;
+        }
+
+        spill(arg);
+        return false;
+    }
+
+    /**
+     * Feed spilled events back into the ring, in order, for as long as it is below the high-water mark.
+     *
+     * @return the number of events still in the overflow log.
+     * @throws IOException if the overflow log can not be read or deleted.
+     * @throws IllegalStateException if this publisher has been closed.
+     */
+    public long refill() throws IOException
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("Publisher has been closed");
+        }
+
+        while (refilled < spilled)
+        {
+            if (loaded < batch.length && refilled + loaded < spilled)
+            {
+                loaded = load(loaded, (int) Math.min(spilled - refilled, batch.length));
+            }
+            if (!ringBuffer.hasAvailableCapacity(headroom + loaded) ||
+                !ringBuffer.tryPublishEvents(replayTranslator, 0, loaded, batch))
+            {
+                break;
+            }
+            refilled += loaded;
+            loaded = 0;
+        }
+
+        if (null != writer && refilled == spilled)
+        {
+            reset();
+        }
+
+        return spilled - refilled;
+    }
+
+    /**
+     * @return the number of events in the overflow log that have not been fed back into the ring.
+     */
+    public long getSpilledCount()
+    {
+        return spilled - refilled;
+    }
+
+    /**
+     * Release the overflow log, leaving any events still in it to be fed back by a publisher created over the same
+     * directory.  The number of events already fed back is saved alongside the log so that they are not fed back
+     * again.
+     *
+     * @throws IOException if the number of events fed back can not be saved.
+     */
+    public void close() throws IOException
+    {
+        if (!closed && null != writer)
+        {
+            final RandomAccessFile file = new RandomAccessFile(new File(directory, REFILLED_FILE_NAME), "rw");
+            try
+            {
+                file.setLength(0);
+                file.writeLong(refilled);
+            }
+            finally
+            {
+                file.close();
+            }
+            release();
+        }
+        closed = true;
+    }
+
+    private void spill(final A arg) throws IOException
+    {
+        if (null == writer)
+        {
+            open();
+        }
+
+        writer.append(spilled, arg, serializer);
+        spilled++;
+    }
+
+    /**
+     * Read the payloads of the next records into the batch from index from up to index to, each view is reused
+     * until the reader moves on to a segment other than the one it was created over.
+     */
+    private int load(final int from, final int to) throws IOException
+    {
+        for (int i = from; i < to; i++)
+        {
+            if (!reader.next())
+            {
+                throw new IllegalStateException("Overflow log ended with " + (spilled - refilled - i) + " events unread");
+            }
+            if (batchSegments[i] != reader.getSegmentIndex())
+            {
+                batch[i] = reader.newSegmentView();
+                batchSegments[i] = reader.getSegmentIndex();
+            }
+            reader.getPayload(batch[i]);
+        }
+
+        return to;
+    }
+
+    /**
+     * Move the reader past the events a closed publisher had already fed back.
+     */
+    private void skipRefilled() throws IOException
+    {
+        final File file = new File(directory, REFILLED_FILE_NAME);
+        if (!file.isFile())
+        {
+            return;
+        }
+
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            refilled = raf.length() < 8 ? 0 : raf.readLong();
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        for (long i = 0; i < refilled; i++)
+        {
+            if (!reader.next())
+            {
+                throw new IllegalStateException("Overflow log ended before the " + refilled + " events fed back");
+            }
+        }
+    }
+
+    private void open() throws IOException
+    {
+        writer = new JournalWriter(directory, segmentSize, maxRecordSize, false);
+        reader = new JournalReader(directory);
+        Arrays.fill(batchSegments, -1);
+    }
+
+    private void release()
+    {
+        writer.close();
+        writer = null;
+        reader = null;
+    }
+
+    private void reset() throws IOException
+    {
+        release();
+        spilled = 0;
+        refilled = 0;
+        final File refilledFile = new File(directory, REFILLED_FILE_NAME);
+        if (refilledFile.exists() && !refilledFile.delete())
+        {
+            throw new IOException("Unable to delete " + refilledFile);
+        }
+        for (final File segment : JournalSegments.listSegments(directory))
+        {
+            if (!segment.delete())
+            {
+                throw new IOException("Unable to delete overflow log segment " + segment);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import com.lmax.disruptor.Cursored;
+import com.lmax.disruptor.EventPoller;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.SequenceBarrier;
+import com.lmax.disruptor.Sequencer;
+
+/**
+ * Sequencing shared by the ring buffers of primitive values.
+ */
+abstract class AbstractPrimitiveRingBuffer implements Cursored
+{
+    protected final Sequencer sequencer;
+    protected final int bufferSize;
+    private final int indexMask;
+
+    AbstractPrimitiveRingBuffer(final Sequencer sequencer)
+    {
+        this.sequencer = sequencer;
+        this.bufferSize = sequencer.getBufferSize();
+        this.indexMask = bufferSize - 1;
+    }
+
+    protected final int index(final long sequence)
+    {
+        return (int) sequence & indexMask;
+    }
+
+    protected final void checkBatch(final int arrayLength, final int batchStartsAt, final int batchSize)
+    {
+        if (batchStartsAt < 0 || batchSize < 1)
+        {
+            throw new IllegalArgumentException(
+                "batchStartsAt must not be negative and batchSize must be positive but got: batchStartsAt " +
+                    batchStartsAt + " and batchSize " + batchSize);
+        }
+        else if (batchSize > bufferSize)
+        {
+            throw new IllegalArgumentException(
+                "The ring buffer cannot accommodate " + batchSize + " it only has space for " + bufferSize + " entities.");
+        }
+        else if (batchStartsAt + batchSize > arrayLength)
+        {
+            throw new IllegalArgumentException(
+                "A batchSize of: " + batchSize + " with batchStartsAt of: " + batchStartsAt +
+                    " will overrun the available number of values: " + (arrayLength - batchStartsAt));
+        }
+    }
+
+    /**
+     * Copy the values of a range of sequences out of the ring with at most two array copies, one either side of
+     * the point where the range wraps.
+     */
+    protected final void copyRange(final Object buffer, final long lo, final long hi, final Object sink, final int offset)
+    {
+        final int first = index(lo);
+        final int length = (int) (hi - lo + 1);
+        final int beforeWrap = Math.min(length, bufferSize - first);
+        System.arraycopy(buffer, first, sink, offset, beforeWrap);
+        if (length > beforeWrap)
+        {
+            System.arraycopy(buffer, 0, sink, offset + beforeWrap, length - beforeWrap);
+        }
+    }
+
+    /**
+     * Copy the values available to the poller straight out of the backing array, then advance its sequence past
+     * them with a single write.
+     */
+    protected final int drainTo(
+        final EventPoller<?> poller, final Object buffer, final Object sink, final int offset, final int maxValues)
+    {
+        final long nextSequence = poller.getSequence().get() + 1;
+        final long availableSequence = poller.getAvailableSequence(maxValues);
+        if (nextSequence > availableSequence)
+        {
+            return 0;
+        }
+
+        copyRange(buffer, nextSequence, availableSequence, sink, offset);
+        poller.advanceTo(availableSequence);
+
+        return (int) (availableSequence - nextSequence + 1);
+    }
+
+    /**
+     * @return the number of values the ring can hold.
+     */
+    public final int getBufferSize()
+    {
+        return bufferSize;
+    }
+
+    @Override
+    public final long getCursor()
+    {
+        return sequencer.getCursor();
+    }
+
+    /**
+     * @return the number of slots that can be published to before the slowest gating sequence is reached.
+     */
+    public final long remainingCapacity()
+    {
+        return sequencer.remainingCapacity();
+    }
+
+    /**
+     * @param sequence to check.
+     * @return true if the value at sequence has been published.
+     */
+    public final boolean isPublished(final long sequence)
+    {
+        return sequencer.isAvailable(sequence);
+    }
+
+    /**
+     * @param gatingSequences the sequences to add.
+     * @see Sequencer#addGatingSequences(Sequence...)
+     */
+    public final void addGatingSequences(final Sequence... gatingSequences)
+    {
+        sequencer.addGatingSequences(gatingSequences);
+    }
+
+    /**
+     * @param sequence to be removed.
+     * @return <tt>true</tt> if this sequence was found, <tt>false</tt> otherwise.
+     * @see Sequencer#removeGatingSequence(Sequence)
+     */
+    public final boolean removeGatingSequence(final Sequence sequence)
+    {
+        return sequencer.removeGatingSequence(sequence);
+    }
+
+    /**
+     * @return The minimum gating sequence or the cursor sequence if no sequences have been added.
+     * @see Sequencer#getMinimumSequence()
+     */
+    public final long getMinimumGatingSequence()
+    {
+        return sequencer.getMinimumSequence();
+    }
+
+    /**
+     * @param sequencesToTrack the additional sequences to track
+     * @return A sequence barrier that will track the specified sequences.
+     * @see Sequencer#newBarrier(Sequence...)
+     */
+    public final SequenceBarrier newBarrier(final Sequence... sequencesToTrack)
+    {
+        return sequencer.newBarrier(sequencesToTrack);
+    }
+}
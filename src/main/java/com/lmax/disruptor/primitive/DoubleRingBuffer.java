@@ -0,0 +1,267 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.DataProvider;
+import com.lmax.disruptor.EventPoller;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.MultiProducerSequencer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleProducerSequencer;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * Ring buffer of <code>double</code> values held in a single <code>double[]</code>, with no per-slot objects.
+ * <p>
+ * Values are consumed by a {@link BatchEventProcessor} created with {@link #createProcessor(DoubleHandler, Sequence...)}
+ * or by an {@link EventPoller} created with {@link #newPoller(Sequence...)}, both of which read through a
+ * {@link DoubleEvent} flyweight.  The sequence of each processor or poller must be added as a gating sequence.
+ */
+public final class DoubleRingBuffer extends AbstractPrimitiveRingBuffer
+{
+    private final double[] buffer;
+
+    /**
+     * @param sequencer sequencer to handle the ordering of values moving through the ring.
+     */
+    public DoubleRingBuffer(final Sequencer sequencer)
+    {
+        super(sequencer);
+        this.buffer = new double[bufferSize];
+    }
+
+    /**
+     * Create a new multiple producer DoubleRingBuffer.
+     *
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     * @see MultiProducerSequencer
+     */
+    public static DoubleRingBuffer createMultiProducer(final int bufferSize, final WaitStrategy waitStrategy)
+    {
+        return new DoubleRingBuffer(new MultiProducerSequencer(bufferSize, waitStrategy));
+    }
+
+    /**
+     * Create a new single producer DoubleRingBuffer.
+     *
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     * @see SingleProducerSequencer
+     */
+    public static DoubleRingBuffer createSingleProducer(final int bufferSize, final WaitStrategy waitStrategy)
+    {
+        return new DoubleRingBuffer(new SingleProducerSequencer(bufferSize, waitStrategy));
+    }
+
+    /**
+     * Create a new DoubleRingBuffer with the specified producer type (SINGLE or MULTI)
+     *
+     * @param producerType producer type to use {@link ProducerType}.
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     */
+    public static DoubleRingBuffer create(
+        final ProducerType producerType,
+        final int bufferSize,
+        final WaitStrategy waitStrategy)
+    {
+        switch (producerType)
+        {
+            case SINGLE:
+                return createSingleProducer(bufferSize, waitStrategy);
+            case MULTI:
+                return createMultiProducer(bufferSize, waitStrategy);
+            default:
+                throw new IllegalStateException(producerType.toString());
+        }
+    }
+
+    /**
+     * Publish a value, waiting for capacity if the ring is full.
+     *
+     * @param value to publish.
+     */
+    public void put(final double value)
+    {
+        final long sequence = sequencer.next();
+        buffer[index(sequence)] = value;
+        sequencer.publish(sequence);
+    }
+
+    /**
+     * Publish a value if there is capacity in the ring.
+     *
+     * @param value to publish.
+     * @return true if the value was published, false if the ring was full.
+     */
+    public boolean tryPut(final double value)
+    {
+        try
+        {
+            final long sequence = sequencer.tryNext();
+            buffer[index(sequence)] = value;
+            sequencer.publish(sequence);
+            return true;
+        }
+        catch (InsufficientCapacityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Publish a batch of values with a single claim and publish, waiting for capacity if the ring is full.
+     *
+     * @param values        holding the batch.
+     * @param batchStartsAt index of the first value of the batch.
+     * @param batchSize     number of values in the batch, must not exceed the size of the ring.
+     */
+    public void put(final double[] values, final int batchStartsAt, final int batchSize)
+    {
+        checkBatch(values.length, batchStartsAt, batchSize);
+
+        final long hi = sequencer.next(batchSize);
+        final long lo = hi - (batchSize - 1);
+        for (int i = 0; i < batchSize; i++)
+        {
+            buffer[index(lo + i)] = values[batchStartsAt + i];
+        }
+        sequencer.publish(lo, hi);
+    }
+
+    /**
+     * Read the value at a sequence.  Only valid for sequences that have been published and not yet
+     * wrapped by the producers.
+     *
+     * @param sequence to read.
+     * @return the value at sequence.
+     */
+    public double get(final long sequence)
+    {
+        return buffer[index(sequence)];
+    }
+
+    /**
+     * Create a {@link BatchEventProcessor} passing each value to the handler.  If the handler also implements
+     * {@link com.lmax.disruptor.LifecycleAware}, {@link com.lmax.disruptor.BatchStartAware} or
+     * {@link com.lmax.disruptor.TimeoutHandler} it is notified as an {@link com.lmax.disruptor.EventHandler}
+     * would be.
+     *
+     * @param handler          to receive the values.
+     * @param sequencesToTrack sequences of upstream processors to gate on, none to follow the cursor.
+     * @return a new processor, its sequence is not yet gating this ring.
+     */
+    public BatchEventProcessor<DoubleEvent> createProcessor(final DoubleHandler handler, final Sequence... sequencesToTrack)
+    {
+        return new BatchEventProcessor<DoubleEvent>(
+            new DoubleEvent(),
+            sequencer.newBarrier(sequencesToTrack),
+            new PrimitiveHandlerAdapter<DoubleEvent>(handler)
+            {
+                @Override
+                public void onEvent(final DoubleEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    handler.onEvent(event.get(), sequence, endOfBatch);
+                }
+            });
+    }
+
+    /**
+     * Creates an event poller that reads values through a newly created flyweight.
+     *
+     * @param gatingSequences to be gated on.
+     * @return A poller that will gate on this ring buffer and the supplied sequences.
+     */
+    public EventPoller<DoubleEvent> newPoller(final Sequence... gatingSequences)
+    {
+        return sequencer.newPoller(new DoubleEvent(), gatingSequences);
+    }
+
+    /**
+     * Copy at most maxValues available values into the sink, with at most two array copies, then advance the
+     * sequence of the poller past them with a single write.
+     *
+     * @param poller    created by {@link #newPoller(Sequence...)} on this ring.
+     * @param sink      to copy the values into.
+     * @param offset    index in the sink of the first value to copy.
+     * @param maxValues the most values to take, also limited by the space left in the sink.
+     * @return the number of values copied, 0 if none were available.
+     */
+    public int drainTo(final EventPoller<DoubleEvent> poller, final double[] sink, final int offset, final int maxValues)
+    {
+        return drainTo(poller, buffer, sink, offset, Math.min(maxValues, sink.length - offset));
+    }
+
+    /**
+     * Callback interface to be implemented for processing values as they become available in the ring.
+     */
+    public interface DoubleHandler
+    {
+        /**
+         * Called when a publisher has published a value to the ring.
+         *
+         * @param value      published to the ring.
+         * @param sequence   of the value being processed.
+         * @param endOfBatch flag to indicate if this is the last value in a batch from the ring.
+         * @throws Exception if the handler would like the exception handled further up the chain.
+         */
+        void onEvent(double value, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    /**
+     * Flyweight over a slot of the ring, bound to a sequence by {@link #get(long)}.  Not thread safe, each
+     * consumer has its own.
+     */
+    public final class DoubleEvent implements DataProvider<DoubleEvent>
+    {
+        private long sequence;
+
+        private DoubleEvent()
+        {
+        }
+
+        /**
+         * @return the value at the bound sequence.
+         */
+        public double get()
+        {
+            return buffer[index(sequence)];
+        }
+
+        /**
+         * @return the bound sequence.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        @Override
+        public DoubleEvent get(final long sequence)
+        {
+            this.sequence = sequence;
+            return this;
+        }
+    }
+}
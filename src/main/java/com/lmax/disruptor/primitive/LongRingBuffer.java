@@ -0,0 +1,267 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.DataProvider;
+import com.lmax.disruptor.EventPoller;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.MultiProducerSequencer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.SingleProducerSequencer;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * Ring buffer of <code>long</code> values held in a single <code>long[]</code>, with no per-slot objects.
+ * <p>
+ * Values are consumed by a {@link BatchEventProcessor} created with {@link #createProcessor(LongHandler, Sequence...)}
+ * or by an {@link EventPoller} created with {@link #newPoller(Sequence...)}, both of which read through a
+ * {@link LongEvent} flyweight.  The sequence of each processor or poller must be added as a gating sequence.
+ */
+public final class LongRingBuffer extends AbstractPrimitiveRingBuffer
+{
+    private final long[] buffer;
+
+    /**
+     * @param sequencer sequencer to handle the ordering of values moving through the ring.
+     */
+    public LongRingBuffer(final Sequencer sequencer)
+    {
+        super(sequencer);
+        this.buffer = new long[bufferSize];
+    }
+
+    /**
+     * Create a new multiple producer LongRingBuffer.
+     *
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     * @see MultiProducerSequencer
+     */
+    public static LongRingBuffer createMultiProducer(final int bufferSize, final WaitStrategy waitStrategy)
+    {
+        return new LongRingBuffer(new MultiProducerSequencer(bufferSize, waitStrategy));
+    }
+
+    /**
+     * Create a new single producer LongRingBuffer.
+     *
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     * @see SingleProducerSequencer
+     */
+    public static LongRingBuffer createSingleProducer(final int bufferSize, final WaitStrategy waitStrategy)
+    {
+        return new LongRingBuffer(new SingleProducerSequencer(bufferSize, waitStrategy));
+    }
+
+    /**
+     * Create a new LongRingBuffer with the specified producer type (SINGLE or MULTI)
+     *
+     * @param producerType producer type to use {@link ProducerType}.
+     * @param bufferSize   number of values in the ring, must be a power of 2.
+     * @param waitStrategy used to determine how to wait for new values to become available.
+     * @return a new ring buffer.
+     */
+    public static LongRingBuffer create(
+        final ProducerType producerType,
+        final int bufferSize,
+        final WaitStrategy waitStrategy)
+    {
+        switch (producerType)
+        {
+            case SINGLE:
+                return createSingleProducer(bufferSize, waitStrategy);
+            case MULTI:
+                return createMultiProducer(bufferSize, waitStrategy);
+            default:
+                throw new IllegalStateException(producerType.toString());
+        }
+    }
+
+    /**
+     * Publish a value, waiting for capacity if the ring is full.
+     *
+     * @param value to publish.
+     */
+    public void put(final long value)
+    {
+        final long sequence = sequencer.next();
+        buffer[index(sequence)] = value;
+        sequencer.publish(sequence);
+    }
+
+    /**
+     * Publish a value if there is capacity in the ring.
+     *
+     * @param value to publish.
+     * @return true if the value was published, false if the ring was full.
+     */
+    public boolean tryPut(final long value)
+    {
+        try
+        {
+            final long sequence = sequencer.tryNext();
+            buffer[index(sequence)] = value;
+            sequencer.publish(sequence);
+            return true;
+        }
+        catch (InsufficientCapacityException e)
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Publish a batch of values with a single claim and publish, waiting for capacity if the ring is full.
+     *
+     * @param values        holding the batch.
+     * @param batchStartsAt index of the first value of the batch.
+     * @param batchSize     number of values in the batch, must not exceed the size of the ring.
+     */
+    public void put(final long[] values, final int batchStartsAt, final int batchSize)
+    {
+        checkBatch(values.length, batchStartsAt, batchSize);
+
+        final long hi = sequencer.next(batchSize);
+        final long lo = hi - (batchSize - 1);
+        for (int i = 0; i < batchSize; i++)
+        {
+            buffer[index(lo + i)] = values[batchStartsAt + i];
+        }
+        sequencer.publish(lo, hi);
+    }
+
+    /**
+     * Read the value at a sequence.  Only valid for sequences that have been published and not yet
+     * wrapped by the producers.
+     *
+     * @param sequence to read.
+     * @return the value at sequence.
+     */
+    public long get(final long sequence)
+    {
+        return buffer[index(sequence)];
+    }
+
+    /**
+     * Create a {@link BatchEventProcessor} passing each value to the handler.  If the handler also implements
+     * {@link com.lmax.disruptor.LifecycleAware}, {@link com.lmax.disruptor.BatchStartAware} or
+     * {@link com.lmax.disruptor.TimeoutHandler} it is notified as an {@link com.lmax.disruptor.EventHandler}
+     * would be.
+     *
+     * @param handler          to receive the values.
+     * @param sequencesToTrack sequences of upstream processors to gate on, none to follow the cursor.
+     * @return a new processor, its sequence is not yet gating this ring.
+     */
+    public BatchEventProcessor<LongEvent> createProcessor(final LongHandler handler, final Sequence... sequencesToTrack)
+    {
+        return new BatchEventProcessor<LongEvent>(
+            new LongEvent(),
+            sequencer.newBarrier(sequencesToTrack),
+            new PrimitiveHandlerAdapter<LongEvent>(handler)
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    handler.onEvent(event.get(), sequence, endOfBatch);
+                }
+            });
+    }
+
+    /**
+     * Creates an event poller that reads values through a newly created flyweight.
+     *
+     * @param gatingSequences to be gated on.
+     * @return A poller that will gate on this ring buffer and the supplied sequences.
+     */
+    public EventPoller<LongEvent> newPoller(final Sequence... gatingSequences)
+    {
+        return sequencer.newPoller(new LongEvent(), gatingSequences);
+    }
+
+    /**
+     * Copy at most maxValues available values into the sink, with at most two array copies, then advance the
+     * sequence of the poller past them with a single write.
+     *
+     * @param poller    created by {@link #newPoller(Sequence...)} on this ring.
+     * @param sink      to copy the values into.
+     * @param offset    index in the sink of the first value to copy.
+     * @param maxValues the most values to take, also limited by the space left in the sink.
+     * @return the number of values copied, 0 if none were available.
+     */
+    public int drainTo(final EventPoller<LongEvent> poller, final long[] sink, final int offset, final int maxValues)
+    {
+        return drainTo(poller, buffer, sink, offset, Math.min(maxValues, sink.length - offset));
+    }
+
+    /**
+     * Callback interface to be implemented for processing values as they become available in the ring.
+     */
+    public interface LongHandler
+    {
+        /**
+         * Called when a publisher has published a value to the ring.
+         *
+         * @param value      published to the ring.
+         * @param sequence   of the value being processed.
+         * @param endOfBatch flag to indicate if this is the last value in a batch from the ring.
+         * @throws Exception if the handler would like the exception handled further up the chain.
+         */
+        void onEvent(long value, long sequence, boolean endOfBatch) throws Exception;
+    }
+
+    /**
+     * Flyweight over a slot of the ring, bound to a sequence by {@link #get(long)}.  Not thread safe, each
+     * consumer has its own.
+     */
+    public final class LongEvent implements DataProvider<LongEvent>
+    {
+        private long sequence;
+
+        private LongEvent()
+        {
+        }
+
+        /**
+         * @return the value at the bound sequence.
+         */
+        public long get()
+        {
+            return buffer[index(sequence)];
+        }
+
+        /**
+         * @return the bound sequence.
+         */
+        public long getSequence()
+        {
+            return sequence;
+        }
+
+        @Override
+        public LongEvent get(final long sequence)
+        {
+            this.sequence = sequence;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import com.lmax.disruptor.BatchStartAware;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.TimeoutHandler;
+
+/**
+ * Adapts a primitive value handler to an {@link EventHandler} over a flyweight event, passing on the
+ * optional callbacks that the {@link com.lmax.disruptor.BatchEventProcessor} looks for on its handler.
+ *
+ * @param <E> the flyweight event type.
+ */
+abstract class PrimitiveHandlerAdapter<E> implements EventHandler<E>, LifecycleAware, BatchStartAware, TimeoutHandler
+{
+    private final LifecycleAware lifecycleAware;
+    private final BatchStartAware batchStartAware;
+    private final TimeoutHandler timeoutHandler;
+
+    PrimitiveHandlerAdapter(final Object handler)
+    {
+        lifecycleAware = handler instanceof LifecycleAware ? (LifecycleAware) handler : null;
+        batchStartAware = handler instanceof BatchStartAware ? (BatchStartAware) handler : null;
+        timeoutHandler = handler instanceof TimeoutHandler ? (TimeoutHandler) handler : null;
+    }
+
+    @Override
+    public void onStart()
+    {
+        if (null != lifecycleAware)
+        {
+            lifecycleAware.onStart();
+        }
+    }
+
+    @Override
+    public void onShutdown()
+    {
+        if (null != lifecycleAware)
+        {
+            lifecycleAware.onShutdown();
+        }
+    }
+
+    @Override
+    public void onBatchStart(final long batchSize)
+    {
+        if (null != batchStartAware)
+        {
+            batchStartAware.onBatchStart(batchSize);
+        }
+    }
+
+    @Override
+    public void onTimeout(final long sequence) throws Exception
+    {
+        if (null != timeoutHandler)
+        {
+            timeoutHandler.onTimeout(sequence);
+        }
+    }
+}
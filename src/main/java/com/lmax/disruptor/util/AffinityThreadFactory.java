@@ -0,0 +1,269 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ThreadFactory pinning each thread it creates to its own CPU, so the scheduler cannot move busy spinning
+ * {@link com.lmax.disruptor.EventProcessor}s between cores or sockets.  CPUs are handed out in order, to the threads
+ * created by {@link #newThread(Runnable)} and to threads calling {@link #pinCurrentThread()}, such as producers, so a
+ * producer pinned just before or after its consumers is given a CPU next to theirs.
+ * <p>
+ * Threads are pinned with <code>taskset</code> on Linux when they start.  A thread that could not be pinned, or
+ * that was created once all the CPUs were handed out, runs unpinned.  {@link #getPlacements()} reports what was done
+ * for each thread.
+ */
+public final class AffinityThreadFactory implements ThreadFactory
+{
+    private final ThreadFactory delegate;
+    private final List<Integer> cpus;
+    private final Pinner pinner;
+    private final List<Placement> placements = new ArrayList<Placement>();
+    private int nextCpu = 0;
+
+    /**
+     * Pin threads to the given CPUs, in order.
+     *
+     * @param delegate creating the threads, e.g. {@link DaemonThreadFactory#INSTANCE}.
+     * @param cpus     ids of the CPUs to hand out.
+     */
+    public AffinityThreadFactory(final ThreadFactory delegate, final int... cpus)
+    {
+        this(delegate, toList(cpus), new TasksetPinner());
+    }
+
+    AffinityThreadFactory(final ThreadFactory delegate, final List<Integer> cpus, final Pinner pinner)
+    {
+        this.delegate = delegate;
+        this.cpus = new ArrayList<Integer>(cpus);
+        this.pinner = pinner;
+    }
+
+    /**
+     * Pin threads to CPUs chosen from the topology of this host by {@link CpuTopology#selectCpusForPinning()}.
+     *
+     * @param delegate creating the threads, e.g. {@link DaemonThreadFactory#INSTANCE}.
+     * @return the factory.
+     * @throws IOException if the topology of the host cannot be read.
+     */
+    public static AffinityThreadFactory fromTopology(final ThreadFactory delegate) throws IOException
+    {
+        return new AffinityThreadFactory(delegate, CpuTopology.read().selectCpusForPinning(), new TasksetPinner());
+    }
+
+    @Override
+    public Thread newThread(final Runnable r)
+    {
+        final int cpu = takeCpu();
+        return delegate.newThread(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                pin(cpu);
+                r.run();
+            }
+        });
+    }
+
+    /**
+     * Pin the calling thread to the next CPU.
+     *
+     * @return the placement of the calling thread.
+     */
+    public Placement pinCurrentThread()
+    {
+        return pin(takeCpu());
+    }
+
+    /**
+     * @return what was done for each thread pinned so far, in the order they started.
+     */
+    public List<Placement> getPlacements()
+    {
+        synchronized (placements)
+        {
+            return Collections.unmodifiableList(new ArrayList<Placement>(placements));
+        }
+    }
+
+    private synchronized int takeCpu()
+    {
+        return nextCpu < cpus.size() ? cpus.get(nextCpu++) : -1;
+    }
+
+    private Placement pin(final int cpu)
+    {
+        final String threadName = Thread.currentThread().getName();
+        Placement placement;
+        if (cpu < 0)
+        {
+            placement = new Placement(threadName, cpu, false, "no CPU left to pin to");
+        }
+        else
+        {
+            try
+            {
+                pinner.pinCurrentThread(cpu);
+                placement = new Placement(threadName, cpu, true, "pinned");
+            }
+            catch (final Exception e)
+            {
+                placement = new Placement(threadName, cpu, false, String.valueOf(e.getMessage()));
+            }
+        }
+
+        synchronized (placements)
+        {
+            placements.add(placement);
+        }
+
+        return placement;
+    }
+
+    private static List<Integer> toList(final int[] cpus)
+    {
+        final Integer[] boxed = new Integer[cpus.length];
+        for (int i = 0; i < cpus.length; i++)
+        {
+            boxed[i] = cpus[i];
+        }
+
+        return Arrays.asList(boxed);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AffinityThreadFactory{" +
+            "cpus=" + cpus +
+            ", placements=" + getPlacements() +
+            '}';
+    }
+
+    /**
+     * What was done for one thread.
+     */
+    public static final class Placement
+    {
+        private final String threadName;
+        private final int cpu;
+        private final boolean pinned;
+        private final String detail;
+
+        Placement(final String threadName, final int cpu, final boolean pinned, final String detail)
+        {
+            this.threadName = threadName;
+            this.cpu = cpu;
+            this.pinned = pinned;
+            this.detail = detail;
+        }
+
+        public String getThreadName()
+        {
+            return threadName;
+        }
+
+        /**
+         * @return the CPU the thread was to be pinned to, -1 if none was left.
+         */
+        public int getCpu()
+        {
+            return cpu;
+        }
+
+        /**
+         * @return true if the thread is pinned to the CPU.
+         */
+        public boolean isPinned()
+        {
+            return pinned;
+        }
+
+        /**
+         * @return why the thread was not pinned, or "pinned".
+         */
+        public String getDetail()
+        {
+            return detail;
+        }
+
+        @Override
+        public String toString()
+        {
+            return threadName + "->cpu" + cpu + (pinned ? "" : " (" + detail + ")");
+        }
+    }
+
+    /**
+     * Sets the affinity of the calling thread.
+     */
+    interface Pinner
+    {
+        void pinCurrentThread(int cpu) throws Exception;
+    }
+
+    /**
+     * Pins the calling thread by running <code>taskset</code> on its Linux thread id, found by resolving
+     * <code>/proc/thread-self</code>.
+     */
+    static final class TasksetPinner implements Pinner
+    {
+        @Override
+        public void pinCurrentThread(final int cpu) throws Exception
+        {
+            final String taskPath = new File("/proc/thread-self").getCanonicalPath();
+            final String tid = taskPath.substring(taskPath.lastIndexOf('/') + 1);
+
+            final Process process = new ProcessBuilder("taskset", "-p", "-c", Integer.toString(cpu), tid)
+                .redirectErrorStream(true)
+                .start();
+            final String output = drain(process.getInputStream());
+            if (process.waitFor() != 0)
+            {
+                throw new IOException("taskset failed for thread " + tid + ": " + output.trim().replace('\n', ' '));
+            }
+        }
+
+        private static String drain(final InputStream input) throws IOException
+        {
+            final StringBuilder output = new StringBuilder();
+            try
+            {
+                final byte[] buffer = new byte[256];
+                int read;
+                while ((read = input.read(buffer)) != -1)
+                {
+                    output.append(new String(buffer, 0, read, "US-ASCII"));
+                }
+            }
+            finally
+            {
+                input.close();
+            }
+
+            return output.toString();
+        }
+    }
+}
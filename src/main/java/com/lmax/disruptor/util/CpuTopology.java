@@ -0,0 +1,254 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Layout of the logical CPUs of a Linux host as described under <code>/sys/devices/system/cpu</code>: which are
+ * online, which are isolated from the scheduler and which physical core and package each belongs to.
+ */
+public final class CpuTopology
+{
+    /**
+     * Where Linux describes the CPUs.
+     */
+    public static final File SYS_CPU_DIRECTORY = new File("/sys/devices/system/cpu");
+
+    private final List<Cpu> cpus;
+    private final Set<Integer> isolated;
+
+    private CpuTopology(final List<Cpu> cpus, final Set<Integer> isolated)
+    {
+        this.cpus = Collections.unmodifiableList(cpus);
+        this.isolated = Collections.unmodifiableSet(isolated);
+    }
+
+    /**
+     * Read the topology of this host.
+     *
+     * @return the topology.
+     * @throws IOException if the topology cannot be read, e.g. when not running on Linux.
+     */
+    public static CpuTopology read() throws IOException
+    {
+        return read(SYS_CPU_DIRECTORY);
+    }
+
+    /**
+     * Read the topology from a directory laid out as <code>/sys/devices/system/cpu</code>.
+     *
+     * @param cpuDirectory holding <code>online</code>, optionally <code>isolated</code>, and a
+     *                     <code>cpuN/topology</code> directory per CPU.
+     * @return the topology.
+     * @throws IOException if the topology cannot be read.
+     */
+    public static CpuTopology read(final File cpuDirectory) throws IOException
+    {
+        final List<Cpu> cpus = new ArrayList<Cpu>();
+        for (final int id : parseCpuList(readLine(new File(cpuDirectory, "online"))))
+        {
+            final File topology = new File(cpuDirectory, "cpu" + id + File.separator + "topology");
+            cpus.add(new Cpu(
+                id,
+                Integer.parseInt(readLine(new File(topology, "core_id"))),
+                Integer.parseInt(readLine(new File(topology, "physical_package_id")))));
+        }
+
+        final File isolatedFile = new File(cpuDirectory, "isolated");
+        final Set<Integer> isolated = new HashSet<Integer>();
+        if (isolatedFile.exists())
+        {
+            isolated.addAll(parseCpuList(readLine(isolatedFile)));
+        }
+
+        return new CpuTopology(cpus, isolated);
+    }
+
+    /**
+     * @return the online CPUs, in order of id.
+     */
+    public List<Cpu> getCpus()
+    {
+        return cpus;
+    }
+
+    /**
+     * @return ids of the CPUs isolated from the scheduler, e.g. with the <code>isolcpus</code> boot parameter.
+     */
+    public Set<Integer> getIsolatedCpus()
+    {
+        return isolated;
+    }
+
+    /**
+     * Choose CPUs to pin busy threads to, at most one per physical core so no two share the execution units of a
+     * core, ordered by package then core so that threads given consecutive CPUs share a package and its last level
+     * cache.  Isolated CPUs are used if there are any, otherwise all online CPUs except those of the first core, which
+     * is left to the operating system.
+     *
+     * @return ids of the CPUs in the order they should be handed out.
+     */
+    public List<Integer> selectCpusForPinning()
+    {
+        final List<Cpu> candidates = new ArrayList<Cpu>();
+        for (final Cpu cpu : cpus)
+        {
+            if (isolated.isEmpty() ? !cpu.isSiblingOf(cpus.get(0)) : isolated.contains(cpu.getId()))
+            {
+                candidates.add(cpu);
+            }
+        }
+
+        Collections.sort(candidates, new Comparator<Cpu>()
+        {
+            @Override
+            public int compare(final Cpu a, final Cpu b)
+            {
+                if (a.getPackageId() != b.getPackageId())
+                {
+                    return a.getPackageId() < b.getPackageId() ? -1 : 1;
+                }
+                if (a.getCoreId() != b.getCoreId())
+                {
+                    return a.getCoreId() < b.getCoreId() ? -1 : 1;
+                }
+                return a.getId() < b.getId() ? -1 : (a.getId() == b.getId() ? 0 : 1);
+            }
+        });
+
+        final List<Integer> selected = new ArrayList<Integer>();
+        Cpu previous = null;
+        for (final Cpu cpu : candidates)
+        {
+            if (null == previous || !cpu.isSiblingOf(previous))
+            {
+                selected.add(cpu.getId());
+            }
+            previous = cpu;
+        }
+
+        return selected;
+    }
+
+    /**
+     * Parse a list of CPUs in the kernel's format, e.g. <code>0-3,8,10-11</code>.
+     *
+     * @param list to parse, may be empty.
+     * @return the ids of the CPUs in the order listed.
+     */
+    static List<Integer> parseCpuList(final String list)
+    {
+        final List<Integer> ids = new ArrayList<Integer>();
+        for (final String range : list.trim().split(","))
+        {
+            if (range.length() == 0)
+            {
+                continue;
+            }
+
+            final int dash = range.indexOf('-');
+            final int first = Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+            final int last = dash < 0 ? first : Integer.parseInt(range.substring(dash + 1));
+            for (int id = first; id <= last; id++)
+            {
+                ids.add(id);
+            }
+        }
+
+        return ids;
+    }
+
+    private static String readLine(final File file) throws IOException
+    {
+        final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "US-ASCII"));
+        try
+        {
+            final String line = reader.readLine();
+            return null == line ? "" : line.trim();
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "CpuTopology{" +
+            "cpus=" + cpus +
+            ", isolated=" + isolated +
+            '}';
+    }
+
+    /**
+     * A logical CPU, one hardware thread of a physical core.
+     */
+    public static final class Cpu
+    {
+        private final int id;
+        private final int coreId;
+        private final int packageId;
+
+        Cpu(final int id, final int coreId, final int packageId)
+        {
+            this.id = id;
+            this.coreId = coreId;
+            this.packageId = packageId;
+        }
+
+        public int getId()
+        {
+            return id;
+        }
+
+        public int getCoreId()
+        {
+            return coreId;
+        }
+
+        public int getPackageId()
+        {
+            return packageId;
+        }
+
+        /**
+         * @param other CPU to compare with.
+         * @return true if both are hardware threads of the same physical core.
+         */
+        public boolean isSiblingOf(final Cpu other)
+        {
+            return coreId == other.coreId && packageId == other.packageId;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "cpu" + id + "{core=" + coreId + ", package=" + packageId + '}';
+        }
+    }
+}
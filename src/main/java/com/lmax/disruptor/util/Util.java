@@ -90,39 +90,16 @@ public final class Util
         return sequences;
     }
 
-    private static final Unsafe THE_UNSAFE;
-
-    static
-    {
-        try
-        {
-            final PrivilegedExceptionAction<Unsafe> action = new PrivilegedExceptionAction<Unsafe>()
-            {
-                public Unsafe run() throws Exception
-                {
-                    Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
-                    theUnsafe.setAccessible(true);
-                    return (Unsafe) theUnsafe.get(null); //通过静态方法获取Unsafe实例
-                }
-            };
-
-            THE_UNSAFE = AccessController.doPrivileged(action);
-        }
-        catch (Exception e)
-        {
-            throw new RuntimeException("Unable to load unsafe", e);
-        }
-    }
-
     /**
      * Get a handle on the Unsafe instance, used for accessing low-level concurrency
-     * and memory constructs.
+     * and memory constructs.  It is only looked up on first use, so on Java 9 and later,
+     * where the Disruptor is built to use VarHandles instead, it is never loaded.
      *
      * @return The Unsafe
      */
     public static Unsafe getUnsafe()
     {
-        return THE_UNSAFE;
+        return UnsafeHolder.THE_UNSAFE;
     }
 
     /**
@@ -145,7 +122,6 @@ public final class Util
         }
     }
 
-
     /**
      * Calculate the log base 2 of the supplied integer, essentially reports the location
      * of the highest bit.
@@ -162,4 +138,31 @@ public final class Util
         }
         return r;
     }
+
+    private static final class UnsafeHolder
+    {
+        private static final Unsafe THE_UNSAFE;
+
+        static
+        {
+            try
+            {
+                final PrivilegedExceptionAction<Unsafe> action = new PrivilegedExceptionAction<Unsafe>()
+                {
+                    public Unsafe run() throws Exception
+                    {
+                        Field theUnsafe = Unsafe.class.getDeclaredField("theUnsafe");
+                        theUnsafe.setAccessible(true);
+                        return (Unsafe) theUnsafe.get(null); //通过静态方法获取Unsafe实例
+                    }
+                };
+
+                THE_UNSAFE = AccessController.doPrivileged(action);
+            }
+            catch (Exception e)
+            {
+                throw new RuntimeException("Unable to load unsafe", e);
+            }
+        }
+    }
 }
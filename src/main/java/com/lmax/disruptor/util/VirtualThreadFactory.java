@@ -0,0 +1,97 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * ThreadFactory creating virtual threads, for running many {@link com.lmax.disruptor.EventProcessor}s that are mostly
+ * idle without an operating system thread each.  Best used with the
+ * {@link com.lmax.disruptor.ParkingWaitStrategy} and {@link com.lmax.disruptor.ParkingProducerWaitStrategy}, which
+ * release the carrier thread while waiting, rather than strategies that spin.
+ * <p>
+ * Virtual threads need Java 21 or later, and are reached by reflection so this class builds and loads on older
+ * versions, check {@link #isSupported()} before creating one.
+ */
+public final class VirtualThreadFactory implements ThreadFactory
+{
+    private static final Method OF_VIRTUAL = findOfVirtual();
+
+    private final ThreadFactory delegate;
+
+    /**
+     * Create a factory for virtual threads named with the prefix followed by a counter starting at 0.
+     *
+     * @param namePrefix of the names of the threads.
+     * @throws UnsupportedOperationException if this runtime does not support virtual threads.
+     */
+    public VirtualThreadFactory(final String namePrefix)
+    {
+        if (null == OF_VIRTUAL)
+        {
+            throw new UnsupportedOperationException("Virtual threads need Java 21 or later");
+        }
+
+        try
+        {
+            final Object builder = OF_VIRTUAL.invoke(null);
+            final Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            final Object namedBuilder = builderClass.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            delegate = (ThreadFactory) builderClass.getMethod("factory").invoke(namedBuilder);
+        }
+        catch (final Exception e)
+        {
+            throw new IllegalStateException("Unable to create virtual thread factory", e);
+        }
+    }
+
+    /**
+     * Create a factory for virtual threads named "disruptor-" followed by a counter starting at 0.
+     *
+     * @throws UnsupportedOperationException if this runtime does not support virtual threads.
+     */
+    public VirtualThreadFactory()
+    {
+        this("disruptor-");
+    }
+
+    /**
+     * @return true if this runtime supports virtual threads.
+     */
+    public static boolean isSupported()
+    {
+        return null != OF_VIRTUAL;
+    }
+
+    @Override
+    public Thread newThread(final Runnable r)
+    {
+        return delegate.newThread(r);
+    }
+
+    private static Method findOfVirtual()
+    {
+        try
+        {
+            return Thread.class.getMethod("ofVirtual");
+        }
+        catch (final NoSuchMethodException e)
+        {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * Ordered and volatile access to the elements of primitive arrays, used by the sequencers to track the availability
+ * of slots.  This is the Java 9 version, which uses VarHandles with release and acquire modes in place of
+ * <code>sun.misc.Unsafe</code> ordered and volatile accesses.
+ */
+final class ArrayAccess
+{
+    private static final VarHandle INT_ARRAY = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final VarHandle LONG_ARRAY = MethodHandles.arrayElementVarHandle(long[].class);
+
+    private ArrayAccess()
+    {
+    }
+
+    /**
+     * Store an element with release semantics, no earlier store is reordered after it.
+     */
+    static void putOrderedInt(final int[] array, final int index, final int value)
+    {
+        INT_ARRAY.setRelease(array, index, value);
+    }
+
+    /**
+     * Load an element with acquire semantics, no later load is reordered before it.
+     */
+    static int getIntAcquire(final int[] array, final int index)
+    {
+        return (int) INT_ARRAY.getAcquire(array, index);
+    }
+
+    /**
+     * Store an element with release semantics, no earlier store is reordered after it.
+     */
+    static void putOrderedLong(final long[] array, final int index, final long value)
+    {
+        LONG_ARRAY.setRelease(array, index, value);
+    }
+
+    /**
+     * Keep loads before this point from being reordered with loads after it.
+     */
+    static void loadLoadFence()
+    {
+        VarHandle.loadLoadFence();
+    }
+
+    /**
+     * Keep stores before this point from being reordered with stores after it.
+     */
+    static void storeStoreFence()
+    {
+        VarHandle.storeStoreFence();
+    }
+
+    /**
+     * Load an element with acquire semantics, no later load is reordered before it.
+     */
+    static long getLongAcquire(final long[] array, final int index)
+    {
+        return (long) LONG_ARRAY.getAcquire(array, index);
+    }
+
+    /**
+     * Atomically set an element to value if it holds expected, with volatile semantics.
+     */
+    static boolean compareAndSetLong(final long[] array, final int index, final long expected, final long value)
+    {
+        return LONG_ARRAY.compareAndSet(array, index, expected, value);
+    }
+}
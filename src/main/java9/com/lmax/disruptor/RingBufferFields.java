@@ -0,0 +1,71 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+abstract class RingBufferPad
+{
+    protected long p1, p2, p3, p4, p5, p6, p7;
+}
+
+/**
+ * Fields of the {@link RingBuffer}, this is the Java 9 version which reads entries with plain array access
+ * instead of <code>sun.misc.Unsafe</code>.  The entries are padded by 128 bytes either side, enough for
+ * compressed references and more for full width ones.
+ */
+abstract class RingBufferFields<E> extends RingBufferPad
+{
+    private static final int BUFFER_PAD = 32;
+
+    private final long indexMask;
+    private final Object[] entries;
+    protected final int bufferSize;
+    protected final Sequencer sequencer;
+
+    RingBufferFields(
+        EventFactory<E> eventFactory,
+        Sequencer sequencer)
+    {
+        this.sequencer = sequencer;
+        this.bufferSize = sequencer.getBufferSize();
+
+        if (bufferSize < 1)
+        {
+            throw new IllegalArgumentException("bufferSize must not be less than 1");
+        }
+        if (Integer.bitCount(bufferSize) != 1)
+        {
+            throw new IllegalArgumentException("bufferSize must be a power of 2");
+        }
+
+        this.indexMask = bufferSize - 1;
+        this.entries = new Object[sequencer.getBufferSize() + 2 * BUFFER_PAD];
+        fill(eventFactory);
+    }
+
+    private void fill(EventFactory<E> eventFactory)
+    {
+        for (int i = 0; i < bufferSize; i++)
+        {
+            entries[BUFFER_PAD + i] = eventFactory.newInstance();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    protected final E elementAt(long sequence)
+    {
+        return (E) entries[BUFFER_PAD + (int) (sequence & indexMask)];
+    }
+}
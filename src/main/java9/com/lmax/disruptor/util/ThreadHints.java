@@ -0,0 +1,39 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+/**
+ * Hints to the runtime about what the calling thread is doing.
+ */
+public final class ThreadHints
+{
+    private ThreadHints()
+    {
+    }
+
+    /**
+     * Indicates that the caller is momentarily unable to progress, until the occurrence of one or more actions on
+     * the part of other activities.  By calling this method within each iteration of a spin-wait loop construct,
+     * the calling thread indicates to the runtime that it is busy-waiting.  The runtime may take action to improve
+     * the performance of invoking spin-wait loop constructs.
+     * <p>
+     * This is the Java 9 version, which calls {@link Thread#onSpinWait()}.
+     */
+    public static void onSpinWait()
+    {
+        Thread.onSpinWait();
+    }
+}
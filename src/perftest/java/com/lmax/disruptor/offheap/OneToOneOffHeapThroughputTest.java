@@ -1,6 +1,5 @@
 package com.lmax.disruptor.offheap;
 
-import java.nio.ByteBuffer;
 import java.util.Random;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executor;
@@ -9,11 +8,8 @@ import java.util.concurrent.locks.LockSupport;
 
 import com.lmax.disruptor.AbstractPerfTestDisruptor;
 import com.lmax.disruptor.BatchEventProcessor;
-import com.lmax.disruptor.DataProvider;
 import com.lmax.disruptor.EventHandler;
-import com.lmax.disruptor.Sequence;
-import com.lmax.disruptor.SequenceBarrier;
-import com.lmax.disruptor.Sequencer;
+import com.lmax.disruptor.OffHeapRingBuffer;
 import com.lmax.disruptor.SingleProducerSequencer;
 import com.lmax.disruptor.WaitStrategy;
 import com.lmax.disruptor.YieldingWaitStrategy;
@@ -30,8 +26,9 @@ public class OneToOneOffHeapThroughputTest extends AbstractPerfTestDisruptor
     private final OffHeapRingBuffer buffer =
         new OffHeapRingBuffer(new SingleProducerSequencer(BUFFER_SIZE, waitStrategy), BLOCK_SIZE);
     private final ByteBufferHandler handler = new ByteBufferHandler();
-    private final BatchEventProcessor<ByteBuffer> processor =
-        new BatchEventProcessor<ByteBuffer>(buffer, buffer.newBarrier(), handler);
+    private final BatchEventProcessor<OffHeapRingBuffer.Slot> processor =
+        new BatchEventProcessor<OffHeapRingBuffer.Slot>(buffer.newSlot(), buffer.newBarrier(), handler);
+    private final OffHeapRingBuffer.Slot producerSlot = buffer.newSlot();
 
     {
         buffer.addGatingSequences(processor.getSequence());
@@ -63,10 +60,19 @@ public class OneToOneOffHeapThroughputTest extends AbstractPerfTestDisruptor
         long start = System.currentTimeMillis();
 
         final OffHeapRingBuffer rb = buffer;
+        final OffHeapRingBuffer.Slot slot = producerSlot;
 
         for (long i = 0; i < ITERATIONS; i++)
         {
-            rb.put(data);
+            long next = rb.next();
+            try
+            {
+                slot.get(next).putBytes(0, data, 0, BLOCK_SIZE);
+            }
+            finally
+            {
+                rb.publish(next);
+            }
         }
 
         latch.await();
@@ -90,18 +96,18 @@ public class OneToOneOffHeapThroughputTest extends AbstractPerfTestDisruptor
         new OneToOneOffHeapThroughputTest().testImplementations();
     }
 
-    public static class ByteBufferHandler implements EventHandler<ByteBuffer>
+    public static class ByteBufferHandler implements EventHandler<OffHeapRingBuffer.Slot>
     {
         private long total = 0;
         private long expectedCount;
         private CountDownLatch latch;
 
         @Override
-        public void onEvent(ByteBuffer event, long sequence, boolean endOfBatch) throws Exception
+        public void onEvent(OffHeapRingBuffer.Slot event, long sequence, boolean endOfBatch) throws Exception
         {
             for (int i = 0; i < BLOCK_SIZE; i += 8)
             {
-                total += event.getLong();
+                total += event.getLong(i);
             }
 
             if (--expectedCount == 0)
@@ -121,70 +127,4 @@ public class OneToOneOffHeapThroughputTest extends AbstractPerfTestDisruptor
             this.expectedCount = expectedCount;
         }
     }
-
-    public static class OffHeapRingBuffer implements DataProvider<ByteBuffer>
-    {
-        private final Sequencer sequencer;
-        private final int entrySize;
-        private final ByteBuffer buffer;
-        private final int mask;
-
-        private final ThreadLocal<ByteBuffer> perThreadBuffer = new ThreadLocal<ByteBuffer>()
-        {
-            @Override
-            protected ByteBuffer initialValue()
-            {
-                return buffer.duplicate();
-            }
-        };
-
-        public OffHeapRingBuffer(Sequencer sequencer, int entrySize)
-        {
-            this.sequencer = sequencer;
-            this.entrySize = entrySize;
-            this.mask = sequencer.getBufferSize() - 1;
-            buffer = ByteBuffer.allocateDirect(sequencer.getBufferSize() * entrySize);
-        }
-
-        public void addGatingSequences(Sequence sequence)
-        {
-            sequencer.addGatingSequences(sequence);
-        }
-
-        public SequenceBarrier newBarrier()
-        {
-            return sequencer.newBarrier();
-        }
-
-        @Override
-        public ByteBuffer get(long sequence)
-        {
-            int index = index(sequence);
-            int position = index * entrySize;
-            int limit = position + entrySize;
-
-            ByteBuffer byteBuffer = perThreadBuffer.get();
-            byteBuffer.position(position).limit(limit);
-
-            return byteBuffer;
-        }
-
-        public void put(byte[] data)
-        {
-            long next = sequencer.next();
-            try
-            {
-                get(next).put(data);
-            }
-            finally
-            {
-                sequencer.publish(next);
-            }
-        }
-
-        private int index(long next)
-        {
-            return (int) (next & mask);
-        }
-    }
 }
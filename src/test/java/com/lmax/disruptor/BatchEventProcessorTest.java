@@ -187,4 +187,88 @@ public final class BatchEventProcessorTest
 
         assertEquals(Arrays.asList(3L, 2L, 1L), batchSizes);
     }
+
+    @Test
+    public void shouldBoundBatchesToMaxBatchSize()
+        throws Exception
+    {
+        final BatchSizeRecordingHandler handler = new BatchSizeRecordingHandler(7);
+        final BatchEventProcessor<StubEvent> batchEventProcessor =
+            new BatchEventProcessor<StubEvent>(ringBuffer, sequenceBarrier, handler);
+        batchEventProcessor.setMaxBatchSize(3);
+
+        runUntilHandled(batchEventProcessor, handler, 7);
+
+        assertEquals(Arrays.asList(3L, 3L, 1L), handler.batchSizes);
+        assertEquals(Arrays.asList(2L, 5L, 6L), handler.endOfBatchSequences);
+    }
+
+    @Test
+    public void shouldGrowBatchesWithDownstreamLag()
+        throws Exception
+    {
+        final BatchSizeRecordingHandler handler = new BatchSizeRecordingHandler(10);
+        final BatchEventProcessor<StubEvent> batchEventProcessor =
+            new BatchEventProcessor<StubEvent>(ringBuffer, sequenceBarrier, handler);
+        batchEventProcessor.setAdaptiveBatchSize(2, 8, new Sequence());
+
+        runUntilHandled(batchEventProcessor, handler, 10);
+
+        assertEquals(Arrays.asList(2L, 2L, 4L, 2L), handler.batchSizes);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectMinBatchSizeGreaterThanMax()
+    {
+        new BatchEventProcessor<StubEvent>(ringBuffer, sequenceBarrier, new BatchSizeRecordingHandler(0))
+            .setAdaptiveBatchSize(4, 2);
+    }
+
+    private void runUntilHandled(
+        final BatchEventProcessor<StubEvent> batchEventProcessor,
+        final BatchSizeRecordingHandler handler,
+        final int events)
+        throws Exception
+    {
+        for (int i = 0; i < events; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        Thread thread = new Thread(batchEventProcessor);
+        thread.start();
+        assertTrue(handler.latch.await(2, TimeUnit.SECONDS));
+
+        batchEventProcessor.halt();
+        thread.join();
+    }
+
+    private static final class BatchSizeRecordingHandler
+        implements EventHandler<StubEvent>, BatchStartAware
+    {
+        private final List<Long> batchSizes = new ArrayList<Long>();
+        private final List<Long> endOfBatchSequences = new ArrayList<Long>();
+        private final CountDownLatch latch;
+
+        private BatchSizeRecordingHandler(final int events)
+        {
+            latch = new CountDownLatch(events);
+        }
+
+        @Override
+        public void onBatchStart(long batchSize)
+        {
+            batchSizes.add(batchSize);
+        }
+
+        @Override
+        public void onEvent(StubEvent event, long sequence, boolean endOfBatch)
+        {
+            if (endOfBatch)
+            {
+                endOfBatchSequences.add(sequence);
+            }
+            latch.countDown();
+        }
+    }
 }
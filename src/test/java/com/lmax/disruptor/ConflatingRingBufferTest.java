@@ -0,0 +1,134 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class ConflatingRingBufferTest
+{
+    private static final EventTranslatorOneArg<LongEvent, Long> TRANSLATOR =
+        new EventTranslatorOneArg<LongEvent, Long>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final Long value)
+            {
+                event.set(value);
+            }
+        };
+
+    private final ConflatingRingBuffer<LongEvent> ringBuffer =
+        ConflatingRingBuffer.create(LongEvent.FACTORY, 8, new BlockingWaitStrategy(), 16);
+
+    @Test
+    public void shouldOverwriteUnreadEventWithSameKey() throws Exception
+    {
+        assertThat(ringBuffer.publishEvent(1L, TRANSLATOR, 10L), is(false));
+        assertThat(ringBuffer.publishEvent(2L, TRANSLATOR, 20L), is(false));
+        assertThat(ringBuffer.publishEvent(1L, TRANSLATOR, 11L), is(true));
+
+        assertThat(ringBuffer.getCursor(), is(1L));
+        assertThat(ringBuffer.get(0).get(), is(11L));
+        assertThat(ringBuffer.get(1).get(), is(20L));
+    }
+
+    @Test
+    public void shouldNotOverwriteEventHandedToConsumer() throws Exception
+    {
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        ringBuffer.publishEvent(1L, TRANSLATOR, 10L);
+        ringBuffer.publishEvent(2L, TRANSLATOR, 20L);
+
+        assertThat(barrier.waitFor(0), is(1L));
+        assertThat(ringBuffer.publishEvent(1L, TRANSLATOR, 11L), is(false));
+        assertThat(ringBuffer.publishEvent(1L, TRANSLATOR, 12L), is(true));
+
+        assertThat(ringBuffer.getCursor(), is(2L));
+        assertThat(ringBuffer.get(0).get(), is(10L));
+        assertThat(ringBuffer.get(2).get(), is(12L));
+    }
+
+    @Test
+    public void shouldNotClaimSequenceWhenFullAndKeyIsUnread() throws Exception
+    {
+        final Sequence consumer = new Sequence();
+        ringBuffer.addGatingSequences(consumer);
+        for (long key = 0; key < 8; key++)
+        {
+            assertThat(ringBuffer.tryPublishEvent(key, TRANSLATOR, key), is(true));
+        }
+
+        assertThat(ringBuffer.tryPublishEvent(8L, TRANSLATOR, 8L), is(false));
+        assertThat(ringBuffer.tryPublishEvent(3L, TRANSLATOR, 33L), is(true));
+        assertThat(ringBuffer.get(3).get(), is(33L));
+        assertThat(ringBuffer.remainingCapacity(), is(0L));
+    }
+
+    @Test
+    public void shouldDeliverLatestValueOfEachKeyToProcessor() throws Exception
+    {
+        final int keys = 4;
+        final long[] lastSeen = new long[keys];
+        final BatchEventProcessor<LongEvent> processor = new BatchEventProcessor<LongEvent>(
+            ringBuffer,
+            ringBuffer.newBarrier(),
+            new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    final int key = (int) (event.get() % keys);
+                    assertThat(event.get() > lastSeen[key], is(true));
+                    lastSeen[key] = event.get();
+                }
+            });
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        long conflated = 0;
+        final long updates = 100000;
+        for (long value = keys; value < updates; value++)
+        {
+            if (ringBuffer.publishEvent(value % keys, TRANSLATOR, value))
+            {
+                conflated++;
+            }
+        }
+
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (processor.getSequence().get() < ringBuffer.getCursor() && System.nanoTime() < deadline)
+        {
+            Thread.yield();
+        }
+        processor.halt();
+        thread.join(5000);
+
+        for (int key = 0; key < keys; key++)
+        {
+            assertThat(lastSeen[key], is(updates - keys + key));
+        }
+        assertThat(ringBuffer.getCursor() + 1 + conflated, is(updates - keys));
+    }
+}
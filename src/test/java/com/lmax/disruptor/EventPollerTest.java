@@ -1,9 +1,12 @@
 package com.lmax.disruptor;
 
 import com.lmax.disruptor.EventPoller.PollState;
+import com.lmax.disruptor.support.StubEvent;
 import org.junit.Test;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.hamcrest.core.Is.is;
 import static org.junit.Assert.assertThat;
@@ -89,4 +92,124 @@ public class EventPollerTest
 
         assertThat(events.size(), is(4));
     }
+
+    @Test
+    public void shouldPollAtMostMaxEvents() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = createRingBufferWithEvents(5);
+        final EventPoller<StubEvent> poller = ringBuffer.newPoller();
+        final List<Boolean> endOfBatches = new ArrayList<Boolean>();
+
+        final EventPoller.Handler<StubEvent> handler = new EventPoller.Handler<StubEvent>()
+        {
+            public boolean onEvent(StubEvent event, long sequence, boolean endOfBatch) throws Exception
+            {
+                endOfBatches.add(endOfBatch);
+                return true;
+            }
+        };
+
+        assertThat(poller.poll(handler, 3), is(PollState.PROCESSING));
+        assertThat(poller.getSequence().get(), is(2L));
+        assertThat(endOfBatches, is(Arrays.asList(false, false, true)));
+
+        assertThat(poller.poll(handler, 3), is(PollState.PROCESSING));
+        assertThat(poller.getSequence().get(), is(4L));
+        assertThat(poller.poll(handler, 3), is(PollState.IDLE));
+    }
+
+    @Test
+    public void shouldDrainContiguousRangeAndAdvanceSequenceOnce() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = createRingBufferWithEvents(5);
+        final EventPoller<StubEvent> poller = ringBuffer.newPoller();
+        final long[] range = new long[2];
+
+        final int drained = poller.drainTo(
+            new EventPoller.BatchHandler<StubEvent>()
+            {
+                @Override
+                public void onBatch(DataProvider<StubEvent> events, long lo, long hi)
+                {
+                    range[0] = lo;
+                    range[1] = hi;
+                    assertThat(poller.getSequence().get(), is(-1L));
+                }
+            }, 4);
+
+        assertThat(drained, is(4));
+        assertThat(range[0], is(0L));
+        assertThat(range[1], is(3L));
+        assertThat(poller.getSequence().get(), is(3L));
+    }
+
+    @Test
+    public void shouldNotAdvanceSequenceWhenBatchHandlerThrows() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = createRingBufferWithEvents(2);
+        final EventPoller<StubEvent> poller = ringBuffer.newPoller();
+
+        try
+        {
+            poller.drainTo(
+                new EventPoller.BatchHandler<StubEvent>()
+                {
+                    @Override
+                    public void onBatch(DataProvider<StubEvent> events, long lo, long hi)
+                    {
+                        throw new IllegalStateException();
+                    }
+                }, 10);
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        assertThat(poller.getSequence().get(), is(-1L));
+    }
+
+    @Test
+    public void shouldCopyEventsIntoSink() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer = createRingBufferWithEvents(3);
+        final EventPoller<StubEvent> poller = ringBuffer.newPoller();
+        final StubEvent[] sink = {new StubEvent(-1), new StubEvent(-1), new StubEvent(-1)};
+
+        final int drained = poller.drainTo(
+            sink, 1, 10,
+            new EventTranslatorOneArg<StubEvent, StubEvent>()
+            {
+                @Override
+                public void translateTo(StubEvent copy, long sequence, StubEvent event)
+                {
+                    copy.copy(event);
+                }
+            });
+
+        assertThat(drained, is(2));
+        assertThat(sink[0].getValue(), is(-1));
+        assertThat(sink[1].getValue(), is(0));
+        assertThat(sink[2].getValue(), is(1));
+        assertThat(poller.getSequence().get(), is(1L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveMaxEvents() throws Exception
+    {
+        createRingBufferWithEvents(1).newPoller().drainTo(new StubEvent[0], 0, 1, null);
+    }
+
+    private static RingBuffer<StubEvent> createRingBufferWithEvents(final int count)
+    {
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createMultiProducer(StubEvent.EVENT_FACTORY, 8);
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).setValue(i);
+            ringBuffer.publish(sequence);
+        }
+
+        return ringBuffer;
+    }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public final class EventProcessorMetricsTest
+{
+    private final RingBuffer<StubEvent> ringBuffer = RingBuffer.createMultiProducer(StubEvent.EVENT_FACTORY, 16);
+
+    @Test
+    public void shouldBucketBatchSizesByPowerOfTwo()
+    {
+        final EventProcessorMetrics metrics = new EventProcessorMetrics();
+        metrics.onWaitStart(0L);
+        metrics.onBatchStart(1L);
+        metrics.onBatchEnd(0L);
+        metrics.onWaitStart(1L);
+        metrics.onBatchStart(5L);
+        metrics.onBatchEnd(5L);
+        metrics.onWaitStart(6L);
+        metrics.onBatchStart(0L);
+        metrics.onTimeout(5L);
+        metrics.onAlert();
+
+        assertThat(metrics.getBatchCount(), is(2L));
+        assertThat(metrics.getEventCount(), is(6L));
+        assertThat(metrics.getBatchCountForSizeBucket(0), is(1L));
+        assertThat(metrics.getBatchCountForSizeBucket(2), is(1L));
+        assertThat(metrics.getTimeoutCount(), is(1L));
+        assertThat(metrics.getAlertCount(), is(1L));
+    }
+
+    @Test
+    public void shouldRecordBatchesOfBatchEventProcessor() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(3);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    latch.countDown();
+                }
+            });
+        final EventProcessorMetrics metrics = new EventProcessorMetrics();
+        processor.setEventProcessorListener(metrics);
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+        ringBuffer.publish(ringBuffer.next());
+
+        final Thread thread = new Thread(processor);
+        thread.start();
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        processor.halt();
+        thread.join();
+
+        assertThat(metrics.getBatchCount(), is(1L));
+        assertThat(metrics.getEventCount(), is(3L));
+        assertThat(metrics.getBatchCountForSizeBucket(1), is(1L));
+        assertThat(metrics.getAlertCount(), is(1L));
+        assertTrue(metrics.getWaitNanos() > 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldRecordEventsOfEachWorker() throws Exception
+    {
+        final CountDownLatch latch = new CountDownLatch(4);
+        final WorkHandler<StubEvent> handler = new WorkHandler<StubEvent>()
+        {
+            @Override
+            public void onEvent(final StubEvent event)
+            {
+                latch.countDown();
+            }
+        };
+        final WorkerPool<StubEvent> pool = new WorkerPool<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), handler, handler);
+        final EventProcessorMetrics first = new EventProcessorMetrics();
+        final EventProcessorMetrics second = new EventProcessorMetrics();
+        pool.setEventProcessorListeners(first, second);
+        ringBuffer.addGatingSequences(pool.getWorkerSequences());
+
+        pool.start(Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE));
+        for (int i = 0; i < 4; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+        assertTrue(latch.await(2, TimeUnit.SECONDS));
+        pool.drainAndHalt();
+
+        assertThat(first.getEventCount() + second.getEventCount(), is(4L));
+        assertThat(first.getBatchCount() + second.getBatchCount(), is(4L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireOneListenerPerWorker()
+    {
+        @SuppressWarnings("unchecked")
+        final WorkerPool<StubEvent> pool = new WorkerPool<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), new WorkHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event)
+                {
+                }
+            });
+        pool.setEventProcessorListeners(new EventProcessorMetrics(), new EventProcessorMetrics());
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+
+public class KeyedBatchingEventHandlerTest
+{
+    private static final EventTranslatorOneArg<StubEvent, StubEvent> COPIER =
+        new EventTranslatorOneArg<StubEvent, StubEvent>()
+        {
+            @Override
+            public void translateTo(final StubEvent value, final long sequence, final StubEvent event)
+            {
+                value.copy(event);
+            }
+        };
+
+    private final List<String> flushed = new ArrayList<String>();
+    private final KeyedBatchingEventHandler.BatchHandler<StubEvent, StubEvent> recorder =
+        new KeyedBatchingEventHandler.BatchHandler<StubEvent, StubEvent>()
+        {
+            @Override
+            public long keyOf(final StubEvent event)
+            {
+                return event.getValue() / 100;
+            }
+
+            @Override
+            public void onBatch(final long key, final KeyedBatchingEventHandler.Batch<StubEvent> batch)
+            {
+                final StringBuilder builder = new StringBuilder().append(key).append(':');
+                for (int i = 0; i < batch.size(); i++)
+                {
+                    builder.append(i == 0 ? "" : ",").append(batch.get(i).getValue());
+                }
+                flushed.add(builder.toString());
+            }
+        };
+
+    @Test
+    public void shouldGroupEventsByKeyUntilEndOfBatch() throws Exception
+    {
+        final KeyedBatchingEventHandler<StubEvent, StubEvent> handler = newHandler(4, 10, true);
+
+        onEvents(handler, 101, 201, 102, 301, 202);
+        assertThat(flushed.size(), is(0));
+        assertThat(handler.getPendingCount(), is(3));
+
+        handler.onEvent(new StubEvent(103), 5, true);
+
+        assertThat(flushed.size(), is(3));
+        assertThat(flushed.contains("1:101,102,103"), is(true));
+        assertThat(flushed.contains("2:201,202"), is(true));
+        assertThat(flushed.contains("3:301"), is(true));
+        assertThat(handler.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void shouldFlushBatchWhenFull() throws Exception
+    {
+        final KeyedBatchingEventHandler<StubEvent, StubEvent> handler = newHandler(4, 2, false);
+
+        onEvents(handler, 101, 201, 102, 103);
+
+        assertThat(flushed.size(), is(1));
+        assertThat(flushed.get(0), is("1:101,102"));
+        assertThat(handler.getPendingCount(), is(2));
+    }
+
+    @Test
+    public void shouldFlushOldestBatchWhenOutOfBatches() throws Exception
+    {
+        final KeyedBatchingEventHandler<StubEvent, StubEvent> handler = newHandler(2, 10, false);
+
+        onEvents(handler, 101, 201);
+        Thread.sleep(1);
+        onEvents(handler, 202, 301);
+
+        assertThat(flushed.size(), is(1));
+        assertThat(flushed.get(0), is("1:101"));
+
+        handler.flush();
+        assertThat(flushed.contains("2:201,202"), is(true));
+        assertThat(flushed.contains("3:301"), is(true));
+    }
+
+    @Test
+    public void shouldFlushBatchesOlderThanMaxAge() throws Exception
+    {
+        final KeyedBatchingEventHandler<StubEvent, StubEvent> handler = newHandler(4, 10, false);
+
+        onEvents(handler, 101, 201);
+        final long now = System.nanoTime();
+        assertThat(handler.flushExpired(now), is(0));
+
+        onEvents(handler, 102);
+        assertThat(handler.flushExpired(now + TimeUnit.MILLISECONDS.toNanos(100)), is(2));
+        assertThat(flushed.contains("1:101,102"), is(true));
+        assertThat(flushed.contains("2:201"), is(true));
+        assertThat(handler.getPendingCount(), is(0));
+    }
+
+    @Test
+    public void shouldReuseBatchesAfterHandlerThrows() throws Exception
+    {
+        final KeyedBatchingEventHandler<StubEvent, StubEvent> handler = new KeyedBatchingEventHandler<StubEvent, StubEvent>(
+            StubEvent.EVENT_FACTORY, COPIER,
+            new KeyedBatchingEventHandler.BatchHandler<StubEvent, StubEvent>()
+            {
+                @Override
+                public long keyOf(final StubEvent event)
+                {
+                    return 1L;
+                }
+
+                @Override
+                public void onBatch(final long key, final KeyedBatchingEventHandler.Batch<StubEvent> batch)
+                {
+                    throw new IllegalStateException();
+                }
+            },
+            1, 10, 1, TimeUnit.SECONDS, true);
+
+        for (int i = 0; i < 3; i++)
+        {
+            try
+            {
+                handler.onEvent(new StubEvent(i), i, true);
+            }
+            catch (IllegalStateException expected)
+            {
+                assertThat(handler.getPendingCount(), is(0));
+            }
+        }
+    }
+
+    private KeyedBatchingEventHandler<StubEvent, StubEvent> newHandler(
+        final int maxKeys, final int maxBatchSize, final boolean flushOnEndOfBatch)
+    {
+        return new KeyedBatchingEventHandler<StubEvent, StubEvent>(
+            StubEvent.EVENT_FACTORY, COPIER, recorder, maxKeys, maxBatchSize, 50, TimeUnit.MILLISECONDS, flushOnEndOfBatch);
+    }
+
+    private static void onEvents(final EventHandler<StubEvent> handler, final int... values) throws Exception
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            handler.onEvent(new StubEvent(values[i]), i, false);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class LapDetectingEventProcessorTest
+{
+    private static final EventTranslatorOneArg<StubEvent, StubEvent> COPIER =
+        new EventTranslatorOneArg<StubEvent, StubEvent>()
+        {
+            @Override
+            public void translateTo(final StubEvent event, final long sequence, final StubEvent source)
+            {
+                event.copy(source);
+            }
+        };
+
+    private final RingBuffer<StubEvent> ringBuffer =
+        RingBuffer.createOverwriting(StubEvent.EVENT_FACTORY, 8, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldProcessEventsWhenNotLapped() throws Exception
+    {
+        final RecordingHandler handler = new RecordingHandler(5);
+        final LapDetectingEventProcessor<StubEvent> processor = newProcessor(handler, COPIER);
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        publish(0, 5);
+
+        assertThat(handler.latch.await(5, TimeUnit.SECONDS), is(true));
+        halt(processor, thread);
+
+        assertThat(handler.values, is(Arrays.asList(0, 1, 2, 3, 4)));
+        assertThat(processor.getLostCount(), is(0L));
+        assertThat(processor.getSequence().get(), is(4L));
+    }
+
+    @Test
+    public void shouldSkipToOldestEventWhenLapped() throws Exception
+    {
+        publish(0, 20);
+
+        final RecordingHandler handler = new RecordingHandler(8);
+        final LapDetectingEventProcessor<StubEvent> processor = newProcessor(handler, COPIER);
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        assertThat(handler.latch.await(5, TimeUnit.SECONDS), is(true));
+        halt(processor, thread);
+
+        assertThat(handler.values, is(Arrays.asList(12, 13, 14, 15, 16, 17, 18, 19)));
+        assertThat(processor.getLostCount(), is(12L));
+        assertThat(processor.getSequence().get(), is(19L));
+    }
+
+    @Test
+    public void shouldDiscardEventOverwrittenWhileBeingCopied() throws Exception
+    {
+        publish(0, 4);
+
+        final EventTranslatorOneArg<StubEvent, StubEvent> lappingCopier =
+            new EventTranslatorOneArg<StubEvent, StubEvent>()
+            {
+                private boolean lapped = false;
+
+                @Override
+                public void translateTo(final StubEvent event, final long sequence, final StubEvent source)
+                {
+                    event.copy(source);
+                    if (!lapped)
+                    {
+                        lapped = true;
+                        publish(100, 8);
+                    }
+                }
+            };
+
+        final RecordingHandler handler = new RecordingHandler(8);
+        final LapDetectingEventProcessor<StubEvent> processor = newProcessor(handler, lappingCopier);
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        assertThat(handler.latch.await(5, TimeUnit.SECONDS), is(true));
+        halt(processor, thread);
+
+        assertThat(handler.values, is(Arrays.asList(100, 101, 102, 103, 104, 105, 106, 107)));
+        assertThat(processor.getLostCount(), is(4L));
+    }
+
+    @Test
+    public void shouldEndBatchOnDeliveredEventWhenTailIsLapped() throws Exception
+    {
+        publish(0, 4);
+
+        final EventTranslatorOneArg<StubEvent, StubEvent> lappingCopier =
+            new EventTranslatorOneArg<StubEvent, StubEvent>()
+            {
+                @Override
+                public void translateTo(final StubEvent event, final long sequence, final StubEvent source)
+                {
+                    event.copy(source);
+                    if (1 == sequence)
+                    {
+                        publish(100, 8);
+                    }
+                }
+            };
+
+        final Sequence[] processed = new Sequence[1];
+        final List<Long> released = new ArrayList<Long>();
+        final CountDownLatch latch = new CountDownLatch(9);
+        final EventHandler<StubEvent> handler = new EventHandler<StubEvent>()
+        {
+            private long unflushed = -1L;
+
+            @Override
+            public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+            {
+                if (unflushed >= 0 && processed[0].get() >= unflushed)
+                {
+                    released.add(unflushed);
+                }
+                unflushed = endOfBatch ? -1L : sequence;
+                latch.countDown();
+            }
+        };
+        final LapDetectingEventProcessor<StubEvent> processor = newProcessor(handler, lappingCopier);
+        processed[0] = processor.getSequence();
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        halt(processor, thread);
+
+        assertThat(released, is(new ArrayList<Long>()));
+        assertThat(processor.getLostCount(), is(3L));
+        assertThat(processor.getSequence().get(), is(11L));
+    }
+
+    private LapDetectingEventProcessor<StubEvent> newProcessor(
+        final EventHandler<StubEvent> handler, final EventTranslatorOneArg<StubEvent, StubEvent> copier)
+    {
+        return new LapDetectingEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), handler, StubEvent.EVENT_FACTORY, copier);
+    }
+
+    private void publish(final int firstValue, final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            ringBuffer.publishEvent(StubEvent.TRANSLATOR, firstValue + i, "");
+        }
+    }
+
+    private static void halt(final EventProcessor processor, final Thread thread) throws InterruptedException
+    {
+        processor.halt();
+        thread.join();
+    }
+
+    private static final class RecordingHandler implements EventHandler<StubEvent>
+    {
+        private final List<Integer> values = new ArrayList<Integer>();
+        private final CountDownLatch latch;
+
+        private RecordingHandler(final int count)
+        {
+            latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+        {
+            values.add(event.getValue());
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public final class LatencyTracerTest
+{
+    private static final long HIGHEST_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final LatencyTracer tracer = new LatencyTracer(16, 4, HIGHEST_NANOS, 2);
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequirePowerOfTwoSampleRate()
+    {
+        new LatencyTracer(16, 3, HIGHEST_NANOS, 2);
+    }
+
+    @Test
+    public void shouldRecordOnlySampledSequencesOfEachBatch()
+    {
+        final LatencyTracer.Stage first = tracer.addStage("first");
+        final LatencyTracer.Stage second = tracer.addStage("second", first);
+
+        tracer.recordPublish(0L, 9L);
+        pass(first, 0L, 9L);
+        pass(second, 0L, 3L);
+        pass(second, 4L, 9L);
+
+        assertThat(first.getLatencySincePublish().getTotalCount(), is(3L));
+        assertThat(first.getLatencySinceUpstream().getTotalCount(), is(3L));
+        assertThat(second.getLatencySincePublish().getTotalCount(), is(3L));
+        assertThat(second.getLatencySinceUpstream().getTotalCount(), is(3L));
+        assertThat(tracer.getEndToEndHistogram().getTotalCount(), is(3L));
+    }
+
+    @Test
+    public void shouldNotRecordSequencesThatWereNotPublishedThroughTracer()
+    {
+        final LatencyTracer.Stage stage = tracer.addStage("stage");
+
+        tracer.recordPublish(4L);
+        pass(stage, 0L, 7L);
+
+        assertThat(stage.getLatencySincePublish().getTotalCount(), is(1L));
+    }
+
+    @Test
+    public void shouldNotRecordEndToEndForStagesWithDownstream()
+    {
+        final LatencyTracer.Stage first = tracer.addStage("first");
+        tracer.addStage("second", first);
+
+        tracer.recordPublish(0L);
+        pass(first, 0L, 0L);
+
+        assertThat(first.getLatencySincePublish().getTotalCount(), is(1L));
+        assertThat(tracer.getEndToEndHistogram().getTotalCount(), is(0L));
+    }
+
+    @Test
+    public void shouldIgnoreTimesFromPreviousLap()
+    {
+        final LatencyTracer.Stage stage = tracer.addStage("stage");
+
+        tracer.recordPublish(0L);
+        pass(stage, 32L, 32L);
+
+        assertThat(stage.getLatencySincePublish().getTotalCount(), is(0L));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldTraceEachStageOfDisruptorPipeline() throws Exception
+    {
+        final int events = 64;
+        final CountDownLatch latch = new CountDownLatch(events);
+        final Disruptor<StubEvent> disruptor =
+            new Disruptor<StubEvent>(StubEvent.EVENT_FACTORY, 16, DaemonThreadFactory.INSTANCE);
+        final EventHandler<StubEvent> first = new CountingHandler(null);
+        final EventHandler<StubEvent> second = new CountingHandler(latch);
+        disruptor.handleEventsWith(first).then(second);
+
+        final LatencyTracer.Stage firstStage = tracer.addStage("first");
+        final LatencyTracer.Stage secondStage = tracer.addStage("second", firstStage);
+        disruptor.setEventProcessorListenerFor(first, firstStage);
+        disruptor.setEventProcessorListenerFor(second, secondStage);
+
+        final RingBuffer<StubEvent> ringBuffer = disruptor.start();
+        for (int i = 0; i < events; i++)
+        {
+            final long sequence = ringBuffer.next();
+            tracer.recordPublish(sequence);
+            ringBuffer.publish(sequence);
+        }
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        final long deadline = System.currentTimeMillis() + 5000L;
+        // the second stage records its latency since upstream just after the end to end latency
+        while (secondStage.getLatencySinceUpstream().getTotalCount() < 16L && System.currentTimeMillis() < deadline)
+        {
+            Thread.yield();
+        }
+        disruptor.halt();
+
+        assertThat(firstStage.getLatencySincePublish().getTotalCount(), is(16L));
+        assertThat(secondStage.getLatencySinceUpstream().getTotalCount(), is(16L));
+        assertThat(tracer.getEndToEndHistogram().getTotalCount(), is(16L));
+    }
+
+    private static void pass(final LatencyTracer.Stage stage, final long lo, final long hi)
+    {
+        stage.onWaitStart(lo);
+        stage.onBatchStart(hi - lo + 1);
+        stage.onBatchEnd(hi);
+    }
+
+    private static final class CountingHandler implements EventHandler<StubEvent>
+    {
+        private final CountDownLatch latch;
+
+        CountingHandler(final CountDownLatch latch)
+        {
+            this.latch = latch;
+        }
+
+        @Override
+        public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+        {
+            if (null != latch)
+            {
+                latch.countDown();
+            }
+        }
+    }
+}
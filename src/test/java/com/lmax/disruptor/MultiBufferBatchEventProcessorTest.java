@@ -0,0 +1,268 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class MultiBufferBatchEventProcessorTest
+{
+    @SuppressWarnings("unchecked")
+    private final RingBuffer<StubEvent>[] ringBuffers = new RingBuffer[2];
+    private final SequenceBarrier[] barriers = new SequenceBarrier[2];
+    private final List<Integer> values = Collections.synchronizedList(new ArrayList<Integer>());
+
+    {
+        for (int i = 0; i < ringBuffers.length; i++)
+        {
+            ringBuffers[i] = RingBuffer.createMultiProducer(StubEvent.EVENT_FACTORY, 16, new BlockingWaitStrategy());
+            barriers[i] = ringBuffers[i].newBarrier();
+        }
+    }
+
+    @Test
+    public void shouldAlternateRingsWithRoundRobin() throws Exception
+    {
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(new RecordingHandler(6));
+        processor.setMaxBatchSize(0, 1);
+        processor.setMaxBatchSize(1, 1);
+        publish(0, 3);
+        publish(1, 3);
+
+        runUntilHandled(processor, 6);
+
+        assertThat(values, is(Arrays.asList(0, 100, 1, 101, 2, 102)));
+    }
+
+    @Test
+    public void shouldTakeBatchesInProportionToWeight() throws Exception
+    {
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(new RecordingHandler(6));
+        processor.setFairness(MultiBufferBatchEventProcessor.Fairness.WEIGHTED);
+        processor.setWeight(0, 2);
+        processor.setMaxBatchSize(0, 1);
+        processor.setMaxBatchSize(1, 1);
+        publish(0, 4);
+        publish(1, 2);
+
+        runUntilHandled(processor, 6);
+
+        assertThat(values, is(Arrays.asList(0, 1, 100, 2, 3, 101)));
+    }
+
+    @Test
+    public void shouldServeLaterRingsOnlyWhenEarlierRingsAreEmpty() throws Exception
+    {
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(new RecordingHandler(6));
+        processor.setFairness(MultiBufferBatchEventProcessor.Fairness.PRIORITY);
+        processor.setMaxBatchSize(0, 1);
+        processor.setMaxBatchSize(1, 1);
+        publish(1, 3);
+        publish(0, 3);
+
+        runUntilHandled(processor, 6);
+
+        assertThat(values, is(Arrays.asList(0, 1, 2, 100, 101, 102)));
+    }
+
+    @Test
+    public void shouldHandleEventsPublishedWhileRunning() throws Exception
+    {
+        final RecordingHandler handler = new RecordingHandler(20);
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(handler);
+        processor.setIdleBackoff(0, 0, TimeUnit.MICROSECONDS.toNanos(10));
+        for (int i = 0; i < ringBuffers.length; i++)
+        {
+            ringBuffers[i].addGatingSequences(processor.getSequences()[i]);
+        }
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+        publish(0, 10);
+        publish(1, 10);
+
+        assertThat(handler.latch.await(5, TimeUnit.SECONDS), is(true));
+        processor.halt();
+        thread.join(5000);
+
+        assertThat(thread.isAlive(), is(false));
+        assertThat(processor.getSequences()[0].get(), is(9L));
+        assertThat(processor.getSequences()[1].get(), is(9L));
+    }
+
+    @Test
+    public void shouldNotifyTimeoutOfEachRingWhenAllAreIdle() throws Exception
+    {
+        final CountDownLatch timeouts = new CountDownLatch(4);
+        final List<Long> timedOutSequences = Collections.synchronizedList(new ArrayList<Long>());
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(new TimeoutRecordingHandler(timeouts, timedOutSequences));
+        processor.setTimeout(1, TimeUnit.MILLISECONDS);
+        publish(0, 2);
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+        assertThat(timeouts.await(5, TimeUnit.SECONDS), is(true));
+        processor.halt();
+        thread.join(5000);
+
+        assertThat(timedOutSequences.subList(0, 4), is(Arrays.asList(1L, -1L, 1L, -1L)));
+    }
+
+    @Test
+    public void shouldServeOtherRingsWhileUpstreamOfOneLags() throws Exception
+    {
+        final Sequence upstream = new Sequence();
+        barriers[0] = ringBuffers[0].newBarrier(upstream);
+        final RecordingHandler handler = new RecordingHandler(3);
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(handler);
+        publish(0, 3);
+        publish(1, 3);
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+        assertThat(handler.latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(values, is(Arrays.asList(100, 101, 102)));
+
+        upstream.set(1);
+        for (long deadline = System.currentTimeMillis() + 5000; values.size() < 5 && System.currentTimeMillis() < deadline; )
+        {
+            Thread.sleep(1);
+        }
+        processor.halt();
+        thread.join(5000);
+
+        assertThat(values, is(Arrays.asList(100, 101, 102, 0, 1)));
+        assertThat(processor.getSequences()[0].get(), is(1L));
+    }
+
+    @Test
+    public void shouldMovePastEventThatFailed() throws Exception
+    {
+        final RecordingHandler handler = new RecordingHandler(3)
+        {
+            @Override
+            public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch) throws Exception
+            {
+                if (event.getValue() == 1)
+                {
+                    throw new IllegalStateException("Failed on 1");
+                }
+                super.onEvent(event, sequence, endOfBatch);
+            }
+        };
+        final MultiBufferBatchEventProcessor<StubEvent> processor = newProcessor(handler);
+        processor.setExceptionHandler(new IgnoreExceptionHandler());
+        publish(0, 4);
+
+        runUntilHandled(processor, 3);
+
+        assertThat(values, is(Arrays.asList(0, 2, 3)));
+        assertThat(processor.getSequences()[0].get(), is(3L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRequireBarrierForEachProvider() throws Exception
+    {
+        new MultiBufferBatchEventProcessor<StubEvent>(ringBuffers, new SequenceBarrier[1], new RecordingHandler(0));
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldNotHaveSingleSequence() throws Exception
+    {
+        newProcessor(new RecordingHandler(0)).getSequence();
+    }
+
+    private MultiBufferBatchEventProcessor<StubEvent> newProcessor(final EventHandler<StubEvent> handler)
+    {
+        return new MultiBufferBatchEventProcessor<StubEvent>(ringBuffers, barriers, handler);
+    }
+
+    private void publish(final int ring, final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffers[ring].next();
+            ringBuffers[ring].get(sequence).setValue(ring * 100 + (int) sequence);
+            ringBuffers[ring].publish(sequence);
+        }
+    }
+
+    private void runUntilHandled(final MultiBufferBatchEventProcessor<StubEvent> processor, final int count)
+        throws InterruptedException
+    {
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+        for (long deadline = System.currentTimeMillis() + 5000; values.size() < count && System.currentTimeMillis() < deadline; )
+        {
+            Thread.sleep(1);
+        }
+        processor.halt();
+        thread.join(5000);
+    }
+
+    private class RecordingHandler implements EventHandler<StubEvent>
+    {
+        private final CountDownLatch latch;
+
+        RecordingHandler(final int count)
+        {
+            latch = new CountDownLatch(count);
+        }
+
+        @Override
+        public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch) throws Exception
+        {
+            values.add(event.getValue());
+            latch.countDown();
+        }
+    }
+
+    private static final class TimeoutRecordingHandler implements EventHandler<StubEvent>, TimeoutHandler
+    {
+        private final CountDownLatch timeouts;
+        private final List<Long> timedOutSequences;
+
+        TimeoutRecordingHandler(final CountDownLatch timeouts, final List<Long> timedOutSequences)
+        {
+            this.timeouts = timeouts;
+            this.timedOutSequences = timedOutSequences;
+        }
+
+        @Override
+        public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+        {
+        }
+
+        @Override
+        public void onTimeout(final long sequence)
+        {
+            timedOutSequences.add(sequence);
+            timeouts.countDown();
+        }
+    }
+}
@@ -38,4 +38,94 @@ public class MultiProducerSequencerTest
         assertThat(publisher.isAvailable(5), is(true));
         assertThat(publisher.isAvailable(6), is(false));
     }
+
+    @Test
+    public void shouldOnlyAllowMessagesToBeAvailableIfSpecificallyPublishedWhenPacked() throws Exception
+    {
+        final Sequencer packed = new MultiProducerSequencer(
+            1024, new BlockingWaitStrategy(), MultiProducerSequencer.AvailabilityMode.PACKED);
+        packed.publish(3);
+        packed.publish(5);
+
+        assertThat(packed.isAvailable(0), is(false));
+        assertThat(packed.isAvailable(1), is(false));
+        assertThat(packed.isAvailable(2), is(false));
+        assertThat(packed.isAvailable(3), is(true));
+        assertThat(packed.isAvailable(4), is(false));
+        assertThat(packed.isAvailable(5), is(true));
+        assertThat(packed.isAvailable(6), is(false));
+    }
+
+    @Test
+    public void shouldPublishRangeAcrossWordsWhenPacked() throws Exception
+    {
+        final Sequencer packed = new MultiProducerSequencer(
+            256, new BlockingWaitStrategy(), MultiProducerSequencer.AvailabilityMode.PACKED);
+        packed.publish(60, 140);
+
+        assertThat(packed.isAvailable(59), is(false));
+        for (long sequence = 60; sequence <= 140; sequence++)
+        {
+            assertThat(packed.isAvailable(sequence), is(true));
+        }
+        assertThat(packed.isAvailable(141), is(false));
+
+        assertThat(packed.getHighestPublishedSequence(60, 200), is(140L));
+        assertThat(packed.getHighestPublishedSequence(0, 200), is(-1L));
+        assertThat(packed.getHighestPublishedSequence(100, 130), is(130L));
+    }
+
+    @Test
+    public void shouldFindFirstGapWhenPacked() throws Exception
+    {
+        final Sequencer packed = new MultiProducerSequencer(
+            128, new BlockingWaitStrategy(), MultiProducerSequencer.AvailabilityMode.PACKED);
+        packed.publish(0, 69);
+        packed.publish(71, 100);
+
+        assertThat(packed.getHighestPublishedSequence(0, 100), is(69L));
+        packed.publish(70);
+        assertThat(packed.getHighestPublishedSequence(0, 100), is(100L));
+    }
+
+    @Test
+    public void shouldTrackLapsWhenPacked() throws Exception
+    {
+        final Sequencer packed = new MultiProducerSequencer(
+            16, new BlockingWaitStrategy(), MultiProducerSequencer.AvailabilityMode.PACKED);
+        final Sequence gatingSequence = new Sequence();
+        packed.addGatingSequences(gatingSequence);
+
+        for (int lap = 0; lap < 3; lap++)
+        {
+            final long hi = packed.next(16);
+            final long lo = hi - 15;
+            assertThat(packed.getHighestPublishedSequence(lo, hi), is(lo - 1));
+
+            packed.publish(lo, lo + 9);
+            assertThat(packed.getHighestPublishedSequence(lo, hi), is(lo + 9));
+            assertThat(packed.isAvailable(lo + 10), is(false));
+
+            packed.publish(lo + 10, hi);
+            assertThat(packed.getHighestPublishedSequence(lo, hi), is(hi));
+            gatingSequence.set(hi);
+        }
+    }
+
+    @Test
+    public void shouldPublishRangeThatWrapsTheRingWhenPacked() throws Exception
+    {
+        final Sequencer packed = new MultiProducerSequencer(
+            8, new BlockingWaitStrategy(), MultiProducerSequencer.AvailabilityMode.PACKED);
+        packed.publish(0, 5);
+        packed.publish(6, 11);
+
+        for (long sequence = 6; sequence <= 11; sequence++)
+        {
+            assertThat(packed.isAvailable(sequence), is(true));
+        }
+        assertThat(packed.isAvailable(4), is(true));
+        assertThat(packed.isAvailable(12), is(false));
+        assertThat(packed.getHighestPublishedSequence(6, 13), is(11L));
+    }
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class OffHeapRingBufferTest
+{
+    private static final int ENTRY_SIZE = 32;
+
+    private final OffHeapRingBuffer ringBuffer =
+        OffHeapRingBuffer.createSingleProducer(16, ENTRY_SIZE, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldWriteAndReadSlotFields() throws Exception
+    {
+        final OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+        final long sequence = ringBuffer.next();
+        slot.get(sequence)
+            .putLong(0, 1234567890123L)
+            .putInt(8, 42)
+            .putDouble(12, 1.5D)
+            .putShort(20, (short) 7)
+            .putByte(22, (byte) 3);
+        ringBuffer.publish(sequence);
+
+        final OffHeapRingBuffer.Slot reader = ringBuffer.newSlot().get(sequence);
+        assertThat(reader.getLong(0), is(1234567890123L));
+        assertThat(reader.getInt(8), is(42));
+        assertThat(reader.getDouble(12), is(1.5D));
+        assertThat(reader.getShort(20), is((short) 7));
+        assertThat(reader.getByte(22), is((byte) 3));
+        assertThat(ringBuffer.isPublished(sequence), is(true));
+    }
+
+    @Test
+    public void shouldCopyBytesInAndOutOfSlot() throws Exception
+    {
+        final OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+        final byte[] data = new byte[ENTRY_SIZE];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+
+        final long sequence = ringBuffer.next();
+        slot.get(sequence).putBytes(0, data, 0, data.length);
+        ringBuffer.publish(sequence);
+
+        final byte[] copy = new byte[4];
+        slot.get(sequence).getBytes(10, copy, 0, 4);
+        assertThat(copy, is(new byte[]{10, 11, 12, 13}));
+
+        final ByteBuffer view = slot.asByteBuffer();
+        assertThat(view.remaining(), is(ENTRY_SIZE));
+        assertThat(view.get(view.position() + 31), is((byte) 31));
+    }
+
+    @Test
+    public void shouldMixBulkAndAbsoluteAccessOnOneSlot() throws Exception
+    {
+        final OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+        final byte[] copy = new byte[4];
+
+        slot.get(0).asByteBuffer();
+        slot.get(5).putLong(0, 42L);
+        assertThat(slot.get(5).getLong(0), is(42L));
+
+        slot.get(1).putBytes(0, new byte[]{1, 2, 3, 4}, 0, 4);
+        slot.get(6).putInt(8, 7);
+        slot.get(2).getBytes(0, copy, 0, 4);
+        assertThat(slot.get(6).getInt(8), is(7));
+        assertThat(slot.get(1).getByte(3), is((byte) 4));
+    }
+
+    @Test
+    public void shouldWrapSlotsAroundTheRing() throws Exception
+    {
+        final OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+        final Sequence consumer = new Sequence();
+        ringBuffer.addGatingSequences(consumer);
+
+        for (long i = 0; i < 40; i++)
+        {
+            final long sequence = ringBuffer.next();
+            slot.get(sequence).putLong(0, i);
+            ringBuffer.publish(sequence);
+            assertThat(slot.get(sequence).getLong(0), is(i));
+            consumer.set(sequence);
+        }
+
+        assertThat(slot.get(39).getLong(0), is(39L));
+        assertThat(slot.get(39 - 16).getLong(0), is(39L));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void shouldRejectAccessBeyondSlot() throws Exception
+    {
+        ringBuffer.newSlot().get(0).getLong(ENTRY_SIZE - 4);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectRegionThatIsTooSmall() throws Exception
+    {
+        new OffHeapRingBuffer(
+            new SingleProducerSequencer(16, new BlockingWaitStrategy()), ENTRY_SIZE, ByteBuffer.allocateDirect(16));
+    }
+
+    @Test
+    public void shouldProcessSlotsWithBatchEventProcessor() throws Exception
+    {
+        final int count = 100;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final long[] total = new long[1];
+        final BatchEventProcessor<OffHeapRingBuffer.Slot> processor =
+            new BatchEventProcessor<OffHeapRingBuffer.Slot>(
+                ringBuffer.newSlot(), ringBuffer.newBarrier(), new EventHandler<OffHeapRingBuffer.Slot>()
+                {
+                    @Override
+                    public void onEvent(OffHeapRingBuffer.Slot event, long sequence, boolean endOfBatch)
+                    {
+                        total[0] += event.getLong(0);
+                        latch.countDown();
+                    }
+                });
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        final OffHeapRingBuffer.Slot slot = ringBuffer.newSlot();
+        for (long i = 1; i <= count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            slot.get(sequence).putLong(0, i);
+            ringBuffer.publish(sequence);
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        processor.halt();
+        thread.join();
+
+        assertThat(total[0], is((long) count * (count + 1) / 2));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class OverwritingSequencerTest
+{
+    private final Sequencer sequencer = new OverwritingSequencer(8, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldNotWaitForGatingSequences() throws Exception
+    {
+        sequencer.addGatingSequences(new Sequence());
+
+        for (int i = 0; i < 20; i++)
+        {
+            sequencer.publish(sequencer.next());
+        }
+
+        assertThat(sequencer.getCursor(), is(19L));
+        assertThat(sequencer.hasAvailableCapacity(8), is(true));
+        assertThat(sequencer.remainingCapacity(), is(8L));
+        assertThat(sequencer.getMinimumSequence(), is(-1L));
+    }
+
+    @Test
+    public void shouldClearAvailabilityWhenSlotIsClaimedAgain() throws Exception
+    {
+        sequencer.publish(0, sequencer.next(8));
+        assertThat(sequencer.isAvailable(0), is(true));
+        assertThat(sequencer.isAvailable(7), is(true));
+
+        final long sequence = sequencer.next(2);
+        assertThat(sequence, is(9L));
+        assertThat(sequencer.isAvailable(0), is(false));
+        assertThat(sequencer.isAvailable(1), is(false));
+        assertThat(sequencer.isAvailable(2), is(true));
+        assertThat(sequencer.isAvailable(8), is(false));
+
+        sequencer.publish(8, 9);
+        assertThat(sequencer.isAvailable(8), is(true));
+        assertThat(sequencer.isAvailable(9), is(true));
+    }
+
+    @Test
+    public void shouldReportHighestPublishedSequenceUpToFirstLappedSlot() throws Exception
+    {
+        sequencer.publish(0, sequencer.next(8));
+        sequencer.publish(8, sequencer.next(3));
+
+        assertThat(sequencer.getHighestPublishedSequence(0, 10), is(-1L));
+        assertThat(sequencer.getHighestPublishedSequence(3, 10), is(10L));
+        assertThat(sequencer.getHighestPublishedSequence(3, 12), is(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectClaimLargerThanRing() throws Exception
+    {
+        sequencer.next(9);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static com.lmax.disruptor.support.WaitStrategyTestUtil.assertWaitForWithDelayOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class ParkingWaitStrategyTest
+{
+    @Test
+    public void shouldWaitForValue() throws Exception
+    {
+        assertWaitForWithDelayOf(50, new ParkingWaitStrategy());
+    }
+
+    @Test
+    public void shouldWakeParkedProcessorOnPublish() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer =
+            RingBuffer.createMultiProducer(StubEvent.EVENT_FACTORY, 8, new ParkingWaitStrategy());
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final long[] observed = new long[1];
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Thread waiter = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        observed[0] = barrier.waitFor(0);
+                        done.countDown();
+                    }
+                    catch (final Exception e)
+                    {
+                        // left for the assertion to report
+                    }
+                }
+            });
+        waiter.start();
+
+        assertThat(done.await(50, TimeUnit.MILLISECONDS), is(false));
+        ringBuffer.publish(ringBuffer.next());
+
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(observed[0], is(0L));
+    }
+
+    @Test
+    public void shouldWakeParkedProcessorOnAlert() throws Exception
+    {
+        final RingBuffer<StubEvent> ringBuffer =
+            RingBuffer.createMultiProducer(StubEvent.EVENT_FACTORY, 8, new ParkingWaitStrategy());
+        final SequenceBarrier barrier = ringBuffer.newBarrier();
+        final CountDownLatch alerted = new CountDownLatch(1);
+
+        final Thread waiter = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        barrier.waitFor(0);
+                    }
+                    catch (final AlertException e)
+                    {
+                        alerted.countDown();
+                    }
+                    catch (final Exception e)
+                    {
+                        // left for the assertion to report
+                    }
+                }
+            });
+        waiter.start();
+
+        assertThat(alerted.await(50, TimeUnit.MILLISECONDS), is(false));
+        barrier.alert();
+
+        assertThat(alerted.await(5, TimeUnit.SECONDS), is(true));
+    }
+}
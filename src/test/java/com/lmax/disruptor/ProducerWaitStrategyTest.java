@@ -0,0 +1,351 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class ProducerWaitStrategyTest
+{
+    @Test
+    public void shouldWaitUntilSignalledWhenBlocking() throws Exception
+    {
+        final BlockingProducerWaitStrategy waitStrategy = new BlockingProducerWaitStrategy();
+        final Sequence gatingSequence = new Sequence();
+        final long[] observed = new long[1];
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Thread producer = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    observed[0] = waitStrategy.waitFor(5, gatingSequence);
+                    done.countDown();
+                }
+            });
+        producer.start();
+
+        assertThat(done.await(50, TimeUnit.MILLISECONDS), is(false));
+        gatingSequence.set(3);
+        waitStrategy.signalAllWhenBlocking();
+        assertThat(done.await(50, TimeUnit.MILLISECONDS), is(false));
+
+        gatingSequence.set(5);
+        waitStrategy.signalAllWhenBlocking();
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(observed[0], is(5L));
+    }
+
+    @Test
+    public void shouldWaitUntilSignalledWhenParking() throws Exception
+    {
+        final ParkingProducerWaitStrategy waitStrategy = new ParkingProducerWaitStrategy();
+        final Sequence gatingSequence = new Sequence();
+        final long[] observed = new long[1];
+        final CountDownLatch done = new CountDownLatch(1);
+
+        final Thread producer = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    observed[0] = waitStrategy.waitFor(5, gatingSequence);
+                    done.countDown();
+                }
+            });
+        producer.start();
+
+        assertThat(done.await(50, TimeUnit.MILLISECONDS), is(false));
+        gatingSequence.set(3);
+        waitStrategy.signalAllWhenBlocking();
+        assertThat(done.await(50, TimeUnit.MILLISECONDS), is(false));
+
+        gatingSequence.set(5);
+        waitStrategy.signalAllWhenBlocking();
+        assertThat(done.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(observed[0], is(5L));
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithBlockingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(new BlockingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithBusySpinStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(new BusySpinProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithYieldingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(new YieldingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithPhasedBackoffStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(PhasedBackoffProducerWaitStrategy.withLock(1, 1, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithParkingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(new ParkingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingWithSleepingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRing(new SleepingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldOnlyWaitForSignalWhenProducersBlock() throws Exception
+    {
+        assertThat(new BlockingProducerWaitStrategy().waitsForSignal(), is(true));
+        assertThat(new ParkingProducerWaitStrategy().waitsForSignal(), is(true));
+        assertThat(PhasedBackoffProducerWaitStrategy.withLock(1, 1, TimeUnit.MILLISECONDS).waitsForSignal(), is(true));
+        assertThat(new SleepingProducerWaitStrategy().waitsForSignal(), is(false));
+        assertThat(new YieldingProducerWaitStrategy().waitsForSignal(), is(false));
+        assertThat(new BusySpinProducerWaitStrategy().waitsForSignal(), is(false));
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingToWorkerPoolWithBlockingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRingToWorkerPool(new BlockingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingToWorkerPoolWithParkingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRingToWorkerPool(new ParkingProducerWaitStrategy());
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingsToMultiBufferProcessorWithBlockingStrategy() throws Exception
+    {
+        final int count = 20000;
+        final CountDownLatch latch = new CountDownLatch(2 * count);
+        final ProducerWaitStrategy producerWaitStrategy = new BlockingProducerWaitStrategy();
+        final RingBuffer<StubEvent> first = RingBuffer.createSingleProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), producerWaitStrategy);
+        final RingBuffer<StubEvent> second = RingBuffer.createSingleProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), producerWaitStrategy);
+
+        @SuppressWarnings("unchecked")
+        final MultiBufferBatchEventProcessor<StubEvent> processor = new MultiBufferBatchEventProcessor<StubEvent>(
+            new DataProvider[]{first, second},
+            new SequenceBarrier[]{first.newBarrier(), second.newBarrier()},
+            new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    latch.countDown();
+                }
+            });
+        first.addGatingSequences(processor.getSequences()[0]);
+        second.addGatingSequences(processor.getSequences()[1]);
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+        final Thread producer = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    publish(second, count);
+                }
+            });
+        producer.start();
+        publish(first, count);
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        processor.halt();
+        thread.join();
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingToClaimingWorkerPoolWithBlockingStrategy() throws Exception
+    {
+        assertPublishesThroughFullRingToWorkerPool(new BlockingProducerWaitStrategy(), 4);
+    }
+
+    @Test
+    public void shouldPublishThroughFullRingToPollerWithBlockingStrategy() throws Exception
+    {
+        final int count = 20000;
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), new BlockingProducerWaitStrategy());
+        final EventPoller<StubEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+        final EventPoller.BatchHandler<StubEvent> batchHandler = new EventPoller.BatchHandler<StubEvent>()
+        {
+            @Override
+            public void onBatch(final DataProvider<StubEvent> events, final long lo, final long hi)
+            {
+            }
+        };
+        final EventPoller.Handler<StubEvent> handler = new EventPoller.Handler<StubEvent>()
+        {
+            @Override
+            public boolean onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+            {
+                return true;
+            }
+        };
+
+        final Thread producer = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    publish(ringBuffer, count);
+                }
+            });
+        producer.start();
+
+        final long deadline = System.currentTimeMillis() + 10000;
+        boolean drain = false;
+        while (poller.getSequence().get() < count - 1 && System.currentTimeMillis() < deadline)
+        {
+            if (drain)
+            {
+                poller.drainTo(batchHandler, 3);
+            }
+            else
+            {
+                poller.poll(handler);
+            }
+            drain = !drain;
+            Thread.yield();
+        }
+
+        assertThat(poller.getSequence().get(), is(count - 1L));
+        producer.join();
+    }
+
+    private static void assertPublishesThroughFullRingToWorkerPool(final ProducerWaitStrategy producerWaitStrategy)
+        throws Exception
+    {
+        assertPublishesThroughFullRingToWorkerPool(producerWaitStrategy, 1);
+    }
+
+    private static void assertPublishesThroughFullRingToWorkerPool(
+        final ProducerWaitStrategy producerWaitStrategy, final int maxBatchClaim) throws Exception
+    {
+        final int count = 20000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final RingBuffer<StubEvent> ringBuffer = RingBuffer.createMultiProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), producerWaitStrategy);
+        final WorkHandler<StubEvent> handler = new WorkHandler<StubEvent>()
+        {
+            @Override
+            public void onEvent(final StubEvent event)
+            {
+                latch.countDown();
+            }
+        };
+        @SuppressWarnings("unchecked")
+        final WorkerPool<StubEvent> pool = new WorkerPool<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), maxBatchClaim, handler, handler);
+        ringBuffer.addGatingSequences(pool.getWorkerSequences());
+        pool.start(new Executor()
+        {
+            @Override
+            public void execute(final Runnable command)
+            {
+                DaemonThreadFactory.INSTANCE.newThread(command).start();
+            }
+        });
+
+        publish(ringBuffer, count);
+
+        assertThat(latch.await(10, TimeUnit.SECONDS), is(true));
+        pool.drainAndHalt();
+    }
+
+    private static void publish(final RingBuffer<StubEvent> ringBuffer, final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).setValue(i);
+            ringBuffer.publish(sequence);
+        }
+    }
+
+    private static void assertPublishesThroughFullRing(final ProducerWaitStrategy producerWaitStrategy) throws Exception
+    {
+        assertPublishesThroughFullRing(RingBuffer.createSingleProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), producerWaitStrategy));
+        assertPublishesThroughFullRing(RingBuffer.createMultiProducer(
+            StubEvent.EVENT_FACTORY, 4, new BlockingWaitStrategy(), producerWaitStrategy));
+    }
+
+    private static void assertPublishesThroughFullRing(final RingBuffer<StubEvent> ringBuffer) throws Exception
+    {
+        final int count = 1000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final BatchEventProcessor<StubEvent> processor = new BatchEventProcessor<StubEvent>(
+            ringBuffer, ringBuffer.newBarrier(), new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                    throws Exception
+                {
+                    if (sequence % 100 == 0)
+                    {
+                        Thread.sleep(1);
+                    }
+                    latch.countDown();
+                }
+            });
+        ringBuffer.addGatingSequences(processor.getSequence());
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).setValue(i);
+            ringBuffer.publish(sequence);
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        processor.halt();
+        thread.join();
+    }
+}
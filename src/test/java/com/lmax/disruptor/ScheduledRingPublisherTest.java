@@ -0,0 +1,166 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.support.StubEvent;
+
+public class ScheduledRingPublisherTest
+{
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final EventTranslatorOneArg<StubEvent, Integer> TRANSLATOR =
+        new EventTranslatorOneArg<StubEvent, Integer>()
+        {
+            @Override
+            public void translateTo(final StubEvent event, final long sequence, final Integer arg0)
+            {
+                event.setValue(arg0);
+            }
+        };
+
+    private final RingBuffer<StubEvent> ringBuffer = RingBuffer.createSingleProducer(StubEvent.EVENT_FACTORY, 16);
+    private final ScheduledRingPublisher<StubEvent, Integer> publisher = newPublisher(4, 8, 2);
+    private final long now = System.nanoTime();
+
+    @Test
+    public void shouldPublishOnceDue() throws Exception
+    {
+        publisher.schedule(now + 10 * MILLI, 7);
+        assertThat(publisher.size(), is(1));
+
+        assertThat(publisher.tick(now + 5 * MILLI), is(0));
+        assertThat(ringBuffer.getCursor(), is(-1L));
+
+        assertThat(publisher.tick(now + 12 * MILLI), is(1));
+        assertThat(ringBuffer.get(0).getValue(), is(7));
+        assertThat(publisher.size(), is(0));
+
+        assertThat(publisher.tick(now + 20 * MILLI), is(0));
+    }
+
+    @Test
+    public void shouldHoldTimersDueAfterMoreThanOneTurnOfTheWheel() throws Exception
+    {
+        publisher.schedule(now + 20 * MILLI, 1);
+
+        assertThat(publisher.tick(now + 10 * MILLI), is(0));
+        assertThat(publisher.tick(now + 18 * MILLI), is(0));
+        assertThat(publisher.tick(now + 22 * MILLI), is(1));
+    }
+
+    @Test
+    public void shouldNotPublishCancelledTimer() throws Exception
+    {
+        final long timerId = publisher.schedule(now + 10 * MILLI, 1);
+        publisher.schedule(now + 10 * MILLI, 2);
+
+        assertThat(publisher.cancel(timerId), is(true));
+        assertThat(publisher.cancel(timerId), is(false));
+        assertThat(publisher.size(), is(1));
+
+        assertThat(publisher.tick(now + 12 * MILLI), is(1));
+        assertThat(ringBuffer.get(0).getValue(), is(2));
+    }
+
+    @Test
+    public void shouldRepublishPeriodicTimerUntilCancelled() throws Exception
+    {
+        final long timerId = publisher.scheduleAtFixedRate(now + 10 * MILLI, 10 * MILLI, 3);
+
+        assertThat(publisher.tick(now + 15 * MILLI), is(1));
+        assertThat(publisher.tick(now + 16 * MILLI), is(0));
+        assertThat(publisher.tick(now + 25 * MILLI), is(1));
+        assertThat(publisher.size(), is(1));
+
+        assertThat(publisher.cancel(timerId), is(true));
+        assertThat(publisher.tick(now + 40 * MILLI), is(0));
+        assertThat(ringBuffer.getCursor(), is(1L));
+        assertThat(publisher.size(), is(0));
+    }
+
+    @Test
+    public void shouldPublishDueTimersInBatches() throws Exception
+    {
+        for (int i = 0; i < 4; i++)
+        {
+            publisher.schedule(now + (i + 1) * MILLI, i);
+        }
+
+        assertThat(publisher.tick(now + 10 * MILLI), is(4));
+        assertThat(ringBuffer.getCursor(), is(3L));
+
+        final Set<Integer> values = new HashSet<Integer>();
+        for (int i = 0; i < 4; i++)
+        {
+            values.add(ringBuffer.get(i).getValue());
+        }
+        assertThat(values.size(), is(4));
+    }
+
+    @Test(expected = InsufficientCapacityException.class)
+    public void shouldRejectTimersBeyondCapacity() throws Exception
+    {
+        for (int i = 0; i < 5; i++)
+        {
+            publisher.schedule(now + MILLI, i);
+        }
+    }
+
+    @Test
+    public void shouldReuseTimerWithoutHonouringStaleId() throws Exception
+    {
+        final ScheduledRingPublisher<StubEvent, Integer> single = newPublisher(1, 8, 1);
+        final long first = single.schedule(now + MILLI, 1);
+        assertThat(single.cancel(first), is(true));
+
+        final long second = single.schedule(now + MILLI, 2);
+        assertThat(single.cancel(first), is(false));
+        assertThat(single.cancel(second), is(true));
+    }
+
+    @Test
+    public void shouldPublishOverdueTimerOnTimeout() throws Exception
+    {
+        publisher.schedule(now - MILLI, 9);
+        Thread.sleep(5);
+
+        publisher.onTimeout(-1L);
+
+        assertThat(ringBuffer.getCursor(), is(0L));
+        assertThat(ringBuffer.get(0).getValue(), is(9));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectWheelSizeNotPowerOfTwo() throws Exception
+    {
+        newPublisher(4, 6, 2);
+    }
+
+    private ScheduledRingPublisher<StubEvent, Integer> newPublisher(
+        final int capacity, final int wheelSize, final int batchSize)
+    {
+        return new ScheduledRingPublisher<StubEvent, Integer>(
+            ringBuffer, TRANSLATOR, capacity, wheelSize, 1, TimeUnit.MILLISECONDS, batchSize);
+    }
+}
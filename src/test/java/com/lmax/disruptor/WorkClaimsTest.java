@@ -0,0 +1,87 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+public class WorkClaimsTest
+{
+    private final Sequence workSequence = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final Sequence first = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final Sequence second = new Sequence(Sequencer.INITIAL_CURSOR_VALUE);
+    private final WorkClaims claims = new WorkClaims(workSequence, 2, 8);
+
+    @Test
+    public void shouldClaimSingleSequenceWithoutBacklog() throws Exception
+    {
+        assertThat(claims.next(0, first, Long.MIN_VALUE), is(0L));
+        assertThat(workSequence.get(), is(0L));
+        assertThat(first.get(), is(-1L));
+    }
+
+    @Test
+    public void shouldClaimHalfOfBacklogUpToMaximum() throws Exception
+    {
+        assertThat(claims.next(0, first, 5L), is(0L));
+        assertThat(workSequence.get(), is(2L));
+
+        assertThat(claims.next(0, first, 5L), is(1L));
+        assertThat(first.get(), is(0L));
+        assertThat(claims.next(0, first, 5L), is(2L));
+
+        assertThat(claims.next(0, first, 100L), is(3L));
+        assertThat(workSequence.get(), is(10L));
+    }
+
+    @Test
+    public void shouldStealTailOfAnotherClaim() throws Exception
+    {
+        assertThat(claims.next(0, first, 15L), is(0L));
+        assertThat(workSequence.get(), is(7L));
+
+        assertThat(claims.next(1, second, 15L), is(4L));
+        assertThat(second.get(), is(3L));
+        assertThat(workSequence.get(), is(7L));
+
+        assertThat(claims.next(0, first, 15L), is(1L));
+        assertThat(claims.next(0, first, 15L), is(2L));
+        assertThat(claims.next(0, first, 15L), is(3L));
+        assertThat(claims.next(1, second, 15L), is(5L));
+        assertThat(claims.next(0, first, 15L), is(7L));
+        assertThat(first.get(), is(6L));
+        assertThat(claims.next(1, second, 15L), is(6L));
+        assertThat(claims.next(0, first, 15L), is(8L));
+    }
+
+    @Test
+    public void shouldKeepRestOfClaimGatedOnRelease() throws Exception
+    {
+        claims.next(0, first, 15L);
+        claims.next(0, first, 15L);
+
+        assertThat(claims.releaseSequence(0), is(1L));
+        assertThat(claims.releaseSequence(1), is(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNonPositiveBatchClaim() throws Exception
+    {
+        new WorkClaims(workSequence, 2, 0);
+    }
+}
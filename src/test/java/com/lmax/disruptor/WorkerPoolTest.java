@@ -56,6 +56,59 @@ public class WorkerPoolTest
         assertThat(ringBuffer.get(1).get(), is(0L));
     }
 
+    @SuppressWarnings("unchecked")
+    @Test
+    public void shouldProcessEachMessageOnceWithBatchClaims() throws Exception
+    {
+        final int count = 20000;
+        final AtomicLong total = new AtomicLong();
+        final AtomicLong processed = new AtomicLong();
+        final RingBuffer<AtomicLong> ringBuffer =
+            RingBuffer.createSingleProducer(new AtomicLongEventFactory(), 64, new BlockingWaitStrategy());
+        final WorkerPool<AtomicLong> pool = new WorkerPool<AtomicLong>(
+            ringBuffer, ringBuffer.newBarrier(), new FatalExceptionHandler(), 16,
+            new SummingWorkHandler(total, processed, 0), new SummingWorkHandler(total, processed, 0),
+            new SummingWorkHandler(total, processed, 1000));
+        ringBuffer.addGatingSequences(pool.getWorkerSequences());
+
+        pool.start(Executors.newCachedThreadPool(DaemonThreadFactory.INSTANCE));
+        for (int i = 0; i < count; i++)
+        {
+            final long sequence = ringBuffer.next();
+            ringBuffer.get(sequence).set(i);
+            ringBuffer.publish(sequence);
+        }
+        pool.drainAndHalt();
+
+        assertThat(processed.get(), is((long) count));
+        assertThat(total.get(), is((long) count * (count - 1) / 2));
+    }
+
+    private static class SummingWorkHandler implements WorkHandler<AtomicLong>
+    {
+        private final AtomicLong total;
+        private final AtomicLong processed;
+        private final int pauseEvery;
+
+        SummingWorkHandler(final AtomicLong total, final AtomicLong processed, final int pauseEvery)
+        {
+            this.total = total;
+            this.processed = processed;
+            this.pauseEvery = pauseEvery;
+        }
+
+        @Override
+        public void onEvent(final AtomicLong event) throws Exception
+        {
+            total.addAndGet(event.get());
+            final long done = processed.incrementAndGet();
+            if (0 != pauseEvery && 0 == done % pauseEvery)
+            {
+                Thread.sleep(1);
+            }
+        }
+    }
+
     private static class AtomicLongWorkHandler implements WorkHandler<AtomicLong>
     {
         @Override
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+public final class ConcurrentHistogramTest
+{
+    private final ConcurrentHistogram histogram = new ConcurrentHistogram(3600L * 1000L * 1000L, 3);
+
+    @Test
+    public void shouldBeEmptyInitially()
+    {
+        assertThat(histogram.getTotalCount(), is(0L));
+        assertThat(histogram.getMin(), is(Long.MAX_VALUE));
+        assertThat(histogram.getMax(), is(0L));
+        assertThat(histogram.getValueAtPercentile(99.0d), is(0L));
+    }
+
+    @Test
+    public void shouldCountSmallValuesExactly()
+    {
+        for (long value = 0; value < 2048; value++)
+        {
+            histogram.recordValue(value);
+        }
+
+        assertThat(histogram.getTotalCount(), is(2048L));
+        assertThat(histogram.getCountAtValue(1000L), is(1L));
+        assertThat(histogram.getValueAtPercentile(50.0d), is(1023L));
+        assertThat(histogram.getMin(), is(0L));
+        assertThat(histogram.getMax(), is(2047L));
+    }
+
+    @Test
+    public void shouldReportPercentilesWithinPrecision()
+    {
+        for (long value = 1; value <= 1000000; value++)
+        {
+            histogram.recordValue(value * 10L);
+        }
+
+        assertWithinPrecision(histogram.getValueAtPercentile(50.0d), 5000000L);
+        assertWithinPrecision(histogram.getValueAtPercentile(99.0d), 9900000L);
+        assertWithinPrecision(histogram.getValueAtPercentile(99.99d), 9999000L);
+        assertThat(histogram.getValueAtPercentile(100.0d), is(10000000L));
+        assertWithinPrecision((long) histogram.getMean(), 5000005L);
+    }
+
+    @Test
+    public void shouldClampValuesAboveHighestTrackable()
+    {
+        histogram.recordValue(Long.MAX_VALUE);
+
+        assertThat(histogram.getTotalCount(), is(1L));
+        assertThat(histogram.getMax(), is(Long.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectNegativeValues()
+    {
+        histogram.recordValue(-1L);
+    }
+
+    @Test
+    public void shouldRecordFromManyThreads() throws Exception
+    {
+        final int threads = 4;
+        final int perThread = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++)
+        {
+            final long offset = t;
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for (int i = 0; i < perThread; i++)
+                    {
+                        histogram.recordValue(i + offset);
+                    }
+                    done.countDown();
+                }
+            }.start();
+        }
+        done.await();
+
+        assertThat(histogram.getTotalCount(), is((long) threads * perThread));
+        assertThat(histogram.getMin(), is(0L));
+        assertThat(histogram.getMax(), is((long) perThread - 1 + threads - 1));
+    }
+
+    @Test
+    public void shouldAddHistograms()
+    {
+        final ConcurrentHistogram other = new ConcurrentHistogram(3600L * 1000L * 1000L, 3);
+        histogram.recordValue(10L);
+        other.recordValue(5L);
+        other.recordValue(20000L);
+
+        histogram.add(other);
+
+        assertThat(histogram.getTotalCount(), is(3L));
+        assertThat(histogram.getMin(), is(5L));
+        assertThat(histogram.getMax(), is(20000L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotAddHistogramsWithDifferentConfiguration()
+    {
+        histogram.add(new ConcurrentHistogram(1000L, 2));
+    }
+
+    @Test
+    public void shouldEncodeAndDecode()
+    {
+        histogram.recordValue(7L);
+        histogram.recordValue(7L);
+        histogram.recordValue(123456789L);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getMaxEncodedLength());
+        final int length = histogram.encodeInto(buffer);
+        buffer.flip();
+
+        assertThat(buffer.remaining(), is(length));
+        final ConcurrentHistogram decoded = ConcurrentHistogram.decodeFrom(buffer);
+        assertThat(decoded.getTotalCount(), is(3L));
+        assertThat(decoded.getCountAtValue(7L), is(2L));
+        assertThat(decoded.getMin(), is(7L));
+        assertThat(decoded.getMax(), is(123456789L));
+        assertThat(decoded.getValueAtPercentile(100.0d), is(123456789L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectTruncatedEncoding()
+    {
+        histogram.recordValue(7L);
+        histogram.recordValue(123456789L);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getMaxEncodedLength());
+        final int length = histogram.encodeInto(buffer);
+        buffer.flip();
+        buffer.limit(length - 1);
+
+        ConcurrentHistogram.decodeFrom(buffer);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectEncodedEntryOutOfRange()
+    {
+        histogram.recordValue(7L);
+
+        final ByteBuffer buffer = ByteBuffer.allocate(histogram.getMaxEncodedLength());
+        final int length = histogram.encodeInto(buffer);
+        buffer.putInt(length - 12, Integer.MAX_VALUE);
+        buffer.flip();
+
+        ConcurrentHistogram.decodeFrom(buffer);
+    }
+
+    private static void assertWithinPrecision(final long actual, final long expected)
+    {
+        assertTrue(actual + " not within 0.1% of " + expected, Math.abs(actual - expected) <= expected / 1000L);
+    }
+}
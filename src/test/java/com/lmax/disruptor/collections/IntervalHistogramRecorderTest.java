@@ -0,0 +1,76 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import static org.hamcrest.core.Is.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Test;
+
+public final class IntervalHistogramRecorderTest
+{
+    private final IntervalHistogramRecorder recorder = new IntervalHistogramRecorder(1000L * 1000L, 2);
+
+    @Test
+    public void shouldReturnValuesOfEachInterval()
+    {
+        recorder.recordValue(10L);
+        recorder.recordValue(20L);
+
+        final ConcurrentHistogram first = recorder.getIntervalHistogram();
+        assertThat(first.getTotalCount(), is(2L));
+        assertThat(first.getMax(), is(20L));
+
+        recorder.recordValue(30L);
+        final ConcurrentHistogram second = recorder.getIntervalHistogram();
+        assertThat(second.getTotalCount(), is(1L));
+        assertThat(second.getMin(), is(30L));
+    }
+
+    @Test
+    public void shouldNotLoseValuesRecordedDuringSwaps() throws Exception
+    {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final long[] recorded = new long[1];
+        final Thread writer = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                long count = 0;
+                while (running.get())
+                {
+                    recorder.recordValue(count++ & 1023);
+                }
+                recorded[0] = count;
+            }
+        };
+        writer.start();
+
+        final ConcurrentHistogram total = new ConcurrentHistogram(1000L * 1000L, 2);
+        for (int i = 0; i < 100; i++)
+        {
+            recorder.addIntervalHistogramTo(total);
+        }
+        running.set(false);
+        writer.join();
+        recorder.addIntervalHistogramTo(total);
+
+        assertThat(total.getTotalCount(), is(recorded[0]));
+    }
+}
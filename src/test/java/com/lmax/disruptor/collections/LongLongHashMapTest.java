@@ -0,0 +1,110 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class LongLongHashMapTest
+{
+    private static final long MISSING = -1L;
+
+    private final LongLongHashMap map = new LongLongHashMap(4, MISSING);
+
+    @Test
+    public void shouldPutGetAndRemove() throws Exception
+    {
+        assertThat(map.get(7L), is(MISSING));
+        assertThat(map.put(7L, 70L), is(MISSING));
+        assertThat(map.put(7L, 71L), is(70L));
+        assertThat(map.get(7L), is(71L));
+        assertThat(map.containsKey(7L), is(true));
+        assertThat(map.size(), is(1));
+
+        assertThat(map.remove(7L), is(71L));
+        assertThat(map.remove(7L), is(MISSING));
+        assertThat(map.isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldGrowPastInitialCapacity() throws Exception
+    {
+        for (long key = 0; key < 1000; key++)
+        {
+            map.put(key << 20, key);
+        }
+
+        assertThat(map.size(), is(1000));
+        for (long key = 0; key < 1000; key++)
+        {
+            assertThat(map.get(key << 20), is(key));
+        }
+    }
+
+    @Test
+    public void shouldMatchHashMapUnderRandomUpdates() throws Exception
+    {
+        final Map<Long, Long> expected = new HashMap<Long, Long>();
+        final Random random = new Random(42L);
+
+        for (int i = 0; i < 100000; i++)
+        {
+            final long key = random.nextInt(256);
+            if (random.nextBoolean())
+            {
+                final Long previous = expected.put(key, (long) i);
+                assertThat(map.put(key, i), is(null == previous ? MISSING : previous));
+            }
+            else
+            {
+                final Long previous = expected.remove(key);
+                assertThat(map.remove(key), is(null == previous ? MISSING : previous));
+            }
+        }
+
+        assertThat(map.size(), is(expected.size()));
+        for (long key = 0; key < 256; key++)
+        {
+            final Long value = expected.get(key);
+            assertThat(map.get(key), is(null == value ? MISSING : value));
+        }
+    }
+
+    @Test
+    public void shouldKeepCapacityOnClear() throws Exception
+    {
+        map.put(1L, 10L);
+        map.put(2L, 20L);
+        map.clear();
+
+        assertThat(map.size(), is(0));
+        assertThat(map.get(1L), is(MISSING));
+        map.put(2L, 21L);
+        assertThat(map.get(2L), is(21L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldNotStoreMissingValue() throws Exception
+    {
+        map.put(1L, MISSING);
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.SleepingProducerWaitStrategy;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class RingBufferBlockingQueueTest
+{
+    @Test
+    public void shouldOfferAndPollInOrder() throws Exception
+    {
+        final BlockingQueue<Integer> queue = singleConsumer(4);
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertThat(queue.offer(i), is(true));
+        }
+        assertThat(queue.offer(4), is(false));
+        assertThat(queue.size(), is(4));
+        assertThat(queue.remainingCapacity(), is(0));
+        assertThat(queue.peek(), is(0));
+
+        for (int i = 0; i < 4; i++)
+        {
+            assertThat(queue.poll(), is(i));
+        }
+        assertThat(queue.poll(), is(nullValue()));
+        assertThat(queue.isEmpty(), is(true));
+        assertThat(queue.offer(4), is(true));
+        assertThat(queue.poll(), is(4));
+    }
+
+    @Test(expected = NullPointerException.class)
+    public void shouldRejectNullElements() throws Exception
+    {
+        singleConsumer(4).offer(null);
+    }
+
+    @Test
+    public void shouldTimeOutWhenFullOrEmpty() throws Exception
+    {
+        final BlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(2);
+
+        assertThat(queue.poll(1, TimeUnit.MILLISECONDS), is(nullValue()));
+        queue.put(1);
+        queue.put(2);
+        assertThat(queue.offer(3, 1, TimeUnit.MILLISECONDS), is(false));
+        assertThat(queue.take(), is(1));
+        assertThat(queue.offer(3, 1, TimeUnit.MILLISECONDS), is(true));
+    }
+
+    @Test
+    public void shouldDrainAcrossWrapPoint() throws Exception
+    {
+        final BlockingQueue<Integer> queue = singleConsumer(4);
+        final List<Integer> sink = new ArrayList<Integer>();
+
+        queue.offer(1);
+        queue.offer(2);
+        queue.offer(3);
+        assertThat(queue.drainTo(sink, 2), is(2));
+
+        queue.offer(4);
+        queue.offer(5);
+        queue.offer(6);
+        assertThat(queue.drainTo(sink), is(4));
+        assertThat(queue.drainTo(sink), is(0));
+
+        assertThat(sink, is(Arrays.asList(1, 2, 3, 4, 5, 6)));
+        assertThat(queue.remainingCapacity(), is(4));
+    }
+
+    @Test
+    public void shouldIterateOverSnapshot() throws Exception
+    {
+        final BlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4);
+        queue.offer(1);
+        queue.offer(2);
+        queue.poll();
+        queue.offer(3);
+
+        final Iterator<Integer> iterator = queue.iterator();
+        queue.offer(4);
+
+        assertThat(iterator.next(), is(2));
+        assertThat(iterator.next(), is(3));
+        assertThat(iterator.hasNext(), is(false));
+        assertThat(queue.contains(4), is(true));
+    }
+
+    @Test
+    public void shouldWakeConsumerBlockedInTake() throws Exception
+    {
+        final BlockingQueue<Integer> queue = new RingBufferBlockingQueue<Integer>(4);
+        final CountDownLatch taken = new CountDownLatch(1);
+        final Thread consumer = DaemonThreadFactory.INSTANCE.newThread(
+            new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try
+                    {
+                        if (queue.take() == 7)
+                        {
+                            taken.countDown();
+                        }
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        consumer.start();
+
+        Thread.sleep(10);
+        queue.put(7);
+        assertThat(taken.await(5, TimeUnit.SECONDS), is(true));
+    }
+
+    @Test
+    public void shouldHandOffEveryElementToManyConsumers() throws Exception
+    {
+        final BlockingQueue<Long> queue = new RingBufferBlockingQueue<Long>(16);
+        final int producers = 3;
+        final int consumers = 3;
+        final long perProducer = 20000L;
+        final AtomicLong total = new AtomicLong();
+        final CountDownLatch done = new CountDownLatch((int) (producers * perProducer));
+
+        for (int c = 0; c < consumers; c++)
+        {
+            final boolean draining = c == 0;
+            DaemonThreadFactory.INSTANCE.newThread(
+                new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        final List<Long> batch = new ArrayList<Long>();
+                        try
+                        {
+                            while (true)
+                            {
+                                if (draining && queue.drainTo(batch, 8) > 0)
+                                {
+                                    for (final Long value : batch)
+                                    {
+                                        consumed(value);
+                                    }
+                                    batch.clear();
+                                }
+                                else
+                                {
+                                    consumed(queue.take());
+                                }
+                            }
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+
+                    private void consumed(final long value)
+                    {
+                        total.addAndGet(value);
+                        done.countDown();
+                    }
+                }).start();
+        }
+
+        for (int p = 0; p < producers; p++)
+        {
+            DaemonThreadFactory.INSTANCE.newThread(
+                new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            for (long i = 1; i <= perProducer; i++)
+                            {
+                                queue.put(i);
+                            }
+                        }
+                        catch (InterruptedException e)
+                        {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                }).start();
+        }
+
+        assertThat(done.await(10, TimeUnit.SECONDS), is(true));
+        assertThat(total.get(), is(producers * perProducer * (perProducer + 1) / 2));
+        assertThat(queue.isEmpty(), is(true));
+    }
+
+    private static BlockingQueue<Integer> singleConsumer(final int capacity)
+    {
+        return new RingBufferBlockingQueue<Integer>(
+            ProducerType.SINGLE,
+            RingBufferBlockingQueue.ConsumerType.SINGLE,
+            capacity,
+            new BusySpinWaitStrategy(),
+            new SleepingProducerWaitStrategy());
+    }
+}
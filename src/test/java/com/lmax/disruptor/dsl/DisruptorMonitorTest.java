@@ -0,0 +1,177 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.dsl.stubs.DelayedEventHandler;
+import com.lmax.disruptor.support.TestEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class DisruptorMonitorTest
+{
+    private final Disruptor<TestEvent> disruptor =
+        new Disruptor<TestEvent>(TestEvent.EVENT_FACTORY, 16, DaemonThreadFactory.INSTANCE);
+    private final DelayedEventHandler slowHandler = new DelayedEventHandler();
+    private final NoOpHandler fastHandler = new NoOpHandler();
+    private DisruptorMonitor monitor;
+
+    @SuppressWarnings("unchecked")
+    private void startWithBacklog(final int events) throws Exception
+    {
+        disruptor.handleEventsWith(fastHandler).then(slowHandler);
+        disruptor.start();
+        slowHandler.awaitStart();
+        monitor = new DisruptorMonitor(disruptor);
+
+        for (int i = 0; i < events; i++)
+        {
+            disruptor.getRingBuffer().publish(disruptor.getRingBuffer().next());
+        }
+        while (disruptor.getSequenceValueFor(fastHandler) < events - 1)
+        {
+            Thread.yield();
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        slowHandler.stopWaiting();
+        if (null != monitor)
+        {
+            monitor.stop();
+            monitor.unregisterMBeans();
+        }
+        disruptor.halt();
+    }
+
+    @Test
+    public void shouldReportLagOfStageHoldingBackTheGate() throws Exception
+    {
+        startWithBacklog(3);
+
+        final DisruptorSnapshot snapshot = monitor.sample();
+
+        assertThat(snapshot.getCursor(), is(2L));
+        assertThat(snapshot.getOccupancy(), is(3L));
+        assertThat(snapshot.getStages().size(), is(2));
+
+        final DisruptorSnapshot.Stage fast = snapshot.getStages().get(0);
+        assertThat(fast.getName(), is("NoOpHandler"));
+        assertThat(fast.getSequence(), is(2L));
+        assertThat(fast.getLag(), is(0L));
+        assertThat(fast.isEndOfChain(), is(false));
+        assertThat(fast.isHoldingGate(), is(false));
+
+        final DisruptorSnapshot.Stage slow = snapshot.getStages().get(1);
+        assertThat(slow.getName(), is("DelayedEventHandler"));
+        assertThat(slow.getSequence(), is(-1L));
+        assertThat(slow.getUpstreamSequence(), is(2L));
+        assertThat(slow.getLag(), is(3L));
+        assertThat(slow.getBacklog(), is(3L));
+        assertThat(slow.isHoldingGate(), is(true));
+    }
+
+    @Test
+    public void shouldMeasureRatesBetweenSamples() throws Exception
+    {
+        startWithBacklog(2);
+        monitor.sample();
+
+        slowHandler.processEvent();
+        slowHandler.processEvent();
+        while (disruptor.getSequenceValueFor(slowHandler) < 1L)
+        {
+            Thread.yield();
+        }
+        Thread.sleep(10);
+
+        final DisruptorSnapshot snapshot = monitor.sample();
+        assertThat(snapshot.getPublishRate(), is(0.0d));
+        assertTrue(snapshot.getStages().get(1).getConsumeRate() > 0.0d);
+        assertThat(snapshot.getOccupancy(), is(0L));
+    }
+
+    @Test
+    public void shouldSampleOnStart() throws Exception
+    {
+        startWithBacklog(1);
+        monitor.start(1, TimeUnit.MILLISECONDS);
+
+        while (null == monitor.getLastSnapshot())
+        {
+            Thread.yield();
+        }
+        assertThat(monitor.getLastSnapshot().getCursor(), is(0L));
+    }
+
+    @Test
+    public void shouldExposeStagesAsMBeans() throws Exception
+    {
+        startWithBacklog(4);
+        monitor.registerMBeans("monitor-test");
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName ring = new ObjectName("com.lmax.disruptor:type=Disruptor,name=\"monitor-test\"");
+        final ObjectName slow = new ObjectName(
+            "com.lmax.disruptor:type=Stage,disruptor=\"monitor-test\",index=1,name=\"DelayedEventHandler\"");
+
+        assertThat((Long) server.getAttribute(ring, "Occupancy"), is(4L));
+        assertThat((Long) server.getAttribute(slow, "Lag"), is(4L));
+        assertThat((Boolean) server.getAttribute(slow, "HoldingGate"), is(true));
+
+        monitor.unregisterMBeans();
+        assertThat(server.isRegistered(ring), is(false));
+    }
+
+    @Test
+    public void shouldMeasureMBeanRatesSinceLastSample() throws Exception
+    {
+        startWithBacklog(1);
+        monitor.registerMBeans("monitor-rate-test");
+
+        disruptor.getRingBuffer().publish(disruptor.getRingBuffer().next());
+        disruptor.getRingBuffer().publish(disruptor.getRingBuffer().next());
+        Thread.sleep(10);
+
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName ring = new ObjectName("com.lmax.disruptor:type=Disruptor,name=\"monitor-rate-test\"");
+        assertThat((Long) server.getAttribute(ring, "Cursor"), is(2L));
+        assertTrue((Double) server.getAttribute(ring, "PublishRate") > 0.0d);
+        assertThat(monitor.getLastSnapshot().getCursor(), is(0L));
+    }
+
+    private static final class NoOpHandler implements EventHandler<TestEvent>
+    {
+        @Override
+        public void onEvent(final TestEvent event, final long sequence, final boolean endOfBatch)
+        {
+        }
+    }
+}
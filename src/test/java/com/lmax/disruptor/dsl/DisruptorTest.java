@@ -19,9 +19,11 @@ import com.lmax.disruptor.BatchEventProcessor;
 import com.lmax.disruptor.BlockingWaitStrategy;
 import com.lmax.disruptor.EventHandler;
 import com.lmax.disruptor.EventProcessor;
+import com.lmax.disruptor.EventProcessorMetrics;
 import com.lmax.disruptor.EventTranslator;
 import com.lmax.disruptor.ExceptionHandler;
 import com.lmax.disruptor.FatalExceptionHandler;
+import com.lmax.disruptor.NoOpEventProcessor;
 import com.lmax.disruptor.RingBuffer;
 import com.lmax.disruptor.Sequence;
 import com.lmax.disruptor.SequenceBarrier;
@@ -310,6 +312,26 @@ public class DisruptorTest
         disruptor.after(createDelayedEventHandler()).handleEventsWith(createDelayedEventHandler());
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectListenerForHandlerNotRunByBatchEventProcessor()
+        throws Exception
+    {
+        final DelayedEventHandler handler = createDelayedEventHandler();
+        disruptor.getConsumerRepository().add(new NoOpEventProcessor(ringBuffer), handler, null);
+
+        disruptor.setEventProcessorListenerFor(handler, new EventProcessorMetrics());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchSizeForHandlerNotRunByBatchEventProcessor()
+        throws Exception
+    {
+        final DelayedEventHandler handler = createDelayedEventHandler();
+        disruptor.getConsumerRepository().add(new NoOpEventProcessor(ringBuffer), handler, null);
+
+        disruptor.setBatchSizeFor(handler, 1, 16);
+    }
+
     @Test(expected = IllegalArgumentException.class)
     public void shouldTrackEventHandlersByIdentityNotEquality()
         throws Exception
@@ -0,0 +1,152 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.dsl;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.EventTranslatorTwoArg;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class ShardedDisruptorTest
+{
+    private static final int SHARDS = 4;
+
+    private static final ShardKeyFunction<long[]> KEY_FUNCTION = new ShardKeyFunction<long[]>()
+    {
+        @Override
+        public long keyFor(final long[] arg)
+        {
+            return arg[0];
+        }
+    };
+
+    private static final EventTranslatorOneArg<LongEvent, long[]> TRANSLATOR =
+        new EventTranslatorOneArg<LongEvent, long[]>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final long[] arg)
+            {
+                event.set(arg[0] * 1000000L + arg[1]);
+            }
+        };
+
+    private final ShardedDisruptor<LongEvent> sharded = new ShardedDisruptor<LongEvent>(
+        LongEvent.FACTORY, 64, DaemonThreadFactory.INSTANCE, ProducerType.MULTI, new BlockingWaitStrategy(), SHARDS);
+
+    @Test
+    public void shouldRouteEventsForAKeyToOneShardInOrder() throws Exception
+    {
+        final int keys = 32;
+        final int perKey = 100;
+        final CountDownLatch latch = new CountDownLatch(keys * perKey);
+        final AtomicInteger outOfOrder = new AtomicInteger();
+        final AtomicInteger misrouted = new AtomicInteger();
+
+        for (int i = 0; i < SHARDS; i++)
+        {
+            final int shardIndex = i;
+            sharded.shard(i).handleEventsWith(
+                new EventHandler<LongEvent>()
+                {
+                    private final Map<Long, Long> lastByKey = new HashMap<Long, Long>();
+
+                    @Override
+                    public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                    {
+                        final long key = event.get() / 1000000L;
+                        final long count = event.get() % 1000000L;
+                        final Long last = lastByKey.put(key, count);
+                        if (null != last && last.longValue() + 1 != count)
+                        {
+                            outOfOrder.incrementAndGet();
+                        }
+                        if (sharded.shardFor(key) != shardIndex)
+                        {
+                            misrouted.incrementAndGet();
+                        }
+                        latch.countDown();
+                    }
+                });
+        }
+        sharded.start();
+
+        for (long count = 0; count < perKey; count++)
+        {
+            for (long key = 0; key < keys; key++)
+            {
+                sharded.publishEvent(KEY_FUNCTION, TRANSLATOR, new long[]{key, count});
+            }
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        sharded.shutdown(5, TimeUnit.SECONDS);
+
+        assertThat(outOfOrder.get(), is(0));
+        assertThat(misrouted.get(), is(0));
+    }
+
+    @Test
+    public void shouldSpreadSequentialKeysAcrossShards() throws Exception
+    {
+        final int[] counts = new int[SHARDS];
+        for (long key = 0; key < 1000; key++)
+        {
+            counts[sharded.shardFor(key)]++;
+        }
+
+        for (final int count : counts)
+        {
+            assertThat(count > 150, is(true));
+        }
+    }
+
+    @Test
+    public void shouldPublishWithExplicitKey() throws Exception
+    {
+        final long key = 42L;
+        final int shardIndex = sharded.shardFor(key);
+
+        sharded.publishEvent(
+            key,
+            new EventTranslatorTwoArg<LongEvent, Long, Long>()
+            {
+                @Override
+                public void translateTo(final LongEvent event, final long sequence, final Long arg0, final Long arg1)
+                {
+                    event.set(arg0.longValue() + arg1.longValue());
+                }
+            }, Long.valueOf(3), Long.valueOf(4));
+
+        for (int i = 0; i < SHARDS; i++)
+        {
+            assertThat(sharded.shard(i).getCursor(), is(i == shardIndex ? 0L : -1L));
+        }
+        assertThat(sharded.shard(shardIndex).get(0).get(), is(7L));
+    }
+}
@@ -69,7 +69,7 @@ class BatchedPoller<T>
                 T item = event.copyOfData();
                 return item != null ? batch.addDataItem(item) : false;
             }
-        });
+        }, maxBatchSize);
     }
 
     public static class DataEvent<T>
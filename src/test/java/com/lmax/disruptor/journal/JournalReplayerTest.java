@@ -0,0 +1,247 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class JournalReplayerTest
+{
+    private static final EventSerializer<LongEvent> SERIALIZER = new EventSerializer<LongEvent>()
+    {
+        @Override
+        public void serialize(final LongEvent event, final ByteBuffer buffer)
+        {
+            buffer.putLong(event.get());
+        }
+    };
+
+    private static final EventTranslatorOneArg<LongEvent, ByteBuffer> TRANSLATOR =
+        new EventTranslatorOneArg<LongEvent, ByteBuffer>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final ByteBuffer payload)
+            {
+                event.set(payload.getLong());
+            }
+        };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldReadRecordsAcrossSegments() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        writeJournal(directory, 0, 10);
+
+        final JournalReader reader = new JournalReader(directory);
+        long expected = 0;
+        while (reader.next())
+        {
+            assertThat(reader.getSequence(), is(expected));
+            assertThat(reader.getPayload().getLong(), is(expected * 10));
+            expected++;
+        }
+
+        assertThat(expected, is(10L));
+        assertThat(reader.getSegmentIndex() > 0, is(true));
+    }
+
+    @Test
+    public void shouldRecoverAfterTornRecord() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        writeJournal(directory, 0, 3);
+
+        final RandomAccessFile raf = new RandomAccessFile(JournalSegments.segmentFile(directory, 0), "rw");
+        try
+        {
+            raf.seek(40);
+            raf.writeInt(0);
+        }
+        finally
+        {
+            raf.close();
+        }
+
+        final JournalWriter writer = new JournalWriter(directory, 64, 8, false);
+        assertThat(writer.getLastSequence(), is(1L));
+
+        final LongEvent event = new LongEvent();
+        event.set(-2L);
+        writer.append(2, event, SERIALIZER);
+        writer.close();
+
+        final JournalReader reader = new JournalReader(directory);
+        assertThat(reader.next(), is(true));
+        assertThat(reader.next(), is(true));
+        assertThat(reader.next(), is(true));
+        assertThat(reader.getSequence(), is(2L));
+        assertThat(reader.getPayload().getLong(), is(-2L));
+        assertThat(reader.next(), is(false));
+    }
+
+    @Test
+    public void shouldReplayJournalWithoutJournalingItAgain() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        final int count = 100;
+        writeJournal(directory, 0, count);
+
+        final JournalWriter writer = new JournalWriter(directory, 64, 8, false);
+        final Disruptor<LongEvent> disruptor = newDisruptor();
+        final JournalReplayer<LongEvent> replayer =
+            new JournalReplayer<LongEvent>(directory, disruptor.getRingBuffer(), TRANSLATOR, 16);
+        assertThat(replayer.restoreCursor(), is(-1L));
+
+        final JournalingEventHandler<LongEvent> journaler =
+            new JournalingEventHandler<LongEvent>(writer, SERIALIZER, true);
+        final RecordingHandler recorder = new RecordingHandler(count + 1);
+        disruptor.handleEventsWith(journaler);
+        disruptor.after(journaler).handleEventsWith(recorder);
+        disruptor.start();
+
+        assertThat(replayer.replay(), is((long) count - 1));
+
+        final LongEvent event = new LongEvent();
+        event.set(1000L);
+        disruptor.getRingBuffer().publishEvent(
+            new EventTranslatorOneArg<LongEvent, LongEvent>()
+            {
+                @Override
+                public void translateTo(final LongEvent target, final long sequence, final LongEvent source)
+                {
+                    target.set(source.get());
+                }
+            }, event);
+
+        assertThat(recorder.latch.await(5, TimeUnit.SECONDS), is(true));
+        disruptor.shutdown();
+
+        assertThat(recorder.total.get(), is(10L * count * (count - 1) / 2 + 1000L));
+        assertThat(writer.getLastSequence(), is((long) count));
+
+        final JournalReader reader = new JournalReader(directory);
+        long records = 0;
+        while (reader.next())
+        {
+            assertThat(reader.getSequence(), is(records++));
+        }
+        assertThat(records, is((long) count + 1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectEventsBelowJournalWhenNotReplaying() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        writeJournal(directory, 0, 3);
+
+        final JournalWriter writer = new JournalWriter(directory, 64, 8, false);
+        new JournalingEventHandler<LongEvent>(writer, SERIALIZER).onEvent(new LongEvent(), 0, true);
+    }
+
+    @Test
+    public void shouldRestoreOriginalSequences() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        writeJournal(directory, 1000, 20);
+
+        final Disruptor<LongEvent> disruptor = newDisruptor();
+        final RingBuffer<LongEvent> ringBuffer = disruptor.getRingBuffer();
+        final JournalReplayer<LongEvent> replayer = new JournalReplayer<LongEvent>(directory, ringBuffer, TRANSLATOR, 8);
+        assertThat(replayer.restoreCursor(), is(999L));
+
+        final RecordingHandler recorder = new RecordingHandler(20);
+        disruptor.handleEventsWith(recorder);
+        disruptor.start();
+
+        assertThat(replayer.replay(), is(1019L));
+        assertThat(recorder.latch.await(5, TimeUnit.SECONDS), is(true));
+        disruptor.shutdown();
+
+        assertThat(recorder.firstSequence.get(), is(1000L));
+        assertThat(ringBuffer.get(1019).get(), is(10190L));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectJournalWithGap() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        writeJournal(directory, 5, 3);
+
+        final RingBuffer<LongEvent> ringBuffer = RingBuffer.createSingleProducer(LongEvent.FACTORY, 16);
+        new JournalReplayer<LongEvent>(directory, ringBuffer, TRANSLATOR, 4).replay();
+    }
+
+    private static void writeJournal(final File directory, final long firstSequence, final int count) throws Exception
+    {
+        final JournalWriter writer = new JournalWriter(directory, 64, 8, false);
+        final LongEvent event = new LongEvent();
+        for (long sequence = firstSequence; sequence < firstSequence + count; sequence++)
+        {
+            event.set(sequence * 10);
+            writer.append(sequence, event, SERIALIZER);
+        }
+        writer.close();
+    }
+
+    private static Disruptor<LongEvent> newDisruptor()
+    {
+        return new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 32, DaemonThreadFactory.INSTANCE, ProducerType.SINGLE, new BlockingWaitStrategy());
+    }
+
+    private static final class RecordingHandler implements EventHandler<LongEvent>
+    {
+        private final AtomicLong total = new AtomicLong();
+        private final AtomicLong firstSequence = new AtomicLong(-1);
+        private final CountDownLatch latch;
+
+        private RecordingHandler(final int expected)
+        {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+        {
+            firstSequence.compareAndSet(-1, sequence);
+            total.addAndGet(event.get());
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.LongEvent;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class JournalWriterTest
+{
+    private static final EventSerializer<LongEvent> SERIALIZER = new EventSerializer<LongEvent>()
+    {
+        @Override
+        public void serialize(final LongEvent event, final ByteBuffer buffer)
+        {
+            buffer.putLong(event.get());
+        }
+    };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void shouldWriteRecordsWithLengthSequenceAndPayload() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        final JournalWriter writer = new JournalWriter(directory, 1024, 8, false);
+
+        final LongEvent event = new LongEvent();
+        event.set(77L);
+        writer.append(0, event, SERIALIZER);
+        event.set(78L);
+        writer.append(1, event, SERIALIZER);
+        writer.close();
+
+        final ByteBuffer segment = readSegment(JournalSegments.segmentFile(directory, 0));
+        assertThat(segment.getInt(0), is(20));
+        assertThat(segment.getLong(4), is(0L));
+        assertThat(segment.getLong(12), is(77L));
+        assertThat(segment.getInt(20), is(20));
+        assertThat(segment.getLong(24), is(1L));
+        assertThat(segment.getLong(32), is(78L));
+        assertThat(segment.getInt(40), is(0));
+        assertThat(writer.getLastSequence(), is(1L));
+    }
+
+    @Test
+    public void shouldRollToNewSegmentWhenFull() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        final JournalWriter writer = new JournalWriter(directory, 64, 8, true);
+
+        final LongEvent event = new LongEvent();
+        for (long i = 0; i < 5; i++)
+        {
+            event.set(i);
+            writer.append(i, event, SERIALIZER);
+        }
+        writer.close();
+
+        final ByteBuffer first = readSegment(JournalSegments.segmentFile(directory, 0));
+        assertThat(first.getInt(40), is(20));
+        assertThat(first.getInt(60), is(JournalSegments.END_OF_SEGMENT));
+
+        final ByteBuffer second = readSegment(JournalSegments.segmentFile(directory, 3));
+        assertThat(second.getLong(4), is(3L));
+        assertThat(second.getLong(24), is(4L));
+        assertThat(second.getLong(32), is(4L));
+    }
+
+    @Test
+    public void shouldKeepRecordsWhenReopenedWithSmallerSegmentSize() throws Exception
+    {
+        final File directory = folder.newFolder("journal");
+        final JournalWriter writer = new JournalWriter(directory, 1024, 8, false);
+        final LongEvent event = new LongEvent();
+        for (long i = 0; i < 10; i++)
+        {
+            event.set(i);
+            writer.append(i, event, SERIALIZER);
+        }
+        writer.close();
+
+        final JournalWriter reopened = new JournalWriter(directory, 64, 8, false);
+        assertThat(reopened.getLastSequence(), is(9L));
+        event.set(10L);
+        reopened.append(10, event, SERIALIZER);
+        reopened.close();
+
+        final File file = JournalSegments.segmentFile(directory, 0);
+        assertThat(file.length(), is(1024L));
+        final ByteBuffer segment = readSegment(file);
+        assertThat(segment.getLong(9 * 20 + 4), is(9L));
+        assertThat(segment.getLong(9 * 20 + 12), is(9L));
+        assertThat(segment.getLong(10 * 20 + 4), is(10L));
+        assertThat(segment.getLong(10 * 20 + 12), is(10L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectSegmentSmallerThanMaxRecord() throws Exception
+    {
+        new JournalWriter(folder.newFolder("journal"), 16, 8, false);
+    }
+
+    @Test
+    public void shouldOnlyReleaseEventsDownstreamOnceJournaled() throws Exception
+    {
+        final int count = 1000;
+        final JournalWriter writer = new JournalWriter(folder.newFolder("journal"), 4096, 8, true);
+        final JournalingEventHandler<LongEvent> journaler = new JournalingEventHandler<LongEvent>(writer, SERIALIZER);
+        final AtomicLong unjournaled = new AtomicLong();
+        final CountDownLatch latch = new CountDownLatch(count);
+
+        final Disruptor<LongEvent> disruptor = new Disruptor<LongEvent>(
+            LongEvent.FACTORY, 64, DaemonThreadFactory.INSTANCE, ProducerType.SINGLE, new BlockingWaitStrategy());
+        disruptor.handleEventsWith(journaler);
+        disruptor.after(journaler).handleEventsWith(
+            new EventHandler<LongEvent>()
+            {
+                @Override
+                public void onEvent(final LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    if (writer.getLastSequence() < sequence)
+                    {
+                        unjournaled.incrementAndGet();
+                    }
+                    latch.countDown();
+                }
+            });
+        disruptor.start();
+
+        final EventTranslatorOneArg<LongEvent, Long> translator = new EventTranslatorOneArg<LongEvent, Long>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final Long value)
+            {
+                event.set(value.longValue());
+            }
+        };
+        for (long i = 0; i < count; i++)
+        {
+            disruptor.publishEvent(translator, Long.valueOf(i));
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        disruptor.shutdown();
+
+        assertThat(unjournaled.get(), is(0L));
+        assertThat(writer.getLastSequence(), is((long) count - 1));
+    }
+
+    private static ByteBuffer readSegment(final File file) throws Exception
+    {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try
+        {
+            final byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        finally
+        {
+            raf.close();
+        }
+    }
+}
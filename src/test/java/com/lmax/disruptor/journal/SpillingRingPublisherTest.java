@@ -0,0 +1,186 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.journal;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventTranslatorOneArg;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.support.LongEvent;
+
+public class SpillingRingPublisherTest
+{
+    private static final EventTranslatorOneArg<LongEvent, Long> TRANSLATOR =
+        new EventTranslatorOneArg<LongEvent, Long>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final Long value)
+            {
+                event.set(value);
+            }
+        };
+
+    private static final EventSerializer<Long> SERIALIZER = new EventSerializer<Long>()
+    {
+        @Override
+        public void serialize(final Long value, final ByteBuffer buffer)
+        {
+            buffer.putLong(value);
+        }
+    };
+
+    private static final EventTranslatorOneArg<LongEvent, ByteBuffer> REPLAY_TRANSLATOR =
+        new EventTranslatorOneArg<LongEvent, ByteBuffer>()
+        {
+            @Override
+            public void translateTo(final LongEvent event, final long sequence, final ByteBuffer payload)
+            {
+                event.set(payload.getLong());
+            }
+        };
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final RingBuffer<LongEvent> ringBuffer =
+        RingBuffer.createSingleProducer(LongEvent.FACTORY, 8, new BlockingWaitStrategy());
+    private final Sequence consumer = new Sequence();
+
+    {
+        ringBuffer.addGatingSequences(consumer);
+    }
+
+    @Test
+    public void shouldSpillAboveHighWaterMarkAndFeedBackInOrder() throws Exception
+    {
+        final File directory = folder.newFolder("overflow");
+        final SpillingRingPublisher<LongEvent, Long> publisher = newPublisher(directory);
+
+        for (long i = 0; i < 4; i++)
+        {
+            assertThat(publisher.publish(i), is(true));
+        }
+        for (long i = 4; i < 10; i++)
+        {
+            assertThat(publisher.publish(i), is(false));
+        }
+        assertThat(publisher.getSpilledCount(), is(6L));
+        assertThat(JournalSegments.listSegments(directory).length > 1, is(true));
+
+        consumer.set(1);
+        assertThat(publisher.refill(), is(4L));
+        assertThat(ringBuffer.getCursor(), is(5L));
+
+        assertThat(publisher.publish(10L), is(false));
+
+        consumer.set(5);
+        assertThat(publisher.refill(), is(1L));
+        consumer.set(9);
+        assertThat(publisher.refill(), is(0L));
+        assertThat(JournalSegments.listSegments(directory).length, is(0));
+
+        assertThat(publisher.publish(11L), is(true));
+        for (long i = 4; i <= 11; i++)
+        {
+            assertThat(ringBuffer.get(i).get(), is(i));
+        }
+    }
+
+    @Test
+    public void shouldFeedBackOverflowLogLeftByEarlierPublisher() throws Exception
+    {
+        final File directory = folder.newFolder("overflow");
+        final SpillingRingPublisher<LongEvent, Long> first = newPublisher(directory);
+        for (long i = 0; i < 7; i++)
+        {
+            first.publish(i);
+        }
+        first.close();
+
+        final SpillingRingPublisher<LongEvent, Long> second = newPublisher(directory);
+        assertThat(second.getSpilledCount(), is(3L));
+        assertThat(second.publish(7L), is(false));
+
+        consumer.set(3);
+        assertThat(second.refill(), is(0L));
+        for (long i = 0; i < 8; i++)
+        {
+            assertThat(ringBuffer.get(i).get(), is(i));
+        }
+    }
+
+    @Test
+    public void shouldNotFeedBackEventsAgainAfterClose() throws Exception
+    {
+        final File directory = folder.newFolder("overflow");
+        final SpillingRingPublisher<LongEvent, Long> first = newPublisher(directory);
+        for (long i = 0; i < 10; i++)
+        {
+            first.publish(i);
+        }
+        consumer.set(1);
+        assertThat(first.refill(), is(4L));
+        first.close();
+
+        final SpillingRingPublisher<LongEvent, Long> second = newPublisher(directory);
+        assertThat(second.getSpilledCount(), is(4L));
+
+        consumer.set(9);
+        assertThat(second.refill(), is(0L));
+        assertThat(ringBuffer.getCursor(), is(9L));
+        for (long i = 2; i < 10; i++)
+        {
+            assertThat(ringBuffer.get(i).get(), is(i));
+        }
+        assertThat(directory.list().length, is(0));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void shouldRejectPublishAfterClose() throws Exception
+    {
+        final SpillingRingPublisher<LongEvent, Long> publisher = newPublisher(folder.newFolder("overflow"));
+        for (long i = 0; i < 6; i++)
+        {
+            publisher.publish(i);
+        }
+        publisher.close();
+
+        publisher.publish(6L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchLargerThanHighWaterMark() throws Exception
+    {
+        new SpillingRingPublisher<LongEvent, Long>(
+            ringBuffer, TRANSLATOR, SERIALIZER, REPLAY_TRANSLATOR, folder.newFolder("overflow"), 64, 8, 4, 5);
+    }
+
+    private SpillingRingPublisher<LongEvent, Long> newPublisher(final File directory) throws Exception
+    {
+        return new SpillingRingPublisher<LongEvent, Long>(
+            ringBuffer, TRANSLATOR, SERIALIZER, REPLAY_TRANSLATOR, directory, 64, 8, 4, 2);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventPoller;
+
+public class DoubleRingBufferTest
+{
+    private final DoubleRingBuffer ringBuffer = DoubleRingBuffer.createMultiProducer(4, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldPutAndPollValues() throws Exception
+    {
+        final EventPoller<DoubleRingBuffer.DoubleEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+
+        ringBuffer.put(0.5D);
+        ringBuffer.put(new double[]{2.25D, 4.0D}, 0, 2);
+        assertThat(ringBuffer.get(2), is(4.0D));
+        assertThat(ringBuffer.tryPut(0.5D), is(true));
+        assertThat(ringBuffer.tryPut(0.5D), is(false));
+
+        final double[] total = new double[1];
+        poller.poll(
+            new EventPoller.Handler<DoubleRingBuffer.DoubleEvent>()
+            {
+                @Override
+                public boolean onEvent(final DoubleRingBuffer.DoubleEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    total[0] += event.get();
+                    return true;
+                }
+            });
+
+        assertThat(total[0], is(0.5D + 2.25D + 4.0D + 0.5D));
+        assertThat(ringBuffer.remainingCapacity(), is(4L));
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventPoller;
+
+public class IntRingBufferTest
+{
+    private final IntRingBuffer ringBuffer = IntRingBuffer.createMultiProducer(4, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldPutAndPollValues() throws Exception
+    {
+        final EventPoller<IntRingBuffer.IntEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+
+        ringBuffer.put(3);
+        ringBuffer.put(new int[]{2, 7}, 0, 2);
+        assertThat(ringBuffer.get(2), is(7));
+        assertThat(ringBuffer.tryPut(3), is(true));
+        assertThat(ringBuffer.tryPut(3), is(false));
+
+        final int[] total = new int[1];
+        poller.poll(
+            new EventPoller.Handler<IntRingBuffer.IntEvent>()
+            {
+                @Override
+                public boolean onEvent(final IntRingBuffer.IntEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    total[0] += event.get();
+                    return true;
+                }
+            });
+
+        assertThat(total[0], is(3 + 2 + 7 + 3));
+        assertThat(ringBuffer.remainingCapacity(), is(4L));
+    }
+}
@@ -0,0 +1,182 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.primitive;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.BatchEventProcessor;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.EventPoller;
+import com.lmax.disruptor.LifecycleAware;
+import com.lmax.disruptor.Sequence;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.util.DaemonThreadFactory;
+
+public class LongRingBufferTest
+{
+    private final LongRingBuffer ringBuffer = LongRingBuffer.createSingleProducer(8, new BlockingWaitStrategy());
+
+    @Test
+    public void shouldPutAndGetValues() throws Exception
+    {
+        ringBuffer.put(42L);
+        ringBuffer.put(new long[]{1L, 2L, 3L, 4L}, 1, 2);
+
+        assertThat(ringBuffer.getCursor(), is(2L));
+        assertThat(ringBuffer.get(0), is(42L));
+        assertThat(ringBuffer.get(1), is(2L));
+        assertThat(ringBuffer.get(2), is(3L));
+        assertThat(ringBuffer.isPublished(2), is(true));
+    }
+
+    @Test
+    public void shouldNotPutWhenFull() throws Exception
+    {
+        final Sequence consumer = new Sequence();
+        ringBuffer.addGatingSequences(consumer);
+
+        for (int i = 0; i < 8; i++)
+        {
+            assertThat(ringBuffer.tryPut(i), is(true));
+        }
+
+        assertThat(ringBuffer.tryPut(8L), is(false));
+        assertThat(ringBuffer.remainingCapacity(), is(0L));
+
+        consumer.set(0);
+        assertThat(ringBuffer.tryPut(8L), is(true));
+        assertThat(ringBuffer.get(8), is(8L));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchLargerThanRing() throws Exception
+    {
+        ringBuffer.put(new long[9], 0, 9);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void shouldRejectBatchOverrunningArray() throws Exception
+    {
+        ringBuffer.put(new long[4], 2, 3);
+    }
+
+    @Test
+    public void shouldProcessValuesWithBatchEventProcessor() throws Exception
+    {
+        final LongRingBuffer multi = LongRingBuffer.create(ProducerType.MULTI, 64, new BlockingWaitStrategy());
+        final int count = 1000;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final CountDownLatch started = new CountDownLatch(1);
+        final long[] total = new long[1];
+
+        final BatchEventProcessor<LongRingBuffer.LongEvent> processor = multi.createProcessor(new LifecycleLongHandler()
+        {
+            @Override
+            public void onEvent(final long value, final long sequence, final boolean endOfBatch)
+            {
+                total[0] += value;
+                latch.countDown();
+            }
+
+            @Override
+            public void onStart()
+            {
+                started.countDown();
+            }
+
+            @Override
+            public void onShutdown()
+            {
+            }
+        });
+        multi.addGatingSequences(processor.getSequence());
+
+        final Thread thread = DaemonThreadFactory.INSTANCE.newThread(processor);
+        thread.start();
+
+        final long[] batch = new long[10];
+        for (int i = 0; i < count; i += batch.length)
+        {
+            for (int j = 0; j < batch.length; j++)
+            {
+                batch[j] = i + j;
+            }
+            multi.put(batch, 0, batch.length);
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(started.getCount(), is(0L));
+        processor.halt();
+        thread.join();
+
+        assertThat(total[0], is((long) count * (count - 1) / 2));
+    }
+
+    @Test
+    public void shouldPollValues() throws Exception
+    {
+        final EventPoller<LongRingBuffer.LongEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+
+        ringBuffer.put(new long[]{5L, 6L, 7L}, 0, 3);
+
+        final long[] total = new long[1];
+        final EventPoller.PollState state = poller.poll(
+            new EventPoller.Handler<LongRingBuffer.LongEvent>()
+            {
+                @Override
+                public boolean onEvent(final LongRingBuffer.LongEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    assertThat(event.getSequence(), is(sequence));
+                    total[0] += event.get();
+                    return true;
+                }
+            });
+
+        assertThat(state, is(EventPoller.PollState.PROCESSING));
+        assertThat(total[0], is(18L));
+        assertThat(poller.getSequence().get(), is(2L));
+    }
+
+    @Test
+    public void shouldDrainValuesAcrossWrapPoint() throws Exception
+    {
+        final EventPoller<LongRingBuffer.LongEvent> poller = ringBuffer.newPoller();
+        ringBuffer.addGatingSequences(poller.getSequence());
+
+        ringBuffer.put(new long[]{1L, 2L, 3L, 4L, 5L, 6L}, 0, 6);
+        final long[] sink = new long[8];
+        assertThat(ringBuffer.drainTo(poller, sink, 0, 8), is(6));
+
+        ringBuffer.put(new long[]{7L, 8L, 9L, 10L, 11L}, 0, 5);
+        assertThat(ringBuffer.drainTo(poller, sink, 1, 4), is(4));
+
+        assertThat(sink, is(new long[]{1L, 7L, 8L, 9L, 10L, 6L, 0L, 0L}));
+        assertThat(poller.getSequence().get(), is(9L));
+        assertThat(ringBuffer.drainTo(poller, sink, 7, 8), is(1));
+        assertThat(sink[7], is(11L));
+    }
+
+    private interface LifecycleLongHandler extends LongRingBuffer.LongHandler, LifecycleAware
+    {
+    }
+}
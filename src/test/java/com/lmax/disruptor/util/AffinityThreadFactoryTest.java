@@ -0,0 +1,104 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+public class AffinityThreadFactoryTest
+{
+    private final List<Integer> pinnedCpus = new ArrayList<Integer>();
+    private final AffinityThreadFactory.Pinner recordingPinner = new AffinityThreadFactory.Pinner()
+    {
+        @Override
+        public void pinCurrentThread(final int cpu) throws Exception
+        {
+            if (cpu == 3)
+            {
+                throw new IllegalStateException("cpu3 is offline");
+            }
+            synchronized (pinnedCpus)
+            {
+                pinnedCpus.add(cpu);
+            }
+        }
+    };
+
+    @Test
+    public void shouldPinThreadsToCpusInOrderOfCreation() throws Exception
+    {
+        final AffinityThreadFactory factory =
+            new AffinityThreadFactory(DaemonThreadFactory.INSTANCE, Arrays.asList(5, 7), recordingPinner);
+
+        runToCompletion(factory.newThread(new NoOp()));
+        runToCompletion(factory.newThread(new NoOp()));
+
+        assertThat(pinnedCpus, is(Arrays.asList(5, 7)));
+        assertThat(factory.getPlacements().get(1).getCpu(), is(7));
+        assertThat(factory.getPlacements().get(1).isPinned(), is(true));
+    }
+
+    @Test
+    public void shouldPinCallingThreadNextToProcessors() throws Exception
+    {
+        final AffinityThreadFactory factory =
+            new AffinityThreadFactory(DaemonThreadFactory.INSTANCE, Arrays.asList(1, 2), recordingPinner);
+
+        runToCompletion(factory.newThread(new NoOp()));
+        final AffinityThreadFactory.Placement placement = factory.pinCurrentThread();
+
+        assertThat(placement.getCpu(), is(2));
+        assertThat(placement.getThreadName(), is(Thread.currentThread().getName()));
+        assertThat(pinnedCpus, is(Arrays.asList(1, 2)));
+    }
+
+    @Test
+    public void shouldReportThreadsThatCouldNotBePinned() throws Exception
+    {
+        final AffinityThreadFactory factory =
+            new AffinityThreadFactory(DaemonThreadFactory.INSTANCE, Arrays.asList(3), recordingPinner);
+
+        runToCompletion(factory.newThread(new NoOp()));
+        runToCompletion(factory.newThread(new NoOp()));
+
+        final List<AffinityThreadFactory.Placement> placements = factory.getPlacements();
+        assertThat(placements.get(0).isPinned(), is(false));
+        assertThat(placements.get(0).getDetail(), is("cpu3 is offline"));
+        assertThat(placements.get(1).getCpu(), is(-1));
+        assertThat(placements.get(1).isPinned(), is(false));
+        assertThat(pinnedCpus.isEmpty(), is(true));
+    }
+
+    private static void runToCompletion(final Thread thread) throws InterruptedException
+    {
+        thread.start();
+        thread.join();
+    }
+
+    private static final class NoOp implements Runnable
+    {
+        @Override
+        public void run()
+        {
+        }
+    }
+}
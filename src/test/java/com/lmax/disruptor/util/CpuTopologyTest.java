@@ -0,0 +1,106 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CpuTopologyTest
+{
+    @Rule
+    public final TemporaryFolder sysfs = new TemporaryFolder();
+
+    @Test
+    public void shouldParseKernelCpuLists()
+    {
+        assertThat(CpuTopology.parseCpuList("0-3,8,10-11\n"), is(Arrays.asList(0, 1, 2, 3, 8, 10, 11)));
+        assertThat(CpuTopology.parseCpuList(""), is(Collections.<Integer>emptyList()));
+    }
+
+    @Test
+    public void shouldReadTopology() throws Exception
+    {
+        writeTwoSocketsWithHyperThreads();
+
+        final CpuTopology topology = CpuTopology.read(sysfs.getRoot());
+
+        assertThat(topology.getCpus().size(), is(8));
+        assertThat(topology.getCpus().get(3).getCoreId(), is(1));
+        assertThat(topology.getCpus().get(3).getPackageId(), is(1));
+        assertThat(topology.getIsolatedCpus().isEmpty(), is(true));
+    }
+
+    @Test
+    public void shouldSelectOneCpuPerCoreSkippingFirstCoreAndGroupedByPackage() throws Exception
+    {
+        writeTwoSocketsWithHyperThreads();
+
+        final CpuTopology topology = CpuTopology.read(sysfs.getRoot());
+
+        assertThat(topology.selectCpusForPinning(), is(Arrays.asList(1, 2, 3)));
+    }
+
+    @Test
+    public void shouldSelectOnlyIsolatedCpusWhenThereAreAny() throws Exception
+    {
+        writeTwoSocketsWithHyperThreads();
+        write("isolated", "2-3,6-7");
+
+        final CpuTopology topology = CpuTopology.read(sysfs.getRoot());
+
+        assertThat(topology.getIsolatedCpus(), is(new HashSet<Integer>(Arrays.asList(2, 3, 6, 7))));
+        assertThat(topology.selectCpusForPinning(), is(Arrays.asList(2, 3)));
+    }
+
+    /**
+     * Packages 0 and 1 of two cores each, cpuN and cpuN+4 are hyper-thread siblings.
+     */
+    private void writeTwoSocketsWithHyperThreads() throws IOException
+    {
+        write("online", "0-7");
+        for (int cpu = 0; cpu < 8; cpu++)
+        {
+            write("cpu" + cpu + "/topology/core_id", Integer.toString(cpu % 2));
+            write("cpu" + cpu + "/topology/physical_package_id", Integer.toString((cpu % 4) / 2));
+        }
+    }
+
+    private void write(final String path, final String content) throws IOException
+    {
+        final File file = new File(sysfs.getRoot(), path);
+        file.getParentFile().mkdirs();
+        final FileWriter writer = new FileWriter(file);
+        try
+        {
+            writer.write(content + "\n");
+        }
+        finally
+        {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright 2011 LMAX Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.lmax.disruptor.util;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assume.assumeTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ParkingProducerWaitStrategy;
+import com.lmax.disruptor.ParkingWaitStrategy;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.ProducerType;
+import com.lmax.disruptor.support.StubEvent;
+
+public class VirtualThreadFactoryTest
+{
+    @Test(expected = UnsupportedOperationException.class)
+    public void shouldRejectCreationWhenUnsupported()
+    {
+        assumeTrue(!VirtualThreadFactory.isSupported());
+
+        new VirtualThreadFactory();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void shouldRunDisruptorOnVirtualThreads() throws Exception
+    {
+        assumeTrue(VirtualThreadFactory.isSupported());
+
+        final int count = 100;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final Disruptor<StubEvent> disruptor = new Disruptor<StubEvent>(
+            StubEvent.EVENT_FACTORY, 4, new VirtualThreadFactory("tenant-"),
+            ProducerType.MULTI, new ParkingWaitStrategy(), new ParkingProducerWaitStrategy());
+        disruptor.handleEventsWith(
+            new EventHandler<StubEvent>()
+            {
+                @Override
+                public void onEvent(final StubEvent event, final long sequence, final boolean endOfBatch)
+                {
+                    latch.countDown();
+                }
+            });
+        final RingBuffer<StubEvent> ringBuffer = disruptor.start();
+
+        for (int i = 0; i < count; i++)
+        {
+            ringBuffer.publish(ringBuffer.next());
+        }
+
+        assertThat(latch.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(disruptor.toString(), containsString("name=tenant-0"));
+        disruptor.halt();
+    }
+}